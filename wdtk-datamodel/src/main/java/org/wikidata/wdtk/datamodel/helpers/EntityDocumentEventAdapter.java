@@ -0,0 +1,183 @@
+package org.wikidata.wdtk.datamodel.helpers;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.Map;
+
+import org.wikidata.wdtk.datamodel.implementation.DatatypeIdImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityEventHandler;
+import org.wikidata.wdtk.datamodel.interfaces.FormDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LabeledDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.SenseDocument;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
+import org.wikidata.wdtk.datamodel.interfaces.SomeValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
+
+/**
+ * {@link EntityDocumentProcessor} that reports the contents of the documents it
+ * receives to an {@link EntityEventHandler}. This makes it possible to use
+ * event handlers wherever entity documents are available, e.g., for XML dumps
+ * or together with document filters.
+ * <p>
+ * Terms are reported before site links, and statements after both. Forms and
+ * senses of lexemes are reported after the statements of the lexeme.
+ */
+public class EntityDocumentEventAdapter implements EntityDocumentProcessor {
+
+	private final EntityEventHandler handler;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param handler
+	 *            the handler to report the contents of the documents to
+	 */
+	public EntityDocumentEventAdapter(EntityEventHandler handler) {
+		this.handler = handler;
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		handler.startEntity(itemDocument.getEntityId().getId(), "item");
+		reportTerms(itemDocument);
+		for (SiteLink siteLink : itemDocument.getSiteLinks().values()) {
+			handler.sitelink(siteLink.getSiteKey(), siteLink.getPageTitle());
+		}
+		reportStatements(itemDocument);
+		handler.endEntity();
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		handler.startEntity(propertyDocument.getEntityId().getId(), "property");
+		reportTerms(propertyDocument);
+		handler.datatype(DatatypeIdImpl.getJsonDatatypeFromDatatypeIri(
+				propertyDocument.getDatatype().getIri()));
+		reportStatements(propertyDocument);
+		handler.endEntity();
+	}
+
+	@Override
+	public void processLexemeDocument(LexemeDocument lexemeDocument) {
+		handler.startEntity(lexemeDocument.getEntityId().getId(), "lexeme");
+		for (MonolingualTextValue lemma : lexemeDocument.getLemmas().values()) {
+			handler.lemma(lemma.getLanguageCode(), lemma.getText());
+		}
+		reportStatements(lexemeDocument);
+		for (FormDocument form : lexemeDocument.getForms()) {
+			handler.startEntity(form.getEntityId().getId(), "form");
+			for (MonolingualTextValue representation : form.getRepresentations().values()) {
+				handler.representation(representation.getLanguageCode(), representation.getText());
+			}
+			reportStatements(form);
+			handler.endEntity();
+		}
+		for (SenseDocument sense : lexemeDocument.getSenses()) {
+			handler.startEntity(sense.getEntityId().getId(), "sense");
+			for (MonolingualTextValue gloss : sense.getGlosses().values()) {
+				handler.gloss(gloss.getLanguageCode(), gloss.getText());
+			}
+			reportStatements(sense);
+			handler.endEntity();
+		}
+		handler.endEntity();
+	}
+
+	@Override
+	public void processMediaInfoDocument(MediaInfoDocument mediaInfoDocument) {
+		handler.startEntity(mediaInfoDocument.getEntityId().getId(), "mediainfo");
+		reportLabels(mediaInfoDocument);
+		reportStatements(mediaInfoDocument);
+		handler.endEntity();
+	}
+
+	private void reportLabels(LabeledDocument document) {
+		for (MonolingualTextValue label : document.getLabels().values()) {
+			handler.label(label.getLanguageCode(), label.getText());
+		}
+	}
+
+	private void reportTerms(TermedDocument document) {
+		reportLabels(document);
+		for (MonolingualTextValue description : document.getDescriptions().values()) {
+			handler.description(description.getLanguageCode(), description.getText());
+		}
+		for (Map.Entry<String, List<MonolingualTextValue>> entry : document.getAliases().entrySet()) {
+			for (MonolingualTextValue alias : entry.getValue()) {
+				handler.alias(alias.getLanguageCode(), alias.getText());
+			}
+		}
+	}
+
+	private void reportStatements(StatementDocument document) {
+		for (StatementGroup statementGroup : document.getStatementGroups()) {
+			String propertyId = statementGroup.getProperty().getId();
+			for (Statement statement : statementGroup) {
+				handler.statement(propertyId, statement.getRank());
+				Snak mainSnak = statement.getMainSnak();
+				if (mainSnak instanceof ValueSnak) {
+					handler.mainSnakValue(mainSnak.getValue());
+				} else if (mainSnak instanceof SomeValueSnak) {
+					handler.mainSnakSomeValue();
+				} else {
+					handler.mainSnakNoValue();
+				}
+				for (SnakGroup snakGroup : statement.getQualifiers()) {
+					for (Snak snak : snakGroup) {
+						handler.qualifier(snak.getPropertyId().getId(), getSnakType(snak), snak.getValue());
+					}
+				}
+				for (Reference reference : statement.getReferences()) {
+					handler.reference();
+					for (SnakGroup snakGroup : reference.getSnakGroups()) {
+						for (Snak snak : snakGroup) {
+							handler.referenceSnak(snak.getPropertyId().getId(), getSnakType(snak), snak.getValue());
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static String getSnakType(Snak snak) {
+		if (snak instanceof ValueSnak) {
+			return EntityEventHandler.SNAK_TYPE_VALUE;
+		} else if (snak instanceof SomeValueSnak) {
+			return EntityEventHandler.SNAK_TYPE_SOMEVALUE;
+		} else {
+			return EntityEventHandler.SNAK_TYPE_NOVALUE;
+		}
+	}
+}
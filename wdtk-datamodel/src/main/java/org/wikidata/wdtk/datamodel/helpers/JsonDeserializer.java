@@ -22,6 +22,7 @@ package org.wikidata.wdtk.datamodel.helpers;
 
 import java.io.IOException;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectReader;
 import org.wikidata.wdtk.datamodel.implementation.*;
 import org.wikidata.wdtk.datamodel.interfaces.*;
@@ -46,6 +47,7 @@ public class JsonDeserializer {
 	private ObjectReader lexemeReader;
 	private ObjectReader mediaInfoReader;
 	private ObjectReader entityRedirectReader;
+	private JsonStreamReader streamReader;
 	
 	/**
 	 * Constructs a new JSON deserializer for the 
@@ -55,6 +57,25 @@ public class JsonDeserializer {
 	 * 		Root IRI of the site to deserialize for
 	 */
 	public JsonDeserializer(String siteIri) {
+		this(siteIri, false);
+	}
+
+	/**
+	 * Constructs a new JSON deserializer for the
+	 * designated site, which reads entity documents with
+	 * a {@link JsonStreamReader} if streaming is enabled.
+	 * This is faster than the annotation-driven deserialization
+	 * of Jackson and produces the same objects.
+	 *
+	 * @param siteIri
+	 * 		Root IRI of the site to deserialize for
+	 * @param streaming
+	 * 		whether entity documents should be read by a {@link JsonStreamReader}
+	 */
+	public JsonDeserializer(String siteIri, boolean streaming) {
+		if (streaming) {
+			streamReader = new JsonStreamReader(siteIri);
+		}
 		DatamodelMapper mapper = new DatamodelMapper(siteIri);
 		entityDocumentReader = mapper.readerFor(EntityDocumentImpl.class)
 				.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
@@ -76,6 +97,9 @@ public class JsonDeserializer {
 			if the JSON payload is invalid
 	 */
 	public ItemDocument deserializeItemDocument(String json) throws IOException {
+		if (streamReader != null) {
+			return readDocument(json, ItemDocument.class);
+		}
 		return itemReader.readValue(json);
 	}
 	
@@ -85,6 +109,9 @@ public class JsonDeserializer {
 			if the JSON payload is invalid
 	 */
 	public PropertyDocument deserializePropertyDocument(String json) throws IOException {
+		if (streamReader != null) {
+			return readDocument(json, PropertyDocument.class);
+		}
 		return propertyReader.readValue(json);
 	}
 
@@ -94,6 +121,9 @@ public class JsonDeserializer {
 			if the JSON payload is invalid
 	 */
 	public LexemeDocument deserializeLexemeDocument(String json) throws IOException {
+		if (streamReader != null) {
+			return readDocument(json, LexemeDocument.class);
+		}
 		return lexemeReader.readValue(json);
 	}
 	
@@ -103,6 +133,9 @@ public class JsonDeserializer {
 			if the JSON payload is invalid
 	 */
 	public MediaInfoDocument deserializeMediaInfoDocument(String json) throws IOException {
+		if (streamReader != null) {
+			return readDocument(json, MediaInfoDocument.class);
+		}
 		return mediaInfoReader.readValue(json);
 	}
 	
@@ -112,6 +145,9 @@ public class JsonDeserializer {
 			if the JSON payload is invalid
 	 */
 	public EntityDocument deserializeEntityDocument(String json) throws IOException {
+		if (streamReader != null) {
+			return streamReader.readEntityDocument(json);
+		}
 		return entityDocumentReader.readValue(json);
 	}
 
@@ -123,4 +159,13 @@ public class JsonDeserializer {
 	public EntityRedirectDocument deserializeEntityRedirectDocument(String json) throws IOException {
 		return entityRedirectReader.readValue(json);
 	}
+
+	private <T extends EntityDocument> T readDocument(String json, Class<T> documentClass) throws IOException {
+		EntityDocument document = streamReader.readEntityDocument(json);
+		if (!documentClass.isInstance(document)) {
+			throw new JsonMappingException(null, "Expected a " + documentClass.getSimpleName()
+					+ " but got a document for " + document.getEntityId());
+		}
+		return documentClass.cast(document);
+	}
 }
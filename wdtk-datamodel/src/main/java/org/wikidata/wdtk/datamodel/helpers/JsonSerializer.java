@@ -22,10 +22,11 @@ package org.wikidata.wdtk.datamodel.helpers;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.StringWriter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.implementation.JsonStreamWriter;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentDumpProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
@@ -47,7 +48,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * do this.
  * <p>
  * Implementations of the data model are expected to be appropriately serializable
- * to JSON with Jackson.
+ * to JSON with Jackson. Documents of the Jackson implementation of this library
+ * are written directly to the output stream with a {@link JsonStreamWriter},
+ * which produces the same output without Jackson's reflection-based
+ * serialization.
  *
  * @author Markus Kroetzsch
  *
@@ -56,15 +60,25 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 
 	private static final Logger logger = LoggerFactory.getLogger(JsonSerializer.class);
 
-	private static final byte[] JSON_START_LIST = "[\n".getBytes(StandardCharsets.UTF_8);
-	private static final byte[] JSON_SEP = ",\n".getBytes(StandardCharsets.UTF_8);
-	private static final byte[] JSON_END_LIST = "\n]".getBytes(StandardCharsets.UTF_8);
+	private static final String JSON_START_LIST = "[\n";
+	private static final String JSON_SEP = ",\n";
+	private static final String JSON_END_LIST = "\n]";
 
 	/**
 	 * The stream that the resulting JSON is written to.
 	 */
 	private final OutputStream outputStream;
 
+	/**
+	 * The generator that writes to {@link #outputStream}.
+	 */
+	private final JsonGenerator generator;
+
+	/**
+	 * The writer used to serialize documents to {@link #generator}.
+	 */
+	private final JsonStreamWriter writer;
+
 	/**
 	 * Object mapper that is used to serialize JSON.
 	 */
@@ -88,6 +102,16 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 	 */
 	public JsonSerializer(OutputStream outputStream) {
 		this.outputStream = outputStream;
+		JsonGenerator jsonGenerator = null;
+		try {
+			jsonGenerator = mapper.getFactory().createGenerator(outputStream);
+			// documents are separated by JSON_SEP only
+			jsonGenerator.setRootValueSeparator(null);
+		} catch (IOException e) {
+			reportException(e);
+		}
+		this.generator = jsonGenerator;
+		this.writer = new JsonStreamWriter(this.generator);
 	}
 
 	@Override
@@ -95,7 +119,7 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 		this.entityDocumentCount = 0;
 
 		try {
-			this.outputStream.write(JSON_START_LIST);
+			this.generator.writeRaw(JSON_START_LIST);
 		} catch (IOException e) {
 			reportException(e);
 		}
@@ -124,7 +148,8 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 	@Override
 	public void close() {
 		try {
-			this.outputStream.write(JSON_END_LIST);
+			this.generator.writeRaw(JSON_END_LIST);
+			this.generator.flush();
 			this.outputStream.close();
 		} catch (IOException e) {
 			reportException(e);
@@ -163,9 +188,9 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 	private void serializeEntityDocument(EntityDocument entityDocument) {
 		try {
 			if (this.entityDocumentCount > 0) {
-				this.outputStream.write(JSON_SEP);
+				this.generator.writeRaw(JSON_SEP);
 			}
-			mapper.writeValue(this.outputStream, entityDocument);
+			this.writer.writeEntityDocument(entityDocument);
 		} catch (IOException e) {
 			reportException(e);
 		}
@@ -181,7 +206,7 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 	 * @return JSON serialization or null
 	 */
 	public static String getJsonString(ItemDocument itemDocument) {
-		return jacksonObjectToString(itemDocument);
+		return streamToString(itemDocument);
 	}
 
 	/**
@@ -193,7 +218,7 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 	 * @return JSON serialization or null
 	 */
 	public static String getJsonString(PropertyDocument propertyDocument) {
-		return jacksonObjectToString(propertyDocument);
+		return streamToString(propertyDocument);
 	}
 
 	/**
@@ -205,7 +230,7 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 	 * @return JSON serialization or null
 	 */
 	public static String getJsonString(MediaInfoDocument mediaInfoDocument) {
-		return jacksonObjectToString(mediaInfoDocument);
+		return streamToString(mediaInfoDocument);
 	}
 
 	/**
@@ -217,7 +242,32 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 	 * @return JSON serialization or null
 	 */
 	public static String getJsonString(Statement statement) {
-		return jacksonObjectToString(statement);
+		return streamToString(statement);
+	}
+
+	/**
+	 * Serializes the given entity document or statement in JSON with a
+	 * {@link JsonStreamWriter} and returns the resulting string. In case of
+	 * errors, null is returned and an error is logged.
+	 *
+	 * @param object
+	 *            {@link EntityDocument} or {@link Statement} to serialize
+	 * @return JSON serialization or null
+	 */
+	private static String streamToString(Object object) {
+		StringWriter stringWriter = new StringWriter();
+		try (JsonGenerator jsonGenerator = mapper.getFactory().createGenerator(stringWriter)) {
+			JsonStreamWriter writer = new JsonStreamWriter(jsonGenerator);
+			if (object instanceof Statement) {
+				writer.writeStatement((Statement) object);
+			} else {
+				writer.writeEntityDocument((EntityDocument) object);
+			}
+		} catch (IOException e) {
+			logger.error("Failed to serialize JSON data: " + e.toString());
+			return null;
+		}
+		return stringWriter.toString();
 	}
 
 	/**
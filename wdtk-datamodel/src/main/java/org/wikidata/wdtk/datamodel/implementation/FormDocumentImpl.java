@@ -101,9 +101,10 @@ public class FormDocumentImpl extends StatementDocumentImpl implements FormDocum
 	}
 
 	/**
-	 * Copy constructor, used when creating modified copies of forms.
+	 * Copy constructor, used when creating modified copies of forms
+	 * and by {@link JsonStreamReader}.
 	 */
-	private FormDocumentImpl(
+	FormDocumentImpl(
 			FormIdValue id,
 			Map<String,MonolingualTextValue> representations,
 			List<ItemIdValue> grammaticalFeatures,
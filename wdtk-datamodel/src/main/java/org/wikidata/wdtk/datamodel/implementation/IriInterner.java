@@ -0,0 +1,66 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global pool of IRI strings that occur in very many values, such as units of
+ * quantities or calendar models of times. Deserialized values that use the
+ * same IRI then share one string object instead of each keeping its own copy.
+ * <p>
+ * The pool is bounded: once it is full, new IRIs are returned unchanged.
+ */
+final class IriInterner {
+
+	/**
+	 * Maximal number of IRIs kept in the pool.
+	 */
+	static final int MAX_SIZE = 100000;
+
+	private static final Map<String, String> IRIS = new ConcurrentHashMap<>();
+
+	private IriInterner() {
+	}
+
+	/**
+	 * Returns a canonical string object equal to the given IRI.
+	 *
+	 * @param iri
+	 *            the IRI to intern, may be null
+	 * @return an equal string, shared with other values if possible
+	 */
+	static String intern(String iri) {
+		if (iri == null) {
+			return null;
+		}
+		String interned = IRIS.get(iri);
+		if (interned != null) {
+			return interned;
+		}
+		if (IRIS.size() >= MAX_SIZE) {
+			return iri;
+		}
+		interned = IRIS.putIfAbsent(iri, iri);
+		return interned == null ? iri : interned;
+	}
+}
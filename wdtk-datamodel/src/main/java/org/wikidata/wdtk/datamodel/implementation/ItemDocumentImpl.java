@@ -103,8 +103,8 @@ public class ItemDocumentImpl extends TermedStatementDocumentImpl
 	@JsonCreator
 	public ItemDocumentImpl(
 			@JsonProperty("id") String jsonId,
-			@JsonProperty("labels") @JsonDeserialize(contentAs=TermImpl.class) Map<String, MonolingualTextValue> labels,
-			@JsonProperty("descriptions") @JsonDeserialize(contentAs=TermImpl.class) Map<String, MonolingualTextValue> descriptions,
+			@JsonProperty("labels") @JsonDeserialize(using = TermsDeserializer.class) Map<String, MonolingualTextValue> labels,
+			@JsonProperty("descriptions") @JsonDeserialize(using = TermsDeserializer.class) Map<String, MonolingualTextValue> descriptions,
 			@JsonProperty("aliases") @JsonDeserialize(using = AliasesDeserializer.class) Map<String, List<MonolingualTextValue>> aliases,
 			@JsonProperty("claims") Map<String, List<StatementImpl.PreStatement>> claims,
 			@JsonProperty("sitelinks") Map<String, SiteLink> sitelinks,
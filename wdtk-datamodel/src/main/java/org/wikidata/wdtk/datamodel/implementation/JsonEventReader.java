@@ -0,0 +1,896 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.helpers.Equality;
+import org.wikidata.wdtk.datamodel.helpers.Hash;
+import org.wikidata.wdtk.datamodel.helpers.ToString;
+import org.wikidata.wdtk.datamodel.interfaces.EntityEventHandler;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.StringValue;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+import org.wikidata.wdtk.datamodel.interfaces.ValueVisitor;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Reads entities from a {@link JsonParser} and reports their contents to an
+ * {@link EntityEventHandler}, without building entity documents.
+ * <p>
+ * Strings, monolingual texts, item ids, property ids and globe coordinates
+ * are given to the handler as mutable flyweight objects that are reused for
+ * later values. Statement data is kept in reusable records until the rank of
+ * the statement, which comes late in the JSON serialization, has been read.
+ * Property ids are taken from the JSON keys, which the parser canonicalizes.
+ * Once the buffers have grown to the size of the largest statement, reading an
+ * entity thus only allocates the strings and the values of other types.
+ * <p>
+ * Instances are not thread-safe. Use one reader per thread.
+ */
+public class JsonEventReader {
+
+	private static final int TERM_LABEL = 0;
+	private static final int TERM_DESCRIPTION = 1;
+	private static final int TERM_ALIAS = 2;
+	private static final int TERM_LEMMA = 3;
+	private static final int TERM_REPRESENTATION = 4;
+	private static final int TERM_GLOSS = 5;
+
+	private final DatamodelMapper mapper;
+
+	private final FlyweightValueReader valueReader;
+
+	private JsonParser parser;
+
+	private EntityEventHandler handler;
+
+	/**
+	 * Record for the statement that is being read.
+	 */
+	private StatementRank rank;
+	private final SnakRecord mainSnak = new SnakRecord();
+	private final List<SnakRecord> qualifiers = new ArrayList<>();
+	private int qualifierCount;
+	private final List<SnakRecord> referenceSnaks = new ArrayList<>();
+	private int referenceSnakCount;
+	private int[] referenceEnds = new int[4];
+	private int referenceCount;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param siteIri
+	 *            the root IRI of the site that the entities belong to
+	 */
+	public JsonEventReader(String siteIri) {
+		this.mapper = new DatamodelMapper(siteIri);
+		this.valueReader = new FlyweightValueReader(siteIri, mapper);
+	}
+
+	/**
+	 * Creates a parser for the given input stream. Parsers created by this
+	 * method share the symbol table of this reader.
+	 *
+	 * @param inputStream
+	 *            the stream to read JSON from
+	 * @return the parser
+	 * @throws IOException
+	 *             if the parser could not be created
+	 */
+	public JsonParser createParser(InputStream inputStream) throws IOException {
+		return mapper.getFactory().createParser(inputStream);
+	}
+
+	/**
+	 * Creates a parser for the given JSON string. Parsers created by this
+	 * method share the symbol table of this reader.
+	 *
+	 * @param json
+	 *            the JSON string to parse
+	 * @return the parser
+	 * @throws IOException
+	 *             if the parser could not be created
+	 */
+	public JsonParser createParser(String json) throws IOException {
+		return mapper.getFactory().createParser(json);
+	}
+
+	/**
+	 * Reads an entity from a JSON string and reports it to the given handler.
+	 *
+	 * @param json
+	 *            the JSON serialization of the entity
+	 * @param handler
+	 *            the handler to report the contents of the entity to
+	 * @throws IOException
+	 *             if the JSON is not valid
+	 */
+	public void readEntity(String json, EntityEventHandler handler) throws IOException {
+		try (JsonParser jsonParser = createParser(json)) {
+			readEntity(jsonParser, handler);
+		}
+	}
+
+	/**
+	 * Reads the next entity from the given parser and reports it to the given
+	 * handler. The parser should either be positioned on the
+	 * {@link JsonToken#START_OBJECT} token of the entity, or not have read any
+	 * token yet. After the call, the parser is positioned on the matching
+	 * {@link JsonToken#END_OBJECT} token.
+	 * <p>
+	 * If the JSON turns out to be invalid, an exception is thrown after some
+	 * events of the entity might have been reported already.
+	 *
+	 * @param jsonParser
+	 *            the parser to read from
+	 * @param handler
+	 *            the handler to report the contents of the entity to
+	 * @throws IOException
+	 *             if the JSON is not valid
+	 */
+	public void readEntity(JsonParser jsonParser, EntityEventHandler handler) throws IOException {
+		if (jsonParser.currentToken() == null) {
+			jsonParser.nextToken();
+		}
+		this.parser = jsonParser;
+		this.handler = handler;
+		try {
+			readEntity((String) null);
+		} catch (IllegalArgumentException | NullPointerException e) {
+			throw JsonMappingException.from(jsonParser, e.getMessage(), e);
+		} finally {
+			this.parser = null;
+			this.handler = null;
+		}
+	}
+
+	/**
+	 * Reads an entity, starting from its {@link JsonToken#START_OBJECT} token.
+	 * Fields that come before the type and the id are buffered and reported
+	 * once the entity has been started.
+	 *
+	 * @param defaultType
+	 *            the JSON type to assume if the entity does not specify it, or
+	 *            null if it must be given
+	 */
+	private void readEntity(String defaultType) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			throw new JsonMappingException(parser, "Unexpected entity serialization");
+		}
+		String type = defaultType;
+		String id = null;
+		boolean started = false;
+		TokenBuffer pendingFields = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			if (!started && "type".equals(field)) {
+				type = parser.getValueAsString();
+			} else if (!started && "id".equals(field)) {
+				id = parser.getValueAsString();
+			} else if (started) {
+				readField(field);
+			} else {
+				if (pendingFields == null) {
+					pendingFields = new TokenBuffer(parser);
+					pendingFields.writeStartObject();
+				}
+				pendingFields.writeFieldName(field);
+				pendingFields.copyCurrentStructure(parser);
+			}
+			if (!started && type != null && id != null) {
+				started = true;
+				handler.startEntity(id, type);
+				if (pendingFields != null) {
+					readBufferedFields(pendingFields);
+				}
+			}
+		}
+		if (type == null) {
+			throw new JsonMappingException(parser, "Missing type of entity");
+		}
+		if (id == null) {
+			throw new JsonMappingException(parser, "Missing id of entity");
+		}
+		handler.endEntity();
+	}
+
+	private void readBufferedFields(TokenBuffer buffer) throws IOException {
+		buffer.writeEndObject();
+		JsonParser entityParser = parser;
+		try (JsonParser bufferParser = buffer.asParser(mapper)) {
+			parser = bufferParser;
+			parser.nextToken();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				readField(field);
+			}
+		} finally {
+			parser = entityParser;
+		}
+	}
+
+	private void readField(String field) throws IOException {
+		switch (field) {
+		case "labels":
+			readTerms(TERM_LABEL);
+			break;
+		case "descriptions":
+			readTerms(TERM_DESCRIPTION);
+			break;
+		case "aliases":
+			readAliases();
+			break;
+		case "lemmas":
+			readTerms(TERM_LEMMA);
+			break;
+		case "representations":
+			readTerms(TERM_REPRESENTATION);
+			break;
+		case "glosses":
+			readTerms(TERM_GLOSS);
+			break;
+		case "claims":
+		case "statements":
+			readClaims();
+			break;
+		case "sitelinks":
+			readSiteLinks();
+			break;
+		case "datatype":
+			handler.datatype(parser.getValueAsString());
+			break;
+		case "forms":
+			readChildEntities(EntityDocumentImpl.JSON_TYPE_FORM);
+			break;
+		case "senses":
+			readChildEntities(EntityDocumentImpl.JSON_TYPE_SENSE);
+			break;
+		default:
+			parser.skipChildren();
+		}
+	}
+
+	/**
+	 * Checks that the current token starts an object. Empty arrays and null
+	 * are accepted and reported as missing objects.
+	 *
+	 * @return true if an object starts, false if there is none
+	 */
+	private boolean startObject() throws IOException {
+		JsonToken token = parser.currentToken();
+		if (token == JsonToken.START_OBJECT) {
+			return true;
+		} else if (token == JsonToken.VALUE_NULL) {
+			return false;
+		} else if (token == JsonToken.START_ARRAY && parser.nextToken() == JsonToken.END_ARRAY) {
+			return false;
+		}
+		throw new JsonMappingException(parser, "Unexpected token " + token + ", expected an object");
+	}
+
+	/**
+	 * Checks that the current token starts an array.
+	 *
+	 * @return true if an array starts, false if the value is null
+	 */
+	private boolean startArray() throws IOException {
+		JsonToken token = parser.currentToken();
+		if (token == JsonToken.START_ARRAY) {
+			return true;
+		} else if (token == JsonToken.VALUE_NULL) {
+			return false;
+		}
+		throw new JsonMappingException(parser, "Unexpected token " + token + ", expected an array");
+	}
+
+	private void readChildEntities(String type) throws IOException {
+		if (startArray()) {
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				readEntity(type);
+			}
+		}
+	}
+
+	private void readTerms(int kind) throws IOException {
+		if (!startObject()) {
+			return;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String key = parser.getCurrentName();
+			parser.nextToken();
+			readTerm(kind, key);
+		}
+	}
+
+	private void readAliases() throws IOException {
+		if (!startObject()) {
+			return;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String key = parser.getCurrentName();
+			parser.nextToken();
+			if (startArray()) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					readTerm(TERM_ALIAS, key);
+				}
+			}
+		}
+	}
+
+	private void readTerm(int kind, String key) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			throw new JsonMappingException(parser, "Unexpected term serialization");
+		}
+		String language = null;
+		String text = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			if ("language".equals(field)) {
+				language = parser.getValueAsString();
+			} else if ("value".equals(field)) {
+				text = parser.getValueAsString();
+			} else {
+				parser.skipChildren();
+			}
+		}
+		if (language == null) {
+			language = key;
+		}
+		switch (kind) {
+		case TERM_LABEL:
+			handler.label(language, text);
+			break;
+		case TERM_DESCRIPTION:
+			handler.description(language, text);
+			break;
+		case TERM_ALIAS:
+			handler.alias(language, text);
+			break;
+		case TERM_LEMMA:
+			handler.lemma(language, text);
+			break;
+		case TERM_REPRESENTATION:
+			handler.representation(language, text);
+			break;
+		default:
+			handler.gloss(language, text);
+		}
+	}
+
+	private void readSiteLinks() throws IOException {
+		if (!startObject()) {
+			return;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String key = parser.getCurrentName();
+			parser.nextToken();
+			if (!startObject()) {
+				continue;
+			}
+			String site = null;
+			String title = null;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				if ("title".equals(field)) {
+					title = parser.getValueAsString();
+				} else if ("site".equals(field)) {
+					site = parser.getValueAsString();
+				} else {
+					parser.skipChildren();
+				}
+			}
+			handler.sitelink((site == null) ? key : site, title);
+		}
+	}
+
+	private void readClaims() throws IOException {
+		if (!startObject()) {
+			return;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String propertyId = parser.getCurrentName();
+			parser.nextToken();
+			if (startArray()) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					readStatement(propertyId);
+				}
+			}
+		}
+	}
+
+	private void readStatement(String propertyId) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			throw new JsonMappingException(parser, "Unexpected statement serialization");
+		}
+		rank = null;
+		mainSnak.snakType = null;
+		qualifierCount = 0;
+		referenceSnakCount = 0;
+		referenceCount = 0;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			switch (field) {
+			case "mainsnak":
+				readSnak(mainSnak, propertyId);
+				break;
+			case "rank":
+				rank = readRank();
+				break;
+			case "qualifiers":
+				qualifierCount = readSnakGroups(qualifiers, qualifierCount);
+				break;
+			case "references":
+				readReferences();
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+		if (rank == null) {
+			throw new JsonMappingException(parser, "Missing rank of statement");
+		}
+		if (mainSnak.snakType == null) {
+			throw new JsonMappingException(parser, "Missing main snak of statement");
+		}
+
+		handler.statement(propertyId, rank);
+		switch (mainSnak.snakType) {
+		case EntityEventHandler.SNAK_TYPE_VALUE:
+			handler.mainSnakValue(mainSnak.value);
+			break;
+		case EntityEventHandler.SNAK_TYPE_SOMEVALUE:
+			handler.mainSnakSomeValue();
+			break;
+		default:
+			handler.mainSnakNoValue();
+		}
+		for (int i = 0; i < qualifierCount; i++) {
+			SnakRecord qualifier = qualifiers.get(i);
+			handler.qualifier(qualifier.propertyId, qualifier.snakType, qualifier.value);
+		}
+		int snakIndex = 0;
+		for (int i = 0; i < referenceCount; i++) {
+			handler.reference();
+			for (; snakIndex < referenceEnds[i]; snakIndex++) {
+				SnakRecord snak = referenceSnaks.get(snakIndex);
+				handler.referenceSnak(snak.propertyId, snak.snakType, snak.value);
+			}
+		}
+	}
+
+	private void readReferences() throws IOException {
+		if (!startArray()) {
+			return;
+		}
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			if (parser.currentToken() != JsonToken.START_OBJECT) {
+				throw new JsonMappingException(parser, "Unexpected reference serialization");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				if ("snaks".equals(field)) {
+					referenceSnakCount = readSnakGroups(referenceSnaks, referenceSnakCount);
+				} else {
+					parser.skipChildren();
+				}
+			}
+			if (referenceCount == referenceEnds.length) {
+				referenceEnds = Arrays.copyOf(referenceEnds, 2 * referenceCount);
+			}
+			referenceEnds[referenceCount++] = referenceSnakCount;
+		}
+	}
+
+	/**
+	 * Reads snaks grouped by property into the given pool of records.
+	 *
+	 * @param records
+	 *            the records to read the snaks into, extended if needed
+	 * @param count
+	 *            the number of records already in use
+	 * @return the number of records in use after reading the snaks
+	 */
+	private int readSnakGroups(List<SnakRecord> records, int count) throws IOException {
+		if (!startObject()) {
+			return count;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String propertyId = parser.getCurrentName();
+			parser.nextToken();
+			if (startArray()) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					if (count == records.size()) {
+						records.add(new SnakRecord());
+					}
+					readSnak(records.get(count++), propertyId);
+				}
+			}
+		}
+		return count;
+	}
+
+	private void readSnak(SnakRecord record, String propertyId) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			throw new JsonMappingException(parser, "Unexpected snak serialization");
+		}
+		record.propertyId = propertyId;
+		record.snakType = null;
+		record.value = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			if ("snaktype".equals(field)) {
+				record.snakType = readSnakType();
+			} else if ("datavalue".equals(field)) {
+				valueReader.target = record;
+				record.value = valueReader.readValue(parser);
+			} else {
+				parser.skipChildren();
+			}
+		}
+		if (record.snakType == null) {
+			throw new JsonMappingException(parser, "Missing snak type");
+		}
+		if (record.snakType != EntityEventHandler.SNAK_TYPE_VALUE) {
+			record.value = null;
+		} else if (record.value == null) {
+			throw new JsonMappingException(parser, "Missing value of value snak");
+		}
+	}
+
+	private String readSnakType() throws IOException {
+		if (textEquals(EntityEventHandler.SNAK_TYPE_VALUE)) {
+			return EntityEventHandler.SNAK_TYPE_VALUE;
+		} else if (textEquals(EntityEventHandler.SNAK_TYPE_SOMEVALUE)) {
+			return EntityEventHandler.SNAK_TYPE_SOMEVALUE;
+		} else if (textEquals(EntityEventHandler.SNAK_TYPE_NOVALUE)) {
+			return EntityEventHandler.SNAK_TYPE_NOVALUE;
+		}
+		throw new JsonMappingException(parser, "Unsupported snak type \"" + parser.getText() + "\"");
+	}
+
+	private StatementRank readRank() throws IOException {
+		if (textEquals("normal")) {
+			return StatementRank.NORMAL;
+		} else if (textEquals("preferred")) {
+			return StatementRank.PREFERRED;
+		} else if (textEquals("deprecated")) {
+			return StatementRank.DEPRECATED;
+		}
+		throw new JsonMappingException(parser, "Unsupported rank \"" + parser.getText() + "\"");
+	}
+
+	/**
+	 * Compares the current string token with the given string, without
+	 * creating a string for the token.
+	 */
+	private boolean textEquals(String expected) throws IOException {
+		if (parser.currentToken() != JsonToken.VALUE_STRING
+				|| parser.getTextLength() != expected.length()) {
+			return false;
+		}
+		char[] chars = parser.getTextCharacters();
+		int offset = parser.getTextOffset();
+		for (int i = 0; i < expected.length(); i++) {
+			if (chars[offset + i] != expected.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reusable record of a snak, with the flyweights for its value.
+	 */
+	private static class SnakRecord {
+		String propertyId;
+		String snakType;
+		Value value;
+
+		final FlyweightStringValue string = new FlyweightStringValue();
+		final FlyweightMonolingualTextValue monolingualText = new FlyweightMonolingualTextValue();
+		final FlyweightItemIdValue itemId = new FlyweightItemIdValue();
+		final FlyweightPropertyIdValue propertyIdValue = new FlyweightPropertyIdValue();
+		final FlyweightGlobeCoordinatesValue globeCoordinates = new FlyweightGlobeCoordinatesValue();
+	}
+
+	/**
+	 * Value reader that returns the flyweights of the current snak record.
+	 */
+	private static class FlyweightValueReader extends JsonValueReader {
+
+		SnakRecord target;
+
+		FlyweightValueReader(String siteIri, DatamodelMapper mapper) {
+			super(siteIri, mapper);
+		}
+
+		@Override
+		protected Value makeStringValue(String string) {
+			target.string.string = string;
+			return target.string;
+		}
+
+		@Override
+		protected Value makeMonolingualTextValue(String text, String language) {
+			if (text == null || language == null) {
+				return super.makeMonolingualTextValue(text, language);
+			}
+			target.monolingualText.text = text;
+			target.monolingualText.languageCode = language;
+			return target.monolingualText;
+		}
+
+		@Override
+		protected Value makeGlobeCoordinatesValue(double latitude, double longitude, double precision, String globe) {
+			if (globe == null || latitude > 90 || latitude < -90 || longitude > 360 || longitude < -360) {
+				// let the regular implementation report the problem
+				return super.makeGlobeCoordinatesValue(latitude, longitude, precision, globe);
+			}
+			FlyweightGlobeCoordinatesValue value = target.globeCoordinates;
+			value.latitude = latitude;
+			value.longitude = longitude;
+			value.precision = (precision <= 0.0) ? GlobeCoordinatesValue.PREC_ARCSECOND : precision;
+			value.globe = globe;
+			return value;
+		}
+
+		@Override
+		protected Value makeEntityIdValue(String entityType, String id, int numericId, String jsonEntityType) {
+			if (id != null && EntityIdValueImpl.JSON_ENTITY_TYPE_ITEM.equals(entityType)) {
+				target.itemId.id = id;
+				target.itemId.siteIri = siteIri;
+				return target.itemId;
+			} else if (id != null && EntityIdValueImpl.JSON_ENTITY_TYPE_PROPERTY.equals(entityType)) {
+				target.propertyIdValue.id = id;
+				target.propertyIdValue.siteIri = siteIri;
+				return target.propertyIdValue;
+			}
+			return super.makeEntityIdValue(entityType, id, numericId, jsonEntityType);
+		}
+	}
+
+	private static class FlyweightStringValue implements StringValue {
+		String string;
+
+		@Override
+		public String getString() {
+			return string;
+		}
+
+		@Override
+		public <T> T accept(ValueVisitor<T> valueVisitor) {
+			return valueVisitor.visit(this);
+		}
+
+		@Override
+		public int hashCode() {
+			return Hash.hashCode(this);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return Equality.equalsStringValue(this, obj);
+		}
+
+		@Override
+		public String toString() {
+			return ToString.toString(this);
+		}
+	}
+
+	private static class FlyweightMonolingualTextValue implements MonolingualTextValue {
+		String text;
+		String languageCode;
+
+		@Override
+		public String getText() {
+			return text;
+		}
+
+		@Override
+		public String getLanguageCode() {
+			return languageCode;
+		}
+
+		@Override
+		public <T> T accept(ValueVisitor<T> valueVisitor) {
+			return valueVisitor.visit(this);
+		}
+
+		@Override
+		public int hashCode() {
+			return Hash.hashCode(this);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return Equality.equalsMonolingualTextValue(this, obj);
+		}
+
+		@Override
+		public String toString() {
+			return ToString.toString(this);
+		}
+	}
+
+	private static class FlyweightItemIdValue implements ItemIdValue {
+		String id;
+		String siteIri;
+
+		@Override
+		public String getEntityType() {
+			return ET_ITEM;
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public String getSiteIri() {
+			return siteIri;
+		}
+
+		@Override
+		public String getIri() {
+			return siteIri + id;
+		}
+
+		@Override
+		public <T> T accept(ValueVisitor<T> valueVisitor) {
+			return valueVisitor.visit(this);
+		}
+
+		@Override
+		public int hashCode() {
+			return Hash.hashCode(this);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return Equality.equalsEntityIdValue(this, obj);
+		}
+
+		@Override
+		public String toString() {
+			return ToString.toString(this);
+		}
+	}
+
+	private static class FlyweightPropertyIdValue implements PropertyIdValue {
+		String id;
+		String siteIri;
+
+		@Override
+		public String getEntityType() {
+			return ET_PROPERTY;
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public String getSiteIri() {
+			return siteIri;
+		}
+
+		@Override
+		public String getIri() {
+			return siteIri + id;
+		}
+
+		@Override
+		public <T> T accept(ValueVisitor<T> valueVisitor) {
+			return valueVisitor.visit(this);
+		}
+
+		@Override
+		public int hashCode() {
+			return Hash.hashCode(this);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return Equality.equalsEntityIdValue(this, obj);
+		}
+
+		@Override
+		public String toString() {
+			return ToString.toString(this);
+		}
+	}
+
+	private static class FlyweightGlobeCoordinatesValue implements GlobeCoordinatesValue {
+		double latitude;
+		double longitude;
+		double precision;
+		String globe;
+
+		@Override
+		public double getLatitude() {
+			return latitude;
+		}
+
+		@Override
+		public double getLongitude() {
+			return longitude;
+		}
+
+		@Override
+		public double getPrecision() {
+			return precision;
+		}
+
+		@Override
+		public String getGlobe() {
+			return globe;
+		}
+
+		@Override
+		public ItemIdValue getGlobeItemId() {
+			return ItemIdValueImpl.fromIri(globe);
+		}
+
+		@Override
+		public <T> T accept(ValueVisitor<T> valueVisitor) {
+			return valueVisitor.visit(this);
+		}
+
+		@Override
+		public int hashCode() {
+			return Hash.hashCode(this);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return Equality.equalsGlobeCoordinatesValue(this, obj);
+		}
+
+		@Override
+		public String toString() {
+			return ToString.toString(this);
+		}
+	}
+}
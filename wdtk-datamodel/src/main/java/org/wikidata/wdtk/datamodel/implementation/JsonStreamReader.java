@@ -0,0 +1,722 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.Validate;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.FormDocument;
+import org.wikidata.wdtk.datamodel.interfaces.FormIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.SenseDocument;
+import org.wikidata.wdtk.datamodel.interfaces.SenseIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Reads entity documents from a {@link JsonParser} token by token, building
+ * the implementation objects of this package in a single pass. It is the
+ * counterpart of {@link JsonStreamWriter}: statements are created directly
+ * with their subject instead of going through
+ * {@link StatementImpl.PreStatement}, values are built from their fields
+ * without an intermediate JSON tree by a {@link JsonValueReader}, and field names are matched against
+ * the names canonicalized by the parser's symbol table, so that parsers
+ * created from the same factory (see {@link #createParser(InputStream)})
+ * share them.
+ * <p>
+ * The result is equal to what Jackson produces for
+ * {@link EntityDocumentImpl} with
+ * {@link com.fasterxml.jackson.databind.DeserializationFeature#ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT}
+ * enabled. Values of unknown types and unusual value serializations are
+ * handed over to the Jackson deserializer of {@link ValueImpl}. Invalid
+ * documents are reported as {@link JsonMappingException}s.
+ * <p>
+ * Instances are thread-safe: all state used while reading a document is
+ * local to the call.
+ */
+public class JsonStreamReader {
+
+	private final String siteIri;
+
+	private final DatamodelMapper mapper;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param siteIri
+	 *            the root IRI of the site that the documents belong to
+	 */
+	public JsonStreamReader(String siteIri) {
+		this.siteIri = siteIri;
+		this.mapper = new DatamodelMapper(siteIri);
+	}
+
+	/**
+	 * Creates a parser for the given input stream. Parsers created by this
+	 * method share the symbol table of this reader.
+	 *
+	 * @param inputStream
+	 *            the stream to read JSON from
+	 * @return the parser
+	 * @throws IOException
+	 *             if the parser could not be created
+	 */
+	public JsonParser createParser(InputStream inputStream) throws IOException {
+		return mapper.getFactory().createParser(inputStream);
+	}
+
+	/**
+	 * Creates a parser for the given JSON string. Parsers created by this
+	 * method share the symbol table of this reader.
+	 *
+	 * @param json
+	 *            the JSON string to parse
+	 * @return the parser
+	 * @throws IOException
+	 *             if the parser could not be created
+	 */
+	public JsonParser createParser(String json) throws IOException {
+		return mapper.getFactory().createParser(json);
+	}
+
+	/**
+	 * Reads an entity document from a JSON string.
+	 *
+	 * @param json
+	 *            the JSON serialization of the document
+	 * @return the document
+	 * @throws IOException
+	 *             if the JSON is not valid or does not represent a supported
+	 *             entity document
+	 */
+	public EntityDocument readEntityDocument(String json) throws IOException {
+		try (JsonParser parser = createParser(json)) {
+			return readEntityDocument(parser);
+		}
+	}
+
+	/**
+	 * Reads the next entity document from the given parser. The parser should
+	 * either be positioned on the {@link JsonToken#START_OBJECT} token of the
+	 * document, or not have read any token yet. After the call, the parser is
+	 * positioned on the matching {@link JsonToken#END_OBJECT} token.
+	 *
+	 * @param parser
+	 *            the parser to read from
+	 * @return the document
+	 * @throws IOException
+	 *             if the JSON is not valid or does not represent a supported
+	 *             entity document
+	 */
+	public EntityDocument readEntityDocument(JsonParser parser) throws IOException {
+		if (parser.currentToken() == null) {
+			parser.nextToken();
+		}
+		try {
+			return new DocumentParser(parser).readEntity(null);
+		} catch (IllegalArgumentException | NullPointerException | ClassCastException e) {
+			// validation errors of the constructors, reported like Jackson does
+			throw JsonMappingException.from(parser, e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Holds the state needed while reading one document.
+	 */
+	private class DocumentParser {
+
+		private JsonParser parser;
+
+		private final JsonValueReader valueReader = new JsonValueReader(siteIri, mapper);
+
+		DocumentParser(JsonParser parser) {
+			this.parser = parser;
+		}
+
+		/**
+		 * Reads an entity document, starting from its
+		 * {@link JsonToken#START_OBJECT} token.
+		 *
+		 * @param defaultType
+		 *            the JSON type to assume if the document does not specify
+		 *            it, or null if it must be given
+		 */
+		EntityDocument readEntity(String defaultType) throws IOException {
+			if (parser.currentToken() != JsonToken.START_OBJECT) {
+				throw new JsonMappingException(parser, "Unexpected entity document serialization");
+			}
+			String type = defaultType;
+			String id = null;
+			EntityIdValue subject = null;
+			long revisionId = 0;
+			Map<String, MonolingualTextValue> labels = null;
+			Map<String, MonolingualTextValue> descriptions = null;
+			Map<String, List<MonolingualTextValue>> aliases = null;
+			Map<String, List<Statement>> claims = null;
+			Map<String, List<Statement>> statements = null;
+			TokenBuffer pendingClaims = null;
+			TokenBuffer pendingStatements = null;
+			Map<String, SiteLink> siteLinks = null;
+			String datatype = null;
+			String lexicalCategory = null;
+			String language = null;
+			Map<String, MonolingualTextValue> lemmas = null;
+			List<FormDocument> forms = null;
+			List<SenseDocument> senses = null;
+			Map<String, MonolingualTextValue> representations = null;
+			List<ItemIdValue> grammaticalFeatures = null;
+			Map<String, MonolingualTextValue> glosses = null;
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				switch (field) {
+				case "type":
+					type = parser.getValueAsString();
+					break;
+				case "id":
+					id = parser.getValueAsString();
+					subject = (id == null) ? null : EntityIdValueImpl.fromId(id, siteIri);
+					break;
+				case "lastrevid":
+					revisionId = parser.getValueAsLong();
+					break;
+				case "labels":
+					labels = readTermMap();
+					break;
+				case "descriptions":
+					descriptions = readTermMap();
+					break;
+				case "aliases":
+					aliases = readTermListMap();
+					break;
+				case "claims":
+					if (subject != null) {
+						claims = readClaims(subject);
+					} else {
+						pendingClaims = bufferCurrentStructure();
+					}
+					break;
+				case "statements":
+					if (subject != null) {
+						statements = readClaims(subject);
+					} else {
+						pendingStatements = bufferCurrentStructure();
+					}
+					break;
+				case "sitelinks":
+					siteLinks = readSiteLinks();
+					break;
+				case "datatype":
+					datatype = parser.getValueAsString();
+					break;
+				case "lexicalCategory":
+					lexicalCategory = parser.getValueAsString();
+					break;
+				case "language":
+					language = parser.getValueAsString();
+					break;
+				case "lemmas":
+					lemmas = readTermObjectMap();
+					break;
+				case "forms":
+					forms = readChildDocuments(EntityDocumentImpl.JSON_TYPE_FORM);
+					break;
+				case "senses":
+					senses = readChildDocuments(EntityDocumentImpl.JSON_TYPE_SENSE);
+					break;
+				case "representations":
+					representations = readTermObjectMap();
+					break;
+				case "grammaticalFeatures":
+					grammaticalFeatures = readItemIdList();
+					break;
+				case "glosses":
+					glosses = readTermObjectMap();
+					break;
+				default:
+					parser.skipChildren();
+				}
+			}
+
+			if (type == null) {
+				throw new JsonMappingException(parser, "Missing type of entity document");
+			}
+			if (subject == null) {
+				throw new JsonMappingException(parser, "Missing id of entity document");
+			}
+			if (pendingClaims != null) {
+				claims = readBufferedClaims(pendingClaims, subject);
+			}
+			if (pendingStatements != null) {
+				statements = readBufferedClaims(pendingStatements, subject);
+			}
+			if (labels == null) {
+				labels = Collections.emptyMap();
+			}
+			if (descriptions == null) {
+				descriptions = Collections.emptyMap();
+			}
+			if (aliases == null) {
+				aliases = Collections.emptyMap();
+			}
+			if (claims == null) {
+				claims = Collections.emptyMap();
+			}
+
+			switch (type) {
+			case EntityDocumentImpl.JSON_TYPE_ITEM:
+				return new ItemDocumentImpl((ItemIdValue) subject, labels, descriptions, aliases, claims,
+						(siteLinks == null) ? Collections.emptyMap() : siteLinks, revisionId);
+			case EntityDocumentImpl.JSON_TYPE_PROPERTY:
+				DatatypeIdValue datatypeId = new DatatypeIdImpl(DatatypeIdImpl.getDatatypeIriFromJsonDatatype(datatype));
+				return new PropertyDocumentImpl((PropertyIdValue) subject, labels, descriptions, aliases, claims,
+						datatypeId, revisionId);
+			case EntityDocumentImpl.JSON_TYPE_MEDIA_INFO:
+				return new MediaInfoDocumentImpl((MediaInfoIdValue) subject, labels,
+						(statements == null) ? claims : statements, revisionId);
+			case EntityDocumentImpl.JSON_TYPE_LEXEME:
+				Validate.notNull(lexicalCategory, "Lexeme lexical category should not be null");
+				Validate.notNull(language, "Lexeme language should not be null");
+				Validate.notNull(lemmas, "Lexeme lemmas should not be null");
+				if (lemmas.isEmpty()) {
+					throw new IllegalArgumentException("Lexemes should have at least one lemma");
+				}
+				if (forms == null) {
+					forms = Collections.emptyList();
+				}
+				if (senses == null) {
+					senses = Collections.emptyList();
+				}
+				return new LexemeDocumentImpl((LexemeIdValue) subject,
+						new ItemIdValueImpl(lexicalCategory, siteIri), new ItemIdValueImpl(language, siteIri),
+						lemmas, claims, forms, senses, revisionId,
+						LexemeDocumentImpl.nextChildEntityId(forms), LexemeDocumentImpl.nextChildEntityId(senses));
+			case EntityDocumentImpl.JSON_TYPE_FORM:
+				Validate.notNull(representations, "Forms representations should not be null");
+				if (representations.isEmpty()) {
+					throw new IllegalArgumentException("Forms should have at least one representation");
+				}
+				return new FormDocumentImpl((FormIdValue) subject, representations,
+						(grammaticalFeatures == null) ? Collections.emptyList() : grammaticalFeatures,
+						claims, revisionId);
+			case EntityDocumentImpl.JSON_TYPE_SENSE:
+				Validate.notNull(glosses, "Senses glosses should not be null");
+				if (glosses.isEmpty()) {
+					throw new IllegalArgumentException("Senses should have at least one gloss");
+				}
+				return new SenseDocumentImpl((SenseIdValue) subject, glosses, claims, revisionId);
+			default:
+				throw new JsonMappingException(parser, "Unsupported entity document type \"" + type + "\"");
+			}
+		}
+
+		/**
+		 * Checks that the current token starts an object. Empty arrays and
+		 * null are accepted and reported as missing objects.
+		 *
+		 * @return true if an object starts, false if there is none
+		 */
+		private boolean startObject() throws IOException {
+			JsonToken token = parser.currentToken();
+			if (token == JsonToken.START_OBJECT) {
+				return true;
+			} else if (token == JsonToken.VALUE_NULL) {
+				return false;
+			} else if (token == JsonToken.START_ARRAY && parser.nextToken() == JsonToken.END_ARRAY) {
+				return false;
+			}
+			throw new JsonMappingException(parser, "Unexpected token " + token + ", expected an object");
+		}
+
+		/**
+		 * Checks that the current token starts an array.
+		 *
+		 * @return true if an array starts, false if the value is null
+		 */
+		private boolean startArray() throws IOException {
+			JsonToken token = parser.currentToken();
+			if (token == JsonToken.START_ARRAY) {
+				return true;
+			} else if (token == JsonToken.VALUE_NULL) {
+				return false;
+			}
+			throw new JsonMappingException(parser, "Unexpected token " + token + ", expected an array");
+		}
+
+		private TokenBuffer bufferCurrentStructure() throws IOException {
+			TokenBuffer buffer = new TokenBuffer(parser);
+			buffer.copyCurrentStructure(parser);
+			return buffer;
+		}
+
+		/**
+		 * Reads statements that appeared before the id of their subject.
+		 */
+		private Map<String, List<Statement>> readBufferedClaims(TokenBuffer buffer, EntityIdValue subject)
+				throws IOException {
+			JsonParser documentParser = parser;
+			try (JsonParser bufferParser = buffer.asParser(mapper)) {
+				parser = bufferParser;
+				parser.nextToken();
+				return readClaims(subject);
+			} finally {
+				parser = documentParser;
+			}
+		}
+
+		private Map<String, MonolingualTextValue> readTermMap() throws IOException {
+			TermMap.Builder builder = new TermMap.Builder();
+			if (parser.currentToken() == JsonToken.VALUE_NULL) {
+				return null;
+			}
+			if (parser.currentToken() == JsonToken.START_ARRAY) {
+				parser.skipChildren();
+				return builder.build();
+			}
+			if (parser.currentToken() != JsonToken.START_OBJECT) {
+				throw new JsonMappingException(parser, "Unexpected term map serialization");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String key = parser.getCurrentName();
+				parser.nextToken();
+				LabeledStatementDocumentImpl.readTerm(parser, key, builder, null);
+			}
+			return builder.build();
+		}
+
+		private Map<String, List<MonolingualTextValue>> readTermListMap() throws IOException {
+			TermListMap.Builder builder = new TermListMap.Builder();
+			if (parser.currentToken() == JsonToken.VALUE_NULL) {
+				return null;
+			}
+			if (parser.currentToken() == JsonToken.START_ARRAY) {
+				parser.skipChildren();
+				return builder.build();
+			}
+			if (parser.currentToken() != JsonToken.START_OBJECT) {
+				throw new JsonMappingException(parser, "Unexpected alias list serialization");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String key = parser.getCurrentName();
+				if (parser.nextToken() != JsonToken.START_ARRAY) {
+					throw new JsonMappingException(parser, "Unexpected alias list serialization");
+				}
+				builder.addAll(key, Collections.emptyList());
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					LabeledStatementDocumentImpl.readTerm(parser, key, null, builder);
+				}
+			}
+			return builder.build();
+		}
+
+		/**
+		 * Reads the terms of lexemes, forms and senses, which are stored as
+		 * {@link TermImpl} objects.
+		 */
+		private Map<String, MonolingualTextValue> readTermObjectMap() throws IOException {
+			if (!startObject()) {
+				return null;
+			}
+			Map<String, MonolingualTextValue> terms = new LinkedHashMap<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String key = parser.getCurrentName();
+				parser.nextToken();
+				if (!startObject()) {
+					terms.put(key, null);
+					continue;
+				}
+				String language = null;
+				String text = null;
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String field = parser.getCurrentName();
+					parser.nextToken();
+					if ("language".equals(field)) {
+						language = parser.getValueAsString();
+					} else if ("value".equals(field)) {
+						text = parser.getValueAsString();
+					} else {
+						parser.skipChildren();
+					}
+				}
+				terms.put(key, new TermImpl(language, text));
+			}
+			return terms;
+		}
+
+		private List<String> readStringList() throws IOException {
+			if (!startArray()) {
+				return null;
+			}
+			List<String> strings = new ArrayList<>();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				strings.add(parser.getValueAsString());
+			}
+			return strings;
+		}
+
+		private List<ItemIdValue> readItemIdList() throws IOException {
+			if (!startArray()) {
+				return null;
+			}
+			List<ItemIdValue> ids = new ArrayList<>();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				ids.add(new ItemIdValueImpl(parser.getValueAsString(), siteIri));
+			}
+			return ids.isEmpty() ? null : ids;
+		}
+
+		private Map<String, SiteLink> readSiteLinks() throws IOException {
+			if (!startObject()) {
+				return null;
+			}
+			Map<String, SiteLink> siteLinks = new LinkedHashMap<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String key = parser.getCurrentName();
+				parser.nextToken();
+				if (!startObject()) {
+					siteLinks.put(key, null);
+					continue;
+				}
+				String title = null;
+				String site = null;
+				List<String> badges = null;
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String field = parser.getCurrentName();
+					parser.nextToken();
+					switch (field) {
+					case "title":
+						title = parser.getValueAsString();
+						break;
+					case "site":
+						site = parser.getValueAsString();
+						break;
+					case "badges":
+						badges = readStringList();
+						break;
+					default:
+						parser.skipChildren();
+					}
+				}
+				siteLinks.put(key, new SiteLinkImpl(title, site, badges, siteIri));
+			}
+			return siteLinks;
+		}
+
+		@SuppressWarnings("unchecked")
+		private <T extends EntityDocument> List<T> readChildDocuments(String type) throws IOException {
+			if (!startArray()) {
+				return null;
+			}
+			List<T> documents = new ArrayList<>();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				documents.add((T) readEntity(type));
+			}
+			return documents;
+		}
+
+		private Map<String, List<Statement>> readClaims(EntityIdValue subject) throws IOException {
+			if (!startObject()) {
+				return null;
+			}
+			Map<String, List<Statement>> claims = new HashMap<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String property = parser.getCurrentName();
+				parser.nextToken();
+				List<Statement> statements = new ArrayList<>();
+				if (startArray()) {
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						statements.add(readStatement(subject));
+					}
+				}
+				claims.put(property, statements);
+			}
+			return claims;
+		}
+
+		private Statement readStatement(EntityIdValue subject) throws IOException {
+			if (parser.currentToken() != JsonToken.START_OBJECT) {
+				throw new JsonMappingException(parser, "Unexpected statement serialization");
+			}
+			String id = null;
+			StatementRank rank = null;
+			Snak mainSnak = null;
+			Map<String, List<Snak>> qualifiers = null;
+			List<String> qualifiersOrder = null;
+			List<Reference> references = null;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				switch (field) {
+				case "id":
+					id = parser.getValueAsString();
+					break;
+				case "rank":
+					String rankString = parser.getValueAsString();
+					rank = (rankString == null) ? null : StatementRank.valueOf(rankString.toUpperCase());
+					break;
+				case "mainsnak":
+					mainSnak = readSnak();
+					break;
+				case "qualifiers":
+					qualifiers = readSnakGroups();
+					break;
+				case "qualifiers-order":
+					qualifiersOrder = readStringList();
+					break;
+				case "references":
+					references = readReferences();
+					break;
+				default:
+					parser.skipChildren();
+				}
+			}
+			return new StatementImpl(id, rank, mainSnak,
+					(qualifiers == null) ? Collections.emptyMap() : qualifiers,
+					qualifiersOrder, references, subject);
+		}
+
+		private <S extends Snak> Map<String, List<S>> readSnakGroups() throws IOException {
+			if (!startObject()) {
+				return null;
+			}
+			Map<String, List<S>> snakGroups = new HashMap<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String property = parser.getCurrentName();
+				parser.nextToken();
+				List<S> snaks = new ArrayList<>();
+				if (startArray()) {
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						snaks.add(readSnak());
+					}
+				}
+				snakGroups.put(property, snaks);
+			}
+			return snakGroups;
+		}
+
+		private List<Reference> readReferences() throws IOException {
+			if (!startArray()) {
+				return null;
+			}
+			List<Reference> references = new ArrayList<>();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				if (parser.currentToken() != JsonToken.START_OBJECT) {
+					throw new JsonMappingException(parser, "Unexpected reference serialization");
+				}
+				Map<String, List<SnakImpl>> snaks = null;
+				List<String> propertyOrder = null;
+				String hash = null;
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String field = parser.getCurrentName();
+					parser.nextToken();
+					switch (field) {
+					case "snaks":
+						snaks = readSnakGroups();
+						break;
+					case "snaks-order":
+						propertyOrder = readStringList();
+						break;
+					case "hash":
+						hash = parser.getValueAsString();
+						break;
+					default:
+						parser.skipChildren();
+					}
+				}
+				references.add(new ReferenceImpl(snaks, propertyOrder, hash));
+			}
+			return references;
+		}
+
+		@SuppressWarnings("unchecked")
+		private <S extends Snak> S readSnak() throws IOException {
+			if (!startObject()) {
+				return null;
+			}
+			String snakType = null;
+			String property = null;
+			String datatype = null;
+			Value value = null;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				switch (field) {
+				case "snaktype":
+					snakType = parser.getValueAsString();
+					break;
+				case "property":
+					property = parser.getValueAsString();
+					break;
+				case "datatype":
+					datatype = parser.getValueAsString();
+					break;
+				case "datavalue":
+					value = readValue();
+					break;
+				default:
+					parser.skipChildren();
+				}
+			}
+			if (snakType == null) {
+				throw new JsonMappingException(parser, "Missing snak type");
+			}
+			switch (snakType) {
+			case "value":
+				return (S) new ValueSnakImpl(property, datatype, value, siteIri);
+			case "somevalue":
+				return (S) new SomeValueSnakImpl(property, siteIri);
+			case "novalue":
+				return (S) new NoValueSnakImpl(property, siteIri);
+			default:
+				throw new JsonMappingException(parser, "Unsupported snak type \"" + snakType + "\"");
+			}
+		}
+
+		private Value readValue() throws IOException {
+			return valueReader.readValue(parser);
+		}
+	}
+}
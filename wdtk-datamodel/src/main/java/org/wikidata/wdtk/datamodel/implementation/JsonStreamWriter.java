@@ -0,0 +1,609 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.FormDocument;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.NoValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.SenseDocument;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.SnakVisitor;
+import org.wikidata.wdtk.datamodel.interfaces.SomeValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StringValue;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.datamodel.interfaces.UnsupportedValue;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.ValueVisitor;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes the JSON serialization of entity documents directly to a
+ * {@link JsonGenerator}, without going through Jackson's reflection-based
+ * serializers. Statements, snaks and values are visited with a
+ * {@link SnakVisitor} and a {@link ValueVisitor}, and terms are read from the
+ * compact {@link TermMap} and {@link TermListMap} storage without creating
+ * intermediate objects.
+ * <p>
+ * The output is identical to the one that Jackson produces for the
+ * implementation classes of this package, including the order of fields.
+ * Objects of other implementations of the data model interfaces are handed
+ * over to the codec of the generator, which should therefore be an
+ * {@link com.fasterxml.jackson.databind.ObjectMapper}.
+ */
+public class JsonStreamWriter {
+
+	private final JsonGenerator generator;
+
+	private final SnakWriter snakWriter = new SnakWriter();
+
+	private final ValueWriter valueWriter = new ValueWriter();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param generator
+	 *            the generator to write to
+	 */
+	public JsonStreamWriter(JsonGenerator generator) {
+		this.generator = generator;
+	}
+
+	/**
+	 * Writes the JSON serialization of the given document.
+	 *
+	 * @param document
+	 *            the document to serialize
+	 * @throws IOException
+	 *             if the generator could not write the output
+	 */
+	public void writeEntityDocument(EntityDocument document) throws IOException {
+		if (document instanceof ItemDocumentImpl) {
+			writeItemDocument((ItemDocumentImpl) document);
+		} else if (document instanceof PropertyDocumentImpl) {
+			writePropertyDocument((PropertyDocumentImpl) document);
+		} else if (document instanceof LexemeDocumentImpl) {
+			writeLexemeDocument((LexemeDocumentImpl) document);
+		} else if (document instanceof MediaInfoDocumentImpl) {
+			writeMediaInfoDocument((MediaInfoDocumentImpl) document);
+		} else {
+			this.generator.writeObject(document);
+		}
+	}
+
+	/**
+	 * Writes the JSON serialization of the given statement.
+	 *
+	 * @param statement
+	 *            the statement to serialize
+	 * @throws IOException
+	 *             if the generator could not write the output
+	 */
+	public void writeStatement(Statement statement) throws IOException {
+		if (!(statement instanceof StatementImpl)) {
+			this.generator.writeObject(statement);
+			return;
+		}
+		StatementImpl statementImpl = (StatementImpl) statement;
+		this.generator.writeStartObject();
+		this.generator.writeFieldName("mainsnak");
+		writeSnak(statement.getMainSnak());
+		this.generator.writeStringField("type", "statement");
+		Map<String, List<Snak>> qualifiers = statementImpl.getJsonQualifiers();
+		if (!qualifiers.isEmpty()) {
+			this.generator.writeFieldName("qualifiers");
+			writeSnakGroups(qualifiers);
+		}
+		List<String> qualifiersOrder = statementImpl.getQualifiersOrder();
+		if (!qualifiersOrder.isEmpty()) {
+			this.generator.writeFieldName("qualifiers-order");
+			writeStrings(qualifiersOrder);
+		}
+		String statementId = statement.getStatementId();
+		if (statementId != null && !statementId.isEmpty()) {
+			this.generator.writeStringField("id", statementId);
+		}
+		this.generator.writeStringField("rank",
+				statement.getRank().name().toLowerCase());
+		List<Reference> references = statement.getReferences();
+		if (!references.isEmpty()) {
+			this.generator.writeArrayFieldStart("references");
+			for (Reference reference : references) {
+				writeReference(reference);
+			}
+			this.generator.writeEndArray();
+		}
+		this.generator.writeEndObject();
+	}
+
+	private void writeItemDocument(ItemDocumentImpl document) throws IOException {
+		this.generator.writeStartObject();
+		this.generator.writeStringField("type", EntityDocumentImpl.JSON_TYPE_ITEM);
+		writeJsonId(document);
+		this.generator.writeFieldName("labels");
+		writeTerms(document.labels);
+		this.generator.writeFieldName("descriptions");
+		writeTerms(document.descriptions);
+		this.generator.writeFieldName("aliases");
+		writeAliases(document);
+		this.generator.writeFieldName("claims");
+		writeClaims(document.getJsonClaims());
+		this.generator.writeObjectFieldStart("sitelinks");
+		for (Map.Entry<String, SiteLink> entry : document.getSiteLinks().entrySet()) {
+			this.generator.writeFieldName(entry.getKey());
+			writeSiteLink(entry.getValue());
+		}
+		this.generator.writeEndObject();
+		writeRevisionId(document);
+		this.generator.writeEndObject();
+	}
+
+	private void writePropertyDocument(PropertyDocumentImpl document) throws IOException {
+		this.generator.writeStartObject();
+		this.generator.writeStringField("type", EntityDocumentImpl.JSON_TYPE_PROPERTY);
+		writeJsonId(document);
+		this.generator.writeFieldName("labels");
+		writeTerms(document.labels);
+		this.generator.writeFieldName("descriptions");
+		writeTerms(document.descriptions);
+		this.generator.writeFieldName("aliases");
+		writeAliases(document);
+		this.generator.writeFieldName("claims");
+		writeClaims(document.getJsonClaims());
+		this.generator.writeStringField("datatype", document.getJsonDatatype());
+		writeRevisionId(document);
+		this.generator.writeEndObject();
+	}
+
+	private void writeMediaInfoDocument(MediaInfoDocumentImpl document) throws IOException {
+		this.generator.writeStartObject();
+		this.generator.writeStringField("type", EntityDocumentImpl.JSON_TYPE_MEDIA_INFO);
+		writeJsonId(document);
+		this.generator.writeFieldName("labels");
+		writeTerms(document.labels);
+		this.generator.writeFieldName("claims");
+		writeClaims(document.getJsonClaims());
+		writeRevisionId(document);
+		this.generator.writeEndObject();
+	}
+
+	private void writeLexemeDocument(LexemeDocumentImpl document) throws IOException {
+		this.generator.writeStartObject();
+		this.generator.writeStringField("type", EntityDocumentImpl.JSON_TYPE_LEXEME);
+		writeJsonId(document);
+		this.generator.writeStringField("lexicalCategory", document.getJsonLexicalCategory());
+		this.generator.writeStringField("language", document.getJsonLanguage());
+		this.generator.writeFieldName("lemmas");
+		writeTerms(document.getLemmas());
+		this.generator.writeFieldName("claims");
+		writeClaims(document.getJsonClaims());
+		this.generator.writeArrayFieldStart("forms");
+		for (FormDocument form : document.getForms()) {
+			if (form instanceof FormDocumentImpl) {
+				writeFormDocument((FormDocumentImpl) form);
+			} else {
+				this.generator.writeObject(form);
+			}
+		}
+		this.generator.writeEndArray();
+		this.generator.writeArrayFieldStart("senses");
+		for (SenseDocument sense : document.getSenses()) {
+			if (sense instanceof SenseDocumentImpl) {
+				writeSenseDocument((SenseDocumentImpl) sense);
+			} else {
+				this.generator.writeObject(sense);
+			}
+		}
+		this.generator.writeEndArray();
+		writeRevisionId(document);
+		this.generator.writeEndObject();
+	}
+
+	private void writeFormDocument(FormDocumentImpl document) throws IOException {
+		this.generator.writeStartObject();
+		writeJsonId(document);
+		this.generator.writeFieldName("representations");
+		writeTerms(document.getRepresentations());
+		this.generator.writeArrayFieldStart("grammaticalFeatures");
+		for (ItemIdValue feature : document.getGrammaticalFeatures()) {
+			this.generator.writeString(feature.getId());
+		}
+		this.generator.writeEndArray();
+		this.generator.writeFieldName("claims");
+		writeClaims(document.getJsonClaims());
+		writeRevisionId(document);
+		this.generator.writeStringField("type", EntityDocumentImpl.JSON_TYPE_FORM);
+		this.generator.writeEndObject();
+	}
+
+	private void writeSenseDocument(SenseDocumentImpl document) throws IOException {
+		this.generator.writeStartObject();
+		writeJsonId(document);
+		this.generator.writeFieldName("glosses");
+		writeTerms(document.getGlosses());
+		this.generator.writeFieldName("claims");
+		writeClaims(document.getJsonClaims());
+		writeRevisionId(document);
+		this.generator.writeStringField("type", EntityDocumentImpl.JSON_TYPE_SENSE);
+		this.generator.writeEndObject();
+	}
+
+	private void writeJsonId(EntityDocumentImpl document) throws IOException {
+		String id = document.getJsonId();
+		if (id != null && !id.isEmpty()) {
+			this.generator.writeStringField("id", id);
+		}
+	}
+
+	private void writeRevisionId(EntityDocumentImpl document) throws IOException {
+		long revisionId = document.getRevisionId();
+		if (revisionId != 0) {
+			this.generator.writeNumberField("lastrevid", revisionId);
+		}
+	}
+
+	private void writeTerms(Map<String, MonolingualTextValue> terms) throws IOException {
+		this.generator.writeStartObject();
+		if (terms instanceof TermMap) {
+			TermMap termMap = (TermMap) terms;
+			for (int i = 0; i < termMap.size(); i++) {
+				this.generator.writeFieldName(termMap.getKey(i));
+				writeTerm(termMap.getTermLanguage(i), termMap.getText(i));
+			}
+		} else {
+			for (Map.Entry<String, MonolingualTextValue> entry : terms.entrySet()) {
+				this.generator.writeFieldName(entry.getKey());
+				writeTerm(entry.getValue());
+			}
+		}
+		this.generator.writeEndObject();
+	}
+
+	private void writeAliases(TermedStatementDocumentImpl document) throws IOException {
+		this.generator.writeStartObject();
+		if (document.aliases instanceof TermListMap) {
+			TermListMap termListMap = (TermListMap) document.aliases;
+			for (int i = 0; i < termListMap.size(); i++) {
+				this.generator.writeArrayFieldStart(termListMap.getKey(i));
+				for (int j = 0; j < termListMap.getTermCount(i); j++) {
+					writeTerm(termListMap.getTermLanguage(i, j), termListMap.getText(i, j));
+				}
+				this.generator.writeEndArray();
+			}
+		} else {
+			for (Map.Entry<String, List<MonolingualTextValue>> entry : document.getAliases().entrySet()) {
+				this.generator.writeArrayFieldStart(entry.getKey());
+				for (MonolingualTextValue term : entry.getValue()) {
+					writeTerm(term);
+				}
+				this.generator.writeEndArray();
+			}
+		}
+		this.generator.writeEndObject();
+	}
+
+	private void writeTerm(MonolingualTextValue term) throws IOException {
+		if (term instanceof TermImpl) {
+			writeTerm(term.getLanguageCode(), term.getText());
+		} else {
+			this.generator.writeObject(term);
+		}
+	}
+
+	private void writeTerm(String languageCode, String text) throws IOException {
+		this.generator.writeStartObject();
+		this.generator.writeStringField("language", languageCode);
+		this.generator.writeStringField("value", text);
+		this.generator.writeEndObject();
+	}
+
+	private void writeSiteLink(SiteLink siteLink) throws IOException {
+		if (!(siteLink instanceof SiteLinkImpl)) {
+			this.generator.writeObject(siteLink);
+			return;
+		}
+		this.generator.writeStartObject();
+		this.generator.writeStringField("title", siteLink.getPageTitle());
+		this.generator.writeStringField("site", siteLink.getSiteKey());
+		this.generator.writeArrayFieldStart("badges");
+		for (ItemIdValue badge : siteLink.getBadges()) {
+			this.generator.writeString(badge.getId());
+		}
+		this.generator.writeEndArray();
+		this.generator.writeEndObject();
+	}
+
+	private void writeClaims(Map<String, List<Statement>> claims) throws IOException {
+		this.generator.writeStartObject();
+		for (Map.Entry<String, List<Statement>> entry : claims.entrySet()) {
+			this.generator.writeArrayFieldStart(entry.getKey());
+			for (Statement statement : entry.getValue()) {
+				writeStatement(statement);
+			}
+			this.generator.writeEndArray();
+		}
+		this.generator.writeEndObject();
+	}
+
+	private void writeReference(Reference reference) throws IOException {
+		if (!(reference instanceof ReferenceImpl)) {
+			this.generator.writeObject(reference);
+			return;
+		}
+		ReferenceImpl referenceImpl = (ReferenceImpl) reference;
+		this.generator.writeStartObject();
+		this.generator.writeFieldName("snaks");
+		writeSnakGroups(referenceImpl.getSnaks());
+		this.generator.writeFieldName("snaks-order");
+		writeStrings(referenceImpl.getPropertyOrder());
+		String hash = referenceImpl.getHash();
+		if (hash != null) {
+			this.generator.writeStringField("hash", hash);
+		}
+		this.generator.writeEndObject();
+	}
+
+	private void writeSnakGroups(Map<String, List<Snak>> snakGroups) throws IOException {
+		this.generator.writeStartObject();
+		for (Map.Entry<String, List<Snak>> entry : snakGroups.entrySet()) {
+			this.generator.writeArrayFieldStart(entry.getKey());
+			for (Snak snak : entry.getValue()) {
+				writeSnak(snak);
+			}
+			this.generator.writeEndArray();
+		}
+		this.generator.writeEndObject();
+	}
+
+	private void writeStrings(List<String> strings) throws IOException {
+		this.generator.writeStartArray();
+		for (String string : strings) {
+			this.generator.writeString(string);
+		}
+		this.generator.writeEndArray();
+	}
+
+	private void writeSnak(Snak snak) throws IOException {
+		if (!(snak instanceof SnakImpl)) {
+			this.generator.writeObject(snak);
+			return;
+		}
+		try {
+			snak.accept(this.snakWriter);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Writes the value of a value snak, including its "type" field, after the
+	 * "datavalue" field name has been written.
+	 */
+	private void writeValue(Value value) throws IOException {
+		if (!(value instanceof ValueImpl) || value instanceof FormIdValueImpl
+				|| value instanceof SenseIdValueImpl) {
+			this.generator.writeObject(value);
+			return;
+		}
+		try {
+			value.accept(this.valueWriter);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Writes {@link SnakImpl} objects. Visitor methods cannot throw checked
+	 * exceptions, so they are wrapped in {@link UncheckedIOException}.
+	 */
+	private class SnakWriter implements SnakVisitor<Void> {
+
+		@Override
+		public Void visit(ValueSnak snak) {
+			try {
+				generator.writeStartObject();
+				generator.writeStringField("property", snak.getPropertyId().getId());
+				if (snak instanceof ValueSnakImpl) {
+					String datatype = ((ValueSnakImpl) snak).getDatatype();
+					if (datatype != null) {
+						generator.writeStringField("datatype", datatype);
+					}
+				}
+				generator.writeFieldName("datavalue");
+				writeValue(snak.getValue());
+				generator.writeStringField("snaktype", SnakImpl.JSON_SNAK_TYPE_VALUE);
+				generator.writeEndObject();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return null;
+		}
+
+		@Override
+		public Void visit(SomeValueSnak snak) {
+			writeSnakWithoutValue(snak, SnakImpl.JSON_SNAK_TYPE_SOMEVALUE);
+			return null;
+		}
+
+		@Override
+		public Void visit(NoValueSnak snak) {
+			writeSnakWithoutValue(snak, SnakImpl.JSON_SNAK_TYPE_NOVALUE);
+			return null;
+		}
+
+		private void writeSnakWithoutValue(Snak snak, String snakType) {
+			try {
+				generator.writeStartObject();
+				generator.writeStringField("property", snak.getPropertyId().getId());
+				generator.writeStringField("snaktype", snakType);
+				generator.writeEndObject();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Writes {@link ValueImpl} objects. Visitor methods cannot throw checked
+	 * exceptions, so they are wrapped in {@link UncheckedIOException}.
+	 */
+	private class ValueWriter implements ValueVisitor<Void> {
+
+		@Override
+		public Void visit(EntityIdValue value) {
+			try {
+				if (!(value instanceof EntityIdValueImpl)) {
+					generator.writeObject(value);
+					return null;
+				}
+				EntityIdValueImpl.JacksonInnerEntityId inner = ((EntityIdValueImpl) value).getValue();
+				generator.writeStartObject();
+				generator.writeObjectFieldStart("value");
+				generator.writeStringField("id", inner.getStringId());
+				generator.writeNumberField("numeric-id", inner.getNumericId());
+				generator.writeStringField("entity-type", inner.getJsonEntityType());
+				generator.writeEndObject();
+				generator.writeStringField("type", ValueImpl.JSON_VALUE_TYPE_ENTITY_ID);
+				generator.writeEndObject();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return null;
+		}
+
+		@Override
+		public Void visit(GlobeCoordinatesValue value) {
+			try {
+				generator.writeStartObject();
+				generator.writeObjectFieldStart("value");
+				generator.writeNumberField("latitude", value.getLatitude());
+				generator.writeNumberField("longitude", value.getLongitude());
+				generator.writeNumberField("precision", value.getPrecision());
+				generator.writeStringField("globe", value.getGlobe());
+				generator.writeEndObject();
+				generator.writeStringField("type", ValueImpl.JSON_VALUE_TYPE_GLOBE_COORDINATES);
+				generator.writeEndObject();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return null;
+		}
+
+		@Override
+		public Void visit(MonolingualTextValue value) {
+			try {
+				generator.writeStartObject();
+				generator.writeObjectFieldStart("value");
+				generator.writeStringField("language", value.getLanguageCode());
+				generator.writeStringField("text", value.getText());
+				generator.writeEndObject();
+				generator.writeStringField("type", ValueImpl.JSON_VALUE_TYPE_MONOLINGUAL_TEXT);
+				generator.writeEndObject();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return null;
+		}
+
+		@Override
+		public Void visit(QuantityValue value) {
+			try {
+				QuantityValueImpl.JacksonInnerQuantity inner = ((QuantityValueImpl) value).getValue();
+				generator.writeStartObject();
+				generator.writeObjectFieldStart("value");
+				generator.writeStringField("amount", inner.getAmountAsString());
+				String bound = inner.getLowerBoundAsString();
+				if (bound != null) {
+					generator.writeStringField("lowerBound", bound);
+				}
+				bound = inner.getUpperBoundAsString();
+				if (bound != null) {
+					generator.writeStringField("upperBound", bound);
+				}
+				generator.writeStringField("unit", inner.getUnit());
+				generator.writeEndObject();
+				generator.writeStringField("type", ValueImpl.JSON_VALUE_TYPE_QUANTITY);
+				generator.writeEndObject();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return null;
+		}
+
+		@Override
+		public Void visit(StringValue value) {
+			try {
+				generator.writeStartObject();
+				generator.writeStringField("value", value.getString());
+				generator.writeStringField("type", ValueImpl.JSON_VALUE_TYPE_STRING);
+				generator.writeEndObject();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return null;
+		}
+
+		@Override
+		public Void visit(TimeValue value) {
+			try {
+				TimeValueImpl.JacksonInnerTime inner = ((TimeValueImpl) value).getValue();
+				generator.writeStartObject();
+				generator.writeObjectFieldStart("value");
+				generator.writeStringField("time", inner.getTime());
+				generator.writeNumberField("timezone", inner.getTimezone());
+				generator.writeNumberField("before", inner.getBefore());
+				generator.writeNumberField("after", inner.getAfter());
+				generator.writeNumberField("precision", inner.getPrecision());
+				generator.writeStringField("calendarmodel", inner.getCalendarmodel());
+				generator.writeEndObject();
+				generator.writeStringField("type", ValueImpl.JSON_VALUE_TYPE_TIME);
+				generator.writeEndObject();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return null;
+		}
+
+		@Override
+		public Void visit(UnsupportedValue value) {
+			try {
+				generator.writeObject(value);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return null;
+		}
+	}
+}
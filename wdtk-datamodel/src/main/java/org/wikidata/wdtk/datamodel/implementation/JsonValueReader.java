@@ -0,0 +1,435 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Reads data values token by token for {@link JsonStreamReader} and
+ * {@link JsonEventReader}. The values of the common types are created by
+ * factory methods that subclasses can override; values of unknown types and
+ * unusual serializations are handed over to the Jackson deserializer of
+ * {@link ValueImpl}.
+ * <p>
+ * Instances keep a reusable record of the fields of the value being read and
+ * are therefore not thread-safe.
+ */
+class JsonValueReader {
+
+	final String siteIri;
+
+	private final ObjectMapper mapper;
+
+	private final ValueFields valueFields = new ValueFields();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param siteIri
+	 *            the root IRI of the site that entity ids belong to
+	 * @param mapper
+	 *            the mapper used for values that are not read directly
+	 */
+	JsonValueReader(String siteIri, ObjectMapper mapper) {
+		this.siteIri = siteIri;
+		this.mapper = mapper;
+	}
+
+	/**
+	 * Reads a data value, starting from its {@link JsonToken#START_OBJECT}
+	 * token. The fields of the inner object are recorded first, since the
+	 * type of the value usually comes after it. Null and empty arrays are
+	 * read as missing values.
+	 *
+	 * @param parser
+	 *            the parser to read from
+	 * @return the value, or null if there is none
+	 * @throws IOException
+	 *             if the JSON could not be read
+	 */
+	Value readValue(JsonParser parser) throws IOException {
+		JsonToken startToken = parser.currentToken();
+		if (startToken == JsonToken.VALUE_NULL
+				|| (startToken == JsonToken.START_ARRAY && parser.nextToken() == JsonToken.END_ARRAY)) {
+			return null;
+		}
+		if (startToken != JsonToken.START_OBJECT) {
+			throw new JsonMappingException(parser, "Unexpected data value serialization");
+		}
+		ValueFields fields = valueFields;
+		fields.clear();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if ("type".equals(field) && token == JsonToken.VALUE_STRING) {
+				fields.type = parser.getText();
+			} else if ("value".equals(field)) {
+				fields.valueToken = token;
+				if (token == JsonToken.START_OBJECT) {
+					while (parser.nextToken() == JsonToken.FIELD_NAME) {
+						String name = parser.getCurrentName();
+						JsonToken fieldToken = parser.nextToken();
+						if (fieldToken.isScalarValue()) {
+							fields.add(name, fieldToken, parser.getValueAsString(), null);
+						} else {
+							fields.add(name, fieldToken, null, mapper.readTree(parser));
+						}
+					}
+				} else if (token == JsonToken.VALUE_STRING) {
+					fields.text = parser.getText();
+				} else {
+					fields.node = mapper.readTree(parser);
+				}
+			} else {
+				fields.addExtra(field, mapper.readTree(parser));
+			}
+		}
+		Value value = fields.hasExtras() ? null : buildValue(fields);
+		return (value != null) ? value : mapper.treeToValue(fields.toJsonNode(), ValueImpl.class);
+	}
+
+	/**
+	 * Builds the value from the recorded fields if it has a known type and
+	 * the expected structure, and returns null otherwise.
+	 */
+	private Value buildValue(ValueFields fields) {
+		if (fields.type == null) {
+			return null;
+		}
+		if (ValueImpl.JSON_VALUE_TYPE_STRING.equals(fields.type)) {
+			return (fields.valueToken == JsonToken.VALUE_STRING) ? makeStringValue(fields.text) : null;
+		}
+		if (fields.valueToken != JsonToken.START_OBJECT || !fields.isFlat()) {
+			return null;
+		}
+		switch (fields.type) {
+		case ValueImpl.JSON_VALUE_TYPE_ENTITY_ID:
+			return buildEntityIdValue(fields);
+		case ValueImpl.JSON_VALUE_TYPE_MONOLINGUAL_TEXT:
+			return makeMonolingualTextValue(fields.getString("text"), fields.getString("language"));
+		case ValueImpl.JSON_VALUE_TYPE_GLOBE_COORDINATES:
+			double latitude = fields.getDouble("latitude");
+			double longitude = fields.getDouble("longitude");
+			double precision = fields.getDouble("precision");
+			String globe = fields.getString("globe");
+			return fields.mismatch ? null : makeGlobeCoordinatesValue(latitude, longitude, precision, globe);
+		case ValueImpl.JSON_VALUE_TYPE_QUANTITY:
+			return new QuantityValueImpl(new QuantityValueImpl.JacksonInnerQuantity(
+					fields.getString("amount"), fields.getString("lowerBound"),
+					fields.getString("upperBound"), fields.getString("unit")));
+		case ValueImpl.JSON_VALUE_TYPE_TIME:
+			String time = fields.getString("time");
+			int timezone = fields.getInt("timezone");
+			int before = fields.getInt("before");
+			int after = fields.getInt("after");
+			int timePrecision = fields.getInt("precision");
+			String calendarModel = fields.getString("calendarmodel");
+			return fields.mismatch ? null : new TimeValueImpl(new TimeValueImpl.JacksonInnerTime(
+					time, timezone, before, after, timePrecision, calendarModel));
+		default:
+			return null;
+		}
+	}
+
+	private Value buildEntityIdValue(ValueFields fields) {
+		String id = fields.getString("id");
+		int entityTypeIndex = fields.indexOf("entity-type");
+		String entityType;
+		if (entityTypeIndex >= 0) {
+			if (fields.tokens[entityTypeIndex] != JsonToken.VALUE_STRING) {
+				return null;
+			}
+			entityType = fields.texts[entityTypeIndex];
+		} else if (id != null) {
+			try {
+				entityType = EntityIdValueImpl.guessEntityTypeFromId(id, true);
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		} else {
+			return null;
+		}
+		int numericId = fields.getInt("numeric-id");
+		if (fields.mismatch) {
+			return null;
+		}
+		return makeEntityIdValue(entityType, id, numericId, fields.getString("entity-type"));
+	}
+
+	/**
+	 * Creates a string value. Subclasses may override this to return other
+	 * implementations.
+	 *
+	 * @param string
+	 *            the string
+	 * @return the value
+	 */
+	protected Value makeStringValue(String string) {
+		return new StringValueImpl(string);
+	}
+
+	/**
+	 * Creates a monolingual text value.
+	 *
+	 * @param text
+	 *            the text, or null if it is missing
+	 * @param language
+	 *            the language code, or null if it is missing
+	 * @return the value
+	 */
+	protected Value makeMonolingualTextValue(String text, String language) {
+		return new MonolingualTextValueImpl(text, language);
+	}
+
+	/**
+	 * Creates a globe coordinates value.
+	 *
+	 * @param latitude
+	 *            the latitude
+	 * @param longitude
+	 *            the longitude
+	 * @param precision
+	 *            the precision, which may be 0 if it is missing
+	 * @param globe
+	 *            the IRI of the globe, or null if it is missing
+	 * @return the value
+	 */
+	protected Value makeGlobeCoordinatesValue(double latitude, double longitude, double precision, String globe) {
+		return new GlobeCoordinatesValueImpl(
+				new GlobeCoordinatesValueImpl.JacksonInnerGlobeCoordinates(latitude, longitude, precision, globe));
+	}
+
+	/**
+	 * Creates an entity id value.
+	 *
+	 * @param entityType
+	 *            the JSON entity type, as given or guessed from the id
+	 * @param id
+	 *            the id, or null if only the numeric id is given
+	 * @param numericId
+	 *            the numeric id, or 0 if it is not given
+	 * @param jsonEntityType
+	 *            the entity type as given in the JSON, or null
+	 * @return the value, or null if the entity type is not supported
+	 */
+	protected Value makeEntityIdValue(String entityType, String id, int numericId, String jsonEntityType) {
+		switch (entityType) {
+		case EntityIdValueImpl.JSON_ENTITY_TYPE_ITEM:
+			return new ItemIdValueImpl(new EntityIdValueImpl.JacksonInnerEntityId(
+					id, numericId, jsonEntityType), siteIri);
+		case EntityIdValueImpl.JSON_ENTITY_TYPE_PROPERTY:
+			return new PropertyIdValueImpl(new EntityIdValueImpl.JacksonInnerEntityId(
+					id, numericId, jsonEntityType), siteIri);
+		case EntityIdValueImpl.JSON_ENTITY_TYPE_LEXEME:
+			return new LexemeIdValueImpl(new EntityIdValueImpl.JacksonInnerEntityId(
+					id, numericId, jsonEntityType), siteIri);
+		case EntityIdValueImpl.JSON_ENTITY_TYPE_MEDIA_INFO:
+			return new MediaInfoIdValueImpl(new EntityIdValueImpl.JacksonInnerEntityId(
+					id, numericId, jsonEntityType), siteIri);
+		case EntityIdValueImpl.JSON_ENTITY_TYPE_FORM:
+			return (id == null) ? null : new FormIdValueImpl(id, siteIri);
+		case EntityIdValueImpl.JSON_ENTITY_TYPE_SENSE:
+			return (id == null) ? null : new SenseIdValueImpl(id, siteIri);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Reusable record of the fields of a data value, as found in the JSON.
+	 */
+	private static class ValueFields {
+
+		String type;
+		JsonToken valueToken;
+		String text;
+		JsonNode node;
+
+		String[] names = new String[8];
+		JsonToken[] tokens = new JsonToken[8];
+		String[] texts = new String[8];
+		JsonNode[] nodes = new JsonNode[8];
+		int size;
+
+		List<String> extraNames;
+		List<JsonNode> extraNodes;
+
+		/**
+		 * Set when a field did not have the type expected by the value it
+		 * was read for.
+		 */
+		boolean mismatch;
+
+		void clear() {
+			type = null;
+			valueToken = null;
+			text = null;
+			node = null;
+			for (int i = 0; i < size; i++) {
+				nodes[i] = null;
+			}
+			size = 0;
+			extraNames = null;
+			extraNodes = null;
+			mismatch = false;
+		}
+
+		void add(String name, JsonToken token, String text, JsonNode node) {
+			if (size == names.length) {
+				int capacity = 2 * size;
+				names = Arrays.copyOf(names, capacity);
+				tokens = Arrays.copyOf(tokens, capacity);
+				texts = Arrays.copyOf(texts, capacity);
+				nodes = Arrays.copyOf(nodes, capacity);
+			}
+			names[size] = name;
+			tokens[size] = token;
+			texts[size] = text;
+			nodes[size] = node;
+			size++;
+		}
+
+		void addExtra(String name, JsonNode node) {
+			if (extraNames == null) {
+				extraNames = new ArrayList<>(2);
+				extraNodes = new ArrayList<>(2);
+			}
+			extraNames.add(name);
+			extraNodes.add(node);
+		}
+
+		boolean hasExtras() {
+			return extraNames != null;
+		}
+
+		boolean isFlat() {
+			for (int i = 0; i < size; i++) {
+				if (nodes[i] != null) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		int indexOf(String name) {
+			for (int i = 0; i < size; i++) {
+				if (name.equals(names[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		String getString(String name) {
+			int i = indexOf(name);
+			return (i < 0) ? null : texts[i];
+		}
+
+		int getInt(String name) {
+			int i = indexOf(name);
+			if (i < 0 || tokens[i] == JsonToken.VALUE_NULL) {
+				return 0;
+			}
+			if (tokens[i] != JsonToken.VALUE_NUMBER_INT) {
+				mismatch = true;
+				return 0;
+			}
+			return Integer.parseInt(texts[i]);
+		}
+
+		double getDouble(String name) {
+			int i = indexOf(name);
+			if (i < 0 || tokens[i] == JsonToken.VALUE_NULL) {
+				return 0.0;
+			}
+			if (!tokens[i].isNumeric()) {
+				mismatch = true;
+				return 0.0;
+			}
+			return Double.parseDouble(texts[i]);
+		}
+
+		/**
+		 * Rebuilds the JSON tree of the value, for deserialization by
+		 * Jackson.
+		 */
+		JsonNode toJsonNode() {
+			JsonNodeFactory factory = JsonNodeFactory.instance;
+			ObjectNode root = factory.objectNode();
+			if (valueToken == JsonToken.START_OBJECT) {
+				ObjectNode value = root.putObject("value");
+				for (int i = 0; i < size; i++) {
+					value.set(names[i], (nodes[i] != null) ? nodes[i] : scalarNode(factory, tokens[i], texts[i]));
+				}
+			} else if (valueToken == JsonToken.VALUE_STRING) {
+				root.put("value", text);
+			} else if (valueToken != null) {
+				root.set("value", node);
+			}
+			if (type != null) {
+				root.put("type", type);
+			}
+			if (extraNames != null) {
+				for (int i = 0; i < extraNames.size(); i++) {
+					root.set(extraNames.get(i), extraNodes.get(i));
+				}
+			}
+			return root;
+		}
+
+		private static JsonNode scalarNode(JsonNodeFactory factory, JsonToken token, String text) {
+			switch (token) {
+			case VALUE_STRING:
+				return factory.textNode(text);
+			case VALUE_NUMBER_INT:
+				BigInteger number = new BigInteger(text);
+				if (number.bitLength() < 32) {
+					return factory.numberNode(number.intValue());
+				} else if (number.bitLength() < 64) {
+					return factory.numberNode(number.longValue());
+				}
+				return factory.numberNode(number);
+			case VALUE_NUMBER_FLOAT:
+				return factory.numberNode(Double.parseDouble(text));
+			case VALUE_TRUE:
+				return factory.booleanNode(true);
+			case VALUE_FALSE:
+				return factory.booleanNode(false);
+			default:
+				return factory.nullNode();
+			}
+		}
+	}
+}
@@ -22,10 +22,15 @@ package org.wikidata.wdtk.datamodel.implementation;
 
 import com.fasterxml.jackson.annotation.JacksonInject;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import org.wikidata.wdtk.datamodel.interfaces.*;
 
+import java.io.IOException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -104,28 +109,85 @@ abstract class LabeledStatementDocumentImpl extends StatementDocumentImpl implem
 	}
 
 	protected static Map<String, MonolingualTextValue> constructTermMap(List<MonolingualTextValue> terms) {
-		Map<String, MonolingualTextValue> map = new HashMap<>();
+		TermMap.Builder builder = new TermMap.Builder();
 		for(MonolingualTextValue term : terms) {
-			String language = term.getLanguageCode();
-			if(map.containsKey(language)) {
-				throw new IllegalArgumentException("Multiple terms provided for the same language.");
-			}
-			map.put(language, toTerm(term));
+			builder.put(term);
 		}
-		return map;
+		return builder.build();
 	}
 
 	protected static Map<String, MonolingualTextValue> withTerm(
 			Map<String, MonolingualTextValue> values, MonolingualTextValue value) {
-		Map<String, MonolingualTextValue> newValues = new HashMap<>(values);
-		newValues.put(value.getLanguageCode(), toTerm(value));
-		return newValues;
+		TermMap.Builder builder = new TermMap.Builder();
+		for(Map.Entry<String, MonolingualTextValue> entry : values.entrySet()) {
+			if(!entry.getKey().equals(value.getLanguageCode())) {
+				MonolingualTextValue term = entry.getValue();
+				builder.put(entry.getKey(), term.getLanguageCode(), term.getText());
+			}
+		}
+		builder.put(value);
+		return builder.build();
+	}
+
+	/**
+	 * Reads a term in its JSON serialization. The parser must be positioned on
+	 * the start of the JSON object of the term, and is left on its end.
+	 */
+	static void readTerm(JsonParser jp, String key, TermMap.Builder termMap, TermListMap.Builder termListMap)
+			throws IOException {
+		if (jp.currentToken() != JsonToken.START_OBJECT) {
+			throw new JsonMappingException(jp, "Unexpected term serialization");
+		}
+		String language = null;
+		String value = null;
+		while (jp.nextToken() == JsonToken.FIELD_NAME) {
+			String field = jp.getCurrentName();
+			jp.nextToken();
+			if ("language".equals(field)) {
+				language = jp.getValueAsString();
+			} else if ("value".equals(field)) {
+				value = jp.getValueAsString();
+			} else {
+				jp.skipChildren();
+			}
+		}
+		if (language == null || value == null) {
+			throw new JsonMappingException(jp, "Unexpected term serialization");
+		}
+		if (termMap != null) {
+			termMap.put(key, language, value);
+		} else {
+			termListMap.add(key, language, value);
+		}
 	}
 
 	/**
-	 * We need to make sure the terms are of the right type, otherwise they will not be serialized correctly.
+	 * A deserializer for labels and descriptions that builds {@link TermMap}s
+	 * directly from the JSON tokens. Empty arrays are accepted as empty maps.
 	 */
-	private static MonolingualTextValue toTerm(MonolingualTextValue term) {
-		return term instanceof TermImpl ? term : new TermImpl(term.getLanguageCode(), term.getText());
+	static class TermsDeserializer extends JsonDeserializer<Map<String, MonolingualTextValue>> {
+
+		@Override
+		public Map<String, MonolingualTextValue> deserialize(
+				JsonParser jp, DeserializationContext ctxt) throws IOException {
+			TermMap.Builder builder = new TermMap.Builder();
+			if (jp.currentToken() == JsonToken.START_ARRAY) {
+				jp.skipChildren();
+				return builder.build();
+			}
+			if (jp.currentToken() != JsonToken.START_OBJECT) {
+				throw new JsonMappingException(jp, "Unexpected term map serialization");
+			}
+			while (jp.nextToken() == JsonToken.FIELD_NAME) {
+				String key = jp.getCurrentName();
+				jp.nextToken();
+				readTerm(jp, key, builder, null);
+			}
+			try {
+				return builder.build();
+			} catch (IllegalArgumentException e) {
+				throw new JsonMappingException(jp, "Unexpected term map serialization", e);
+			}
+		}
 	}
 }
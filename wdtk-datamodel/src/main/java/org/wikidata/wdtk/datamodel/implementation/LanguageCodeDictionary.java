@@ -0,0 +1,135 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wikidata.wdtk.datamodel.interfaces.WikimediaLanguageCodes;
+
+/**
+ * Global dictionary that assigns small integer ids to language codes, so that
+ * term maps can store languages as <code>short</code> values instead of
+ * repeating the language code strings. The dictionary is initialized with all
+ * codes known to {@link WikimediaLanguageCodes}, in lexicographic order, and
+ * unknown codes are appended when they are first encountered. Ids are never
+ * reassigned.
+ * <p>
+ * Lookups are lock-free; only the registration of new codes is synchronized.
+ */
+final class LanguageCodeDictionary {
+
+	/**
+	 * The largest number of language codes that the dictionary can hold, so
+	 * that all ids fit into a positive <code>short</code>.
+	 */
+	static final int MAX_SIZE = Short.MAX_VALUE + 1;
+
+	private static final Map<String, Short> IDS = new ConcurrentHashMap<>();
+
+	/**
+	 * Language codes indexed by their ids. The array is volatile and
+	 * reassigned after every registration, so that readers always see the
+	 * codes of the ids they obtained.
+	 */
+	private static volatile String[] codes;
+
+	private static int size = 0;
+
+	static {
+		String[] knownCodes = WikimediaLanguageCodes.getKnownLanguageCodes()
+				.toArray(new String[0]);
+		Arrays.sort(knownCodes);
+		codes = new String[Math.max(16, 2 * knownCodes.length)];
+		for (String code : knownCodes) {
+			register(code);
+		}
+	}
+
+	private LanguageCodeDictionary() {
+	}
+
+	/**
+	 * Returns the id of the given language code, or -1 if this code has not
+	 * been registered yet.
+	 *
+	 * @param languageCode
+	 *            the language code to look up
+	 * @return the id of the code, or -1 if unknown
+	 */
+	static int getId(String languageCode) {
+		Short id = IDS.get(languageCode);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the id of the given language code, registering it first if
+	 * needed.
+	 *
+	 * @param languageCode
+	 *            the language code to look up
+	 * @return the id of the code, or -1 if the dictionary is full
+	 */
+	static int getOrCreateId(String languageCode) {
+		Short id = IDS.get(languageCode);
+		if (id != null) {
+			return id;
+		}
+		synchronized (LanguageCodeDictionary.class) {
+			id = IDS.get(languageCode);
+			if (id != null) {
+				return id;
+			}
+			return register(languageCode);
+		}
+	}
+
+	/**
+	 * Returns the language code with the given id.
+	 *
+	 * @param id
+	 *            an id previously returned by this dictionary
+	 * @return the language code
+	 */
+	static String getLanguageCode(int id) {
+		return codes[id];
+	}
+
+	/**
+	 * Registers a new language code. Must be called while holding the class
+	 * lock, or from the static initializer.
+	 */
+	private static int register(String languageCode) {
+		if (size == MAX_SIZE) {
+			return -1;
+		}
+		String[] current = codes;
+		if (size == current.length) {
+			current = Arrays.copyOf(current, Math.min(MAX_SIZE, 2 * size));
+		}
+		current[size] = languageCode;
+		// publish the array before the id becomes visible
+		codes = current;
+		IDS.put(languageCode, (short) size);
+		return size++;
+	}
+}
@@ -136,9 +136,10 @@ public class LexemeDocumentImpl extends StatementDocumentImpl implements LexemeD
 	}
 	
 	/**
-	 * Copy constructor, used when creating modified copies of lexemes.
+	 * Copy constructor, used when creating modified copies of lexemes
+	 * and by {@link JsonStreamReader}.
 	 */
-	private LexemeDocumentImpl(
+	LexemeDocumentImpl(
 			LexemeIdValue id,
 			ItemIdValue lexicalCategory,
 			ItemIdValue language,
@@ -179,7 +180,7 @@ public class LexemeDocumentImpl extends StatementDocumentImpl implements LexemeD
 
 	private static final Pattern CHILD_ID_PATTERN = Pattern.compile("^L\\d+-[FS]([1-9]\\d*)$");
 
-	private static int nextChildEntityId(List<? extends EntityDocument> childrenDocuments) {
+	static int nextChildEntityId(List<? extends EntityDocument> childrenDocuments) {
 		int maxId = 0;
 		for(EntityDocument document : childrenDocuments) {
 			Matcher matcher = CHILD_ID_PATTERN.matcher(document.getEntityId().getId());
@@ -73,7 +73,7 @@ public class MediaInfoDocumentImpl extends LabeledStatementDocumentImpl implemen
 	@JsonCreator
 	public MediaInfoDocumentImpl(
 			@JsonProperty("id") String jsonId,
-			@JsonProperty("labels") @JsonDeserialize(contentAs=TermImpl.class) Map<String, MonolingualTextValue> labels,
+			@JsonProperty("labels") @JsonDeserialize(using = TermsDeserializer.class) Map<String, MonolingualTextValue> labels,
 			@JsonProperty("claims") Map<String, List<StatementImpl.PreStatement>> claims,
 			@JsonProperty("statements") Map<String, List<StatementImpl.PreStatement>> statements,
 			@JsonProperty("lastrevid") long revisionId,
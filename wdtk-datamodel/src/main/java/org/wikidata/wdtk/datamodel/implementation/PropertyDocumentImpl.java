@@ -97,8 +97,8 @@ public class PropertyDocumentImpl extends TermedStatementDocumentImpl
 	@JsonCreator
 	public PropertyDocumentImpl(
 			@JsonProperty("id") String jsonId,
-			@JsonProperty("labels") @JsonDeserialize(contentAs=TermImpl.class) Map<String, MonolingualTextValue> labels,
-			@JsonProperty("descriptions") @JsonDeserialize(contentAs=TermImpl.class) Map<String, MonolingualTextValue> descriptions,
+			@JsonProperty("labels") @JsonDeserialize(using = TermsDeserializer.class) Map<String, MonolingualTextValue> labels,
+			@JsonProperty("descriptions") @JsonDeserialize(using = TermsDeserializer.class) Map<String, MonolingualTextValue> descriptions,
 			@JsonProperty("aliases") @JsonDeserialize(using = AliasesDeserializer.class) Map<String, List<MonolingualTextValue>> aliases,
 			@JsonProperty("claims") Map<String, List<StatementImpl.PreStatement>> claims,
 			@JsonProperty("datatype") String datatype,
@@ -109,10 +109,10 @@ public class PropertyDocumentImpl extends TermedStatementDocumentImpl
     }
 
     /**
-	 * Private constructor, meant to be used to create modified copies
-	 * of instances.
+	 * Constructor meant to be used to create modified copies
+	 * of instances, and by {@link JsonStreamReader}.
 	 */
-	private PropertyDocumentImpl(
+	PropertyDocumentImpl(
 			PropertyIdValue id,
 			Map<String, MonolingualTextValue> labels,
 			Map<String, MonolingualTextValue> descriptions,
@@ -151,13 +151,44 @@ public class QuantityValueImpl extends ValueImpl implements QuantityValue {
 
 	/**
 	 * Helper object that represents the JSON object structure of the value.
+	 * <p>
+	 * Numbers with at most {@link #MAX_COMPACT_DIGITS} digits and a
+	 * non-negative scale are stored as a single long, which packs the unscaled
+	 * value with the scale; only other numbers are kept as {@link BigDecimal}.
+	 * {@link BigDecimal} objects and JSON strings are created on demand.
 	 */
 	@JsonIgnoreProperties(ignoreUnknown = true)
 	static class JacksonInnerQuantity {
 
-		private final BigDecimal amount;
-		private final BigDecimal upperBound;
-		private final BigDecimal lowerBound;
+		/**
+		 * Maximal number of digits of numbers in the compact representation.
+		 */
+		static final int MAX_COMPACT_DIGITS = 17;
+		/**
+		 * Number of low bits of a compact number used for its scale.
+		 */
+		private static final int SCALE_BITS = 6;
+		private static final long SCALE_MASK = (1L << SCALE_BITS) - 1;
+		/**
+		 * Marker for numbers without compact representation. It is not a
+		 * valid compact number, since its unscaled value would have too many
+		 * digits.
+		 */
+		private static final long NOT_COMPACT = Long.MIN_VALUE;
+		/**
+		 * Marker for absent bounds, not a valid compact number either.
+		 */
+		private static final long ABSENT = Long.MAX_VALUE;
+
+		private final long amount;
+		private final long upperBound;
+		private final long lowerBound;
+		/**
+		 * Numbers without compact representation, null otherwise.
+		 */
+		private final BigDecimal bigAmount;
+		private final BigDecimal bigUpperBound;
+		private final BigDecimal bigLowerBound;
 		private final String unit;
 
 		/**
@@ -173,33 +204,65 @@ public class QuantityValueImpl extends ValueImpl implements QuantityValue {
 		 * @param unit
 		 * 		the unit of this string, as an IRI to the relevant entity
 		 */
+		JacksonInnerQuantity(
+				BigDecimal amount,
+				BigDecimal lowerBound,
+				BigDecimal upperBound,
+				String unit) {
+			Validate.notNull(amount, "Numeric value cannot be null");
+			if(lowerBound != null || upperBound != null) {
+				Validate.notNull(lowerBound, "Lower and upper bounds should be null at the same time");
+				Validate.notNull(upperBound, "Lower and upper bounds should be null at the same time");
+			}
+			this.amount = compact(amount);
+			this.bigAmount = this.amount == NOT_COMPACT ? amount : null;
+			this.lowerBound = lowerBound == null ? ABSENT : compact(lowerBound);
+			this.bigLowerBound = this.lowerBound == NOT_COMPACT ? lowerBound : null;
+			this.upperBound = upperBound == null ? ABSENT : compact(upperBound);
+			this.bigUpperBound = this.upperBound == NOT_COMPACT ? upperBound : null;
+			this.unit = IriInterner.intern(unit);
+			validate();
+		}
+
+		/**
+		 * Constructor used for JSON deserialization. The numbers are given as
+		 * decimal strings as found in the JSON serialization.
+		 */
 		@JsonCreator
 		JacksonInnerQuantity(
-				@JsonProperty("amount") BigDecimal amount,
-				@JsonProperty("lowerBound") BigDecimal lowerBound,
-				@JsonProperty("upperBound") BigDecimal upperBound,
+				@JsonProperty("amount") String amount,
+				@JsonProperty("lowerBound") String lowerBound,
+				@JsonProperty("upperBound") String upperBound,
 				@JsonProperty("unit") String unit) {
 			Validate.notNull(amount, "Numeric value cannot be null");
-			Validate.notNull(unit, "Unit cannot be null");
-			Validate.notEmpty(unit, "Unit cannot be empty. Use \"1\" for unit-less quantities.");
-
 			if(lowerBound != null || upperBound != null) {
 				Validate.notNull(lowerBound, "Lower and upper bounds should be null at the same time");
 				Validate.notNull(upperBound, "Lower and upper bounds should be null at the same time");
+			}
+			this.amount = parseCompact(amount);
+			this.bigAmount = this.amount == NOT_COMPACT ? new BigDecimal(amount) : null;
+			this.lowerBound = lowerBound == null ? ABSENT : parseCompact(lowerBound);
+			this.bigLowerBound = this.lowerBound == NOT_COMPACT ? new BigDecimal(lowerBound) : null;
+			this.upperBound = upperBound == null ? ABSENT : parseCompact(upperBound);
+			this.bigUpperBound = this.upperBound == NOT_COMPACT ? new BigDecimal(upperBound) : null;
+			this.unit = IriInterner.intern(unit);
+			validate();
+		}
 
-				if (lowerBound.compareTo(amount) > 0) {
+		private void validate() {
+			Validate.notNull(this.unit, "Unit cannot be null");
+			Validate.notEmpty(this.unit, "Unit cannot be empty. Use \"1\" for unit-less quantities.");
+
+			if(this.lowerBound != ABSENT) {
+				if (compare(this.lowerBound, this.bigLowerBound, this.amount, this.bigAmount) > 0) {
 					throw new IllegalArgumentException(
 							"Lower bound cannot be strictly greater than numeric value");
 				}
-				if (amount.compareTo(upperBound) > 0) {
+				if (compare(this.amount, this.bigAmount, this.upperBound, this.bigUpperBound) > 0) {
 					throw new IllegalArgumentException(
 							"Upper bound cannot be strictly smaller than numeric value");
 				}
 			}
-			this.amount = amount;
-			this.upperBound = upperBound;
-			this.lowerBound = lowerBound;
-			this.unit = unit;
 		}
 
 		/**
@@ -210,7 +273,7 @@ public class QuantityValueImpl extends ValueImpl implements QuantityValue {
 		 */
 		@JsonIgnore
 		BigDecimal getAmount() {
-			return amount;
+			return toBigDecimal(this.amount, this.bigAmount);
 		}
 
 		/**
@@ -221,7 +284,7 @@ public class QuantityValueImpl extends ValueImpl implements QuantityValue {
 		 */
 		@JsonIgnore
 		BigDecimal getUpperBound() {
-			return upperBound;
+			return toBigDecimal(this.upperBound, this.bigUpperBound);
 		}
 
 		/**
@@ -232,24 +295,24 @@ public class QuantityValueImpl extends ValueImpl implements QuantityValue {
 		 */
 		@JsonIgnore
 		BigDecimal getLowerBound() {
-			return lowerBound;
+			return toBigDecimal(this.lowerBound, this.bigLowerBound);
 		}
 
 		@JsonProperty("amount")
 		String getAmountAsString() {
-			return bigDecimalToSignedString(this.amount);
+			return toSignedString(this.amount, this.bigAmount);
 		}
 
 		@JsonProperty("upperBound")
 		@JsonInclude(JsonInclude.Include.NON_NULL)
 		String getUpperBoundAsString() {
-			return this.upperBound != null ? bigDecimalToSignedString(this.upperBound) : null;
+			return toSignedString(this.upperBound, this.bigUpperBound);
 		}
 
 		@JsonProperty("lowerBound")
 		@JsonInclude(JsonInclude.Include.NON_NULL)
 		String getLowerBoundAsString() {
-			return this.lowerBound != null ? bigDecimalToSignedString(this.lowerBound) : null;
+			return toSignedString(this.lowerBound, this.bigLowerBound);
 		}
 
 		/**
@@ -264,10 +327,114 @@ public class QuantityValueImpl extends ValueImpl implements QuantityValue {
 			return this.unit;
 		}
 
+		/**
+		 * Returns the compact representation of the given number, or
+		 * {@link #NOT_COMPACT} if it has none.
+		 */
+		private static long compact(BigDecimal value) {
+			if (value.scale() < 0 || value.scale() > SCALE_MASK
+					|| value.precision() > MAX_COMPACT_DIGITS) {
+				return NOT_COMPACT;
+			}
+			return (value.unscaledValue().longValue() << SCALE_BITS) | value.scale();
+		}
+
+		/**
+		 * Parses a decimal string such as "+4.00" into its compact
+		 * representation, without creating intermediate objects. Returns
+		 * {@link #NOT_COMPACT} for all strings that do not have the simple
+		 * form of an optional sign, digits and an optional fractional part,
+		 * or that have too many digits.
+		 */
+		static long parseCompact(String value) {
+			int length = value.length();
+			int position = 0;
+			boolean negative = false;
+			if (length > 0 && (value.charAt(0) == '+' || value.charAt(0) == '-')) {
+				negative = value.charAt(0) == '-';
+				position++;
+			}
+			long unscaled = 0;
+			int digits = 0;
+			int scale = -1;
+			for (; position < length; position++) {
+				char c = value.charAt(position);
+				if (c >= '0' && c <= '9') {
+					if (digits == MAX_COMPACT_DIGITS) {
+						return NOT_COMPACT;
+					}
+					unscaled = 10 * unscaled + (c - '0');
+					digits++;
+					if (scale >= 0) {
+						scale++;
+					}
+				} else if (c == '.' && scale < 0) {
+					scale = 0;
+				} else {
+					return NOT_COMPACT;
+				}
+			}
+			if (digits == 0 || scale == 0) {
+				return NOT_COMPACT;
+			}
+			return ((negative ? -unscaled : unscaled) << SCALE_BITS) | Math.max(scale, 0);
+		}
+
+		private static BigDecimal toBigDecimal(long compact, BigDecimal big) {
+			if (compact == ABSENT) {
+				return null;
+			} else if (compact == NOT_COMPACT) {
+				return big;
+			} else {
+				return BigDecimal.valueOf(compact >> SCALE_BITS, (int) (compact & SCALE_MASK));
+			}
+		}
+
+		private static int compare(long compact1, BigDecimal big1, long compact2, BigDecimal big2) {
+			if (compact1 != NOT_COMPACT && compact2 != NOT_COMPACT
+					&& (compact1 & SCALE_MASK) == (compact2 & SCALE_MASK)) {
+				return Long.compare(compact1 >> SCALE_BITS, compact2 >> SCALE_BITS);
+			}
+			return toBigDecimal(compact1, big1).compareTo(toBigDecimal(compact2, big2));
+		}
+
 		/**
 		 * Formats the string output with a leading signum as JSON expects it.
+		 * The result is the same as for {@link BigDecimal#toString()}.
 		 */
-		private String bigDecimalToSignedString(BigDecimal value) {
+		private static String toSignedString(long compact, BigDecimal big) {
+			if (compact == ABSENT) {
+				return null;
+			}
+			if (compact == NOT_COMPACT) {
+				return bigDecimalToSignedString(big);
+			}
+			long unscaled = compact >> SCALE_BITS;
+			int scale = (int) (compact & SCALE_MASK);
+			String digits = Long.toString(Math.abs(unscaled));
+			int length = digits.length();
+			if (length - 1 - scale < -6) {
+				// BigDecimal uses scientific notation in this case
+				return bigDecimalToSignedString(BigDecimal.valueOf(unscaled, scale));
+			}
+			StringBuilder builder = new StringBuilder(length + 3);
+			builder.append(unscaled < 0 ? '-' : '+');
+			if (scale == 0) {
+				builder.append(digits);
+			} else if (length > scale) {
+				builder.append(digits, 0, length - scale).append('.')
+						.append(digits, length - scale, length);
+			} else {
+				builder.append("0.");
+				for (int i = length; i < scale; i++) {
+					builder.append('0');
+				}
+				builder.append(digits);
+			}
+			return builder.toString();
+		}
+
+		private static String bigDecimalToSignedString(BigDecimal value) {
 			if (value.signum() < 0) {
 				return value.toString();
 			} else {
@@ -93,9 +93,10 @@ public class SenseDocumentImpl extends StatementDocumentImpl implements SenseDoc
 	}
 
 	/**
-	 * Copy constructor, used when creating modified copies of senses.
+	 * Copy constructor, used when creating modified copies of senses
+	 * and by {@link JsonStreamReader}.
 	 */
-	private SenseDocumentImpl(
+	SenseDocumentImpl(
 			SenseIdValue subject,
 			Map<String, MonolingualTextValue> glosses,
 			Map<String, List<Statement>> claims,
@@ -49,6 +49,7 @@ import java.util.*;
  *
  */
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
+@JsonPropertyOrder({"mainsnak", "type", "qualifiers", "qualifiers-order", "id", "rank", "references"})
 public class StatementImpl implements Statement {
 
 	private final String statementId;
@@ -0,0 +1,364 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+
+/**
+ * Compact, immutable map from language codes to lists of terms, used to store
+ * aliases of documents. It follows the same layout as {@link TermMap}: a
+ * sorted <code>short</code> array of language ids of the
+ * {@link LanguageCodeDictionary} with a parallel array of texts. The lists and
+ * {@link MonolingualTextValue} objects returned by this map are unmodifiable
+ * views created on demand.
+ * <p>
+ * Instances are created with a {@link TermListMap.Builder}.
+ */
+public final class TermListMap extends AbstractMap<String, List<MonolingualTextValue>> {
+
+	/**
+	 * Sorted ids of the languages used as keys.
+	 */
+	private final short[] languageIds;
+	/**
+	 * Texts of the terms for each language, in the order of
+	 * {@link #languageIds}.
+	 */
+	private final String[][] texts;
+	/**
+	 * Language codes of the terms, only set if the language of some term
+	 * differs from its key.
+	 */
+	private final String[][] termLanguages;
+
+	private TermListMap(short[] languageIds, String[][] texts, String[][] termLanguages) {
+		this.languageIds = languageIds;
+		this.texts = texts;
+		this.termLanguages = termLanguages;
+	}
+
+	@Override
+	public int size() {
+		return this.languageIds.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.languageIds.length == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public List<MonolingualTextValue> get(Object key) {
+		int index = indexOf(key);
+		return index >= 0 ? new TermList(index) : null;
+	}
+
+	@Override
+	public Set<Entry<String, List<MonolingualTextValue>>> entrySet() {
+		return new EntrySet();
+	}
+
+	private int indexOf(Object key) {
+		if (!(key instanceof String)) {
+			return -1;
+		}
+		int id = LanguageCodeDictionary.getId((String) key);
+		if (id < 0) {
+			return -1;
+		}
+		return Arrays.binarySearch(this.languageIds, (short) id);
+	}
+
+	/**
+	 * Returns the key at the given position in the iteration order of this
+	 * map. Used to serialize the map without creating entries.
+	 */
+	String getKey(int index) {
+		return LanguageCodeDictionary.getLanguageCode(this.languageIds[index]);
+	}
+
+	/**
+	 * Returns the number of terms stored for the key at the given position.
+	 */
+	int getTermCount(int index) {
+		return this.texts[index].length;
+	}
+
+	/**
+	 * Returns the language code of a term stored for the key at the given
+	 * position.
+	 */
+	String getTermLanguage(int index, int position) {
+		return this.termLanguages == null ? getKey(index)
+				: this.termLanguages[index][position];
+	}
+
+	/**
+	 * Returns the text of a term stored for the key at the given position.
+	 */
+	String getText(int index, int position) {
+		return this.texts[index][position];
+	}
+
+	private final class TermList extends AbstractList<MonolingualTextValue> implements RandomAccess {
+
+		private final int index;
+
+		TermList(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public MonolingualTextValue get(int position) {
+			return new TermImpl(getTermLanguage(this.index, position),
+					getText(this.index, position));
+		}
+
+		@Override
+		public int size() {
+			return texts[this.index].length;
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<String, List<MonolingualTextValue>>> {
+
+		@Override
+		public int size() {
+			return languageIds.length;
+		}
+
+		@Override
+		public Iterator<Entry<String, List<MonolingualTextValue>>> iterator() {
+			return new Iterator<Entry<String, List<MonolingualTextValue>>>() {
+
+				int next = 0;
+
+				@Override
+				public boolean hasNext() {
+					return this.next < languageIds.length;
+				}
+
+				@Override
+				public Entry<String, List<MonolingualTextValue>> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					int index = this.next++;
+					return new SimpleImmutableEntry<>(getKey(index), new TermList(index));
+				}
+			};
+		}
+	}
+
+	/**
+	 * Builder for {@link TermListMap}. Terms of the same key do not need to be
+	 * added consecutively; their relative order is preserved.
+	 */
+	public static class Builder {
+
+		private short[] languageIds = new short[8];
+		private String[][] texts = new String[8][];
+		private String[][] termLanguages = new String[8][];
+		private int[] counts = new int[8];
+		private boolean differentTermLanguages = false;
+		private int size = 0;
+
+		/**
+		 * Map used instead of the arrays in the unlikely case that the
+		 * language code dictionary is full.
+		 */
+		private Map<String, List<MonolingualTextValue>> fallback = null;
+
+		/**
+		 * Adds a term to the list of the given key.
+		 *
+		 * @param key
+		 *            the language code used as a key in the map
+		 * @param termLanguage
+		 *            the language code of the term itself, usually equal
+		 *            to the key
+		 * @param text
+		 *            the text of the term
+		 * @return this builder
+		 */
+		public Builder add(String key, String termLanguage, String text) {
+			if (this.fallback != null) {
+				this.fallback.computeIfAbsent(key, k -> new ArrayList<>())
+						.add(new TermImpl(termLanguage, text));
+				return this;
+			}
+			int group = group(key);
+			if (group < 0) {
+				return add(key, termLanguage, text);
+			}
+			int count = this.counts[group];
+			if (count == this.texts[group].length) {
+				int capacity = Math.max(2, 2 * count);
+				this.texts[group] = Arrays.copyOf(this.texts[group], capacity);
+				this.termLanguages[group] = Arrays.copyOf(this.termLanguages[group], capacity);
+			}
+			this.texts[group][count] = text;
+			this.termLanguages[group][count] = termLanguage;
+			this.differentTermLanguages |= !key.equals(termLanguage);
+			this.counts[group] = count + 1;
+			return this;
+		}
+
+		/**
+		 * Adds a term to the list of its language.
+		 *
+		 * @param term
+		 *            the term to add
+		 * @return this builder
+		 */
+		public Builder add(MonolingualTextValue term) {
+			return add(term.getLanguageCode(), term.getLanguageCode(), term.getText());
+		}
+
+		/**
+		 * Adds the given terms to the list of the given key. The key is
+		 * added to the map even if the list of terms is empty.
+		 *
+		 * @param key
+		 *            the language code used as a key in the map
+		 * @param terms
+		 *            the terms to add
+		 * @return this builder
+		 */
+		public Builder addAll(String key, List<MonolingualTextValue> terms) {
+			if (this.fallback != null) {
+				this.fallback.computeIfAbsent(key, k -> new ArrayList<>());
+			} else if (group(key) < 0) {
+				return addAll(key, terms);
+			}
+			for (MonolingualTextValue term : terms) {
+				add(key, term.getLanguageCode(), term.getText());
+			}
+			return this;
+		}
+
+		/**
+		 * Builds the map.
+		 *
+		 * @return a map containing all terms added so far
+		 */
+		public Map<String, List<MonolingualTextValue>> build() {
+			if (this.fallback != null) {
+				// copy, so that later additions do not change the map
+				Map<String, List<MonolingualTextValue>> result = new HashMap<>();
+				for (Map.Entry<String, List<MonolingualTextValue>> entry : this.fallback.entrySet()) {
+					result.put(entry.getKey(), Collections.unmodifiableList(
+							new ArrayList<>(entry.getValue())));
+				}
+				return Collections.unmodifiableMap(result);
+			}
+			if (this.size == 0) {
+				return Collections.emptyMap();
+			}
+			int[] order = TermMap.sortedOrder(this.languageIds, this.size);
+			short[] ids = new short[this.size];
+			String[][] sortedTexts = new String[this.size][];
+			String[][] sortedLanguages = this.differentTermLanguages ? new String[this.size][] : null;
+			for (int i = 0; i < this.size; i++) {
+				int group = order[i];
+				ids[i] = this.languageIds[group];
+				sortedTexts[i] = Arrays.copyOf(this.texts[group], this.counts[group]);
+				if (sortedLanguages != null) {
+					sortedLanguages[i] = Arrays.copyOf(this.termLanguages[group], this.counts[group]);
+				}
+			}
+			return new TermListMap(ids, sortedTexts, sortedLanguages);
+		}
+
+		/**
+		 * Finds or creates the group of terms for the given key.
+		 *
+		 * @return the index of the group, or -1 if the builder switched to
+		 *         its fallback map
+		 */
+		private int group(String key) {
+			int id = getLanguageId(key);
+			if (id < 0) {
+				switchToFallback();
+				return -1;
+			}
+			// terms of the same language usually come together
+			if (this.size > 0 && this.languageIds[this.size - 1] == id) {
+				return this.size - 1;
+			}
+			for (int i = 0; i < this.size; i++) {
+				if (this.languageIds[i] == id) {
+					return i;
+				}
+			}
+			if (this.size == this.languageIds.length) {
+				int capacity = 2 * this.size;
+				this.languageIds = Arrays.copyOf(this.languageIds, capacity);
+				this.texts = Arrays.copyOf(this.texts, capacity);
+				this.termLanguages = Arrays.copyOf(this.termLanguages, capacity);
+				this.counts = Arrays.copyOf(this.counts, capacity);
+			}
+			this.languageIds[this.size] = (short) id;
+			this.texts[this.size] = new String[1];
+			this.termLanguages[this.size] = new String[1];
+			this.counts[this.size] = 0;
+			return this.size++;
+		}
+
+		/**
+		 * Returns the id of the given language code in the
+		 * {@link LanguageCodeDictionary}, or -1 if the dictionary is full.
+		 */
+		int getLanguageId(String key) {
+			return LanguageCodeDictionary.getOrCreateId(key);
+		}
+
+		private void switchToFallback() {
+			this.fallback = new HashMap<>();
+			for (int i = 0; i < this.size; i++) {
+				List<MonolingualTextValue> terms = new ArrayList<>(this.counts[i]);
+				for (int j = 0; j < this.counts[i]; j++) {
+					terms.add(new TermImpl(this.termLanguages[i][j], this.texts[i][j]));
+				}
+				this.fallback.put(LanguageCodeDictionary.getLanguageCode(this.languageIds[i]), terms);
+			}
+		}
+	}
+}
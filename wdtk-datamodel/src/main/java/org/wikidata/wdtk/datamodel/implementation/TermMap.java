@@ -0,0 +1,320 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+
+/**
+ * Compact, immutable map from language codes to terms, used to store labels
+ * and descriptions of documents. Languages are stored as ids of the global
+ * {@link LanguageCodeDictionary}, in a sorted <code>short</code> array with a
+ * parallel array of texts. The {@link MonolingualTextValue} objects returned
+ * by this map are created on demand and not retained.
+ * <p>
+ * Instances are created with a {@link TermMap.Builder}.
+ */
+public final class TermMap extends AbstractMap<String, MonolingualTextValue> {
+
+	/**
+	 * Sorted ids of the languages used as keys.
+	 */
+	private final short[] languageIds;
+	/**
+	 * Texts of the terms, in the order of {@link #languageIds}.
+	 */
+	private final String[] texts;
+	/**
+	 * Language codes of the terms, only set if the language of some term
+	 * differs from its key (as can happen with language fallbacks).
+	 */
+	private final String[] termLanguages;
+
+	private TermMap(short[] languageIds, String[] texts, String[] termLanguages) {
+		this.languageIds = languageIds;
+		this.texts = texts;
+		this.termLanguages = termLanguages;
+	}
+
+	@Override
+	public int size() {
+		return this.languageIds.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.languageIds.length == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public MonolingualTextValue get(Object key) {
+		int index = indexOf(key);
+		return index >= 0 ? getTerm(index) : null;
+	}
+
+	@Override
+	public Set<Entry<String, MonolingualTextValue>> entrySet() {
+		return new EntrySet();
+	}
+
+	private int indexOf(Object key) {
+		if (!(key instanceof String)) {
+			return -1;
+		}
+		int id = LanguageCodeDictionary.getId((String) key);
+		if (id < 0) {
+			return -1;
+		}
+		return Arrays.binarySearch(this.languageIds, (short) id);
+	}
+
+	/**
+	 * Returns the key at the given position in the iteration order of this
+	 * map. Used to serialize the map without creating entries.
+	 */
+	String getKey(int index) {
+		return LanguageCodeDictionary.getLanguageCode(this.languageIds[index]);
+	}
+
+	/**
+	 * Returns the language code of the term at the given position in the
+	 * iteration order of this map.
+	 */
+	String getTermLanguage(int index) {
+		return this.termLanguages == null ? getKey(index)
+				: this.termLanguages[index];
+	}
+
+	/**
+	 * Returns the text of the term at the given position in the iteration
+	 * order of this map.
+	 */
+	String getText(int index) {
+		return this.texts[index];
+	}
+
+	private MonolingualTextValue getTerm(int index) {
+		return new TermImpl(getTermLanguage(index), this.texts[index]);
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<String, MonolingualTextValue>> {
+
+		@Override
+		public int size() {
+			return languageIds.length;
+		}
+
+		@Override
+		public Iterator<Entry<String, MonolingualTextValue>> iterator() {
+			return new Iterator<Entry<String, MonolingualTextValue>>() {
+
+				int next = 0;
+
+				@Override
+				public boolean hasNext() {
+					return this.next < languageIds.length;
+				}
+
+				@Override
+				public Entry<String, MonolingualTextValue> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					int index = this.next++;
+					return new SimpleImmutableEntry<>(getKey(index), getTerm(index));
+				}
+			};
+		}
+	}
+
+	/**
+	 * Builder for {@link TermMap}. Terms can be added in any order, but each
+	 * key must only be used once.
+	 */
+	public static class Builder {
+
+		private short[] languageIds = new short[8];
+		private String[] texts = new String[8];
+		private String[] termLanguages = new String[8];
+		private boolean differentTermLanguages = false;
+		private int size = 0;
+
+		/**
+		 * Map used instead of the arrays in the unlikely case that the
+		 * language code dictionary is full.
+		 */
+		private Map<String, MonolingualTextValue> fallback = null;
+		/**
+		 * Whether a key was used twice while the fallback map was in use.
+		 */
+		private boolean duplicateKeys = false;
+
+		/**
+		 * Adds a term to the map, using its language code as the key.
+		 *
+		 * @param term
+		 *            the term to add
+		 * @return this builder
+		 */
+		public Builder put(MonolingualTextValue term) {
+			return put(term.getLanguageCode(), term.getLanguageCode(), term.getText());
+		}
+
+		/**
+		 * Adds a term to the map.
+		 *
+		 * @param key
+		 *            the language code used as a key in the map
+		 * @param termLanguage
+		 *            the language code of the term itself, usually equal
+		 *            to the key
+		 * @param text
+		 *            the text of the term
+		 * @return this builder
+		 */
+		public Builder put(String key, String termLanguage, String text) {
+			if (this.fallback != null) {
+				addToFallback(key, termLanguage, text);
+				return this;
+			}
+			int id = getLanguageId(key);
+			if (id < 0) {
+				switchToFallback();
+				return put(key, termLanguage, text);
+			}
+			if (this.size == this.languageIds.length) {
+				int capacity = 2 * this.size;
+				this.languageIds = Arrays.copyOf(this.languageIds, capacity);
+				this.texts = Arrays.copyOf(this.texts, capacity);
+				this.termLanguages = Arrays.copyOf(this.termLanguages, capacity);
+			}
+			this.languageIds[this.size] = (short) id;
+			this.texts[this.size] = text;
+			this.termLanguages[this.size] = termLanguage;
+			this.differentTermLanguages |= !key.equals(termLanguage);
+			this.size++;
+			return this;
+		}
+
+		/**
+		 * Builds the map.
+		 *
+		 * @return a map containing all terms added so far
+		 * @throws IllegalArgumentException
+		 *             if several terms were added for the same key
+		 */
+		public Map<String, MonolingualTextValue> build() {
+			if (this.fallback != null) {
+				if (this.duplicateKeys) {
+					throw new IllegalArgumentException("Multiple terms provided for the same language.");
+				}
+				// copy, so that later additions do not change the map
+				return Collections.unmodifiableMap(new HashMap<>(this.fallback));
+			}
+			if (this.size == 0) {
+				return Collections.emptyMap();
+			}
+			int[] order = sortedOrder(this.languageIds, this.size);
+			short[] ids = new short[this.size];
+			String[] sortedTexts = new String[this.size];
+			String[] sortedLanguages = this.differentTermLanguages ? new String[this.size] : null;
+			for (int i = 0; i < this.size; i++) {
+				ids[i] = this.languageIds[order[i]];
+				if (i > 0 && ids[i] == ids[i - 1]) {
+					throw new IllegalArgumentException("Multiple terms provided for the same language.");
+				}
+				sortedTexts[i] = this.texts[order[i]];
+				if (sortedLanguages != null) {
+					sortedLanguages[i] = this.termLanguages[order[i]];
+				}
+			}
+			return new TermMap(ids, sortedTexts, sortedLanguages);
+		}
+
+		/**
+		 * Returns the id of the given language code in the
+		 * {@link LanguageCodeDictionary}, or -1 if the dictionary is full.
+		 */
+		int getLanguageId(String key) {
+			return LanguageCodeDictionary.getOrCreateId(key);
+		}
+
+		private void switchToFallback() {
+			this.fallback = new HashMap<>();
+			for (int i = 0; i < this.size; i++) {
+				String key = LanguageCodeDictionary.getLanguageCode(this.languageIds[i]);
+				addToFallback(key, this.termLanguages[i], this.texts[i]);
+			}
+		}
+
+		private void addToFallback(String key, String termLanguage, String text) {
+			if (this.fallback.put(key, new TermImpl(termLanguage, text)) != null) {
+				this.duplicateKeys = true;
+			}
+		}
+	}
+
+	/**
+	 * Computes the permutation that sorts the first elements of the given
+	 * array of language ids. Ids are positive, so that they can be packed
+	 * together with their position into a single long value for sorting.
+	 *
+	 * @param languageIds
+	 *            the ids to sort
+	 * @param size
+	 *            the number of ids to consider
+	 * @return the positions of the ids in ascending order of ids
+	 */
+	static int[] sortedOrder(short[] languageIds, int size) {
+		int[] order = new int[size];
+		boolean sorted = true;
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+			sorted &= i == 0 || languageIds[i - 1] <= languageIds[i];
+		}
+		if (sorted) {
+			return order;
+		}
+		long[] packed = new long[size];
+		for (int i = 0; i < size; i++) {
+			packed[i] = ((long) languageIds[i] << 32) | i;
+		}
+		Arrays.sort(packed);
+		for (int i = 0; i < size; i++) {
+			order[i] = (int) packed[i];
+		}
+		return order;
+	}
+}
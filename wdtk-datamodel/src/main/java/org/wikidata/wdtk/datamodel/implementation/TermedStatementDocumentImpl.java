@@ -23,12 +23,13 @@ package org.wikidata.wdtk.datamodel.implementation;
 import com.fasterxml.jackson.annotation.*;
 import com.fasterxml.jackson.annotation.JsonSubTypes.Type;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import org.wikidata.wdtk.datamodel.interfaces.*;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
 
@@ -147,6 +148,10 @@ public abstract class TermedStatementDocumentImpl extends LabeledStatementDocume
 	@JsonProperty("aliases")
 	@Override
 	public Map<String, List<MonolingualTextValue>> getAliases() {
+		if (this.aliases instanceof TermListMap) {
+			// already immutable, including its lists
+			return this.aliases;
+		}
 		// because of the typing provided by the interface one has to
 		// re-create the map anew, simple casting is not possible
 		Map<String, List<MonolingualTextValue>> returnMap = new HashMap<>();
@@ -172,84 +177,66 @@ public abstract class TermedStatementDocumentImpl extends LabeledStatementDocume
 	}
 	
 	private static Map<String, List<MonolingualTextValue>> constructTermListMap(List<MonolingualTextValue> terms) {
-		Map<String, List<MonolingualTextValue>> map = new HashMap<>();
+		TermListMap.Builder builder = new TermListMap.Builder();
 		for(MonolingualTextValue term : terms) {
-			String language = term.getLanguageCode();
-			// We need to make sure the terms are of the right type, otherwise they will not
-			// be serialized correctly.
-			if(!map.containsKey(language)) {
-				map.put(language, new ArrayList<>());
-			}
-			map.get(language).add(toTerm(term));
+			builder.add(term);
 		}
-		return map;
+		return builder.build();
 	}
 
 	protected static Map<String, List<MonolingualTextValue>> withAliases(
 			Map<String, List<MonolingualTextValue>> values, String language, List<MonolingualTextValue> aliases) {
-		Map<String, List<MonolingualTextValue>> newValues = new HashMap<>(values);
-		if(!newValues.containsKey(language)) {
-			newValues.put(language, new ArrayList<>());
-		}
-		List<MonolingualTextValue> l = newValues.get(language);
-		l.clear();
 		for(MonolingualTextValue term : aliases) {
 			if(!term.getLanguageCode().equals(language)) {
 				throw new IllegalArgumentException("The alias " + term + " does not have the same language as its group " + language);
 			}
-			l.add(toTerm(term));
 		}
-		return newValues;
-	}
-
-	/**
-	 * We need to make sure the terms are of the right type, otherwise they will not be serialized correctly.
-	 */
-	private static MonolingualTextValue toTerm(MonolingualTextValue term) {
-		return term instanceof TermImpl ? term : new TermImpl(term.getLanguageCode(), term.getText());
+		TermListMap.Builder builder = new TermListMap.Builder();
+		for(Entry<String, List<MonolingualTextValue>> entry : values.entrySet()) {
+			if(!entry.getKey().equals(language)) {
+				builder.addAll(entry.getKey(), entry.getValue());
+			}
+		}
+		builder.addAll(language, aliases);
+		return builder.build();
 	}
 
 	/**
 	 * A deserializer implementation for the aliases in an
-	 * {@link TermedStatementDocumentImpl}.
+	 * {@link TermedStatementDocumentImpl}, which builds {@link TermListMap}s
+	 * directly from the JSON tokens.
 	 * <p>
 	 * It implements a workaround to cope with empty aliases being represented as
 	 * <code>"aliases":[]</code> despite its declaration as map and not as list or
-	 * array. This is neither nice nor fast, and should be obsolete as soon as
-	 * possible.
+	 * array.
 	 *
 	 */
 	static class AliasesDeserializer extends JsonDeserializer<Map<String, List<MonolingualTextValue>>> {
 
 		@Override
 		public Map<String, List<MonolingualTextValue>> deserialize(
-				JsonParser jp, DeserializationContext ctxt) throws JsonMappingException {
-
-			Map<String, List<MonolingualTextValue>> contents = new HashMap<>();
-
-			try {
-				JsonNode node = jp.getCodec().readTree(jp);
-				if (!node.isArray()) {
-					Iterator<Entry<String, JsonNode>> nodeIterator = node.fields();
-					while (nodeIterator.hasNext()) {
-						List<MonolingualTextValue> mltvList = new ArrayList<>();
-						Entry<String, JsonNode> currentNode = nodeIterator.next();
-						// get the list of MLTVs
-						for (JsonNode mltvEntry : currentNode.getValue()) {
-							String language = mltvEntry.get("language").asText();
-							String value = mltvEntry.get("value").asText();
-							mltvList.add(new TermImpl(language,value));
-						}
-
-						contents.put(currentNode.getKey(), mltvList);
-					}
+				JsonParser jp, DeserializationContext ctxt) throws IOException {
+
+			TermListMap.Builder builder = new TermListMap.Builder();
+			if (jp.currentToken() == JsonToken.START_ARRAY) {
+				jp.skipChildren();
+				return builder.build();
+			}
+			if (jp.currentToken() != JsonToken.START_OBJECT) {
+				throw new JsonMappingException(jp, "Unexpected alias list serialization");
+			}
+			while (jp.nextToken() == JsonToken.FIELD_NAME) {
+				String key = jp.getCurrentName();
+				if (jp.nextToken() != JsonToken.START_ARRAY) {
+					throw new JsonMappingException(jp, "Unexpected alias list serialization");
+				}
+				// make sure the key is present even if the list is empty
+				builder.addAll(key, Collections.emptyList());
+				while (jp.nextToken() != JsonToken.END_ARRAY) {
+					readTerm(jp, key, null, builder);
 				}
-			} catch (Exception e) {
-				throw new JsonMappingException(jp, "Unexpected alias list serialization", e);
 			}
-
-			return contents;
-
+			return builder.build();
 		}
 	}
 }
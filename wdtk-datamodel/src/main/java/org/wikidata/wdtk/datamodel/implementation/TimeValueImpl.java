@@ -220,16 +220,16 @@ public class TimeValueImpl extends ValueImpl implements TimeValue {
 		// convert Julian
 		if (this.getPreferredCalendarModel().equals(TimeValue.CM_JULIAN_PRO)
 				&& this.getPrecision() >= TimeValue.PREC_DAY
-				&& this.value.year > Integer.MIN_VALUE && this.value.year < Integer.MAX_VALUE
+				&& this.value.getYear() > Integer.MIN_VALUE && this.value.getYear() < Integer.MAX_VALUE
 		) {
 			try {
-				final JulianDate julian = JulianDate.of((int) this.value.year, this.value.month, this.value.day);
+				final JulianDate julian = JulianDate.of((int) this.value.getYear(), this.value.getMonth(), this.value.getDay());
 				final LocalDate date = LocalDate.from(julian);
 				return new TimeValueImpl(
 						date.getYear(), (byte) date.getMonth().getValue(), (byte) date.getDayOfMonth(),
-						this.value.hour, this.value.minute, this.value.second,
-						(byte) this.value.precision, this.value.before, this.value.after,
-						this.value.timezone, TimeValue.CM_GREGORIAN_PRO
+						this.value.getHour(), this.value.getMinute(), this.value.getSecond(),
+						(byte) this.value.getPrecision(), this.value.getBefore(), this.value.getAfter(),
+						this.value.getTimezone(), TimeValue.CM_GREGORIAN_PRO
 				);
 			} catch(DateTimeException e) {
 				return null;
@@ -242,22 +242,40 @@ public class TimeValueImpl extends ValueImpl implements TimeValue {
 
 	/**
 	 * Helper object that represents the JSON object structure of the value.
+	 * <p>
+	 * The month, day, hour, minute, second and precision are packed into a
+	 * single long. The time string is only kept if it is not in the canonical
+	 * format produced by {@link #getTime()}; otherwise it is composed again
+	 * when needed.
 	 */
 	@JsonIgnoreProperties(ignoreUnknown = true)
 	static class JacksonInnerTime {
-		private final String time;
+
+		private static final int SECOND_SHIFT = 0;
+		private static final int MINUTE_SHIFT = 8;
+		private static final int HOUR_SHIFT = 16;
+		private static final int DAY_SHIFT = 24;
+		private static final int MONTH_SHIFT = 32;
+		private static final int PRECISION_SHIFT = 40;
+		/**
+		 * Marker for years that are not in canonical format. Such years
+		 * would have too many digits.
+		 */
+		private static final long NOT_CANONICAL = Long.MIN_VALUE;
+
+		private final long year;
+		/**
+		 * Month, day, hour, minute, second and precision, one byte each.
+		 */
+		private final long packedFields;
 		private final int timezone;
 		private final int before;
 		private final int after;
-		private final int precision;
 		private final String calendarmodel;
-
-		private long year;
-		private byte month;
-		private byte day;
-		private byte hour;
-		private byte minute;
-		private byte second;
+		/**
+		 * The original time string, or null if it is canonical.
+		 */
+		private final String time;
 
 		/**
 		 * Constructs a new object for the given data.
@@ -289,14 +307,32 @@ public class TimeValueImpl extends ValueImpl implements TimeValue {
 				@JsonProperty("after") int after,
 				@JsonProperty("precision") int precision,
 				@JsonProperty("calendarmodel") String calendarModel) {
-			this.time = time;
 			this.timezone = timezone;
 			this.before = before;
 			this.after = after;
-			this.precision = precision;
-			this.calendarmodel = calendarModel;
-
-			this.decomposeTimeString();
+			this.calendarmodel = IriInterner.intern(calendarModel);
+
+			int yearEnd = time.indexOf('-', 1);
+			long canonicalFields = yearEnd > 0 ? parseCanonicalFields(time, yearEnd) : -1;
+			long canonicalYear = yearEnd > 0 ? parseCanonicalYear(time, yearEnd) : NOT_CANONICAL;
+			if (canonicalFields >= 0 && canonicalYear != NOT_CANONICAL) {
+				this.year = canonicalYear;
+				this.packedFields = canonicalFields | pack(precision, PRECISION_SHIFT);
+				this.time = null;
+			} else {
+				// decompose the time string into its parts
+				String[] substrings = time.split("(?<!\\A)[\\-:TZ]");
+
+				// get the components of the date
+				this.year = Long.parseLong(substrings[0]);
+				this.packedFields = pack(Byte.parseByte(substrings[1]), MONTH_SHIFT)
+						| pack(Byte.parseByte(substrings[2]), DAY_SHIFT)
+						| pack(Byte.parseByte(substrings[3]), HOUR_SHIFT)
+						| pack(Byte.parseByte(substrings[4]), MINUTE_SHIFT)
+						| pack(Byte.parseByte(substrings[5]), SECOND_SHIFT)
+						| pack(precision, PRECISION_SHIFT);
+				this.time = time;
+			}
 		}
 
 		/**
@@ -336,42 +372,120 @@ public class TimeValueImpl extends ValueImpl implements TimeValue {
 						 int precision, String calendarModel) {
 			Validate.notNull(calendarModel, "Calendar model must not be null");
 			this.year = year;
-			this.month = month;
-			this.day = day;
-			this.hour = hour;
-			this.minute = minute;
-			this.second = second;
+			this.packedFields = pack(month, MONTH_SHIFT) | pack(day, DAY_SHIFT)
+					| pack(hour, HOUR_SHIFT) | pack(minute, MINUTE_SHIFT)
+					| pack(second, SECOND_SHIFT) | pack(precision, PRECISION_SHIFT);
 			this.timezone = timezone;
 			this.before = before;
 			this.after = after;
-			this.precision = precision;
-			this.calendarmodel = calendarModel;
-			this.time = composeTimeString();
+			this.calendarmodel = IriInterner.intern(calendarModel);
+			this.time = null;
+		}
+
+		private static long pack(int value, int shift) {
+			return (value & 0xffL) << shift;
+		}
+
+		private byte unpack(int shift) {
+			return (byte) (this.packedFields >>> shift);
 		}
 
 		/**
-		 * Helper method to decompose the time string into its parts.
+		 * Parses the part of a time string that follows the year, if it has
+		 * the canonical form "-MM-DDTHH:MM:SSZ".
+		 *
+		 * @return the packed fields, or -1 if the string is not canonical
 		 */
-		private void decomposeTimeString() {
-			// decompose the time string into its parts
-			String[] substrings = time.split("(?<!\\A)[\\-:TZ]");
-
-			// get the components of the date
-			this.year = Long.parseLong(substrings[0]);
-			this.month = Byte.parseByte(substrings[1]);
-			this.day = Byte.parseByte(substrings[2]);
-			this.hour = Byte.parseByte(substrings[3]);
-			this.minute = Byte.parseByte(substrings[4]);
-			this.second = Byte.parseByte(substrings[5]);
+		private static long parseCanonicalFields(String time, int yearEnd) {
+			if (time.length() != yearEnd + 16 || time.charAt(yearEnd + 3) != '-'
+					|| time.charAt(yearEnd + 6) != 'T' || time.charAt(yearEnd + 9) != ':'
+					|| time.charAt(yearEnd + 12) != ':' || time.charAt(yearEnd + 15) != 'Z') {
+				return -1;
+			}
+			int month = parseTwoDigits(time, yearEnd + 1);
+			int day = parseTwoDigits(time, yearEnd + 4);
+			int hour = parseTwoDigits(time, yearEnd + 7);
+			int minute = parseTwoDigits(time, yearEnd + 10);
+			int second = parseTwoDigits(time, yearEnd + 13);
+			if ((month | day | hour | minute | second) < 0) {
+				return -1;
+			}
+			return pack(month, MONTH_SHIFT) | pack(day, DAY_SHIFT)
+					| pack(hour, HOUR_SHIFT) | pack(minute, MINUTE_SHIFT)
+					| pack(second, SECOND_SHIFT);
+		}
+
+		private static int parseTwoDigits(String time, int position) {
+			char tens = time.charAt(position);
+			char units = time.charAt(position + 1);
+			if (tens < '0' || tens > '9' || units < '0' || units > '9') {
+				return -1;
+			}
+			return 10 * (tens - '0') + (units - '0');
+		}
+
+		/**
+		 * Parses the year part of a time string, if it is formatted as
+		 * {@link #getTime()} would format it: with a sign, at least three
+		 * digits and no superfluous leading zeros.
+		 *
+		 * @return the year, or {@link #NOT_CANONICAL} if the year is not
+		 *         canonical
+		 */
+		private static long parseCanonicalYear(String time, int yearEnd) {
+			char sign = time.charAt(0);
+			int digits = yearEnd - 1;
+			if ((sign != '+' && sign != '-') || digits < 3 || digits > 18
+					|| (digits > 3 && time.charAt(1) == '0')) {
+				return NOT_CANONICAL;
+			}
+			long year = 0;
+			for (int i = 1; i < yearEnd; i++) {
+				char c = time.charAt(i);
+				if (c < '0' || c > '9') {
+					return NOT_CANONICAL;
+				}
+				year = 10 * year + (c - '0');
+			}
+			if (sign == '+') {
+				return year;
+			}
+			// the year 0 is formatted with a plus sign
+			return year == 0 ? NOT_CANONICAL : -year;
 		}
 
 		/**
 		 * Helper method to compose the time string from its components.
 		 */
 		private String composeTimeString() {
-			return String.format("%+04d-%02d-%02dT%02d:%02d:%02dZ",
-					this.year, this.month, this.day, this.hour, this.minute,
-					this.second);
+			byte month = getMonth(), day = getDay(), hour = getHour(),
+					minute = getMinute(), second = getSecond();
+			if (this.year == Long.MIN_VALUE || !isTwoDigits(month) || !isTwoDigits(day)
+					|| !isTwoDigits(hour) || !isTwoDigits(minute) || !isTwoDigits(second)) {
+				return String.format("%+04d-%02d-%02dT%02d:%02d:%02dZ",
+						this.year, month, day, hour, minute, second);
+			}
+			StringBuilder builder = new StringBuilder(24);
+			builder.append(this.year < 0 ? '-' : '+');
+			String yearDigits = Long.toString(Math.abs(this.year));
+			for (int i = yearDigits.length(); i < 3; i++) {
+				builder.append('0');
+			}
+			builder.append(yearDigits);
+			appendTwoDigits(builder.append('-'), month);
+			appendTwoDigits(builder.append('-'), day);
+			appendTwoDigits(builder.append('T'), hour);
+			appendTwoDigits(builder.append(':'), minute);
+			appendTwoDigits(builder.append(':'), second);
+			return builder.append('Z').toString();
+		}
+
+		private static boolean isTwoDigits(byte value) {
+			return value >= 0 && value <= 99;
+		}
+
+		private static void appendTwoDigits(StringBuilder builder, byte value) {
+			builder.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
 		}
 
 		/**
@@ -381,7 +495,7 @@ public class TimeValueImpl extends ValueImpl implements TimeValue {
 		 * @return the time string
 		 */
 		public String getTime() {
-			return this.time;
+			return this.time != null ? this.time : composeTimeString();
 		}
 
 		/**
@@ -421,7 +535,7 @@ public class TimeValueImpl extends ValueImpl implements TimeValue {
 		 * @return precision
 		 */
 		public int getPrecision() {
-			return precision;
+			return unpack(PRECISION_SHIFT);
 		}
 
 		/**
@@ -442,7 +556,7 @@ public class TimeValueImpl extends ValueImpl implements TimeValue {
 		 */
 		@JsonIgnore
 		byte getSecond() {
-			return this.second;
+			return unpack(SECOND_SHIFT);
 		}
 
 		/**
@@ -453,7 +567,7 @@ public class TimeValueImpl extends ValueImpl implements TimeValue {
 		 */
 		@JsonIgnore
 		byte getMinute() {
-			return this.minute;
+			return unpack(MINUTE_SHIFT);
 		}
 
 		/**
@@ -464,7 +578,7 @@ public class TimeValueImpl extends ValueImpl implements TimeValue {
 		 */
 		@JsonIgnore
 		byte getHour() {
-			return this.hour;
+			return unpack(HOUR_SHIFT);
 		}
 
 		/**
@@ -475,7 +589,7 @@ public class TimeValueImpl extends ValueImpl implements TimeValue {
 		 */
 		@JsonIgnore
 		byte getDay() {
-			return this.day;
+			return unpack(DAY_SHIFT);
 		}
 
 		/**
@@ -486,7 +600,7 @@ public class TimeValueImpl extends ValueImpl implements TimeValue {
 		 */
 		@JsonIgnore
 		byte getMonth() {
-			return this.month;
+			return unpack(MONTH_SHIFT);
 		}
 
 		/**
@@ -0,0 +1,236 @@
+package org.wikidata.wdtk.datamodel.interfaces;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Interface for classes that process the contents of entities as a stream of
+ * events, without building {@link EntityDocument} objects. This is the
+ * cheapest way of computing aggregates over dumps, e.g., counting the uses of
+ * properties or languages.
+ * <p>
+ * The events of one entity are enclosed in calls of
+ * {@link #startEntity(String, String)} and {@link #endEntity()}. Forms and
+ * senses of lexemes are reported as nested entities within their lexeme.
+ * Terms, site links and the datatype are reported in the order in which they
+ * appear in the input. All events of a statement are reported together: first
+ * {@link #statement(String, StatementRank)}, then the main snak, the
+ * qualifiers, and finally the references, each starting with
+ * {@link #reference()} followed by its snaks.
+ * <p>
+ * To avoid allocations, the {@link Value} objects given to the handler may be
+ * reused for later values. They are only valid until the method that received
+ * them returns, and handlers that need to keep a value must copy it, e.g., with
+ * {@link org.wikidata.wdtk.datamodel.helpers.DatamodelConverter#copyValue(Value)}.
+ * <p>
+ * All methods do nothing by default, so that handlers only need to implement
+ * the events they are interested in.
+ */
+public interface EntityEventHandler {
+
+	/**
+	 * Snak type of snaks with a value.
+	 */
+	String SNAK_TYPE_VALUE = "value";
+	/**
+	 * Snak type of snaks with an unknown value.
+	 */
+	String SNAK_TYPE_SOMEVALUE = "somevalue";
+	/**
+	 * Snak type of snaks that state that there is no value.
+	 */
+	String SNAK_TYPE_NOVALUE = "novalue";
+
+	/**
+	 * Starts a new entity.
+	 *
+	 * @param id
+	 *            the id of the entity, such as "Q42"
+	 * @param type
+	 *            the type of the entity as used in JSON, such as "item",
+	 *            "property", "lexeme", "form", "sense" or "mediainfo"
+	 */
+	default void startEntity(String id, String type) {
+	}
+
+	/**
+	 * Reports a label of the current entity.
+	 *
+	 * @param language
+	 *            the language code
+	 * @param text
+	 *            the label
+	 */
+	default void label(String language, String text) {
+	}
+
+	/**
+	 * Reports a description of the current entity.
+	 *
+	 * @param language
+	 *            the language code
+	 * @param text
+	 *            the description
+	 */
+	default void description(String language, String text) {
+	}
+
+	/**
+	 * Reports an alias of the current entity.
+	 *
+	 * @param language
+	 *            the language code
+	 * @param text
+	 *            the alias
+	 */
+	default void alias(String language, String text) {
+	}
+
+	/**
+	 * Reports a lemma of the current lexeme.
+	 *
+	 * @param language
+	 *            the language code
+	 * @param text
+	 *            the lemma
+	 */
+	default void lemma(String language, String text) {
+	}
+
+	/**
+	 * Reports a representation of the current form.
+	 *
+	 * @param language
+	 *            the language code
+	 * @param text
+	 *            the representation
+	 */
+	default void representation(String language, String text) {
+	}
+
+	/**
+	 * Reports a gloss of the current sense.
+	 *
+	 * @param language
+	 *            the language code
+	 * @param text
+	 *            the gloss
+	 */
+	default void gloss(String language, String text) {
+	}
+
+	/**
+	 * Reports the datatype of the current property.
+	 *
+	 * @param datatype
+	 *            the datatype as used in JSON, such as "wikibase-item"
+	 */
+	default void datatype(String datatype) {
+	}
+
+	/**
+	 * Reports a site link of the current item.
+	 *
+	 * @param site
+	 *            the site key, such as "enwiki"
+	 * @param title
+	 *            the title of the linked page
+	 */
+	default void sitelink(String site, String title) {
+	}
+
+	/**
+	 * Starts a new statement of the current entity. It is followed by one of
+	 * the main snak events, by the qualifiers and by the references of the
+	 * statement.
+	 *
+	 * @param propertyId
+	 *            the id of the main property, such as "P31"
+	 * @param rank
+	 *            the rank of the statement
+	 */
+	default void statement(String propertyId, StatementRank rank) {
+	}
+
+	/**
+	 * Reports the value of the main snak of the current statement.
+	 *
+	 * @param value
+	 *            the value, only valid during this call
+	 */
+	default void mainSnakValue(Value value) {
+	}
+
+	/**
+	 * Reports that the main snak of the current statement has an unknown
+	 * value.
+	 */
+	default void mainSnakSomeValue() {
+	}
+
+	/**
+	 * Reports that the main snak of the current statement states that there is
+	 * no value.
+	 */
+	default void mainSnakNoValue() {
+	}
+
+	/**
+	 * Reports a qualifier of the current statement.
+	 *
+	 * @param propertyId
+	 *            the id of the property of the qualifier
+	 * @param snakType
+	 *            one of {@link #SNAK_TYPE_VALUE}, {@link #SNAK_TYPE_SOMEVALUE}
+	 *            and {@link #SNAK_TYPE_NOVALUE}
+	 * @param value
+	 *            the value if the snak type is {@link #SNAK_TYPE_VALUE}, null
+	 *            otherwise; only valid during this call
+	 */
+	default void qualifier(String propertyId, String snakType, Value value) {
+	}
+
+	/**
+	 * Starts a new reference of the current statement.
+	 */
+	default void reference() {
+	}
+
+	/**
+	 * Reports a snak of the current reference.
+	 *
+	 * @param propertyId
+	 *            the id of the property of the snak
+	 * @param snakType
+	 *            one of {@link #SNAK_TYPE_VALUE}, {@link #SNAK_TYPE_SOMEVALUE}
+	 *            and {@link #SNAK_TYPE_NOVALUE}
+	 * @param value
+	 *            the value if the snak type is {@link #SNAK_TYPE_VALUE}, null
+	 *            otherwise; only valid during this call
+	 */
+	default void referenceSnak(String propertyId, String snakType, Value value) {
+	}
+
+	/**
+	 * Ends the current entity.
+	 */
+	default void endEntity() {
+	}
+}
@@ -0,0 +1,165 @@
+package org.wikidata.wdtk.datamodel.interfaces;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simple broker implementation of {@link EntityEventHandler} which distributes
+ * events to multiple registered handlers, in the order of their registration.
+ */
+public class EntityEventHandlerBroker implements EntityEventHandler {
+
+	private final List<EntityEventHandler> handlers = new ArrayList<>();
+
+	/**
+	 * Registers a handler which will be called for all events. The exact same
+	 * object cannot be registered twice.
+	 *
+	 * @param entityEventHandler
+	 *            the handler to register
+	 */
+	public void registerEntityEventHandler(EntityEventHandler entityEventHandler) {
+		if (!handlers.contains(entityEventHandler)) {
+			handlers.add(entityEventHandler);
+		}
+	}
+
+	@Override
+	public void startEntity(String id, String type) {
+		for (EntityEventHandler handler : handlers) {
+			handler.startEntity(id, type);
+		}
+	}
+
+	@Override
+	public void label(String language, String text) {
+		for (EntityEventHandler handler : handlers) {
+			handler.label(language, text);
+		}
+	}
+
+	@Override
+	public void description(String language, String text) {
+		for (EntityEventHandler handler : handlers) {
+			handler.description(language, text);
+		}
+	}
+
+	@Override
+	public void alias(String language, String text) {
+		for (EntityEventHandler handler : handlers) {
+			handler.alias(language, text);
+		}
+	}
+
+	@Override
+	public void lemma(String language, String text) {
+		for (EntityEventHandler handler : handlers) {
+			handler.lemma(language, text);
+		}
+	}
+
+	@Override
+	public void representation(String language, String text) {
+		for (EntityEventHandler handler : handlers) {
+			handler.representation(language, text);
+		}
+	}
+
+	@Override
+	public void gloss(String language, String text) {
+		for (EntityEventHandler handler : handlers) {
+			handler.gloss(language, text);
+		}
+	}
+
+	@Override
+	public void datatype(String datatype) {
+		for (EntityEventHandler handler : handlers) {
+			handler.datatype(datatype);
+		}
+	}
+
+	@Override
+	public void sitelink(String site, String title) {
+		for (EntityEventHandler handler : handlers) {
+			handler.sitelink(site, title);
+		}
+	}
+
+	@Override
+	public void statement(String propertyId, StatementRank rank) {
+		for (EntityEventHandler handler : handlers) {
+			handler.statement(propertyId, rank);
+		}
+	}
+
+	@Override
+	public void mainSnakValue(Value value) {
+		for (EntityEventHandler handler : handlers) {
+			handler.mainSnakValue(value);
+		}
+	}
+
+	@Override
+	public void mainSnakSomeValue() {
+		for (EntityEventHandler handler : handlers) {
+			handler.mainSnakSomeValue();
+		}
+	}
+
+	@Override
+	public void mainSnakNoValue() {
+		for (EntityEventHandler handler : handlers) {
+			handler.mainSnakNoValue();
+		}
+	}
+
+	@Override
+	public void qualifier(String propertyId, String snakType, Value value) {
+		for (EntityEventHandler handler : handlers) {
+			handler.qualifier(propertyId, snakType, value);
+		}
+	}
+
+	@Override
+	public void reference() {
+		for (EntityEventHandler handler : handlers) {
+			handler.reference();
+		}
+	}
+
+	@Override
+	public void referenceSnak(String propertyId, String snakType, Value value) {
+		for (EntityEventHandler handler : handlers) {
+			handler.referenceSnak(propertyId, snakType, value);
+		}
+	}
+
+	@Override
+	public void endEntity() {
+		for (EntityEventHandler handler : handlers) {
+			handler.endEntity();
+		}
+	}
+}
@@ -20,8 +20,10 @@ package org.wikidata.wdtk.datamodel.interfaces;
  * #L%
  */
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This class helps to interpret Wikimedia language codes in terms of official
@@ -605,6 +607,16 @@ public class WikimediaLanguageCodes {
 
 	}
 	
+	/**
+	 * Returns the set of all Wikimedia language codes known to this class,
+	 * including the deprecated ones.
+	 *
+	 * @return an unmodifiable set of Wikimedia language codes
+	 */
+	public static Set<String> getKnownLanguageCodes() {
+		return Collections.unmodifiableSet(LANGUAGE_CODES.keySet());
+	}
+
 	/**
 	 * Translate a Wikimedia language code to its preferred value
 	 * if this code is deprecated, or return it untouched if the string
@@ -33,11 +33,15 @@ import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
 import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
+
 
 public class JsonDeserializerTest {
 	
 	public JsonDeserializer SUT = new JsonDeserializer(Datamodel.SITE_WIKIDATA);
 	public JsonDeserializer SUTcommons = new JsonDeserializer(Datamodel.SITE_WIKIMEDIA_COMMONS);
+	public JsonDeserializer SUTstreaming = new JsonDeserializer(Datamodel.SITE_WIKIDATA, true);
+	public JsonDeserializer SUTstreamingCommons = new JsonDeserializer(Datamodel.SITE_WIKIMEDIA_COMMONS, true);
 	
 	protected String loadJson(String filename) throws IOException {
 		InputStream stream = JsonDeserializerTest.class.getClassLoader()
@@ -75,4 +79,23 @@ public class JsonDeserializerTest {
 		EntityDocument doc = SUT.deserializeEntityDocument(loadJson("property.json"));
 		Assert.assertEquals(doc.getEntityId(), Datamodel.makeWikidataPropertyIdValue("P3467"));
 	}
+
+	@Test
+	public void testStreamingDeserialization() throws IOException {
+		Assert.assertEquals(SUT.deserializeItemDocument(loadJson("item.json")),
+				SUTstreaming.deserializeItemDocument(loadJson("item.json")));
+		Assert.assertEquals(SUT.deserializePropertyDocument(loadJson("property.json")),
+				SUTstreaming.deserializePropertyDocument(loadJson("property.json")));
+		Assert.assertEquals(SUT.deserializeLexemeDocument(loadJson("lexeme.json")),
+				SUTstreaming.deserializeLexemeDocument(loadJson("lexeme.json")));
+		Assert.assertEquals(SUTcommons.deserializeMediaInfoDocument(loadJson("mediainfo.json")),
+				SUTstreamingCommons.deserializeMediaInfoDocument(loadJson("mediainfo.json")));
+		Assert.assertEquals(SUT.deserializeEntityDocument(loadJson("property.json")),
+				SUTstreaming.deserializeEntityDocument(loadJson("property.json")));
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void testStreamingDeserializationOfWrongType() throws IOException {
+		SUTstreaming.deserializeItemDocument(loadJson("property.json"));
+	}
 }
@@ -88,6 +88,11 @@ public class JsonSerializerTest {
 		documentIterator.close();
 
 		assertEquals(inputDocuments, outputDocuments);
+
+		String expected = "[\n" + mapper.writeValueAsString(id1) + ",\n"
+				+ mapper.writeValueAsString(id2) + ",\n"
+				+ mapper.writeValueAsString(pd1) + "\n]";
+		assertEquals(expected, out.toString());
 	}
 
 	@Test
@@ -0,0 +1,424 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.helpers.EntityDocumentEventAdapter;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityEventHandler;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+public class JsonEventReaderTest {
+
+	private final JsonEventReader reader = new JsonEventReader(Datamodel.SITE_WIKIDATA);
+
+	/**
+	 * Handler that records all events as strings, prefixed with the id of the
+	 * entity they belong to. The values it received are kept as well.
+	 */
+	static class RecordingHandler implements EntityEventHandler {
+
+		final List<String> events = new ArrayList<>();
+		final List<Value> values = new ArrayList<>();
+		private final Deque<String> entityIds = new ArrayDeque<>();
+		private StringBuilder statement;
+
+		private void record(String event) {
+			events.add(entityIds.peek() + " " + event);
+		}
+
+		private void recordInStatement(String event) {
+			statement.append(" | ").append(event);
+		}
+
+		private void endStatement() {
+			if (statement != null) {
+				record(statement.toString());
+				statement = null;
+			}
+		}
+
+		/**
+		 * Returns the events, with all events of a statement joined into one
+		 * string, sorted so that the order of statements and terms does not
+		 * matter.
+		 */
+		List<String> getSortedEvents() {
+			endStatement();
+			List<String> result = new ArrayList<>(events);
+			Collections.sort(result);
+			return result;
+		}
+
+		@Override
+		public void startEntity(String id, String type) {
+			endStatement();
+			entityIds.push(id);
+			record("start " + type);
+		}
+
+		@Override
+		public void label(String language, String text) {
+			endStatement();
+			record("label " + language + " " + text);
+		}
+
+		@Override
+		public void description(String language, String text) {
+			endStatement();
+			record("description " + language + " " + text);
+		}
+
+		@Override
+		public void alias(String language, String text) {
+			endStatement();
+			record("alias " + language + " " + text);
+		}
+
+		@Override
+		public void lemma(String language, String text) {
+			endStatement();
+			record("lemma " + language + " " + text);
+		}
+
+		@Override
+		public void representation(String language, String text) {
+			endStatement();
+			record("representation " + language + " " + text);
+		}
+
+		@Override
+		public void gloss(String language, String text) {
+			endStatement();
+			record("gloss " + language + " " + text);
+		}
+
+		@Override
+		public void datatype(String datatype) {
+			endStatement();
+			record("datatype " + datatype);
+		}
+
+		@Override
+		public void sitelink(String site, String title) {
+			endStatement();
+			record("sitelink " + site + " " + title);
+		}
+
+		@Override
+		public void statement(String propertyId, StatementRank rank) {
+			endStatement();
+			statement = new StringBuilder("statement " + propertyId + " " + rank);
+		}
+
+		@Override
+		public void mainSnakValue(Value value) {
+			values.add(value);
+			recordInStatement("value " + value);
+		}
+
+		@Override
+		public void mainSnakSomeValue() {
+			recordInStatement("somevalue");
+		}
+
+		@Override
+		public void mainSnakNoValue() {
+			recordInStatement("novalue");
+		}
+
+		@Override
+		public void qualifier(String propertyId, String snakType, Value value) {
+			values.add(value);
+			recordInStatement("qualifier " + propertyId + " " + snakType + " " + value);
+		}
+
+		@Override
+		public void reference() {
+			recordInStatement("reference");
+		}
+
+		@Override
+		public void referenceSnak(String propertyId, String snakType, Value value) {
+			values.add(value);
+			recordInStatement("snak " + propertyId + " " + snakType + " " + value);
+		}
+
+		@Override
+		public void endEntity() {
+			endStatement();
+			record("end");
+			entityIds.pop();
+		}
+	}
+
+	private String loadJson(String filename) throws IOException {
+		InputStream stream = JsonEventReaderTest.class.getClassLoader()
+				.getResourceAsStream("JsonDeserializer/" + filename);
+		return IOUtils.toString(stream);
+	}
+
+	private static String json(String singleQuoted) {
+		return singleQuoted.replace('\'', '"');
+	}
+
+	private List<String> readEvents(String json) throws IOException {
+		RecordingHandler handler = new RecordingHandler();
+		reader.readEntity(json, handler);
+		return handler.events;
+	}
+
+	/**
+	 * Checks that reading the JSON with the event reader produces the same
+	 * events as reading it into a document and passing it to an
+	 * {@link EntityDocumentEventAdapter}.
+	 */
+	private void assertSameAsDocument(String siteIri, String json) throws IOException {
+		ObjectReader documentReader = new DatamodelMapper(siteIri)
+				.readerFor(EntityDocumentImpl.class)
+				.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+		EntityDocument document = documentReader.readValue(json);
+		RecordingHandler expected = new RecordingHandler();
+		EntityDocumentProcessor adapter = new EntityDocumentEventAdapter(expected);
+		if (document instanceof ItemDocument) {
+			adapter.processItemDocument((ItemDocument) document);
+		} else if (document instanceof PropertyDocument) {
+			adapter.processPropertyDocument((PropertyDocument) document);
+		} else if (document instanceof LexemeDocument) {
+			adapter.processLexemeDocument((LexemeDocument) document);
+		} else {
+			adapter.processMediaInfoDocument((MediaInfoDocument) document);
+		}
+
+		RecordingHandler actual = new RecordingHandler();
+		new JsonEventReader(siteIri).readEntity(json, actual);
+		assertEquals(expected.getSortedEvents(), actual.getSortedEvents());
+	}
+
+	@Test
+	public void testItemFromJson() throws IOException {
+		assertSameAsDocument(Datamodel.SITE_WIKIDATA, loadJson("item.json"));
+	}
+
+	@Test
+	public void testPropertyFromJson() throws IOException {
+		assertSameAsDocument(Datamodel.SITE_WIKIDATA, loadJson("property.json"));
+	}
+
+	@Test
+	public void testLexemeFromJson() throws IOException {
+		assertSameAsDocument(Datamodel.SITE_WIKIDATA, loadJson("lexeme.json"));
+	}
+
+	@Test
+	public void testMediaInfoFromJson() throws IOException {
+		assertSameAsDocument(Datamodel.SITE_WIKIMEDIA_COMMONS, loadJson("mediainfo.json"));
+	}
+
+	@Test
+	public void testEventOrder() throws IOException {
+		String json = json("{'claims':{'P1':[{'mainsnak':{'snaktype':'value','property':'P1',"
+				+ "'datavalue':{'value':'foo','type':'string'}},"
+				+ "'qualifiers':{'P2':[{'snaktype':'novalue','property':'P2'}]},"
+				+ "'references':[{'snaks':{'P3':[{'snaktype':'somevalue','property':'P3'}]}}],"
+				+ "'type':'statement','rank':'preferred'}]},"
+				+ "'labels':{'en':{'language':'en','value':'label'}},"
+				+ "'type':'item','id':'Q1','lastrevid':42,"
+				+ "'sitelinks':{'enwiki':{'site':'enwiki','title':'Title','badges':[]}},"
+				+ "'aliases':{'en':[{'language':'en','value':'a'},{'language':'en','value':'b'}]}}");
+		assertEquals(Arrays.asList(
+				"Q1 start item",
+				"Q1 statement P1 PREFERRED",
+				"Q1 value \"foo\"",
+				"Q1 qualifier P2 novalue null",
+				"Q1 reference",
+				"Q1 snak P3 somevalue null",
+				"Q1 label en label",
+				"Q1 sitelink enwiki Title",
+				"Q1 alias en a",
+				"Q1 alias en b",
+				"Q1 end"), readEventsFlat(json));
+	}
+
+	/**
+	 * Records the events of the given JSON without grouping statements.
+	 */
+	private List<String> readEventsFlat(String json) throws IOException {
+		List<String> events = new ArrayList<>();
+		reader.readEntity(json, new EntityEventHandler() {
+			String id;
+
+			@Override
+			public void startEntity(String id, String type) {
+				this.id = id;
+				events.add(id + " start " + type);
+			}
+
+			@Override
+			public void label(String language, String text) {
+				events.add(id + " label " + language + " " + text);
+			}
+
+			@Override
+			public void alias(String language, String text) {
+				events.add(id + " alias " + language + " " + text);
+			}
+
+			@Override
+			public void sitelink(String site, String title) {
+				events.add(id + " sitelink " + site + " " + title);
+			}
+
+			@Override
+			public void statement(String propertyId, StatementRank rank) {
+				events.add(id + " statement " + propertyId + " " + rank);
+			}
+
+			@Override
+			public void mainSnakValue(Value value) {
+				events.add(id + " value " + value);
+			}
+
+			@Override
+			public void qualifier(String propertyId, String snakType, Value value) {
+				events.add(id + " qualifier " + propertyId + " " + snakType + " " + value);
+			}
+
+			@Override
+			public void reference() {
+				events.add(id + " reference");
+			}
+
+			@Override
+			public void referenceSnak(String propertyId, String snakType, Value value) {
+				events.add(id + " snak " + propertyId + " " + snakType + " " + value);
+			}
+
+			@Override
+			public void endEntity() {
+				events.add(id + " end");
+			}
+		});
+		return events;
+	}
+
+	@Test
+	public void testFlyweightsAreReused() throws IOException {
+		String json = json("{'type':'item','id':'Q1','claims':{'P1':["
+				+ "{'mainsnak':{'snaktype':'value','property':'P1','datavalue':{'value':'foo','type':'string'}},'rank':'normal'},"
+				+ "{'mainsnak':{'snaktype':'value','property':'P1','datavalue':{'value':'bar','type':'string'}},'rank':'normal'}],"
+				+ "'P2':["
+				+ "{'mainsnak':{'snaktype':'value','property':'P2','datavalue':{'value':{'entity-type':'item','numeric-id':2,'id':'Q2'},'type':'wikibase-entityid'}},'rank':'normal'},"
+				+ "{'mainsnak':{'snaktype':'value','property':'P2','datavalue':{'value':{'entity-type':'item','numeric-id':3,'id':'Q3'},'type':'wikibase-entityid'}},'rank':'normal'}]}}");
+		RecordingHandler handler = new RecordingHandler();
+		reader.readEntity(json, handler);
+
+		assertEquals(Arrays.asList(
+				"Q1 start item",
+				"Q1 statement P1 NORMAL | value \"foo\"",
+				"Q1 statement P1 NORMAL | value \"bar\"",
+				"Q1 statement P2 NORMAL | value http://www.wikidata.org/entity/Q2 (item)",
+				"Q1 statement P2 NORMAL | value http://www.wikidata.org/entity/Q3 (item)",
+				"Q1 end"), handler.events);
+		assertSame(handler.values.get(0), handler.values.get(1));
+		assertSame(handler.values.get(2), handler.values.get(3));
+		assertEquals(new StringValueImpl("bar"), handler.values.get(1));
+		assertEquals(Datamodel.makeWikidataItemIdValue("Q3"), handler.values.get(3));
+		assertEquals(handler.values.get(3), Datamodel.makeWikidataItemIdValue("Q3"));
+	}
+
+	@Test
+	public void testNestedEntities() throws IOException {
+		String json = json("{'type':'lexeme','id':'L1','lemmas':{'en':{'language':'en','value':'run'}},"
+				+ "'forms':[{'id':'L1-F1','representations':{'en':{'language':'en','value':'ran'}},'claims':[]}],"
+				+ "'senses':[{'id':'L1-S1','glosses':{'en':{'language':'en','value':'to move'}},'claims':{}}]}");
+		assertEquals(Arrays.asList(
+				"L1 start lexeme",
+				"L1 lemma en run",
+				"L1-F1 start form",
+				"L1-F1 representation en ran",
+				"L1-F1 end",
+				"L1-S1 start sense",
+				"L1-S1 gloss en to move",
+				"L1-S1 end",
+				"L1 end"), readEvents(json));
+	}
+
+	@Test
+	public void testReadFromParser() throws IOException {
+		JsonParser parser = reader.createParser(json("[{'type':'item','id':'Q1'},{'type':'property','id':'P1','datatype':'string'}]"));
+		parser.nextToken();
+		parser.nextToken();
+		RecordingHandler handler = new RecordingHandler();
+		reader.readEntity(parser, handler);
+		parser.nextToken();
+		reader.readEntity(parser, handler);
+		assertEquals(Arrays.asList("Q1 start item", "Q1 end",
+				"P1 start property", "P1 datatype string", "P1 end"), handler.events);
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void testMissingId() throws IOException {
+		readEvents(json("{'type':'item','labels':{}}"));
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void testMissingRank() throws IOException {
+		readEvents(json("{'type':'item','id':'Q1','claims':{'P1':[{'mainsnak':{'snaktype':'novalue','property':'P1'}}]}}"));
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void testUnknownSnakType() throws IOException {
+		readEvents(json("{'type':'item','id':'Q1','claims':{'P1':[{'mainsnak':{'snaktype':'other','property':'P1'},'rank':'normal'}]}}"));
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void testInvalidGlobeCoordinates() throws IOException {
+		readEvents(json("{'type':'item','id':'Q1','claims':{'P1':[{'mainsnak':{'snaktype':'value','property':'P1',"
+				+ "'datavalue':{'value':{'latitude':100,'longitude':0,'precision':1,'globe':'http://www.wikidata.org/entity/Q2'},'type':'globecoordinate'}},'rank':'normal'}]}}"));
+	}
+}
@@ -0,0 +1,220 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.interfaces.*;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+public class JsonStreamReaderTest {
+
+	private final ObjectMapper mapper = new DatamodelMapper(Datamodel.SITE_WIKIDATA);
+	private final ObjectReader jacksonReader = mapper.readerFor(EntityDocumentImpl.class)
+			.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+	private final JsonStreamReader reader = new JsonStreamReader(Datamodel.SITE_WIKIDATA);
+
+	private final ItemIdValue q1 = Datamodel.makeWikidataItemIdValue("Q1");
+	private final PropertyIdValue p1 = Datamodel.makeWikidataPropertyIdValue("P1");
+
+	private String loadJson(String filename) throws IOException {
+		InputStream stream = JsonStreamReaderTest.class.getClassLoader()
+				.getResourceAsStream("JsonDeserializer/" + filename);
+		return IOUtils.toString(stream);
+	}
+
+	private static String json(String singleQuoted) {
+		return singleQuoted.replace('\'', '"');
+	}
+
+	private void assertSameAsJackson(ObjectReader jacksonReader, JsonStreamReader reader, String json)
+			throws IOException {
+		EntityDocument expected = jacksonReader.readValue(json);
+		EntityDocument document = reader.readEntityDocument(json);
+		assertEquals(expected, document);
+		assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(document));
+	}
+
+	private void assertSameAsJackson(String json) throws IOException {
+		assertSameAsJackson(jacksonReader, reader, json);
+	}
+
+	@Test
+	public void testItemFromJson() throws IOException {
+		assertSameAsJackson(loadJson("item.json"));
+	}
+
+	@Test
+	public void testPropertyFromJson() throws IOException {
+		assertSameAsJackson(loadJson("property.json"));
+	}
+
+	@Test
+	public void testLexemeFromJson() throws IOException {
+		assertSameAsJackson(loadJson("lexeme.json"));
+	}
+
+	@Test
+	public void testMediaInfoFromJson() throws IOException {
+		DatamodelMapper commonsMapper = new DatamodelMapper(Datamodel.SITE_WIKIMEDIA_COMMONS);
+		assertSameAsJackson(commonsMapper.readerFor(EntityDocumentImpl.class)
+						.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT),
+				new JsonStreamReader(Datamodel.SITE_WIKIMEDIA_COMMONS), loadJson("mediainfo.json"));
+	}
+
+	@Test
+	public void testItemWithAllValueTypes() throws IOException {
+		Reference reference = Datamodel.makeReference(Collections.singletonList(
+				Datamodel.makeSnakGroup(Collections.singletonList(Datamodel.makeNoValueSnak(p1)))));
+		StatementGroup statements = Datamodel.makeStatementGroup(Arrays.asList(
+				Datamodel.makeStatement(q1, Datamodel.makeValueSnak(p1, Datamodel.makeStringValue("string")),
+						Collections.emptyList(), Collections.singletonList(reference), StatementRank.PREFERRED, "Q1$1"),
+				Datamodel.makeStatement(q1, Datamodel.makeValueSnak(p1, Datamodel.makeMonolingualTextValue("text", "en")),
+						Collections.singletonList(Datamodel.makeSnakGroup(Collections.singletonList(
+								Datamodel.makeSomeValueSnak(p1)))),
+						Collections.emptyList(), StatementRank.DEPRECATED, "Q1$2"),
+				Datamodel.makeStatement(q1, Datamodel.makeValueSnak(p1, Datamodel.makeGlobeCoordinatesValue(
+						51.5, -0.125, GlobeCoordinatesValue.PREC_ARCSECOND, GlobeCoordinatesValue.GLOBE_EARTH)),
+						Collections.emptyList(), Collections.emptyList(), StatementRank.NORMAL, "Q1$3"),
+				Datamodel.makeStatement(q1, Datamodel.makeValueSnak(p1, Datamodel.makeQuantityValue(
+						new BigDecimal("1.5"), new BigDecimal("1"), new BigDecimal("2"),
+						"http://www.wikidata.org/entity/Q11573")),
+						Collections.emptyList(), Collections.emptyList(), StatementRank.NORMAL, "Q1$4"),
+				Datamodel.makeStatement(q1, Datamodel.makeValueSnak(p1, Datamodel.makeTimeValue(
+						2020, (byte) 2, (byte) 29, TimeValue.CM_GREGORIAN_PRO)),
+						Collections.emptyList(), Collections.emptyList(), StatementRank.NORMAL, "Q1$5"),
+				Datamodel.makeStatement(q1, Datamodel.makeValueSnak(p1, p1),
+						Collections.emptyList(), Collections.emptyList(), StatementRank.NORMAL, "Q1$6")));
+		ItemDocument document = Datamodel.makeItemDocument(q1,
+				Collections.singletonList(Datamodel.makeMonolingualTextValue("label", "en")),
+				Collections.singletonList(Datamodel.makeMonolingualTextValue("description", "en")),
+				Arrays.asList(Datamodel.makeMonolingualTextValue("alias 1", "en"),
+						Datamodel.makeMonolingualTextValue("alias 2", "en")),
+				Collections.singletonList(statements),
+				Collections.singletonMap("enwiki", Datamodel.makeSiteLink("Title", "enwiki",
+						Collections.singletonList(Datamodel.makeWikidataItemIdValue("Q17437796")))),
+				42);
+		assertSameAsJackson(mapper.writeValueAsString(document));
+		assertEquals(document, reader.readEntityDocument(mapper.writeValueAsString(document)));
+	}
+
+	@Test
+	public void testEmptyArraysAsMaps() throws IOException {
+		assertSameAsJackson(json("{'type':'item','id':'Q1','labels':[],'descriptions':[],'aliases':[],"
+				+ "'claims':[],'sitelinks':[],'lastrevid':3}"));
+	}
+
+	@Test
+	public void testClaimsBeforeId() throws IOException {
+		String json = json("{'claims':{'P1':[{'mainsnak':{'snaktype':'novalue','property':'P1'},"
+				+ "'type':'statement','rank':'normal','id':'Q1$1'}]},'type':'item','id':'Q1'}");
+		assertSameAsJackson(json);
+		ItemDocument document = (ItemDocument) reader.readEntityDocument(json);
+		assertEquals(q1, document.getStatementGroups().get(0).getStatements().get(0).getSubject());
+	}
+
+	@Test
+	public void testUnsupportedValues() throws IOException {
+		assertSameAsJackson(json("{'type':'item','id':'Q1','claims':{'P1':["
+				+ "{'mainsnak':{'snaktype':'value','property':'P1','datatype':'funky',"
+				+ "'datavalue':{'value':{'foo':'bar','baz':[1,2.5,true]},'type':'funky'}},"
+				+ "'type':'statement','rank':'normal'},"
+				+ "{'mainsnak':{'snaktype':'value','property':'P1','datatype':'wikibase-funky',"
+				+ "'datavalue':{'value':{'id':'Z1','entity-type':'funky'},'type':'wikibase-entityid'}},"
+				+ "'type':'statement','rank':'normal'}]}}"));
+	}
+
+	@Test
+	public void testNumericIdOnly() throws IOException {
+		assertSameAsJackson(json("{'type':'item','id':'Q1','claims':{'P1':["
+				+ "{'mainsnak':{'snaktype':'value','property':'P1','datatype':'wikibase-item',"
+				+ "'datavalue':{'value':{'numeric-id':5,'entity-type':'item'},'type':'wikibase-entityid'}},"
+				+ "'type':'statement','rank':'normal'}]}}"));
+	}
+
+	@Test
+	public void testFormAndSenseIds() throws IOException {
+		assertSameAsJackson(json("{'type':'item','id':'Q1','claims':{'P1':["
+				+ "{'mainsnak':{'snaktype':'value','property':'P1','datatype':'wikibase-form',"
+				+ "'datavalue':{'value':{'id':'L1-F2','entity-type':'form'},'type':'wikibase-entityid'}},"
+				+ "'type':'statement','rank':'normal'},"
+				+ "{'mainsnak':{'snaktype':'value','property':'P1','datatype':'wikibase-sense',"
+				+ "'datavalue':{'value':{'id':'L1-S2'},'type':'wikibase-entityid'}},"
+				+ "'type':'statement','rank':'normal'}]}}"));
+	}
+
+	@Test
+	public void testConsecutiveDocuments() throws IOException {
+		String json = "[" + loadJson("item.json") + "," + loadJson("property.json") + "]";
+		try (JsonParser parser = reader.createParser(json)) {
+			assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+			parser.nextToken();
+			assertTrue(reader.readEntityDocument(parser) instanceof ItemDocument);
+			parser.nextToken();
+			assertTrue(reader.readEntityDocument(parser) instanceof PropertyDocument);
+			assertEquals(JsonToken.END_ARRAY, parser.nextToken());
+		}
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void testMissingType() throws IOException {
+		reader.readEntityDocument(json("{'id':'Q1'}"));
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void testMissingId() throws IOException {
+		reader.readEntityDocument(json("{'type':'item'}"));
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void testUnsupportedType() throws IOException {
+		reader.readEntityDocument(json("{'type':'funky','id':'Q1'}"));
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void testInvalidStatement() throws IOException {
+		reader.readEntityDocument(json("{'type':'item','id':'Q1','claims':{'P1':["
+				+ "{'mainsnak':{'snaktype':'novalue','property':'P1'},'type':'statement'}]}}"));
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void testLexemeWithoutLemmas() throws IOException {
+		reader.readEntityDocument(json("{'type':'lexeme','id':'L1','lexicalCategory':'Q1',"
+				+ "'language':'Q1','lemmas':[]}"));
+	}
+}
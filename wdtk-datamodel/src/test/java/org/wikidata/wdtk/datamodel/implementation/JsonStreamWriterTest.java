@@ -0,0 +1,169 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.helpers.JsonDeserializer;
+import org.wikidata.wdtk.datamodel.interfaces.*;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class JsonStreamWriterTest {
+
+	private final ObjectMapper mapper = new DatamodelMapper(Datamodel.SITE_WIKIDATA);
+	private final JsonDeserializer deserializer = new JsonDeserializer(Datamodel.SITE_WIKIDATA);
+
+	private final ItemIdValue q1 = Datamodel.makeWikidataItemIdValue("Q1");
+	private final PropertyIdValue p1 = Datamodel.makeWikidataPropertyIdValue("P1");
+
+	private String loadJson(String filename) throws IOException {
+		InputStream stream = JsonStreamWriterTest.class.getClassLoader()
+				.getResourceAsStream("JsonDeserializer/" + filename);
+		return IOUtils.toString(stream);
+	}
+
+	private String write(EntityDocument document) throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		try (JsonGenerator generator = mapper.getFactory().createGenerator(stringWriter)) {
+			new JsonStreamWriter(generator).writeEntityDocument(document);
+		}
+		return stringWriter.toString();
+	}
+
+	private void assertSameAsJackson(EntityDocument document) throws IOException {
+		assertEquals(mapper.writeValueAsString(document), write(document));
+	}
+
+	private List<Statement> makeStatements(EntityIdValue subject) {
+		List<Value> values = Arrays.asList(
+				Datamodel.makeStringValue("string"),
+				Datamodel.makeMonolingualTextValue("text", "en"),
+				Datamodel.makeGlobeCoordinatesValue(51.5, -0.125, GlobeCoordinatesValue.PREC_ARCSECOND,
+						GlobeCoordinatesValue.GLOBE_EARTH),
+				Datamodel.makeQuantityValue(new BigDecimal("1.5"), new BigDecimal("1"), new BigDecimal("2"),
+						"http://www.wikidata.org/entity/Q11573"),
+				Datamodel.makeQuantityValue(new BigDecimal("-3")),
+				Datamodel.makeTimeValue(-13798000000L, (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0,
+						TimeValue.PREC_1GY, 0, 0, 60, TimeValue.CM_JULIAN_PRO),
+				q1, p1);
+		Reference reference = Datamodel.makeReference(Collections.singletonList(
+				Datamodel.makeSnakGroup(Collections.singletonList(Datamodel.makeNoValueSnak(p1)))));
+		List<Statement> statements = new ArrayList<>();
+		for (Value value : values) {
+			statements.add(Datamodel.makeStatement(subject, Datamodel.makeValueSnak(p1, value),
+					Collections.emptyList(), Collections.emptyList(), StatementRank.NORMAL, subject.getId() + "$" + statements.size()));
+		}
+		statements.add(Datamodel.makeStatement(subject, Datamodel.makeSomeValueSnak(p1),
+				Collections.singletonList(Datamodel.makeSnakGroup(Collections.singletonList(
+						Datamodel.makeValueSnak(p1, Datamodel.makeStringValue("qualifier"))))),
+				Collections.singletonList(reference), StatementRank.PREFERRED, ""));
+		return statements;
+	}
+
+	@Test
+	public void testItemFromJson() throws IOException {
+		assertSameAsJackson(deserializer.deserializeItemDocument(loadJson("item.json")));
+	}
+
+	@Test
+	public void testPropertyFromJson() throws IOException {
+		assertSameAsJackson(deserializer.deserializePropertyDocument(loadJson("property.json")));
+	}
+
+	@Test
+	public void testLexemeFromJson() throws IOException {
+		assertSameAsJackson(deserializer.deserializeLexemeDocument(loadJson("lexeme.json")));
+	}
+
+	@Test
+	public void testMediaInfoFromJson() throws IOException {
+		assertSameAsJackson(new JsonDeserializer(Datamodel.SITE_WIKIMEDIA_COMMONS)
+				.deserializeMediaInfoDocument(loadJson("mediainfo.json")));
+	}
+
+	@Test
+	public void testItemWithAllValueTypes() throws IOException {
+		ItemDocument document = Datamodel.makeItemDocument(q1,
+				Arrays.asList(Datamodel.makeMonolingualTextValue("label", "en"),
+						Datamodel.makeMonolingualTextValue("étiquette \"1\"", "fr")),
+				Collections.singletonList(Datamodel.makeMonolingualTextValue("description", "en")),
+				Arrays.asList(Datamodel.makeMonolingualTextValue("alias 1", "en"),
+						Datamodel.makeMonolingualTextValue("alias 2", "en")),
+				Collections.singletonList(Datamodel.makeStatementGroup(makeStatements(q1))),
+				Collections.singletonMap("enwiki", Datamodel.makeSiteLink("Title", "enwiki",
+						Collections.singletonList(Datamodel.makeWikidataItemIdValue("Q17437796")))),
+				42);
+		assertSameAsJackson(document);
+	}
+
+	@Test
+	public void testEmptyDocuments() throws IOException {
+		assertSameAsJackson(Datamodel.makeItemDocument(ItemIdValue.NULL, Collections.emptyList(),
+				Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyMap()));
+		assertSameAsJackson(Datamodel.makePropertyDocument(p1, Collections.emptyList(),
+				Collections.emptyList(), Collections.emptyList(),
+				Datamodel.makeDatatypeIdValue(DatatypeIdValue.DT_ITEM)));
+		assertSameAsJackson(Datamodel.makeMediaInfoDocument(
+				Datamodel.makeWikimediaCommonsMediaInfoIdValue("M1")));
+	}
+
+	@Test
+	public void testLexemeWithFormsAndSenses() throws IOException {
+		LexemeIdValue lexemeId = Datamodel.makeWikidataLexemeIdValue("L1");
+		LexemeDocument lexeme = Datamodel.makeLexemeDocument(lexemeId, q1, q1,
+				Collections.singletonList(Datamodel.makeMonolingualTextValue("lemma", "en")));
+		lexeme = lexeme.withForm(Datamodel.makeFormDocument(Datamodel.makeWikidataFormIdValue("L1-F1"),
+				Collections.singletonList(Datamodel.makeMonolingualTextValue("form", "en")),
+				Collections.singletonList(q1), Collections.emptyList()).withRevisionId(12));
+		SenseIdValue senseId = Datamodel.makeWikidataSenseIdValue("L1-S1");
+		lexeme = lexeme.withSense(Datamodel.makeSenseDocument(senseId,
+				Collections.singletonList(Datamodel.makeMonolingualTextValue("gloss", "en")),
+				Collections.singletonList(Datamodel.makeStatementGroup(makeStatements(senseId)))).withRevisionId(13));
+		assertSameAsJackson(lexeme.withRevisionId(1234));
+	}
+
+	@Test
+	public void testStatement() throws IOException {
+		for (Statement statement : makeStatements(q1)) {
+			StringWriter stringWriter = new StringWriter();
+			try (JsonGenerator generator = mapper.getFactory().createGenerator(stringWriter)) {
+				new JsonStreamWriter(generator).writeStatement(statement);
+			}
+			assertEquals(mapper.writeValueAsString(statement), stringWriter.toString());
+		}
+	}
+}
@@ -110,6 +110,38 @@ public class QuantityValueImplTest {
 		assertEquals("+4.00", quantity.getValue().getAmountAsString());
 	}
 
+	@Test
+	public void compactValuesFromJson() throws IOException {
+		String json = "{\"value\":{\"amount\":\"-12.50\",\"lowerBound\":\"-13\",\"upperBound\":\"+0.0000001\",\"unit\":\"1\"},\"type\":\"quantity\"}";
+		QuantityValueImpl quantity = (QuantityValueImpl) mapper.readValue(json, ValueImpl.class);
+		assertEquals(new BigDecimal("-12.50"), quantity.getNumericValue());
+		assertEquals(new BigDecimal("-13"), quantity.getLowerBound());
+		assertEquals(new BigDecimal("0.0000001"), quantity.getUpperBound());
+		assertEquals("-12.50", quantity.getValue().getAmountAsString());
+		assertEquals("-13", quantity.getValue().getLowerBoundAsString());
+		assertEquals("+1E-7", quantity.getValue().getUpperBoundAsString());
+		assertEquals(new QuantityValueImpl(new BigDecimal("-12.50"), new BigDecimal("-13"),
+				new BigDecimal("0.0000001"), "1"), quantity);
+	}
+
+	@Test
+	public void compactStringsMatchBigDecimal() {
+		for (String number : new String[] { "0", "+0.00", "-0.5", "123456789.12345678", "0.000123", "-99999999999999999" }) {
+			BigDecimal expected = new BigDecimal(number);
+			QuantityValueImpl quantity = new QuantityValueImpl(expected, null, null, "1");
+			String expectedString = expected.signum() < 0 ? expected.toString() : "+" + expected.toString();
+			assertEquals(expectedString, quantity.getValue().getAmountAsString());
+			assertEquals(expected, quantity.getNumericValue());
+		}
+	}
+
+	@Test
+	public void unitsAreShared() throws IOException {
+		QuantityValue quantity1 = mapper.readValue(JSON_QUANTITY_VALUE, QuantityValueImpl.class);
+		QuantityValue quantity2 = mapper.readValue(JSON_QUANTITY_VALUE, QuantityValueImpl.class);
+		assertSame(quantity1.getUnit(), quantity2.getUnit());
+	}
+
 	@Test
 	public void hashBasedOnContent() {
 		assertEquals(q1.hashCode(), q2.hashCode());
@@ -0,0 +1,137 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TermListMapTest {
+
+	private final ObjectMapper mapper = new DatamodelMapper("http://example.com/entity/");
+
+	private final Map<String, List<MonolingualTextValue>> aliases = new TermListMap.Builder()
+			.add(new TermImpl("fr", "chat"))
+			.add(new TermImpl("en", "cat"))
+			.add(new TermImpl("fr", "matou"))
+			.addAll("de", Collections.emptyList())
+			.build();
+
+	@Test
+	public void fieldsAreCorrect() {
+		assertEquals(3, aliases.size());
+		assertEquals(Arrays.asList(new TermImpl("fr", "chat"), new TermImpl("fr", "matou")), aliases.get("fr"));
+		assertEquals(Collections.singletonList(new TermImpl("en", "cat")), aliases.get("en"));
+		assertEquals(Collections.emptyList(), aliases.get("de"));
+		assertNull(aliases.get("ja"));
+	}
+
+	@Test
+	public void equalityWithHashMap() {
+		Map<String, List<MonolingualTextValue>> expected = new HashMap<>();
+		expected.put("fr", Arrays.asList(new TermImpl("fr", "chat"), new TermImpl("fr", "matou")));
+		expected.put("en", Collections.singletonList(new TermImpl("en", "cat")));
+		expected.put("de", Collections.emptyList());
+		assertEquals(expected, aliases);
+		assertEquals(aliases, expected);
+		assertEquals(expected.hashCode(), aliases.hashCode());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void immutableLists() {
+		aliases.get("fr").add(new TermImpl("fr", "minou"));
+	}
+
+	/**
+	 * Returns a builder that behaves as if the language code dictionary was
+	 * full, so that codes starting with "x-" cannot be added to it.
+	 */
+	private static TermListMap.Builder builderWithFullDictionary() {
+		return new TermListMap.Builder() {
+			@Override
+			int getLanguageId(String key) {
+				return key.startsWith("x-") ? -1 : super.getLanguageId(key);
+			}
+		};
+	}
+
+	@Test
+	public void fullDictionary() {
+		TermListMap.Builder builder = builderWithFullDictionary()
+				.add(new TermImpl("en", "cat"))
+				.add(new TermImpl("x-unknown-code", "text"))
+				.add(new TermImpl("en", "kitten"))
+				.addAll("x-other-code", Collections.emptyList());
+		Map<String, List<MonolingualTextValue>> map = builder.build();
+		assertEquals(3, map.size());
+		assertEquals(Arrays.asList(new TermImpl("en", "cat"), new TermImpl("en", "kitten")), map.get("en"));
+		assertEquals(Collections.singletonList(new TermImpl("x-unknown-code", "text")), map.get("x-unknown-code"));
+		assertEquals(Collections.emptyList(), map.get("x-other-code"));
+
+		// the builder does not share the map with the result
+		builder.add(new TermImpl("en", "tomcat"));
+		assertEquals(2, map.get("en").size());
+
+		try {
+			map.put("fr", Collections.emptyList());
+			fail("Expected the map to be immutable");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			map.get("en").add(new TermImpl("en", "tomcat"));
+			fail("Expected the lists to be immutable");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void withAliasesDoesNotModifyOriginal() {
+		Map<String, List<MonolingualTextValue>> modified = TermedStatementDocumentImpl.withAliases(
+				aliases, "fr", Collections.singletonList(new TermImpl("fr", "minou")));
+		assertEquals(Collections.singletonList(new TermImpl("fr", "minou")), modified.get("fr"));
+		assertEquals(2, aliases.get("fr").size());
+		assertEquals(aliases.get("en"), modified.get("en"));
+	}
+
+	@Test
+	public void deserializedDirectly() throws IOException {
+		ItemDocument document = mapper.readValue("{\"type\":\"item\",\"id\":\"Q42\","
+				+ "\"aliases\":{\"fr\":[{\"language\":\"fr\",\"value\":\"chat\"},{\"language\":\"fr\",\"value\":\"matou\"}],"
+				+ "\"en\":[{\"language\":\"en\",\"value\":\"cat\"}]}}",
+				ItemDocumentImpl.class);
+		assertEquals(TermListMap.class, document.getAliases().getClass());
+		assertEquals(Arrays.asList(new TermImpl("fr", "chat"), new TermImpl("fr", "matou")),
+				document.getAliases().get("fr"));
+	}
+}
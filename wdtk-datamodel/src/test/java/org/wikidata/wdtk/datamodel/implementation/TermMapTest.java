@@ -0,0 +1,161 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TermMapTest {
+
+	private final ObjectMapper mapper = new DatamodelMapper("http://example.com/entity/");
+
+	private final Map<String, MonolingualTextValue> terms = new TermMap.Builder()
+			.put(new TermImpl("fr", "chat"))
+			.put(new TermImpl("en", "cat"))
+			.put(new TermImpl("de", "Katze"))
+			.build();
+
+	@Test
+	public void fieldsAreCorrect() {
+		assertEquals(3, terms.size());
+		assertEquals(new TermImpl("en", "cat"), terms.get("en"));
+		assertEquals(new TermImpl("fr", "chat"), terms.get("fr"));
+		assertTrue(terms.containsKey("de"));
+		assertFalse(terms.containsKey("ja"));
+		assertNull(terms.get("ja"));
+		assertNull(terms.get(42));
+	}
+
+	@Test
+	public void equalityWithHashMap() {
+		Map<String, MonolingualTextValue> expected = new HashMap<>();
+		expected.put("fr", new TermImpl("fr", "chat"));
+		expected.put("en", new TermImpl("en", "cat"));
+		expected.put("de", new TermImpl("de", "Katze"));
+		assertEquals(expected, terms);
+		assertEquals(terms, expected);
+		assertEquals(expected.hashCode(), terms.hashCode());
+	}
+
+	@Test
+	public void unknownLanguageCodes() {
+		Map<String, MonolingualTextValue> map = new TermMap.Builder()
+				.put(new TermImpl("x-some-unknown-code", "text"))
+				.put(new TermImpl("en", "cat"))
+				.build();
+		assertEquals(new TermImpl("x-some-unknown-code", "text"), map.get("x-some-unknown-code"));
+		assertEquals(new TermImpl("en", "cat"), map.get("en"));
+	}
+
+	@Test
+	public void termLanguageDifferentFromKey() {
+		Map<String, MonolingualTextValue> map = new TermMap.Builder()
+				.put("de-ch", "de", "Katze")
+				.put("en", "en", "cat")
+				.build();
+		assertEquals(new TermImpl("de", "Katze"), map.get("de-ch"));
+		assertEquals(new TermImpl("en", "cat"), map.get("en"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void duplicateLanguages() {
+		new TermMap.Builder()
+				.put(new TermImpl("en", "cat"))
+				.put(new TermImpl("en", "kitten"))
+				.build();
+	}
+
+	/**
+	 * Returns a builder that behaves as if the language code dictionary was
+	 * full, so that codes starting with "x-" cannot be added to it.
+	 */
+	private static TermMap.Builder builderWithFullDictionary() {
+		return new TermMap.Builder() {
+			@Override
+			int getLanguageId(String key) {
+				return key.startsWith("x-") ? -1 : super.getLanguageId(key);
+			}
+		};
+	}
+
+	@Test
+	public void fullDictionary() {
+		Map<String, MonolingualTextValue> map = builderWithFullDictionary()
+				.put(new TermImpl("en", "cat"))
+				.put(new TermImpl("x-first-code", "text"))
+				.put(new TermImpl("x-second-code", "more text"))
+				.build();
+		assertEquals(3, map.size());
+		assertEquals(new TermImpl("en", "cat"), map.get("en"));
+		assertEquals(new TermImpl("x-first-code", "text"), map.get("x-first-code"));
+		assertEquals(new TermImpl("x-second-code", "more text"), map.get("x-second-code"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void duplicateLanguagesWithFullDictionary() {
+		builderWithFullDictionary()
+				.put(new TermImpl("x-unknown-code", "text"))
+				.put(new TermImpl("x-unknown-code", "other text"))
+				.build();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void duplicateLanguagesBeforeDictionaryIsFull() {
+		builderWithFullDictionary()
+				.put(new TermImpl("en", "cat"))
+				.put(new TermImpl("en", "kitten"))
+				.put(new TermImpl("x-unknown-code", "text"))
+				.build();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void immutableWithFullDictionary() {
+		builderWithFullDictionary()
+				.put(new TermImpl("x-unknown-code", "text"))
+				.build()
+				.put("en", new TermImpl("en", "cat"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void immutable() {
+		terms.put("it", new TermImpl("it", "gatto"));
+	}
+
+	@Test
+	public void deserializedDirectly() throws IOException {
+		ItemDocument document = mapper.readValue("{\"type\":\"item\",\"id\":\"Q42\","
+				+ "\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"cat\"},\"fr\":{\"language\":\"fr\",\"value\":\"chat\"}},"
+				+ "\"descriptions\":{\"de-ch\":{\"language\":\"de\",\"value\":\"Katze\",\"for-language\":\"de-ch\"}}}",
+				ItemDocumentImpl.class);
+		assertEquals(TermMap.class, ((ItemDocumentImpl) document).labels.getClass());
+		assertEquals(new TermImpl("fr", "chat"), document.getLabels().get("fr"));
+		assertEquals(new TermImpl("de", "Katze"), document.getDescriptions().get("de-ch"));
+	}
+}
@@ -152,6 +152,33 @@ public class TimeValueImplTest {
 		assertEquals(t1, mapper.readValue(JSON_TIME_VALUE, ValueImpl.class));
 	}
 
+	@Test
+	public void testNegativeYearToJava() throws IOException {
+		TimeValue t = (TimeValue) mapper.readValue(JSON_TIME_VALUE.replace("+2007", "-13800000000"), ValueImpl.class);
+		assertEquals(-13800000000L, t.getYear());
+		assertEquals(5, t.getMonth());
+		assertEquals(12, t.getDay());
+		assertEquals(10, t.getHour());
+		assertEquals(45, t.getMinute());
+		assertEquals(TimeValue.PREC_SECOND, t.getPrecision());
+		assertEquals("-13800000000-05-12T10:45:00Z", ((TimeValueImpl) t).getValue().getTime());
+	}
+
+	@Test
+	public void testSmallYearToJson() {
+		TimeValueImpl t = new TimeValueImpl(5, (byte) 1, (byte) 2, (byte) 3, (byte) 4,
+				(byte) 5, TimeValue.PREC_DAY, 0, 0, 0, TimeValue.CM_GREGORIAN_PRO);
+		assertEquals("+005-01-02T03:04:05Z", t.getValue().getTime());
+	}
+
+	@Test
+	public void testNonCanonicalTimeStringPreserved() throws IOException {
+		String json = JSON_TIME_VALUE.replace("+2007", "+00000002007");
+		TimeValueImpl t = (TimeValueImpl) mapper.readValue(json, ValueImpl.class);
+		assertEquals(t1, t);
+		assertEquals("+00000002007-05-12T10:45:00Z", t.getValue().getTime());
+	}
+
 	@Test
 	public void testJulianToGregorian() {
 		final TimeValue tJulian = new TimeValueImpl(1143, (byte)10, (byte) 5, (byte) 1, (byte) 2,
@@ -33,10 +33,13 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.EntityDocumentEventAdapter;
 import org.wikidata.wdtk.datamodel.interfaces.DocumentDataFilter;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessorBroker;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessorFilter;
+import org.wikidata.wdtk.datamodel.interfaces.EntityEventHandler;
+import org.wikidata.wdtk.datamodel.interfaces.EntityEventHandlerBroker;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.Sites;
 import org.wikidata.wdtk.dumpfiles.wmf.WmfDumpFileManager;
@@ -55,6 +58,9 @@ import org.wikidata.wdtk.util.WebResourceFetcherImpl;
  * {@link #registerMwRevisionProcessor(MwRevisionProcessor, String, boolean)}
  * and
  * {@link #registerEntityDocumentProcessor(EntityDocumentProcessor, String, boolean)}.
+ * Handlers that only need the contents of entities as a stream of events can
+ * be registered with
+ * {@link #registerEntityEventHandler(EntityEventHandler, String, boolean)}.
  * <p>
  * For processing the content of wiki pages, there are two modes of operation:
  * revision-based and entity-document-based. The former is used when processing
@@ -153,6 +159,14 @@ public class DumpProcessingController {
 	 */
 	final HashMap<ListenerRegistration, List<MwRevisionProcessor>> mwRevisionProcessors;
 
+	/**
+	 * List of all {@link EntityEventHandler} objects registered so far. They
+	 * are also registered as entity document processors through an
+	 * {@link EntityDocumentEventAdapter}, which is used whenever the events
+	 * cannot be read from the JSON directly.
+	 */
+	final List<EntityEventHandler> entityEventHandlers;
+
 	/**
 	 * The name of the project whose dumps are processed here.
 	 */
@@ -182,6 +196,11 @@ public class DumpProcessingController {
 
 	final DocumentDataFilter filter = new DocumentDataFilter();
 
+	/**
+	 * Should JSON dumps be read with the streaming deserializer?
+	 */
+	boolean streamingJsonDeserialization = false;
+
 	/**
 	 * Creates a new DumpFileProcessingController for the project of the given
 	 * name. By default, the dump file directory will be assumed to be in the
@@ -195,6 +214,7 @@ public class DumpProcessingController {
 		this.projectName = projectName;
 		this.entityDocumentProcessors = new HashMap<>();
 		this.mwRevisionProcessors = new HashMap<>();
+		this.entityEventHandlers = new ArrayList<>();
 
 		try {
 			setDownloadDirectory(System.getProperty("user.dir"));
@@ -238,6 +258,20 @@ public class DumpProcessingController {
 		}
 	}
 
+	/**
+	 * Enables or disables the streaming deserialization of JSON dumps. If
+	 * enabled, entity documents are read token by token by a
+	 * {@link org.wikidata.wdtk.datamodel.implementation.JsonStreamReader},
+	 * which is faster than the default annotation-driven deserialization of
+	 * Jackson and produces the same documents.
+	 *
+	 * @param streamingEnabled
+	 *            if true, JSON dumps are read with the streaming deserializer
+	 */
+	public void setStreamingJsonDeserialization(boolean streamingEnabled) {
+		this.streamingJsonDeserialization = streamingEnabled;
+	}
+
 	/**
 	 * Sets a property filter. If given, all data will be preprocessed to
 	 * contain only statements for the given (main) properties.
@@ -333,6 +367,34 @@ public class DumpProcessingController {
 				this.entityDocumentProcessors);
 	}
 
+	/**
+	 * Registers an EntityEventHandler, which will henceforth be notified of
+	 * the contents of all entities that are encountered in the dump.
+	 * <p>
+	 * If only event handlers are registered and no filters are set, JSON
+	 * dumps are read with a
+	 * {@link org.wikidata.wdtk.datamodel.implementation.JsonEventReader},
+	 * without building entity documents at all. Otherwise, the events are
+	 * generated from the entity documents. The parameters have the same
+	 * meaning as for
+	 * {@link #registerEntityDocumentProcessor(EntityDocumentProcessor, String, boolean)}.
+	 *
+	 * @param entityEventHandler
+	 *            the entity event handler to register
+	 * @param model
+	 *            the content model that the handler is registered for
+	 * @param onlyCurrentRevisions
+	 *            if true, then the handler is only notified of the most
+	 *            current revisions
+	 */
+	public void registerEntityEventHandler(
+			EntityEventHandler entityEventHandler, String model,
+			boolean onlyCurrentRevisions) {
+		this.entityEventHandlers.add(entityEventHandler);
+		registerProcessor(new EntityDocumentEventAdapter(entityEventHandler),
+				model, onlyCurrentRevisions, this.entityDocumentProcessors);
+	}
+
 	/**
 	 * Processes the most recent dump of the sites table to extract information
 	 * about registered sites.
@@ -591,8 +653,13 @@ public class DumpProcessingController {
 	 * @return the main MwDumpFileProcessor for JSON
 	 */
 	MwDumpFileProcessor getJsonDumpFileProcessor() {
+		if (!this.entityEventHandlers.isEmpty() && !hasFilters()
+				&& countEntityDocumentProcessors() == this.entityEventHandlers.size()) {
+			return new JsonDumpFileProcessor(getMasterEntityEventHandler(),
+					Datamodel.SITE_WIKIDATA);
+		}
 		return new JsonDumpFileProcessor(getMasterEntityDocumentProcessor(),
-				Datamodel.SITE_WIKIDATA);
+				Datamodel.SITE_WIKIDATA, this.streamingJsonDeserialization);
 	}
 
 	/**
@@ -656,6 +723,48 @@ public class DumpProcessingController {
 		return filterEntityDocumentProcessor(result);
 	}
 
+	/**
+	 * Returns an {@link EntityEventHandler} object that calls all registered
+	 * handlers.
+	 *
+	 * @return the master handler
+	 */
+	private EntityEventHandler getMasterEntityEventHandler() {
+		if (this.entityEventHandlers.size() == 1) {
+			return this.entityEventHandlers.get(0);
+		}
+		EntityEventHandlerBroker broker = new EntityEventHandlerBroker();
+		for (EntityEventHandler handler : this.entityEventHandlers) {
+			broker.registerEntityEventHandler(handler);
+		}
+		return broker;
+	}
+
+	/**
+	 * Returns the number of registered entity document processors, including
+	 * the adapters of entity event handlers.
+	 *
+	 * @return the number of processors
+	 */
+	private int countEntityDocumentProcessors() {
+		int count = 0;
+		for (List<EntityDocumentProcessor> processors : this.entityDocumentProcessors.values()) {
+			count += processors.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if any global filters are configured.
+	 *
+	 * @return true if documents need to be filtered
+	 */
+	private boolean hasFilters() {
+		return this.filter.getPropertyFilter() != null
+				|| this.filter.getSiteLinkFilter() != null
+				|| this.filter.getLanguageFilter() != null;
+	}
+
 	/**
 	 * Wraps the given processor into a {@link EntityDocumentProcessorFilter} if
 	 * global filters are configured; otherwise just returns the processor
@@ -666,9 +775,7 @@ public class DumpProcessingController {
 	 */
 	private EntityDocumentProcessor filterEntityDocumentProcessor(
 			EntityDocumentProcessor processor) {
-		if (this.filter.getPropertyFilter() == null
-				&& this.filter.getSiteLinkFilter() == null
-				&& this.filter.getLanguageFilter() == null) {
+		if (!hasFilters()) {
 			return processor;
 		} else {
 			return new EntityDocumentProcessorFilter(
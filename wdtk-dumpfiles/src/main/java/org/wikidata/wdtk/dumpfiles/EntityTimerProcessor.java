@@ -20,6 +20,8 @@ package org.wikidata.wdtk.dumpfiles;
  * #L%
  */
 
+import java.lang.management.ManagementFactory;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentDumpProcessor;
@@ -36,6 +38,10 @@ import org.wikidata.wdtk.util.Timer;
  * (unchecked) will be thrown soon after this many seconds have passed. This can
  * be used to abort processing in a relatively clean way by catching this
  * exception at a higher level.
+ * <p>
+ * If the JVM supports it, the reports also include the average number of bytes
+ * allocated by the processing thread per entity. This can be used to compare
+ * the allocation rates of processors, such as the ones in the examples.
  *
  * @author Markus Kroetzsch
  *
@@ -45,10 +51,28 @@ public class EntityTimerProcessor implements EntityDocumentDumpProcessor {
 	static final Logger logger = LoggerFactory
 			.getLogger(EntityTimerProcessor.class);
 
+	/**
+	 * Bean used to measure the memory allocated by the processing thread, or
+	 * null if the JVM does not support this.
+	 */
+	static final com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+
 	final Timer timer = Timer.getNamedTimer("EntityTimerProcessor");
 	final int timeout;
 	int entityCount = 0;
 	int lastSeconds = 0;
+	/**
+	 * Id of the thread that processes the entities.
+	 */
+	long threadId;
+	/**
+	 * Bytes allocated by the processing thread when processing started.
+	 */
+	long initialAllocatedBytes = -1;
+	/**
+	 * Bytes allocated by the processing thread at the last report.
+	 */
+	long lastAllocatedBytes = -1;
 
 	/**
 	 * Number of seconds after which a progress report is printed. If a timeout
@@ -110,6 +134,7 @@ public class EntityTimerProcessor implements EntityDocumentDumpProcessor {
 		logger.info("Finished processing.");
 		this.timer.stop();
 		this.lastSeconds = (int) (timer.getTotalWallTime() / 1000000000);
+		this.lastAllocatedBytes = getAllocatedBytes();
 		printStatus();
 	}
 
@@ -128,6 +153,7 @@ public class EntityTimerProcessor implements EntityDocumentDumpProcessor {
 			int seconds = (int) (timer.getTotalWallTime() / 1000000000);
 			if (seconds >= this.lastSeconds + this.reportInterval) {
 				this.lastSeconds = seconds;
+				this.lastAllocatedBytes = getAllocatedBytes();
 				printStatus();
 				if (this.timeout > 0 && seconds > this.timeout) {
 					logger.info("Timeout. Aborting processing.");
@@ -149,14 +175,45 @@ public class EntityTimerProcessor implements EntityDocumentDumpProcessor {
 				+ " sec"
 				+ (this.lastSeconds > 0 ? " ("
 						+ (this.entityCount / this.lastSeconds)
-						+ " per second)" : ""));
+						+ " per second)" : "")
+				+ (this.initialAllocatedBytes >= 0 && this.lastAllocatedBytes >= 0
+						&& this.entityCount > 0 ? ", "
+						+ ((this.lastAllocatedBytes - this.initialAllocatedBytes) / this.entityCount)
+						+ " bytes allocated per entity" : ""));
 	}
 
 	private void startTimer() {
 		logger.info("Starting processing.");
+		this.threadId = Thread.currentThread().getId();
+		this.initialAllocatedBytes = getAllocatedBytes();
 		this.timer.start();
 	}
 
+	/**
+	 * Returns the total number of bytes allocated so far by the processing
+	 * thread, or -1 if this cannot be measured.
+	 */
+	private long getAllocatedBytes() {
+		if (allocationBean == null) {
+			return -1;
+		}
+		return allocationBean.getThreadAllocatedBytes(this.threadId);
+	}
+
+	private static com.sun.management.ThreadMXBean getAllocationBean() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean
+					&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+				((com.sun.management.ThreadMXBean) bean).setThreadAllocatedMemoryEnabled(true);
+				return (com.sun.management.ThreadMXBean) bean;
+			}
+		} catch (LinkageError | UnsupportedOperationException e) {
+			logger.debug("Cannot measure memory allocation: " + e.getMessage());
+		}
+		return null;
+	}
+
 	public static class TimeoutException extends RuntimeException {
 		private static final long serialVersionUID = -1083533602730765194L;
 	}
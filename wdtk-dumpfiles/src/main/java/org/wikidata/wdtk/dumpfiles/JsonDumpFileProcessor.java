@@ -30,10 +30,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
 import org.wikidata.wdtk.datamodel.implementation.EntityDocumentImpl;
+import org.wikidata.wdtk.datamodel.implementation.JsonEventReader;
+import org.wikidata.wdtk.datamodel.implementation.JsonStreamReader;
 import org.wikidata.wdtk.datamodel.interfaces.*;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonParser.Feature;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectReader;
 
@@ -50,14 +55,67 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 
 	private final ObjectReader documentReader;
 
+	/**
+	 * Reader used instead of {@link #documentReader} if streaming
+	 * deserialization is enabled, or null otherwise.
+	 */
+	private final JsonStreamReader streamReader;
+
+	/**
+	 * Reader used if the entities are reported to an
+	 * {@link #entityEventHandler} instead of being turned into documents, or
+	 * null otherwise.
+	 */
+	private final JsonEventReader eventReader;
+
 	private final EntityDocumentProcessor entityDocumentProcessor;
 
+	private final EntityEventHandler entityEventHandler;
+
 	public JsonDumpFileProcessor(
 			EntityDocumentProcessor entityDocumentProcessor, String siteIri) {
+		this(entityDocumentProcessor, siteIri, false);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the processor to send the documents to
+	 * @param siteIri
+	 *            the root IRI of the site that the dump belongs to
+	 * @param streaming
+	 *            if true, documents are read with a {@link JsonStreamReader}
+	 *            instead of Jackson's annotation-driven deserialization
+	 */
+	public JsonDumpFileProcessor(
+			EntityDocumentProcessor entityDocumentProcessor, String siteIri,
+			boolean streaming) {
 		this.entityDocumentProcessor = entityDocumentProcessor;
+		this.entityEventHandler = null;
+		this.eventReader = null;
 		this.documentReader = new DatamodelMapper(siteIri)
 				.readerFor(EntityDocumentImpl.class)
 				.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+		this.streamReader = streaming ? new JsonStreamReader(siteIri) : null;
+	}
+
+	/**
+	 * Constructor for a processor that reports the contents of the entities
+	 * to an {@link EntityEventHandler}, without building entity documents.
+	 *
+	 * @param entityEventHandler
+	 *            the handler to report the entities to
+	 * @param siteIri
+	 *            the root IRI of the site that the dump belongs to
+	 */
+	public JsonDumpFileProcessor(EntityEventHandler entityEventHandler,
+			String siteIri) {
+		this.entityDocumentProcessor = null;
+		this.entityEventHandler = entityEventHandler;
+		this.eventReader = new JsonEventReader(siteIri);
+		this.documentReader = null;
+		this.streamReader = null;
 	}
 
 	/**
@@ -77,6 +135,10 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 
 		try {
 			try {
+				if (streamReader != null || eventReader != null) {
+					processDumpFileContentsStreaming(inputStream);
+					return;
+				}
 				MappingIterator<EntityDocument> documentIterator = documentReader.readValues(inputStream);
 				documentIterator.getParser().disable(Feature.AUTO_CLOSE_SOURCE);
 
@@ -96,6 +158,76 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 
 	}
 
+	/**
+	 * Process dump file data from the given input stream with the
+	 * {@link JsonStreamReader} or the {@link JsonEventReader}. The input can either be a JSON array of
+	 * entities or a sequence of entities.
+	 *
+	 * @param inputStream
+	 *            the stream to read from
+	 * @throws IOException
+	 *             if there is a problem reading the stream or parsing an
+	 *             entity
+	 */
+	private void processDumpFileContentsStreaming(InputStream inputStream)
+			throws IOException {
+		JsonParser parser = (eventReader != null)
+				? eventReader.createParser(inputStream)
+				: streamReader.createParser(inputStream);
+		parser.disable(Feature.AUTO_CLOSE_SOURCE);
+
+		JsonToken token = parser.nextToken();
+		if (token == JsonToken.START_ARRAY) {
+			token = parser.nextToken();
+		}
+		while (token == JsonToken.START_OBJECT) {
+			if (eventReader != null) {
+				eventReader.readEntity(parser, entityEventHandler);
+			} else {
+				handleDocument(streamReader.readEntityDocument(parser));
+			}
+			token = parser.nextToken();
+		}
+		if (token != null && token != JsonToken.END_ARRAY) {
+			throw new JsonParseException(parser, "Unexpected token " + token
+					+ " between entities");
+		}
+		parser.close();
+	}
+
+	/**
+	 * Reads an entity from its JSON serialization and passes it on to the
+	 * registered processor or handler.
+	 *
+	 * @param json
+	 *            the JSON serialization of the entity
+	 * @throws IOException
+	 *             if the JSON could not be read
+	 */
+	private void handleEntity(String json) throws IOException {
+		if (eventReader != null) {
+			eventReader.readEntity(json, entityEventHandler);
+		} else {
+			handleDocument(readDocument(json));
+		}
+	}
+
+	/**
+	 * Reads a document from its JSON serialization.
+	 *
+	 * @param json
+	 *            the JSON serialization of the document
+	 * @return the document
+	 * @throws IOException
+	 *             if the JSON could not be read
+	 */
+	private EntityDocument readDocument(String json) throws IOException {
+		if (streamReader != null) {
+			return streamReader.readEntityDocument(json);
+		}
+		return documentReader.readValue(json);
+	}
+
 	/**
 	 * Reports the error of a JSON processing exception that was caught when
 	 * trying to read an entity.
@@ -168,14 +300,11 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 		line = br.readLine();
 		while (line != null && line.length() > 1) {
 			try {
-				EntityDocument document;
 				if (line.charAt(line.length() - 1) == ',') {
-					document = documentReader.readValue(line.substring(0,
-							line.length() - 1));
+					handleEntity(line.substring(0, line.length() - 1));
 				} else {
-					document = documentReader.readValue(line);
+					handleEntity(line);
 				}
-				handleDocument(document);
 			} catch (JsonProcessingException e) {
 				logJsonProcessingException(e);
 				JsonDumpFileProcessor.logger.error("Problematic line was: "
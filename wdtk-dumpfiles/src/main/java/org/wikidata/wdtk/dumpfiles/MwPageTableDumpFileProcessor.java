@@ -0,0 +1,246 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.util.PageIdIndex;
+
+/**
+ * This class processes dump files that contain the SQL dump of the MediaWiki
+ * <a href="https://www.mediawiki.org/wiki/Manual:Page_table">page table</a>,
+ * and records the page ids of the pages of one namespace in a
+ * {@link PageIdIndex}. This is much faster than processing an XML dump, since
+ * the page table does not contain any page contents. For example, the page
+ * ids of all files on Wikimedia Commons can be found in the dump
+ * "commonswiki-latest-page.sql.gz".
+ * <p>
+ * The positions of the columns are read from the CREATE TABLE statement at
+ * the start of the dump, so that different versions of the table layout are
+ * supported. Pages that are redirects are skipped, since the page table does
+ * not contain the pages that they redirect to.
+ */
+public class MwPageTableDumpFileProcessor implements MwDumpFileProcessor {
+
+	static final Logger logger = LoggerFactory
+			.getLogger(MwPageTableDumpFileProcessor.class);
+
+	static final String INSERT_PREFIX = "INSERT INTO `page` VALUES ";
+
+	static final Pattern COLUMN_PATTERN = Pattern.compile("^\\s*`(\\w+)`");
+
+	final PageIdIndex pageIdIndex;
+	final int namespace;
+	final String namespacePrefix;
+
+	int idColumn = 0;
+	int namespaceColumn = 1;
+	int titleColumn = 2;
+	int redirectColumn = -1;
+
+	long pageCount = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param pageIdIndex
+	 *            the index to add the page ids to
+	 * @param namespace
+	 *            the id of the namespace of the pages that should be added,
+	 *            e.g., {@link PageIdIndexRevisionProcessor#NAMESPACE_FILE}
+	 * @param namespacePrefix
+	 *            the prefix of the titles in this namespace, without the
+	 *            final ":", e.g., "File"; titles are added to the index with
+	 *            this prefix, since the page table only contains unprefixed
+	 *            titles
+	 */
+	public MwPageTableDumpFileProcessor(PageIdIndex pageIdIndex, int namespace,
+			String namespacePrefix) {
+		this.pageIdIndex = pageIdIndex;
+		this.namespace = namespace;
+		this.namespacePrefix = namespacePrefix.isEmpty() ? ""
+				: namespacePrefix + ":";
+	}
+
+	/**
+	 * Returns the index that the page ids are added to.
+	 *
+	 * @return the index
+	 */
+	public PageIdIndex getPageIdIndex() {
+		return this.pageIdIndex;
+	}
+
+	/**
+	 * Returns the number of pages that have been added to the index so far.
+	 *
+	 * @return the number of pages
+	 */
+	public long getPageCount() {
+		return this.pageCount;
+	}
+
+	@Override
+	public void processDumpFileContents(InputStream inputStream,
+			MwDumpFile dumpFile) {
+
+		logger.info("Processing page table dump file " + dumpFile.toString());
+
+		BufferedReader bufferedReader = new BufferedReader(
+				new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+		try {
+			String line;
+			boolean inCreateTable = false;
+			List<String> columns = new ArrayList<>();
+			while ((line = bufferedReader.readLine()) != null) {
+				if (line.startsWith("CREATE TABLE `page`")) {
+					inCreateTable = true;
+					columns.clear();
+				} else if (inCreateTable) {
+					Matcher matcher = COLUMN_PATTERN.matcher(line);
+					if (matcher.find()) {
+						columns.add(matcher.group(1));
+					} else {
+						inCreateTable = false;
+						setColumns(columns);
+					}
+				} else if (line.startsWith(INSERT_PREFIX)) {
+					processInsertStatement(line);
+				}
+			}
+		} catch (IOException e) {
+			MwPageTableDumpFileProcessor.logger
+					.error("IO Error when processing dump of page table: "
+							+ e.toString());
+		}
+		logger.info("Added " + this.pageCount + " pages to the page id index.");
+	}
+
+	/**
+	 * Sets the positions of the columns that are needed from the list of all
+	 * columns of the table.
+	 *
+	 * @param columns
+	 *            the names of the columns, in the order of the table
+	 */
+	void setColumns(List<String> columns) {
+		this.idColumn = columns.indexOf("page_id");
+		this.namespaceColumn = columns.indexOf("page_namespace");
+		this.titleColumn = columns.indexOf("page_title");
+		this.redirectColumn = columns.indexOf("page_is_redirect");
+		if (this.idColumn < 0 || this.namespaceColumn < 0 || this.titleColumn < 0) {
+			throw new IllegalArgumentException(
+					"Unexpected layout of the page table: " + columns);
+		}
+	}
+
+	/**
+	 * Processes all rows of one INSERT statement.
+	 *
+	 * @param line
+	 *            the statement, which is one line in the dump
+	 */
+	void processInsertStatement(String line) {
+		List<String> row = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean inRow = false;
+		boolean inString = false;
+		for (int i = INSERT_PREFIX.length(); i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (inString) {
+				if (c == '\\' && i + 1 < line.length()) {
+					field.append(unescape(line.charAt(++i)));
+				} else if (c == '\'') {
+					inString = false;
+				} else {
+					field.append(c);
+				}
+			} else if (!inRow) {
+				// skip the separators between rows
+				inRow = (c == '(');
+			} else if (c == '\'') {
+				inString = true;
+			} else if (c == ',' || c == ')') {
+				row.add(field.toString());
+				field.setLength(0);
+				if (c == ')') {
+					processPageRow(row);
+					row.clear();
+					inRow = false;
+				}
+			} else {
+				field.append(c);
+			}
+		}
+	}
+
+	/**
+	 * Processes one row of the page table, given as the list of its fields.
+	 *
+	 * @param row
+	 *            the fields of the row, with strings unquoted and unescaped
+	 */
+	void processPageRow(List<String> row) {
+		if (row.size() <= Math.max(Math.max(this.idColumn, this.namespaceColumn),
+				Math.max(this.titleColumn, this.redirectColumn))) {
+			return; // incomplete row
+		}
+		if (Integer.parseInt(row.get(this.namespaceColumn)) != this.namespace
+				|| (this.redirectColumn >= 0
+						&& "1".equals(row.get(this.redirectColumn)))) {
+			return;
+		}
+		String title = row.get(this.titleColumn).replace('_', ' ');
+		this.pageIdIndex.put(this.namespacePrefix + title,
+				Integer.parseInt(row.get(this.idColumn)));
+		this.pageCount++;
+	}
+
+	/**
+	 * Returns the character that is denoted by the given character after a
+	 * backslash in MySQL strings.
+	 */
+	static char unescape(char c) {
+		switch (c) {
+		case '0':
+			return '\0';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 'Z':
+			return '\u001a';
+		default:
+			return c;
+		}
+	}
+}
@@ -112,6 +112,17 @@ public interface MwRevision {
 	 */
 	int getPageId();
 
+	/**
+	 * Returns the prefixed title of the page that the revised page redirects
+	 * to, as given in the dump, or null if the page is not a redirect.
+	 * Implementations that do not know about redirects always return null.
+	 *
+	 * @return title of the redirect target or null
+	 */
+	default String getRedirectTitle() {
+		return null;
+	}
+
 	/**
 	 * Returns the numeric id of the current revision. For any given MediaWiki
 	 * site, revisions are uniquely identified by their revision id. In
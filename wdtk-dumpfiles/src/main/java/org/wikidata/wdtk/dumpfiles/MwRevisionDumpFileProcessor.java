@@ -63,6 +63,7 @@ public class MwRevisionDumpFileProcessor implements MwDumpFileProcessor {
 	static final String E_PAGE_NAMESPACE = "ns";
 	static final String E_PAGE_REVISION = "revision";
 	static final String E_PAGE_REDIRECT = "redirect";
+	static final String A_REDIRECT_TITLE = "title";
 
 	static final String E_REV_ID = "id";
 	static final String E_REV_PARENT_ID = "parentid";
@@ -343,6 +344,8 @@ public class MwRevisionDumpFileProcessor implements MwDumpFileProcessor {
 					processXmlRevision();
 					break;
 				case MwRevisionDumpFileProcessor.E_PAGE_REDIRECT:
+					this.mwRevision.redirectTitle = this.xmlReader
+							.getAttributeValue(null, A_REDIRECT_TITLE);
 					break;
 				default:
 					throw new MwDumpFormatException("Unexpected element \""
@@ -36,6 +36,7 @@ public class MwRevisionImpl implements MwRevision {
 	// additional objects when parsing a Wikidata dump.
 
 	String prefixedTitle;
+	String redirectTitle;
 	String timeStamp;
 	String text;
 	String model;
@@ -61,6 +62,7 @@ public class MwRevisionImpl implements MwRevision {
 	 */
 	public MwRevisionImpl(MwRevision mwRevision) {
 		this.prefixedTitle = mwRevision.getPrefixedTitle();
+		this.redirectTitle = mwRevision.getRedirectTitle();
 		this.timeStamp = mwRevision.getTimeStamp();
 		this.text = mwRevision.getText();
 		this.model = mwRevision.getModel();
@@ -101,6 +103,11 @@ public class MwRevisionImpl implements MwRevision {
 		return this.pageId;
 	}
 
+	@Override
+	public String getRedirectTitle() {
+		return this.redirectTitle;
+	}
+
 	@Override
 	public long getRevisionId() {
 		return this.revisionId;
@@ -157,6 +164,7 @@ public class MwRevisionImpl implements MwRevision {
 	 */
 	void resetCurrentPageData() {
 		this.prefixedTitle = null;
+		this.redirectTitle = null;
 		this.pageId = -1; // impossible as an id in MediaWiki
 		this.namespace = 0; // possible value, but better than undefined
 	}
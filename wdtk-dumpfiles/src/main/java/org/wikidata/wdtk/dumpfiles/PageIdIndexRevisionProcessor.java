@@ -0,0 +1,156 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.util.PageIdIndex;
+
+/**
+ * Revision processor that records the page ids of the pages of one namespace
+ * in a {@link PageIdIndex}. It can be used to build an index of the page ids
+ * of all files on Wikimedia Commons from an XML dump, from which the
+ * MediaInfo ids of the files follow directly. Only the most recent revisions
+ * should be processed, and the model of the revisions does not matter.
+ * <p>
+ * Pages that are redirects are recorded with the page id of the page that
+ * they redirect to. Since this page may only come later in the dump,
+ * redirects are resolved by {@link #resolveRedirects()} after the dump has
+ * been processed.
+ */
+public class PageIdIndexRevisionProcessor implements MwRevisionProcessor {
+
+	static final Logger logger = LoggerFactory
+			.getLogger(PageIdIndexRevisionProcessor.class);
+
+	/**
+	 * Id of the MediaWiki namespace of files.
+	 */
+	public static final int NAMESPACE_FILE = 6;
+
+	/**
+	 * Maximal number of redirects that are followed from one page.
+	 */
+	static final int MAX_REDIRECTS = 5;
+
+	final PageIdIndex pageIdIndex;
+	final int namespace;
+
+	/**
+	 * Titles of the redirects found so far, mapped to the titles that they
+	 * redirect to.
+	 */
+	final Map<String, String> redirects = new HashMap<>();
+
+	long pageCount = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param pageIdIndex
+	 *            the index to add the page ids to
+	 * @param namespace
+	 *            the id of the namespace of the pages that should be added,
+	 *            e.g., {@link #NAMESPACE_FILE}
+	 */
+	public PageIdIndexRevisionProcessor(PageIdIndex pageIdIndex, int namespace) {
+		this.pageIdIndex = pageIdIndex;
+		this.namespace = namespace;
+	}
+
+	/**
+	 * Returns the index that the page ids are added to.
+	 *
+	 * @return the index
+	 */
+	public PageIdIndex getPageIdIndex() {
+		return this.pageIdIndex;
+	}
+
+	/**
+	 * Returns the number of pages that have been added to the index so far,
+	 * not counting redirects.
+	 *
+	 * @return the number of pages
+	 */
+	public long getPageCount() {
+		return this.pageCount;
+	}
+
+	@Override
+	public void startRevisionProcessing(String siteName, String baseUrl,
+			Map<Integer, String> namespaces) {
+		// nothing to do
+	}
+
+	@Override
+	public void processRevision(MwRevision mwRevision) {
+		if (mwRevision.getNamespace() != this.namespace) {
+			return;
+		}
+		if (mwRevision.getRedirectTitle() != null) {
+			this.redirects.put(mwRevision.getPrefixedTitle(),
+					mwRevision.getRedirectTitle());
+		} else {
+			this.pageIdIndex.put(mwRevision.getPrefixedTitle(),
+					mwRevision.getPageId());
+			this.pageCount++;
+		}
+	}
+
+	@Override
+	public void finishRevisionProcessing() {
+		// redirects are only resolved when all dumps have been processed
+	}
+
+	/**
+	 * Adds the redirects found so far to the index, with the page ids of the
+	 * pages that they redirect to. Redirects to pages that are not in the
+	 * index are not added. This should be called after all dumps have been
+	 * processed.
+	 *
+	 * @return the number of redirects that have been added
+	 */
+	public int resolveRedirects() {
+		int resolved = 0;
+		for (Map.Entry<String, String> redirect : this.redirects.entrySet()) {
+			String target = redirect.getValue();
+			int pageId = this.pageIdIndex.get(target);
+			for (int i = 1; pageId == PageIdIndex.NOT_FOUND
+					&& this.redirects.containsKey(target)
+					&& i < MAX_REDIRECTS; i++) {
+				target = this.redirects.get(target);
+				pageId = this.pageIdIndex.get(target);
+			}
+			if (pageId != PageIdIndex.NOT_FOUND) {
+				this.pageIdIndex.put(redirect.getKey(), pageId);
+				resolved++;
+			}
+		}
+		logger.info("Resolved " + resolved + " of " + this.redirects.size()
+				+ " redirects.");
+		this.redirects.clear();
+		return resolved;
+	}
+}
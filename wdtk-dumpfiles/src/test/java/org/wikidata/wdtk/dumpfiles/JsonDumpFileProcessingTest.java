@@ -27,11 +27,17 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Ignore;
 import org.junit.Test;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityEventHandler;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
 import org.wikidata.wdtk.dumpfiles.wmf.WmfDumpFile;
 import org.wikidata.wdtk.testing.MockDirectoryManager;
 import org.wikidata.wdtk.testing.MockStringContentFactory;
@@ -89,6 +95,115 @@ public class JsonDumpFileProcessingTest {
 		assertEquals(3, timer.entityCount);
 	}
 
+	@Test
+	public void testStreamingJsonProcessing() throws IOException {
+		assertEquals(collectDocuments("mock-dump-for-long-testing.json", false),
+				collectDocuments("mock-dump-for-long-testing.json", true));
+		assertEquals(3, collectDocuments("mock-dump-for-testing.json", true).size());
+	}
+
+	@Test
+	public void testBuggyStreamingJsonProcessing() throws IOException {
+		assertTrue(collectDocuments("mock-dump-with-bugs.json", true).size() >= 3);
+	}
+
+	private List<EntityDocument> collectDocuments(String fileName, boolean streaming) throws IOException {
+		Path dmPath = Paths.get(System.getProperty("user.dir"));
+		MockDirectoryManager dm = new MockDirectoryManager(dmPath, true, true);
+		setLocalJsonDumpFile(fileName, "20150223", dm);
+
+		DumpProcessingController dpc = new DumpProcessingController(
+				"wikidatawiki");
+		dpc.downloadDirectoryManager = dm;
+		dpc.setOfflineMode(true);
+		dpc.setStreamingJsonDeserialization(streaming);
+
+		List<EntityDocument> documents = new ArrayList<>();
+		dpc.registerEntityDocumentProcessor(new EntityDocumentProcessor() {
+			@Override
+			public void processItemDocument(ItemDocument itemDocument) {
+				documents.add(itemDocument);
+			}
+
+			@Override
+			public void processPropertyDocument(PropertyDocument propertyDocument) {
+				documents.add(propertyDocument);
+			}
+		}, null, true);
+
+		dpc.processMostRecentJsonDump();
+		return documents;
+	}
+
+	@Test
+	public void testEntityEventProcessing() throws IOException {
+		List<String> events = collectEvents("mock-dump-for-long-testing.json", false);
+		assertEquals(collectEvents("mock-dump-for-long-testing.json", true), events);
+		assertEquals(collectDocuments("mock-dump-for-long-testing.json", false).size(), events.size());
+	}
+
+	@Test
+	public void testBuggyEntityEventProcessing() throws IOException {
+		assertTrue(collectEvents("mock-dump-with-bugs.json", false).size() >= 3);
+	}
+
+	/**
+	 * Collects the ids of the entities in the dump, together with the number
+	 * of their statements and site links, using an {@link EntityEventHandler}.
+	 *
+	 * @param fileName
+	 *            the name of the dump file
+	 * @param withDocuments
+	 *            if true, an entity document processor is registered as well,
+	 *            so that the events are generated from documents
+	 */
+	private List<String> collectEvents(String fileName, boolean withDocuments) throws IOException {
+		Path dmPath = Paths.get(System.getProperty("user.dir"));
+		MockDirectoryManager dm = new MockDirectoryManager(dmPath, true, true);
+		setLocalJsonDumpFile(fileName, "20150223", dm);
+
+		DumpProcessingController dpc = new DumpProcessingController(
+				"wikidatawiki");
+		dpc.downloadDirectoryManager = dm;
+		dpc.setOfflineMode(true);
+
+		List<String> entities = new ArrayList<>();
+		dpc.registerEntityEventHandler(new EntityEventHandler() {
+			String id;
+			int statements;
+			int siteLinks;
+
+			@Override
+			public void startEntity(String id, String type) {
+				this.id = id;
+				statements = 0;
+				siteLinks = 0;
+			}
+
+			@Override
+			public void statement(String propertyId, StatementRank rank) {
+				statements++;
+			}
+
+			@Override
+			public void sitelink(String site, String title) {
+				siteLinks++;
+			}
+
+			@Override
+			public void endEntity() {
+				entities.add(id + " " + statements + " " + siteLinks);
+			}
+		}, null, true);
+		if (withDocuments) {
+			dpc.registerEntityDocumentProcessor(new EntityDocumentProcessor() {
+			}, null, true);
+		}
+
+		dpc.processMostRecentJsonDump();
+		return entities;
+	}
+
 	@Test
 	public void testBuggyJsonProcessing() throws IOException {
 		Path dmPath = Paths.get(System.getProperty("user.dir"));
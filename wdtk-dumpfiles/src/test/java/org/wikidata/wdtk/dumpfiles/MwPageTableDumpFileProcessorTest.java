@@ -0,0 +1,78 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.wikidata.wdtk.util.PageIdIndex;
+
+public class MwPageTableDumpFileProcessorTest {
+
+	@Test
+	public void testProcessPageTable() throws IOException {
+		URL resourceUrl = MwPageTableDumpFileProcessorTest.class
+				.getResource("/mock-page-table.sql");
+		PageIdIndex index = new PageIdIndex();
+		MwPageTableDumpFileProcessor processor = new MwPageTableDumpFileProcessor(
+				index, PageIdIndexRevisionProcessor.NAMESPACE_FILE, "File");
+
+		processor.processDumpFileContents(resourceUrl.openStream(),
+				Mockito.mock(MwLocalDumpFile.class));
+
+		assertEquals(3, processor.getPageCount());
+		assertEquals(3, index.size());
+		assertEquals(32455073, index.get("File:Cat.jpg"));
+		assertEquals(925243, index.get("File:Albert Einstein Head.jpg"));
+		assertEquals(32455074, index.get("File:Cat's (1), 2.jpg"));
+		// redirects and other namespaces are skipped
+		assertFalse(index.contains("File:Cat redirect.jpg"));
+		assertFalse(index.contains("Main Page"));
+	}
+
+	@Test
+	public void testColumnLayout() {
+		PageIdIndex index = new PageIdIndex();
+		MwPageTableDumpFileProcessor processor = new MwPageTableDumpFileProcessor(
+				index, 0, "");
+		processor.setColumns(Arrays.asList("page_id", "page_namespace",
+				"page_title", "page_is_redirect", "page_is_new"));
+
+		processor.processInsertStatement(MwPageTableDumpFileProcessor.INSERT_PREFIX
+				+ "(1,0,'Main_Page',0,0),(2,0,'Back\\\\slash',0,1),(3,0,'Old',1,0);");
+
+		assertEquals(1, index.get("Main Page"));
+		assertEquals(2, index.get("Back\\slash"));
+		assertFalse(index.contains("Old"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnexpectedColumnLayout() {
+		new MwPageTableDumpFileProcessor(new PageIdIndex(), 0, "")
+				.setColumns(Arrays.asList("page_id", "page_title"));
+	}
+}
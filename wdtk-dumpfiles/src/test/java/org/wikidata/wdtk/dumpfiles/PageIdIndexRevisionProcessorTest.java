@@ -0,0 +1,127 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.wikidata.wdtk.dumpfiles.wmf.WmfLocalDumpFile;
+import org.wikidata.wdtk.util.PageIdIndex;
+
+public class PageIdIndexRevisionProcessorTest {
+
+	static PageIdIndexRevisionProcessor processDump(PageIdIndex index)
+			throws IOException {
+		URL resourceUrl = PageIdIndexRevisionProcessorTest.class
+				.getResource("/mock-dump-with-files.xml");
+		MwDumpFile mockDumpFile = Mockito.mock(WmfLocalDumpFile.class);
+
+		PageIdIndexRevisionProcessor processor = new PageIdIndexRevisionProcessor(
+				index, PageIdIndexRevisionProcessor.NAMESPACE_FILE);
+		MwRevisionProcessorBroker mwrpBroker = new MwRevisionProcessorBroker();
+		mwrpBroker.registerMwRevisionProcessor(processor, null, true);
+
+		MwRevisionDumpFileProcessor mwdfp = new MwRevisionDumpFileProcessor(
+				mwrpBroker);
+		mwdfp.processDumpFileContents(resourceUrl.openStream(), mockDumpFile);
+		return processor;
+	}
+
+	@Test
+	public void testPageIds() throws IOException {
+		PageIdIndex index = new PageIdIndex();
+		PageIdIndexRevisionProcessor processor = processDump(index);
+
+		assertEquals(2, processor.getPageCount());
+		assertEquals(32455073, index.get("File:Cat.jpg"));
+		assertEquals(925243, index.get("File:Albert Einstein Head.jpg"));
+		assertFalse(index.contains("Main Page"));
+		// redirects are not resolved yet
+		assertFalse(index.contains("File:Cat redirect.jpg"));
+	}
+
+	@Test
+	public void testResolveRedirects() throws IOException {
+		PageIdIndex index = new PageIdIndex();
+		PageIdIndexRevisionProcessor processor = processDump(index);
+
+		assertEquals(1, processor.resolveRedirects());
+		assertEquals(32455073, index.get("File:Cat redirect.jpg"));
+		assertFalse(index.contains("File:Missing target.jpg"));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void testResolveRedirectChain() {
+		PageIdIndex index = new PageIdIndex();
+		PageIdIndexRevisionProcessor processor = new PageIdIndexRevisionProcessor(
+				index, PageIdIndexRevisionProcessor.NAMESPACE_FILE);
+		processor.redirects.put("File:A.jpg", "File:B.jpg");
+		processor.redirects.put("File:B.jpg", "File:C.jpg");
+		processor.redirects.put("File:Loop 1.jpg", "File:Loop 2.jpg");
+		processor.redirects.put("File:Loop 2.jpg", "File:Loop 1.jpg");
+		index.put("File:C.jpg", 3);
+
+		assertEquals(2, processor.resolveRedirects());
+		assertEquals(3, index.get("File:A.jpg"));
+		assertEquals(3, index.get("File:B.jpg"));
+		assertFalse(index.contains("File:Loop 1.jpg"));
+	}
+
+	@Test
+	public void testRedirectTitle() throws IOException {
+		URL resourceUrl = PageIdIndexRevisionProcessorTest.class
+				.getResource("/mock-dump-with-files.xml");
+		List<MwRevision> revisions = new ArrayList<>();
+		MwRevisionProcessor collector = new MwRevisionProcessor() {
+			@Override
+			public void startRevisionProcessing(String siteName,
+					String baseUrl, Map<Integer, String> namespaces) {
+			}
+
+			@Override
+			public void processRevision(MwRevision mwRevision) {
+				revisions.add(new MwRevisionImpl(mwRevision));
+			}
+
+			@Override
+			public void finishRevisionProcessing() {
+			}
+		};
+		new MwRevisionDumpFileProcessor(collector).processDumpFileContents(
+				resourceUrl.openStream(),
+				Mockito.mock(WmfLocalDumpFile.class));
+
+		assertEquals(5, revisions.size());
+		assertNull(revisions.get(0).getRedirectTitle());
+		assertEquals("File:Cat.jpg", revisions.get(1).getRedirectTitle());
+		assertNull(revisions.get(2).getRedirectTitle());
+	}
+}
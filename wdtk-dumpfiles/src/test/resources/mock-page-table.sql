@@ -0,0 +1,36 @@
+-- MySQL dump 10.16  Distrib 10.1.44-MariaDB, for debian-linux-gnu (x86_64)
+--
+-- Host: 10.64.32.19    Database: commonswiki
+-- ------------------------------------------------------
+
+--
+-- Table structure for table `page`
+--
+
+DROP TABLE IF EXISTS `page`;
+CREATE TABLE `page` (
+  `page_id` int(8) unsigned NOT NULL AUTO_INCREMENT,
+  `page_namespace` int(11) NOT NULL DEFAULT 0,
+  `page_title` varbinary(255) NOT NULL DEFAULT '',
+  `page_restrictions` tinyblob NOT NULL,
+  `page_is_redirect` tinyint(1) unsigned NOT NULL DEFAULT 0,
+  `page_is_new` tinyint(1) unsigned NOT NULL DEFAULT 0,
+  `page_random` double unsigned NOT NULL DEFAULT 0,
+  `page_touched` varbinary(14) NOT NULL DEFAULT '',
+  `page_links_updated` varbinary(14) DEFAULT NULL,
+  `page_latest` int(8) unsigned NOT NULL DEFAULT 0,
+  `page_len` int(8) unsigned NOT NULL DEFAULT 0,
+  `page_content_model` varbinary(32) DEFAULT NULL,
+  `page_lang` varbinary(35) DEFAULT NULL,
+  PRIMARY KEY (`page_id`),
+  UNIQUE KEY `name_title` (`page_namespace`,`page_title`)
+) ENGINE=InnoDB AUTO_INCREMENT=90000000 DEFAULT CHARSET=binary;
+
+--
+-- Dumping data for table `page`
+--
+
+/*!40000 ALTER TABLE `page` DISABLE KEYS */;
+INSERT INTO `page` VALUES (1,0,'Main_Page','',0,0,0.1,'20200401100000','20200401100000',10,7,'wikitext',NULL),(7,6,'Cat_redirect.jpg','',1,0,0.2,'20200401100000','20200401100000',11,26,'wikitext',NULL),(925243,6,'Albert_Einstein_Head.jpg','',0,0,0.3,'20200401100000','20200401100000',13,15,'wikitext',NULL);
+INSERT INTO `page` VALUES (32455073,6,'Cat.jpg','',0,0,0.4,'20200401100000','20200401100000',12,5,'wikitext',NULL),(32455074,6,'Cat\'s_(1),_2.jpg','',0,0,0.5,'20200401100000','20200401100000',15,5,'wikitext',NULL),(32455075,1,'Cat.jpg','',0,0,0.6,'20200401100000','20200401100000',16,5,'wikitext',NULL);
+/*!40000 ALTER TABLE `page` ENABLE KEYS */;
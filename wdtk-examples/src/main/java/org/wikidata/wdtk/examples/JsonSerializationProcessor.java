@@ -27,12 +27,13 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.helpers.DatamodelFilter;
 import org.wikidata.wdtk.datamodel.implementation.DataObjectFactoryImpl;
 import org.wikidata.wdtk.datamodel.helpers.JsonSerializer;
 import org.wikidata.wdtk.datamodel.interfaces.*;
+import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.util.ParallelCompressorOutputStream;
 
 /**
  * This example illustrates how to create a JSON serialization of some of the
@@ -98,11 +99,12 @@ public class JsonSerializationProcessor implements EntityDocumentProcessor {
 		// serialize.
 		this.datamodelFilter = new DatamodelFilter(new DataObjectFactoryImpl(), documentDataFilter);
 
-		// The (compressed) file we write to.
-		OutputStream outputStream = new GzipCompressorOutputStream(
+		// The (compressed) file we write to, compressed on several threads.
+		OutputStream outputStream = new ParallelCompressorOutputStream(
 				new BufferedOutputStream(
 						ExampleHelpers
-								.openExampleFileOuputStream(OUTPUT_FILE_NAME)));
+								.openExampleFileOuputStream(OUTPUT_FILE_NAME)),
+				CompressionType.GZIP);
 		this.jsonSerializer = new JsonSerializer(outputStream);
 
 		this.jsonSerializer.open();
@@ -22,13 +22,13 @@ package org.wikidata.wdtk.examples;
 
 import java.io.*;
 
-import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
-import org.apache.commons.compress.compressors.gzip.GzipParameters;
 import org.eclipse.rdf4j.rio.RDFFormat;
 import org.wikidata.wdtk.datamodel.interfaces.Sites;
 import org.wikidata.wdtk.dumpfiles.DumpProcessingController;
 import org.wikidata.wdtk.rdf.PropertyRegister;
 import org.wikidata.wdtk.rdf.RdfSerializer;
+import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.util.ParallelCompressorOutputStream;
 
 /**
  * This class shows how convert data from wikidata.org to RDF in N-Triples format. The
@@ -59,11 +59,10 @@ public class RdfSerializationExample {
 				ExampleHelpers.openExampleFileOuputStream("wikidata-simple-statements.nt.gz"),
 				1024 * 1024 * 5
 		)) {
-			GzipParameters gzipParameters = new GzipParameters();
-			gzipParameters.setCompressionLevel(7);
-			OutputStream compressorOutputStream = new GzipCompressorOutputStream(
-					bufferedFileOutputStream, gzipParameters);
-			OutputStream exportOutputStream = asynchronousOutputStream(compressorOutputStream);
+			// Compress on several threads, so that compression does not
+			// slow down the serialization
+			OutputStream exportOutputStream = new ParallelCompressorOutputStream(
+					bufferedFileOutputStream, CompressionType.GZIP);
 
 			// Create a serializer processor
 			RdfSerializer serializer = new RdfSerializer(RDFFormat.NTRIPLES,
@@ -0,0 +1,172 @@
+package org.wikidata.wdtk.examples.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.wikibaseapi.BasicApiConnection;
+import org.wikidata.wdtk.wikibaseapi.RateController;
+import org.wikidata.wdtk.wikibaseapi.WikibaseDataEditor;
+import org.wikidata.wdtk.wikibaseapi.WikibaseDataFetcher;
+
+/**
+ * Measures the throughput and latency of {@link WikibaseDataFetcher} and
+ * {@link WikibaseDataEditor} against a {@link ReplayApiServer}, which replays
+ * recorded responses with a given latency, and injects maxlag errors and
+ * expired tokens. Each workload is run with the fixed back-off of the client
+ * and with an adaptive {@link RateController}. For each run, the number of
+ * calls per second, the median and 99th percentile of the time of a call
+ * (including its retries), and the number of injected errors and requests
+ * are printed.
+ * <p>
+ * Usage: <code>ApiReplayBenchmark [calls [threads [latency [maxlagRate [tokenExpiryRate [responseDir]]]]]]</code>,
+ * where the latency is in milliseconds, the rates are between 0 and 1, and
+ * the directory contains recorded responses as described in
+ * {@link ReplayApiServer}.
+ */
+public class ApiReplayBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int calls = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int latency = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		double maxlagRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.01;
+		double tokenExpiryRate = args.length > 4 ? Double.parseDouble(args[4]) : 0.01;
+		Path responseDirectory = args.length > 5 ? Paths.get(args[5]) : null;
+
+		System.out.println(String.format(
+				"%d calls on %d threads, %d ms latency, %.3f maxlag rate, %.3f token expiry rate",
+				calls, threads, latency, maxlagRate, tokenExpiryRate));
+		try (ReplayApiServer server = new ReplayApiServer(responseDirectory, latency,
+				maxlagRate, tokenExpiryRate, 2 * threads)) {
+			for (boolean adaptive : Arrays.asList(false, true)) {
+				String mode = adaptive ? "adaptive" : "fixed";
+				runFetches(server, "fetch (" + mode + ")", adaptive, calls, threads);
+				runEdits(server, "edit (" + mode + ")", adaptive, calls, threads);
+			}
+		}
+	}
+
+	/**
+	 * A call of the client to measure.
+	 */
+	@FunctionalInterface
+	interface Call {
+		void run() throws Exception;
+	}
+
+	private static BasicApiConnection makeConnection(ReplayApiServer server, boolean adaptive) {
+		BasicApiConnection connection = new BasicApiConnection(server.getApiUrl());
+		if (adaptive) {
+			connection.setRateController(new RateController(1000, 1, 10000));
+		}
+		return connection;
+	}
+
+	private static void runFetches(ReplayApiServer server, String name, boolean adaptive,
+			int calls, int threads) throws Exception {
+		WikibaseDataFetcher fetcher = new WikibaseDataFetcher(makeConnection(server, adaptive),
+				Datamodel.SITE_WIKIDATA);
+		fetcher.setMaxLag(5);
+		fetcher.setRetryWaitTime(100);
+		fetcher.setMaxRetries(20);
+		fetcher.setMaxRequestsInFlight(threads);
+		List<String> ids = new ArrayList<>();
+		for (int i = 1; i <= 50; i++) {
+			ids.add("Q" + i);
+		}
+		run(server, name, calls, threads, () -> fetcher.getEntityDocumentsAsync(ids).join());
+	}
+
+	private static void runEdits(ReplayApiServer server, String name, boolean adaptive,
+			int calls, int threads) throws Exception {
+		WikibaseDataEditor editor = new WikibaseDataEditor(makeConnection(server, adaptive),
+				Datamodel.SITE_WIKIDATA);
+		editor.setAverageTimePerEdit(0);
+		editor.setMaxLag(5);
+		editor.setMaxLagFirstWaitTime(100);
+		editor.setMaxLagMaxRetries(20);
+		ItemDocument document = ItemDocumentBuilder.forItemId(Datamodel.makeWikidataItemIdValue("Q42"))
+				.withLabel("Douglas Adams", "en").withRevisionId(1000).build();
+		run(server, name, calls, threads, () -> editor.editItemDocument(document, false, "benchmark", null));
+	}
+
+	/**
+	 * Runs the given number of calls on the given number of threads, and
+	 * prints the results.
+	 */
+	private static void run(ReplayApiServer server, String name, int calls, int threads,
+			Call call) throws Exception {
+		server.resetCounts();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			long start = System.nanoTime();
+			List<Future<long[]>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				int threadCalls = calls / threads + (i < calls % threads ? 1 : 0);
+				results.add(executor.submit(() -> {
+					long[] times = new long[threadCalls];
+					for (int j = 0; j < threadCalls; j++) {
+						long callStart = System.nanoTime();
+						call.run();
+						times[j] = System.nanoTime() - callStart;
+					}
+					return times;
+				}));
+			}
+			long[] times = new long[calls];
+			int position = 0;
+			for (Future<long[]> result : results) {
+				long[] threadTimes = result.get();
+				System.arraycopy(threadTimes, 0, times, position, threadTimes.length);
+				position += threadTimes.length;
+			}
+			long nanos = System.nanoTime() - start;
+			Arrays.sort(times);
+
+			System.out.println(String.format(
+					"%-20s %9.1f calls/s   p50 %8.1f ms   p99 %8.1f ms   %5d maxlag   %5d badtoken   %6d requests",
+					name, calls * 1e9 / nanos, percentile(times, 0.5) / 1e6,
+					percentile(times, 0.99) / 1e6, server.getMaxlagCount(),
+					server.getTokenExpiryCount(), server.getRequestCount()));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static long percentile(long[] sortedTimes, double percentile) {
+		if (sortedTimes.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile * sortedTimes.length) - 1;
+		return sortedTimes[Math.max(0, Math.min(sortedTimes.length - 1, index))];
+	}
+}
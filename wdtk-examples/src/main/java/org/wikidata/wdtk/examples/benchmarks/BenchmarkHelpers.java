@@ -0,0 +1,266 @@
+package org.wikidata.wdtk.examples.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.JsonDeserializer;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.rdf.PropertyRegister;
+import org.wikidata.wdtk.wikibaseapi.BasicApiConnection;
+
+/**
+ * Static helpers for the benchmark programs of this package: repeated
+ * measurement of a task with warm-up rounds, measurement of the memory
+ * allocated by the current thread, and loading of entities from JSON dumps.
+ * <p>
+ * The programs are meant to be run on a quiet machine with a fixed heap
+ * size, e.g. with <code>-Xms4g -Xmx4g</code>. They give comparative
+ * figures for alternative implementations, not absolute ones.
+ */
+public class BenchmarkHelpers {
+
+	/**
+	 * A task to measure.
+	 */
+	@FunctionalInterface
+	public interface Task {
+		/**
+		 * Runs the task once.
+		 *
+		 * @return the number of operations that were performed, used to
+		 *         compute the cost of one operation
+		 * @throws Exception
+		 *             if the task failed
+		 */
+		long run() throws Exception;
+	}
+
+	/**
+	 * Result of the measurement of a task.
+	 */
+	public static class Result {
+
+		final String name;
+		final long operations;
+		final long nanos;
+		final long allocatedBytes;
+
+		Result(String name, long operations, long nanos, long allocatedBytes) {
+			this.name = name;
+			this.operations = operations;
+			this.nanos = nanos;
+			this.allocatedBytes = allocatedBytes;
+		}
+
+		/**
+		 * Returns the average wall-clock time of one operation.
+		 *
+		 * @return time in nanoseconds
+		 */
+		public double getNanosPerOperation() {
+			return (double) nanos / operations;
+		}
+
+		/**
+		 * Returns the average number of bytes allocated by one operation, or
+		 * a negative number if the JVM cannot measure allocations.
+		 *
+		 * @return allocated bytes
+		 */
+		public double getBytesPerOperation() {
+			return allocatedBytes < 0 ? -1 : (double) allocatedBytes / operations;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-40s %12.1f ns/op %12.1f B/op (%d ops)", name,
+					getNanosPerOperation(), getBytesPerOperation(), operations);
+		}
+	}
+
+	private static final com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+
+	/**
+	 * Runs the given task for some warm-up rounds, which are not measured,
+	 * and then for the given number of measured rounds.
+	 *
+	 * @param name
+	 *            the name of the task, used when printing the result
+	 * @param warmUpRounds
+	 *            number of rounds to run before measuring
+	 * @param rounds
+	 *            number of measured rounds
+	 * @param task
+	 *            the task to run
+	 * @return the result of the measurement
+	 * @throws Exception
+	 *             if the task failed
+	 */
+	public static Result measure(String name, int warmUpRounds, int rounds, Task task) throws Exception {
+		for (int i = 0; i < warmUpRounds; i++) {
+			task.run();
+		}
+		System.gc();
+		long operations = 0;
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			operations += task.run();
+		}
+		long nanos = System.nanoTime() - start;
+		long allocatedBytes = allocatedBefore < 0 ? -1 : getAllocatedBytes() - allocatedBefore;
+		return new Result(name, Math.max(1, operations), nanos, allocatedBytes);
+	}
+
+	/**
+	 * Returns the number of bytes allocated so far by the current thread, or
+	 * -1 if the JVM does not support this measurement.
+	 *
+	 * @return allocated bytes
+	 */
+	public static long getAllocatedBytes() {
+		if (allocationBean == null) {
+			return -1;
+		}
+		return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Reads the JSON serializations of the first entities of a JSON dump.
+	 * Dumps have one entity per line, and may be compressed with gzip or
+	 * bzip2, as indicated by the file extension.
+	 *
+	 * @param fileName
+	 *            the dump file
+	 * @param limit
+	 *            the maximal number of entities to read
+	 * @return the JSON serializations of the entities
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	public static List<String> readEntityLines(String fileName, int limit) throws IOException {
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				openDumpFile(fileName), StandardCharsets.UTF_8))) {
+			String line = reader.readLine();
+			while (line != null && lines.size() < limit) {
+				if (line.length() > 1) {
+					lines.add(line.endsWith(",") ? line.substring(0, line.length() - 1) : line);
+				}
+				line = reader.readLine();
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Reads the items and properties among the first entities of a JSON dump.
+	 *
+	 * @param fileName
+	 *            the dump file, which may be compressed with gzip or bzip2
+	 * @param limit
+	 *            the maximal number of entities to read
+	 * @return the items and properties
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	public static List<EntityDocument> readItemsAndProperties(String fileName, int limit) throws IOException {
+		JsonDeserializer deserializer = new JsonDeserializer(Datamodel.SITE_WIKIDATA, true);
+		List<EntityDocument> documents = new ArrayList<>();
+		for (String json : readEntityLines(fileName, limit)) {
+			EntityDocument document = deserializer.deserializeEntityDocument(json);
+			if (document instanceof ItemDocument || document instanceof PropertyDocument) {
+				documents.add(document);
+			}
+		}
+		return documents;
+	}
+
+	/**
+	 * Property register that never accesses the web API. The types of the
+	 * properties are guessed from their values.
+	 */
+	public static class OfflinePropertyRegister extends PropertyRegister {
+
+		public OfflinePropertyRegister() {
+			super(null, BasicApiConnection.getWikidataApiConnection(), Datamodel.SITE_WIKIDATA);
+		}
+
+		@Override
+		protected void fetchPropertyInformation(PropertyIdValue property) {
+		}
+	}
+
+	/**
+	 * Output stream that discards everything, to measure serializations
+	 * without the cost of storing them.
+	 */
+	public static class DiscardingOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+
+	private static InputStream openDumpFile(String fileName) throws IOException {
+		InputStream inputStream = new FileInputStream(fileName);
+		if (fileName.endsWith(".gz")) {
+			return new GZIPInputStream(inputStream, 1 << 16);
+		} else if (fileName.endsWith(".bz2")) {
+			return new BZip2CompressorInputStream(inputStream, true);
+		}
+		return inputStream;
+	}
+
+	private static com.sun.management.ThreadMXBean getAllocationBean() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean
+					&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+				((com.sun.management.ThreadMXBean) bean).setThreadAllocatedMemoryEnabled(true);
+				return (com.sun.management.ThreadMXBean) bean;
+			}
+		} catch (LinkageError | UnsupportedOperationException e) {
+			// allocation is not measured then
+		}
+		return null;
+	}
+}
@@ -0,0 +1,120 @@
+package org.wikidata.wdtk.examples.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.implementation.JsonEventReader;
+import org.wikidata.wdtk.datamodel.implementation.JsonStreamReader;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityEventHandler;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
+
+/**
+ * Compares two ways of computing simple statistics over entities, as done in
+ * {@link org.wikidata.wdtk.examples.EntityStatisticsProcessor}: building
+ * entity documents with the
+ * {@link org.wikidata.wdtk.datamodel.implementation.JsonStreamReader}, and
+ * reading only events with the {@link JsonEventReader}. Both count the
+ * statements per property and the labels of the same entities, taken from the
+ * beginning of a JSON dump.
+ * <p>
+ * Usage: <code>EntityEventBenchmark dumpfile [entities [rounds]]</code>,
+ * where the dump may be compressed with gzip or bzip2.
+ */
+public class EntityEventBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.out.println("Usage: EntityEventBenchmark dumpfile [entities [rounds]]");
+			return;
+		}
+		int limit = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		List<String> entities = BenchmarkHelpers.readEntityLines(args[0], limit);
+		System.out.println("Read " + entities.size() + " entities from " + args[0]);
+
+		JsonStreamReader documentReader = new JsonStreamReader(Datamodel.SITE_WIKIDATA);
+		JsonEventReader eventReader = new JsonEventReader(Datamodel.SITE_WIKIDATA);
+
+		// make sure that both methods agree before measuring
+		Counter expected = countWithDocuments(entities, documentReader);
+		Counter actual = countWithEvents(entities, eventReader);
+		if (!expected.statementCounts.equals(actual.statementCounts) || expected.labelCount != actual.labelCount) {
+			throw new IllegalStateException("Different statistics for documents and events");
+		}
+
+		System.out.println(BenchmarkHelpers.measure("documents", rounds, rounds,
+				() -> countWithDocuments(entities, documentReader).labelCount));
+		System.out.println(BenchmarkHelpers.measure("events", rounds, rounds,
+				() -> countWithEvents(entities, eventReader).labelCount));
+	}
+
+	/**
+	 * Counts statements per property and labels.
+	 */
+	private static class Counter implements EntityEventHandler {
+		final Map<String, Integer> statementCounts = new HashMap<>();
+		long labelCount = 0;
+
+		@Override
+		public void label(String language, String text) {
+			labelCount++;
+		}
+
+		@Override
+		public void statement(String propertyId, StatementRank rank) {
+			statementCounts.merge(propertyId, 1, Integer::sum);
+		}
+	}
+
+	private static Counter countWithDocuments(List<String> entities, JsonStreamReader reader) throws Exception {
+		Counter counter = new Counter();
+		for (String json : entities) {
+			EntityDocument document = reader.readEntityDocument(json);
+			if (document instanceof TermedDocument) {
+				counter.labelCount += ((TermedDocument) document).getLabels().size();
+			}
+			if (document instanceof StatementDocument) {
+				for (StatementGroup statementGroup : ((StatementDocument) document).getStatementGroups()) {
+					counter.statementCounts.merge(statementGroup.getProperty().getId(),
+							statementGroup.size(), Integer::sum);
+				}
+			}
+		}
+		return counter;
+	}
+
+	private static Counter countWithEvents(List<String> entities, JsonEventReader reader) throws Exception {
+		Counter counter = new Counter();
+		for (String json : entities) {
+			reader.readEntity(json, counter);
+		}
+		return counter;
+	}
+}
@@ -0,0 +1,78 @@
+package org.wikidata.wdtk.examples.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.JsonDeserializer;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+
+/**
+ * Compares the annotation-driven JSON deserialization of Jackson with the
+ * token-level {@link org.wikidata.wdtk.datamodel.implementation.JsonStreamReader}.
+ * Both read the same entities, taken from the beginning of a JSON dump, and
+ * the time and memory allocated per entity are reported.
+ * <p>
+ * Usage: <code>JsonDeserializationBenchmark dumpfile [entities [rounds]]</code>,
+ * where the dump may be compressed with gzip or bzip2.
+ */
+public class JsonDeserializationBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.out.println("Usage: JsonDeserializationBenchmark dumpfile [entities [rounds]]");
+			return;
+		}
+		int limit = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		List<String> entities = BenchmarkHelpers.readEntityLines(args[0], limit);
+		System.out.println("Read " + entities.size() + " entities from " + args[0]);
+
+		JsonDeserializer jackson = new JsonDeserializer(Datamodel.SITE_WIKIDATA);
+		JsonDeserializer streaming = new JsonDeserializer(Datamodel.SITE_WIKIDATA, true);
+
+		// make sure that both methods agree before measuring
+		List<EntityDocument> expected = deserialize(entities, jackson);
+		List<EntityDocument> actual = deserialize(entities, streaming);
+		for (int i = 0; i < expected.size(); i++) {
+			if (!expected.get(i).equals(actual.get(i))) {
+				throw new IllegalStateException("Different results for " + expected.get(i).getEntityId());
+			}
+		}
+
+		System.out.println(BenchmarkHelpers.measure("jackson", rounds, rounds,
+				() -> deserialize(entities, jackson).size()));
+		System.out.println(BenchmarkHelpers.measure("streaming", rounds, rounds,
+				() -> deserialize(entities, streaming).size()));
+	}
+
+	private static List<EntityDocument> deserialize(List<String> entities, JsonDeserializer deserializer)
+			throws Exception {
+		List<EntityDocument> documents = new ArrayList<>(entities.size());
+		for (String json : entities) {
+			documents.add(deserializer.deserializeEntityDocument(json));
+		}
+		return documents;
+	}
+}
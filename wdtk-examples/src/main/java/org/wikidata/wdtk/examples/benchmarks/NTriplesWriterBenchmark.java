@@ -0,0 +1,104 @@
+package org.wikidata.wdtk.examples.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.rdf.NTriplesRdfWriter;
+import org.wikidata.wdtk.rdf.PropertyRegister;
+import org.wikidata.wdtk.rdf.RdfConverter;
+import org.wikidata.wdtk.rdf.RdfWriter;
+
+/**
+ * Compares the N-Triples output of the rdf4j writer with the one of the
+ * {@link NTriplesRdfWriter}, on entities taken from the beginning of a JSON
+ * dump. One operation is one triple.
+ * <p>
+ * Usage: <code>NTriplesWriterBenchmark dumpfile [entities [rounds]]</code>,
+ * where the dump may be compressed with gzip or bzip2.
+ */
+public class NTriplesWriterBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.out.println("Usage: NTriplesWriterBenchmark dumpfile [entities [rounds]]");
+			return;
+		}
+		int limit = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		List<EntityDocument> documents = BenchmarkHelpers.readItemsAndProperties(args[0], limit);
+		System.out.println("Read " + documents.size() + " items and properties from " + args[0]);
+		PropertyRegister propertyRegister = new BenchmarkHelpers.OfflinePropertyRegister();
+
+		// make sure that both writers agree before measuring, up to the labels of blank nodes
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		convert(documents, new RdfWriter(RDFFormat.NTRIPLES, expected), propertyRegister);
+		convert(documents, new NTriplesRdfWriter(actual), propertyRegister);
+		if (!withoutBlankNodeLabels(expected).equals(withoutBlankNodeLabels(actual))) {
+			throw new IllegalStateException("Different output for both writers");
+		}
+
+		Function<OutputStream, RdfWriter> rdf4jWriter = output -> new RdfWriter(RDFFormat.NTRIPLES, output);
+		Function<OutputStream, RdfWriter> directWriter = NTriplesRdfWriter::new;
+		for (int i = 0; i < 2; i++) {
+			printResult("rdf4j", rounds, documents, rdf4jWriter, propertyRegister);
+			printResult("direct", rounds, documents, directWriter, propertyRegister);
+		}
+	}
+
+	private static String withoutBlankNodeLabels(ByteArrayOutputStream output) {
+		return new String(output.toByteArray(), StandardCharsets.UTF_8).replaceAll("_:\\w+", "_:");
+	}
+
+	private static void printResult(String name, int rounds, List<EntityDocument> documents,
+			Function<OutputStream, RdfWriter> writerFactory, PropertyRegister propertyRegister) throws Exception {
+		BenchmarkHelpers.Result result = BenchmarkHelpers.measure(name, rounds, rounds,
+				() -> convert(documents, writerFactory.apply(new BenchmarkHelpers.DiscardingOutputStream()),
+						propertyRegister));
+		System.out.println(result + String.format(" %,.0f triples/s", 1e9 / result.getNanosPerOperation()));
+	}
+
+	private static long convert(List<EntityDocument> documents, RdfWriter writer,
+			PropertyRegister propertyRegister) {
+		RdfConverter converter = new RdfConverter(writer, new SitesImpl(), propertyRegister);
+		writer.start();
+		for (EntityDocument document : documents) {
+			if (document instanceof ItemDocument) {
+				converter.writeItemDocument((ItemDocument) document);
+			} else {
+				converter.writePropertyDocument((PropertyDocument) document);
+			}
+		}
+		writer.finish();
+		return writer.getTripleCount();
+	}
+}
@@ -0,0 +1,88 @@
+package org.wikidata.wdtk.examples.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentDumpProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.rdf.ParallelRdfSerializer;
+import org.wikidata.wdtk.rdf.PropertyRegister;
+import org.wikidata.wdtk.rdf.RdfSerializer;
+
+/**
+ * Measures how the RDF export scales with the number of threads. The same
+ * entities, taken from the beginning of a JSON dump, are serialized to
+ * N-Triples with the {@link RdfSerializer} and then with the
+ * {@link ParallelRdfSerializer} using 1, 2, 4, … threads. The output is
+ * discarded, so that only the cost of the serialization is measured. Property
+ * types are guessed from the values instead of being fetched online.
+ * <p>
+ * Note that the allocation reported for the parallel serializer only covers
+ * the calling thread.
+ * <p>
+ * Usage:
+ * <code>RdfSerializationScalingBenchmark dumpfile [entities [rounds [maxThreads]]]</code>,
+ * where the dump may be compressed with gzip or bzip2.
+ */
+public class RdfSerializationScalingBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.out.println("Usage: RdfSerializationScalingBenchmark dumpfile [entities [rounds [maxThreads]]]");
+			return;
+		}
+		int limit = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+
+		List<EntityDocument> documents = BenchmarkHelpers.readItemsAndProperties(args[0], limit);
+		System.out.println("Read " + documents.size() + " items and properties from " + args[0]);
+
+		PropertyRegister propertyRegister = new BenchmarkHelpers.OfflinePropertyRegister();
+		System.out.println(BenchmarkHelpers.measure("sequential", rounds, rounds,
+				() -> serialize(documents, new RdfSerializer(RDFFormat.NTRIPLES,
+						new BenchmarkHelpers.DiscardingOutputStream(), new SitesImpl(), propertyRegister))));
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			final int threadCount = threads;
+			System.out.println(BenchmarkHelpers.measure(threadCount + " threads", rounds, rounds,
+					() -> serialize(documents, new ParallelRdfSerializer(RDFFormat.NTRIPLES,
+							new BenchmarkHelpers.DiscardingOutputStream(), new SitesImpl(), propertyRegister, threadCount))));
+		}
+	}
+
+	private static long serialize(List<EntityDocument> documents, EntityDocumentDumpProcessor serializer) {
+		serializer.open();
+		for (EntityDocument document : documents) {
+			if (document instanceof ItemDocument) {
+				serializer.processItemDocument((ItemDocument) document);
+			} else {
+				serializer.processPropertyDocument((PropertyDocument) document);
+			}
+		}
+		serializer.close();
+		return documents.size();
+	}
+}
@@ -0,0 +1,126 @@
+package org.wikidata.wdtk.examples.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.rdf.PropertyContext;
+import org.wikidata.wdtk.rdf.PropertyRegister;
+import org.wikidata.wdtk.rdf.RdfSerializer;
+import org.wikidata.wdtk.rdf.Vocabulary;
+
+/**
+ * Measures the URIs of statements and properties that are built for every
+ * statement and snak in the RDF export, and the RDF export as a whole. The
+ * statements are taken from entities at the beginning of a JSON dump.
+ * <p>
+ * Statement URIs are built by {@link Vocabulary#getStatementUri(Statement)}
+ * and, for comparison, with the regular expression that was used before.
+ * Property IRIs are built from a string for every snak, as without the cache
+ * of the converters. The export is written to N-Triples and discarded; run
+ * the benchmark on different versions to compare them.
+ * <p>
+ * Usage: <code>RdfUriBenchmark dumpfile [entities [rounds]]</code>, where the
+ * dump may be compressed with gzip or bzip2.
+ */
+public class RdfUriBenchmark {
+
+	static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.out.println("Usage: RdfUriBenchmark dumpfile [entities [rounds]]");
+			return;
+		}
+		int limit = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		List<EntityDocument> documents = BenchmarkHelpers.readItemsAndProperties(args[0], limit);
+		List<Statement> statements = new ArrayList<>();
+		for (EntityDocument document : documents) {
+			if (document instanceof StatementDocument) {
+				((StatementDocument) document).getAllStatements().forEachRemaining(statements::add);
+			}
+		}
+		System.out.println("Read " + statements.size() + " statements in "
+				+ documents.size() + " items and properties from " + args[0]);
+
+		System.out.println(BenchmarkHelpers.measure("statement URIs (regex)", rounds, rounds, () -> {
+			long length = 0;
+			for (Statement statement : statements) {
+				length += (Vocabulary.PREFIX_WIKIDATA_STATEMENT
+						+ statement.getStatementId().replaceFirst("\\$", "-")).length();
+			}
+			return length > 0 ? statements.size() : 0;
+		}));
+		System.out.println(BenchmarkHelpers.measure("statement URIs", rounds, rounds, () -> {
+			long length = 0;
+			for (Statement statement : statements) {
+				length += Vocabulary.getStatementUri(statement).length();
+			}
+			return length > 0 ? statements.size() : 0;
+		}));
+		System.out.println(BenchmarkHelpers.measure("property IRIs (uncached)", rounds, rounds, () -> {
+			long count = 0;
+			for (Statement statement : statements) {
+				count += createPropertyIri(statement.getMainSnak(), PropertyContext.STATEMENT);
+				count += createPropertyIri(statement.getMainSnak(), PropertyContext.VALUE);
+				for (Iterator<Snak> qualifiers = statement.getAllQualifiers(); qualifiers.hasNext();) {
+					count += createPropertyIri(qualifiers.next(), PropertyContext.QUALIFIER);
+				}
+			}
+			return count;
+		}));
+
+		PropertyRegister propertyRegister = new BenchmarkHelpers.OfflinePropertyRegister();
+		System.out.println(BenchmarkHelpers.measure("RDF export", rounds, rounds, () -> {
+			RdfSerializer serializer = new RdfSerializer(RDFFormat.NTRIPLES,
+					new BenchmarkHelpers.DiscardingOutputStream(), new SitesImpl(), propertyRegister);
+			serializer.open();
+			for (EntityDocument document : documents) {
+				if (document instanceof ItemDocument) {
+					serializer.processItemDocument((ItemDocument) document);
+				} else {
+					serializer.processPropertyDocument((PropertyDocument) document);
+				}
+			}
+			serializer.close();
+			return documents.size();
+		}));
+	}
+
+	private static int createPropertyIri(Snak snak, PropertyContext context) {
+		return factory.createIRI(Vocabulary.getPropertyUri(snak.getPropertyId(), context))
+				.stringValue().isEmpty() ? 0 : 1;
+	}
+}
@@ -0,0 +1,254 @@
+package org.wikidata.wdtk.examples.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the Web API of a Wikibase site, which replays recorded
+ * responses. It answers every request for an action with the same recorded
+ * response, after a random delay around a given latency. Some requests fail
+ * on purpose: requests with a maxlag parameter with a maxlag error, and edits
+ * with an expired token error, after which a new token is issued.
+ * <p>
+ * Recorded responses can be read from a directory, which contains a file
+ * <code>action.json</code> for every action that should be replayed, such as
+ * <code>wbgetentities.json</code> or <code>wbeditentity.json</code>. Small
+ * built-in responses are used for the actions of which no recording is given.
+ */
+public class ReplayApiServer implements AutoCloseable {
+
+	static final String DEFAULT_GET_ENTITIES_RESPONSE = "{\"entities\":{\"Q42\":{\"pageid\":138,\"ns\":0,"
+			+ "\"title\":\"Q42\",\"lastrevid\":1000,\"modified\":\"2020-01-01T00:00:00Z\",\"type\":\"item\","
+			+ "\"id\":\"Q42\",\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"Douglas Adams\"}},"
+			+ "\"descriptions\":{},\"aliases\":{},\"claims\":{},\"sitelinks\":{}}},\"success\":1}";
+
+	static final String DEFAULT_EDIT_ENTITY_RESPONSE = "{\"entity\":{\"type\":\"item\",\"id\":\"Q42\","
+			+ "\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"Douglas Adams\"}},\"descriptions\":{},"
+			+ "\"aliases\":{},\"claims\":{},\"sitelinks\":{},\"lastrevid\":1001},\"success\":1}";
+
+	static final String MAXLAG_RESPONSE = "{\"error\":{\"code\":\"maxlag\","
+			+ "\"info\":\"Waiting for replica: 1 seconds lagged.\",\"host\":\"replica\",\"lag\":1,\"type\":\"db\"}}";
+
+	static final String BAD_TOKEN_RESPONSE = "{\"error\":{\"code\":\"badtoken\",\"info\":\"Invalid CSRF token.\"}}";
+
+	final Map<String, byte[]> responses = new HashMap<>();
+	final int latency;
+	final double maxlagRate;
+	final double tokenExpiryRate;
+	final Random random = new Random(42);
+	final HttpServer server;
+	final ExecutorService executor;
+
+	final AtomicLong requestCount = new AtomicLong();
+	final AtomicLong maxlagCount = new AtomicLong();
+	final AtomicLong tokenExpiryCount = new AtomicLong();
+	final AtomicLong tokenNumber = new AtomicLong();
+
+	/**
+	 * Starts a server on a free local port.
+	 *
+	 * @param responseDirectory
+	 *            directory with recorded responses, or null to use the
+	 *            built-in responses only
+	 * @param latency
+	 *            average delay of responses in milliseconds
+	 * @param maxlagRate
+	 *            share of the requests with a maxlag parameter that fail with
+	 *            a maxlag error
+	 * @param tokenExpiryRate
+	 *            share of the edits that fail because their token expired
+	 * @param threadCount
+	 *            number of threads that answer requests
+	 * @throws IOException
+	 *             if the server could not be started or the responses could
+	 *             not be read
+	 */
+	public ReplayApiServer(Path responseDirectory, int latency, double maxlagRate,
+			double tokenExpiryRate, int threadCount) throws IOException {
+		this.latency = latency;
+		this.maxlagRate = maxlagRate;
+		this.tokenExpiryRate = tokenExpiryRate;
+		responses.put("wbgetentities", DEFAULT_GET_ENTITIES_RESPONSE.getBytes(StandardCharsets.UTF_8));
+		responses.put("wbeditentity", DEFAULT_EDIT_ENTITY_RESPONSE.getBytes(StandardCharsets.UTF_8));
+		if (responseDirectory != null) {
+			try (Stream<Path> files = Files.list(responseDirectory)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					String fileName = file.getFileName().toString();
+					if (fileName.endsWith(".json")) {
+						responses.put(fileName.substring(0, fileName.length() - 5), Files.readAllBytes(file));
+					}
+				}
+			}
+		}
+
+		executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+			Thread thread = new Thread(runnable, "replay-api-server");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setExecutor(executor);
+		server.createContext("/w/api.php", this::handle);
+		server.start();
+	}
+
+	/**
+	 * Returns the URL of the API of this server.
+	 *
+	 * @return the API URL
+	 */
+	public String getApiUrl() {
+		return "http://" + server.getAddress().getHostString() + ":"
+				+ server.getAddress().getPort() + "/w/api.php";
+	}
+
+	/**
+	 * Returns the number of requests that were answered.
+	 *
+	 * @return number of requests
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * Returns the number of maxlag errors that were returned.
+	 *
+	 * @return number of maxlag errors
+	 */
+	public long getMaxlagCount() {
+		return maxlagCount.get();
+	}
+
+	/**
+	 * Returns the number of expired token errors that were returned.
+	 *
+	 * @return number of token errors
+	 */
+	public long getTokenExpiryCount() {
+		return tokenExpiryCount.get();
+	}
+
+	/**
+	 * Resets the counters of requests and errors.
+	 */
+	public void resetCounts() {
+		requestCount.set(0);
+		maxlagCount.set(0);
+		tokenExpiryCount.set(0);
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	void handle(HttpExchange exchange) throws IOException {
+		requestCount.incrementAndGet();
+		Map<String, String> parameters = parseParameters(exchange.getRequestURI().getRawQuery());
+		parameters.putAll(parseParameters(new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8)));
+
+		try {
+			Thread.sleep((long) (latency * (0.5 + random.nextDouble())));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		String action = parameters.getOrDefault("action", "");
+		String token = "token" + tokenNumber.get() + "+\\";
+		byte[] response;
+		if (parameters.containsKey("maxlag") && random.nextDouble() < maxlagRate) {
+			maxlagCount.incrementAndGet();
+			exchange.getResponseHeaders().set("Retry-After", "1");
+			response = MAXLAG_RESPONSE.getBytes(StandardCharsets.UTF_8);
+		} else if ("query".equals(action) && "tokens".equals(parameters.get("meta"))) {
+			response = ("{\"batchcomplete\":\"\",\"query\":{\"tokens\":{\"csrftoken\":\""
+					+ token.replace("\\", "\\\\") + "\"}}}").getBytes(StandardCharsets.UTF_8);
+		} else if (parameters.containsKey("token")
+				&& (!token.equals(parameters.get("token")) || random.nextDouble() < tokenExpiryRate)) {
+			if (token.equals(parameters.get("token"))) {
+				tokenNumber.incrementAndGet();
+			}
+			tokenExpiryCount.incrementAndGet();
+			response = BAD_TOKEN_RESPONSE.getBytes(StandardCharsets.UTF_8);
+		} else if (responses.containsKey(action)) {
+			response = responses.get(action);
+		} else {
+			response = ("{\"error\":{\"code\":\"unknown_action\",\"info\":\"No recorded response for "
+					+ action + "\"}}").getBytes(StandardCharsets.UTF_8);
+		}
+
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(200, response.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(response);
+		}
+	}
+
+	static Map<String, String> parseParameters(String query) throws UnsupportedEncodingException {
+		Map<String, String> parameters = new HashMap<>();
+		if (query == null || query.isEmpty()) {
+			return parameters;
+		}
+		for (String parameter : query.split("&")) {
+			int separator = parameter.indexOf('=');
+			if (separator < 0) {
+				parameters.put(URLDecoder.decode(parameter, "UTF-8"), "");
+			} else {
+				parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+						URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+			}
+		}
+		return parameters;
+	}
+
+	static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int length;
+		while ((length = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, length);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,113 @@
+package org.wikidata.wdtk.examples.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.ReferenceBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.wikibaseapi.StatementUpdate;
+
+/**
+ * Measures the planning of statement updates by {@link StatementUpdate} on
+ * large items, such as list items with thousands of statements for one
+ * property. The item has the given number of statements with two qualifiers
+ * each. The update adds as many statements, half of which duplicate existing
+ * statements with the qualifiers in another order and a new reference, and
+ * deletes a tenth of the existing statements.
+ * <p>
+ * Usage: <code>StatementUpdateBenchmark [statements [rounds]]</code>
+ */
+public class StatementUpdateBenchmark {
+
+	static final ItemIdValue SUBJECT = Datamodel.makeWikidataItemIdValue("Q42");
+	static final PropertyIdValue MEMBER = Datamodel.makeWikidataPropertyIdValue("P527");
+	static final PropertyIdValue ORDINAL = Datamodel.makeWikidataPropertyIdValue("P1545");
+	static final PropertyIdValue START_TIME = Datamodel.makeWikidataPropertyIdValue("P580");
+	static final PropertyIdValue SOURCE = Datamodel.makeWikidataPropertyIdValue("P248");
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		Reference reference = ReferenceBuilder.newInstance()
+				.withPropertyValue(SOURCE, Datamodel.makeWikidataItemIdValue("Q36578"))
+				.build();
+		ItemDocumentBuilder documentBuilder = ItemDocumentBuilder.forItemId(SUBJECT);
+		List<Statement> addStatements = new ArrayList<>();
+		List<Statement> deleteStatements = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Statement statement = makeStatement(i, false)
+					.withId(SUBJECT.getId() + "$" + i).build();
+			documentBuilder.withStatement(statement);
+			if (i % 10 == 9) {
+				deleteStatements.add(statement);
+			}
+			if (i % 2 == 0) {
+				addStatements.add(makeStatement(i, true).withReference(reference).build());
+			} else {
+				addStatements.add(makeStatement(count + i, true).build());
+			}
+		}
+		Collections.shuffle(addStatements);
+		ItemDocument document = documentBuilder.build();
+		System.out.println("Updating an item with " + count + " statements");
+
+		System.out.println(BenchmarkHelpers.measure("add " + addStatements.size(), rounds, rounds,
+				() -> new StatementUpdate(document, addStatements, Collections.emptyList())
+						.getUpdatedStatements().size()));
+		System.out.println(BenchmarkHelpers.measure("delete " + deleteStatements.size(), rounds, rounds,
+				() -> new StatementUpdate(document, Collections.emptyList(), deleteStatements)
+						.getUpdatedStatements().size()));
+		System.out.println(BenchmarkHelpers.measure("add and delete", rounds, rounds,
+				() -> new StatementUpdate(document, addStatements, deleteStatements)
+						.getUpdatedStatements().size()));
+	}
+
+	/**
+	 * Returns a builder for the i-th statement, with its qualifiers in the
+	 * given order.
+	 */
+	private static StatementBuilder makeStatement(int i, boolean reversed) {
+		StatementBuilder builder = StatementBuilder.forSubjectAndProperty(SUBJECT, MEMBER)
+				.withValue(Datamodel.makeWikidataItemIdValue("Q" + (1000000 + i)));
+		if (reversed) {
+			builder.withQualifierValue(START_TIME, Datamodel.makeTimeValue(1900 + i % 100, (byte) 1, (byte) 1,
+					TimeValue.CM_GREGORIAN_PRO))
+					.withQualifierValue(ORDINAL, Datamodel.makeStringValue(Integer.toString(i)));
+		} else {
+			builder.withQualifierValue(ORDINAL, Datamodel.makeStringValue(Integer.toString(i)))
+					.withQualifierValue(START_TIME, Datamodel.makeTimeValue(1900 + i % 100, (byte) 1, (byte) 1,
+							TimeValue.CM_GREGORIAN_PRO));
+		}
+		return builder;
+	}
+}
@@ -0,0 +1,122 @@
+package org.wikidata.wdtk.examples.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.JsonDeserializer;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+import org.wikidata.wdtk.rdf.Vocabulary;
+
+/**
+ * Measures the computation of the URIs of references and complex values by
+ * {@link Vocabulary}, with one and with several threads. The references and
+ * values are taken from the statements of entities at the beginning of a JSON
+ * dump. References are copied without their hash, so that it has to be
+ * computed.
+ * <p>
+ * Usage: <code>UriHashingBenchmark dumpfile [entities [rounds [threads]]]</code>,
+ * where the dump may be compressed with gzip or bzip2.
+ */
+public class UriHashingBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.out.println("Usage: UriHashingBenchmark dumpfile [entities [rounds [threads]]]");
+			return;
+		}
+		int limit = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		JsonDeserializer deserializer = new JsonDeserializer(Datamodel.SITE_WIKIDATA, true);
+		List<Object> objects = new ArrayList<>();
+		for (String json : BenchmarkHelpers.readEntityLines(args[0], limit)) {
+			EntityDocument document = deserializer.deserializeEntityDocument(json);
+			if (document instanceof StatementDocument) {
+				((StatementDocument) document).getAllStatements().forEachRemaining(statement -> addObjects(statement, objects));
+			}
+		}
+		System.out.println("Found " + objects.size() + " references and values in " + args[0]);
+
+		System.out.println(BenchmarkHelpers.measure("1 thread", rounds, rounds,
+				() -> computeUris(objects)));
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			System.out.println(BenchmarkHelpers.measure(threads + " threads", rounds, rounds, () -> {
+				List<Future<Long>> results = new ArrayList<>();
+				for (int i = 0; i < threads; i++) {
+					Callable<Long> task = () -> computeUris(objects);
+					results.add(executor.submit(task));
+				}
+				long count = 0;
+				for (Future<Long> result : results) {
+					count += result.get();
+				}
+				return count;
+			}));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static void addObjects(Statement statement, List<Object> objects) {
+		Value value = statement.getValue();
+		if (value instanceof TimeValue || value instanceof GlobeCoordinatesValue
+				|| value instanceof QuantityValue) {
+			objects.add(value);
+		}
+		for (Reference reference : statement.getReferences()) {
+			objects.add(Datamodel.makeReference(reference.getSnakGroups()));
+		}
+	}
+
+	private static long computeUris(List<Object> objects) {
+		long length = 0;
+		for (Object object : objects) {
+			String uri;
+			if (object instanceof Reference) {
+				uri = Vocabulary.getReferenceUri((Reference) object);
+			} else if (object instanceof TimeValue) {
+				uri = Vocabulary.getTimeValueUri((TimeValue) object);
+			} else if (object instanceof GlobeCoordinatesValue) {
+				uri = Vocabulary.getGlobeCoordinatesValueUri((GlobeCoordinatesValue) object);
+			} else {
+				uri = Vocabulary.getQuantityValueUri((QuantityValue) object);
+			}
+			length += uri.length();
+		}
+		return length > 0 ? objects.size() : 0;
+	}
+}
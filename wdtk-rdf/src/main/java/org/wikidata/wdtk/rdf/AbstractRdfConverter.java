@@ -125,6 +125,20 @@ abstract public class AbstractRdfConverter {
 		this.owlDeclarationBuffer.writePropertyDeclarations(this.rdfWriter, true, true);
 	}
 
+	/**
+	 * Writes the auxiliary triples of values and the OWL declarations that
+	 * have been spilled to disk, if spilling is enabled. This should be
+	 * called once, after the last document.
+	 */
+	public void writeSpilledTriples() throws RDFHandlerException {
+		this.valueRdfConverter.writeSpilledValues();
+		this.writeSpilledOWLDeclarations();
+	}
+
+	public void writeSpilledOWLDeclarations() {
+		this.owlDeclarationBuffer.writeSpilledPropertyDeclarations(this.rdfWriter, true, true);
+	}
+
 	public void writeDocumentType(Resource subject, IRI type) {
 		this.rdfWriter.writeTripleUriObject(subject, RdfWriter.RDF_TYPE, type.toString());
 	}
@@ -285,8 +299,8 @@ abstract public class AbstractRdfConverter {
 
 		String statementUri = Vocabulary.getStatementUri(statement);
 		Resource statementResource = this.rdfWriter.getUri(statementUri);
-		final IRI propertyIri = this.rdfWriter.getUri(
-				Vocabulary.getPropertyUri(statement.getMainSnak().getPropertyId(), PropertyContext.STATEMENT));
+		final IRI propertyIri = this.snakRdfConverter.propertyIris.getPropertyIri(
+				statement.getMainSnak().getPropertyId(), PropertyContext.STATEMENT);
 
 		this.rdfWriter.writeTripleUriObject(subject, propertyIri, statementUri);
 		this.rdfWriter.writeTripleValueObject(statementResource,
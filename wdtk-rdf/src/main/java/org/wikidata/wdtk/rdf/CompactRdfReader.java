@@ -0,0 +1,231 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.ntriples.NTriplesUtil;
+
+/**
+ * Reader for files written by {@link CompactRdfWriter}. The dictionary is
+ * kept in memory in its front-coded form, while the triples are streamed from
+ * the input when {@link #read(RDFHandler)} is called.
+ */
+public class CompactRdfReader {
+
+	/**
+	 * Number of decoded terms that are cached by their id.
+	 */
+	static final int TERM_CACHE_SIZE = 4096;
+
+	static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	final DataInputStream input;
+	final int blockSize;
+	final long termCount;
+	final byte[][] blocks;
+
+	final long[] cachedIds = new long[TERM_CACHE_SIZE];
+	final Value[] cachedTerms = new Value[TERM_CACHE_SIZE];
+
+	/**
+	 * Creates a new reader and reads the dictionary from the given input.
+	 *
+	 * @param input
+	 *            the stream to read the file from
+	 * @throws IOException
+	 *             if the input could not be read or is not in the expected
+	 *             format
+	 */
+	public CompactRdfReader(InputStream input) throws IOException {
+		this.input = new DataInputStream(new BufferedInputStream(input));
+		byte[] magic = new byte[CompactRdfWriter.MAGIC.length];
+		this.input.readFully(magic);
+		if (!Arrays.equals(magic, CompactRdfWriter.MAGIC)) {
+			throw new IOException("Input is not a compact RDF file");
+		}
+		this.blockSize = this.input.readInt();
+		this.termCount = this.input.readLong();
+		if (this.blockSize <= 0 || this.termCount < 0) {
+			throw new IOException("Invalid dictionary size");
+		}
+		long blockCount = (this.termCount + this.blockSize - 1) / this.blockSize;
+		this.blocks = new byte[(int) blockCount][];
+		for (int i = 0; i < blockCount; i++) {
+			this.blocks[i] = new byte[(int) readVarLong(this.input)];
+			this.input.readFully(this.blocks[i]);
+		}
+		Arrays.fill(this.cachedIds, -1);
+	}
+
+	/**
+	 * Returns the number of distinct terms in the dictionary.
+	 *
+	 * @return number of terms
+	 */
+	public long getTermCount() {
+		return this.termCount;
+	}
+
+	/**
+	 * Returns the term with the given id.
+	 *
+	 * @param id
+	 *            the id of the term, between 0 and the number of terms
+	 * @return the term
+	 */
+	public Value getTerm(long id) {
+		if (id < 0 || id >= this.termCount) {
+			throw new IllegalArgumentException("Unknown term id " + id);
+		}
+		int slot = (int) (id % TERM_CACHE_SIZE);
+		if (this.cachedIds[slot] != id) {
+			this.cachedTerms[slot] = NTriplesUtil.parseValue(decodeTerm(id),
+					factory);
+			this.cachedIds[slot] = id;
+		}
+		return this.cachedTerms[slot];
+	}
+
+	/**
+	 * Streams all triples of the file to the given handler. This can only be
+	 * done once per reader.
+	 *
+	 * @param handler
+	 *            the handler to send the triples to
+	 * @throws IOException
+	 *             if the triples could not be read
+	 * @throws RDFHandlerException
+	 *             if the handler fails
+	 */
+	public void read(RDFHandler handler) throws IOException,
+			RDFHandlerException {
+		long tripleCount = this.input.readLong();
+		int bitsPerId = this.input.readUnsignedByte();
+		BitReader bitReader = new BitReader(this.input);
+		handler.startRDF();
+		for (long i = 0; i < tripleCount; i++) {
+			Value subject = getTerm(bitReader.read(bitsPerId));
+			Value predicate = getTerm(bitReader.read(bitsPerId));
+			Value object = getTerm(bitReader.read(bitsPerId));
+			handler.handleStatement(factory.createStatement(
+					(Resource) subject, (IRI) predicate, object));
+		}
+		handler.endRDF();
+	}
+
+	/**
+	 * Decodes the N-Triples serialization of the term with the given id from
+	 * its block of the dictionary.
+	 */
+	String decodeTerm(long id) {
+		byte[] block = this.blocks[(int) (id / this.blockSize)];
+		int index = (int) (id % this.blockSize);
+		int[] position = new int[1];
+		int length = (int) readVarLong(block, position);
+		byte[] term = Arrays.copyOfRange(block, position[0], position[0]
+				+ length);
+		position[0] += length;
+		for (int i = 0; i < index; i++) {
+			int prefix = (int) readVarLong(block, position);
+			int suffix = (int) readVarLong(block, position);
+			byte[] next = Arrays.copyOf(term, prefix + suffix);
+			System.arraycopy(block, position[0], next, prefix, suffix);
+			position[0] += suffix;
+			term = next;
+		}
+		return new String(term, StandardCharsets.UTF_8);
+	}
+
+	static long readVarLong(InputStream in) throws IOException {
+		long value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	static long readVarLong(byte[] bytes, int[] position) {
+		long value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = bytes[position[0]++];
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Reads numbers that were written by
+	 * {@link CompactRdfWriter.BitWriter}.
+	 */
+	static class BitReader {
+		final InputStream in;
+		int current = 0;
+		int bitCount = 0;
+
+		BitReader(InputStream in) {
+			this.in = in;
+		}
+
+		long read(int bits) throws IOException {
+			long result = 0;
+			while (bits > 0) {
+				if (this.bitCount == 0) {
+					this.current = this.in.read();
+					if (this.current < 0) {
+						throw new EOFException();
+					}
+					this.bitCount = 8;
+				}
+				int length = Math.min(this.bitCount, bits);
+				int chunk = (this.current >>> (this.bitCount - length))
+						& ((1 << length) - 1);
+				result = (result << length) | chunk;
+				this.bitCount -= length;
+				bits -= length;
+			}
+			return result;
+		}
+	}
+}
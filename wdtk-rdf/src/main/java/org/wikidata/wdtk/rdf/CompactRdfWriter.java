@@ -0,0 +1,404 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.ntriples.NTriplesUtil;
+
+/**
+ * RDF writer for a compact binary format in the style of HDT. All terms
+ * (IRIs, literals and blank nodes) are stored once in a sorted dictionary,
+ * and triples are stored as bit-packed triples of term ids, in the order in
+ * which they were written. Files can be read with {@link CompactRdfReader}.
+ * <p>
+ * Terms are kept in their N-Triples serialization. The dictionary is
+ * front-coded: it is split into blocks of {@link #BLOCK_SIZE} terms, and
+ * each term in a block only stores the part that differs from the previous
+ * term. Triples are written with as few bits per id as the number of terms
+ * requires.
+ * <p>
+ * The dictionary and the ids are computed with external sorting, using
+ * temporary files, so the memory needed and the number of files that are
+ * open at once do not depend on the number of triples. The file is only written when {@link #finish()} is called, so it
+ * cannot be written in parts by {@link ParallelRdfSerializer}.
+ * <p>
+ * The file starts with the bytes {@link #MAGIC}, followed by the block size
+ * (int), the number of terms (long), the blocks of the dictionary (each with
+ * its length in bytes as a variable-length integer), the number of triples
+ * (long), the number of bits per id (byte) and the packed ids. Variable-length
+ * integers store seven bits per byte, least significant bits first.
+ */
+public class CompactRdfWriter extends RdfWriter {
+
+	/**
+	 * Format that makes {@link RdfSerializer} use this writer.
+	 */
+	public static final RDFFormat COMPACT_RDF = new RDFFormat(
+			"WDTK Compact RDF", "application/x-wdtk-compact-rdf",
+			StandardCharsets.UTF_8, "wdtkrdf", false, false);
+
+	/**
+	 * Bytes at the beginning of every file.
+	 */
+	public static final byte[] MAGIC = "WDTKRDF1"
+			.getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Number of terms that are front-coded together.
+	 */
+	public static final int BLOCK_SIZE = 16;
+
+	/**
+	 * Number of bytes of records that are sorted in memory if no other size
+	 * is set.
+	 */
+	public static final long DEFAULT_RUN_BYTES = 64L * 1024 * 1024;
+
+	final OutputStream output;
+	final long runBytes;
+
+	/**
+	 * Occurrences of terms in triples. The keys are the term, a zero
+	 * character and the position of the occurrence as a hexadecimal number of
+	 * fixed length, where the position is three times the index of the
+	 * triple plus the position of the term in the triple.
+	 */
+	SortedRunBuffer termOccurrences;
+
+	/**
+	 * Creates a new writer that keeps {@link #DEFAULT_RUN_BYTES} bytes of
+	 * records in memory while sorting.
+	 *
+	 * @param output
+	 *            the stream to write the file to
+	 */
+	public CompactRdfWriter(OutputStream output) {
+		this(output, DEFAULT_RUN_BYTES);
+	}
+
+	/**
+	 * Creates a new writer.
+	 *
+	 * @param output
+	 *            the stream to write the file to
+	 * @param runBytes
+	 *            the estimated number of bytes of records that are sorted in
+	 *            memory before they are written to a temporary file
+	 */
+	public CompactRdfWriter(OutputStream output, long runBytes) {
+		this.output = output;
+		this.runBytes = runBytes;
+	}
+
+	@Override
+	public void start() throws RDFHandlerException {
+		this.tripleCount = 0;
+		if (this.termOccurrences != null) {
+			this.termOccurrences.close();
+		}
+		this.termOccurrences = newSortedRunBuffer();
+	}
+
+	/**
+	 * Not supported, since the dictionary covers all triples of the file, so
+	 * parts written separately could not be concatenated. Writers that
+	 * restart check {@link #supportsRestart()} before they are used.
+	 */
+	@Override
+	void restart(OutputStream output) {
+		throw new UnsupportedOperationException(
+				"Compact RDF files cannot be written in parts");
+	}
+
+	@Override
+	boolean supportsRestart() {
+		return false;
+	}
+
+	@Override
+	public void writeNamespaceDeclaration(String prefix, String uri) {
+		// terms are always stored in full
+	}
+
+	@Override
+	protected void writeStatement(Resource subject, IRI predicate, Value object)
+			throws RDFHandlerException {
+		// the triple count has already been increased
+		long position = 3 * (this.tripleCount - 1);
+		addTerm(NTriplesUtil.toNTriplesString(subject), position);
+		addTerm(NTriplesUtil.toNTriplesString(predicate), position + 1);
+		addTerm(NTriplesUtil.toNTriplesString(object, true), position + 2);
+	}
+
+	/**
+	 * Builds the dictionary and writes the file.
+	 */
+	@Override
+	public void finish() throws RDFHandlerException {
+		SortedRunBuffer termIds = newSortedRunBuffer();
+		Path dictionaryFile = null;
+		try {
+			dictionaryFile = Files.createTempFile("wdtk-rdf-dictionary", ".bin");
+			long termCount;
+			try (DataOutputStream dictionary = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(dictionaryFile)))) {
+				termCount = writeDictionary(dictionary, termIds);
+			}
+
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(this.output));
+			out.write(MAGIC);
+			out.writeInt(BLOCK_SIZE);
+			out.writeLong(termCount);
+			try (InputStream dictionary = new BufferedInputStream(
+					Files.newInputStream(dictionaryFile))) {
+				byte[] buffer = new byte[8192];
+				int length;
+				while ((length = dictionary.read(buffer)) > 0) {
+					out.write(buffer, 0, length);
+				}
+			}
+			out.writeLong(this.tripleCount);
+			int bitsPerId = getBitsPerId(termCount);
+			out.writeByte(bitsPerId);
+			writeIds(out, termIds, bitsPerId);
+			out.flush();
+		} catch (IOException | UncheckedIOException e) {
+			throw new RDFHandlerException(e);
+		} finally {
+			termIds.close();
+			this.termOccurrences.close();
+			if (dictionaryFile != null) {
+				try {
+					Files.deleteIfExists(dictionaryFile);
+				} catch (IOException e) {
+					// the file is in the temporary directory anyway
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a buffer whose runs are limited by size, since terms can be
+	 * arbitrarily long.
+	 */
+	private SortedRunBuffer newSortedRunBuffer() {
+		return new SortedRunBuffer(Integer.MAX_VALUE, this.runBytes);
+	}
+
+	/**
+	 * Returns the number of bits needed to store ids of the given number of
+	 * terms.
+	 *
+	 * @param termCount
+	 *            the number of terms
+	 * @return the number of bits per id
+	 */
+	static int getBitsPerId(long termCount) {
+		if (termCount <= 1) {
+			return 1;
+		}
+		return 64 - Long.numberOfLeadingZeros(termCount - 1);
+	}
+
+	private void addTerm(String term, long position) {
+		this.termOccurrences.add(term + '\0' + toFixedHex(position), "");
+	}
+
+	/**
+	 * Writes the front-coded dictionary of all terms, in sorted order, and
+	 * records the id of the term at each position.
+	 *
+	 * @return the number of terms
+	 */
+	private long writeDictionary(DataOutputStream dictionary,
+			SortedRunBuffer termIds) {
+		FrontCoder frontCoder = new FrontCoder(dictionary);
+		this.termOccurrences.merge((occurrence, empty) -> {
+			int separator = occurrence.lastIndexOf('\0');
+			try {
+				frontCoder.add(occurrence.substring(0, separator));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			termIds.add(occurrence.substring(separator + 1),
+					Long.toString(frontCoder.termCount - 1));
+		});
+		try {
+			frontCoder.finish();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return frontCoder.termCount;
+	}
+
+	/**
+	 * Writes the ids of all terms in the order of their positions.
+	 */
+	private void writeIds(DataOutputStream out, SortedRunBuffer termIds,
+			int bitsPerId) throws IOException {
+		BitWriter bitWriter = new BitWriter(out);
+		termIds.merge((position, id) -> {
+			try {
+				bitWriter.write(Long.parseLong(id), bitsPerId);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		bitWriter.flush();
+	}
+
+	/**
+	 * Returns the hexadecimal representation of the given number with 16
+	 * digits, so that the representations sort like the numbers.
+	 */
+	static String toFixedHex(long number) {
+		String hex = Long.toHexString(number);
+		return "0000000000000000".substring(hex.length()) + hex;
+	}
+
+	static void writeVarLong(OutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	/**
+	 * Writes sorted terms into blocks of the front-coded dictionary. Repeated
+	 * terms are only counted once.
+	 */
+	static class FrontCoder {
+		final OutputStream out;
+		final ByteArrayBuilder block = new ByteArrayBuilder();
+		byte[] previous = null;
+		String previousTerm = null;
+		long termCount = 0;
+
+		FrontCoder(OutputStream out) {
+			this.out = out;
+		}
+
+		void add(String term) throws IOException {
+			if (term.equals(this.previousTerm)) {
+				return;
+			}
+			byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+			if (this.termCount % BLOCK_SIZE == 0) {
+				writeBlock();
+				writeVarLong(this.block, bytes.length);
+				this.block.write(bytes, 0, bytes.length);
+			} else {
+				int prefix = 0;
+				int maxPrefix = Math.min(bytes.length, this.previous.length);
+				while (prefix < maxPrefix && bytes[prefix] == this.previous[prefix]) {
+					prefix++;
+				}
+				writeVarLong(this.block, prefix);
+				writeVarLong(this.block, bytes.length - prefix);
+				this.block.write(bytes, prefix, bytes.length - prefix);
+			}
+			this.previous = bytes;
+			this.previousTerm = term;
+			this.termCount++;
+		}
+
+		void finish() throws IOException {
+			writeBlock();
+		}
+
+		private void writeBlock() throws IOException {
+			if (this.block.size() == 0) {
+				return;
+			}
+			writeVarLong(this.out, this.block.size());
+			this.block.writeTo(this.out);
+			this.block.reset();
+		}
+	}
+
+	/**
+	 * Byte array output stream whose methods do not declare exceptions.
+	 */
+	static class ByteArrayBuilder extends ByteArrayOutputStream {
+		@Override
+		public void write(byte[] b, int off, int len) {
+			super.write(b, off, len);
+		}
+	}
+
+	/**
+	 * Writes numbers with a fixed number of bits, most significant bits
+	 * first, without gaps between numbers.
+	 */
+	static class BitWriter {
+		final OutputStream out;
+		int current = 0;
+		int bitCount = 0;
+
+		BitWriter(OutputStream out) {
+			this.out = out;
+		}
+
+		void write(long value, int bits) throws IOException {
+			while (bits > 0) {
+				int length = Math.min(8 - this.bitCount, bits);
+				int chunk = (int) (value >>> (bits - length)) & ((1 << length) - 1);
+				this.current = (this.current << length) | chunk;
+				this.bitCount += length;
+				bits -= length;
+				if (this.bitCount == 8) {
+					this.out.write(this.current);
+					this.current = 0;
+					this.bitCount = 0;
+				}
+			}
+		}
+
+		/**
+		 * Writes the remaining bits, padded with zeros to a full byte.
+		 */
+		void flush() throws IOException {
+			if (this.bitCount > 0) {
+				this.out.write(this.current << (8 - this.bitCount));
+				this.current = 0;
+				this.bitCount = 0;
+			}
+		}
+	}
+}
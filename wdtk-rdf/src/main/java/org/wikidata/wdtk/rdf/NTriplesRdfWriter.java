@@ -0,0 +1,379 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.rdf4j.common.text.ASCIIUtil;
+import org.eclipse.rdf4j.common.text.StringUtil;
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.util.Literals;
+import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.ntriples.NTriplesUtil;
+
+/**
+ * {@link RdfWriter} that writes N-Triples directly to a byte buffer, without
+ * creating rdf4j statements. The output is the same as the one of the rdf4j
+ * N-Triples writer with its default settings. Strings are encoded directly
+ * when they do not need escaping, which is the usual case, and the encodings
+ * of the IRIs defined in {@link Vocabulary} are computed only once.
+ * <p>
+ * Namespace declarations are ignored, as in the rdf4j writer.
+ */
+public class NTriplesRdfWriter extends RdfWriter {
+
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Encodings of the IRIs defined in {@link Vocabulary}. They are looked up
+	 * by identity of their string, which is kept by the IRIs created from it.
+	 */
+	static final Map<String, byte[]> CONSTANT_IRIS = new IdentityHashMap<>();
+
+	/**
+	 * ASCII characters that are written as they are in literals. All other
+	 * characters are written as they are too.
+	 */
+	static final boolean[] LITERAL_SAFE = new boolean[128];
+
+	/**
+	 * Characters below 160 that are written as they are in IRIs. All other
+	 * characters are written as they are too.
+	 */
+	static final boolean[] IRI_SAFE = new boolean[160];
+
+	static {
+		StringBuilder escaped = new StringBuilder();
+		try {
+			for (char c = 0; c < IRI_SAFE.length; c++) {
+				String s = String.valueOf(c);
+				if (c < LITERAL_SAFE.length) {
+					escaped.setLength(0);
+					NTriplesUtil.escapeString(s, escaped, false);
+					LITERAL_SAFE[c] = s.contentEquals(escaped);
+				}
+				escaped.setLength(0);
+				StringUtil.simpleEscapeIRI(s, escaped, false);
+				IRI_SAFE[c] = s.contentEquals(escaped);
+			}
+		} catch (IOException e) { // cannot happen with a StringBuilder
+			throw new IllegalStateException(e);
+		}
+
+		for (Field field : Vocabulary.class.getFields()) {
+			if (Modifier.isStatic(field.getModifiers())
+					&& field.getType() == String.class) {
+				try {
+					String iri = (String) field.get(null);
+					CONSTANT_IRIS.put(iri, ("<" + iri + ">")
+							.getBytes(StandardCharsets.UTF_8));
+				} catch (IllegalAccessException e) { // public fields only
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+		CONSTANT_IRIS.keySet().removeIf(iri -> needsEscaping(iri, IRI_SAFE));
+	}
+
+	OutputStream output;
+	final byte[] buffer = new byte[BUFFER_SIZE];
+	int position = 0;
+	final StringBuilder escapeBuffer = new StringBuilder();
+
+	public NTriplesRdfWriter(OutputStream output) {
+		this.output = output;
+	}
+
+	@Override
+	public void start() throws RDFHandlerException {
+		this.tripleCount = 0;
+	}
+
+	@Override
+	void restart(OutputStream output) throws RDFHandlerException {
+		flushBuffer();
+		this.output = output;
+	}
+
+	@Override
+	public void finish() throws RDFHandlerException {
+		flushBuffer();
+		try {
+			this.output.flush();
+		} catch (IOException e) {
+			throw new RDFHandlerException(e);
+		}
+	}
+
+	@Override
+	public void writeNamespaceDeclaration(String prefix, String uri) {
+		// N-Triples has no namespaces
+	}
+
+	@Override
+	public void writeTripleUriObject(String subjectUri, IRI predicate,
+			String objectUri) throws RDFHandlerException {
+		checkIri(subjectUri);
+		checkIri(objectUri);
+		this.tripleCount++;
+		writeIri(subjectUri);
+		writeByte(' ');
+		writeIri(predicate.toString());
+		writeByte(' ');
+		writeIri(objectUri);
+		writeEndOfTriple();
+	}
+
+	@Override
+	public void writeTripleUriObject(Resource subject, IRI predicate,
+			String objectUri) throws RDFHandlerException {
+		checkIri(objectUri);
+		this.tripleCount++;
+		writeResource(subject);
+		writeByte(' ');
+		writeIri(predicate.toString());
+		writeByte(' ');
+		writeIri(objectUri);
+		writeEndOfTriple();
+	}
+
+	@Override
+	public void writeTripleValueObject(String subjectUri, IRI predicate,
+			Value object) throws RDFHandlerException {
+		checkIri(subjectUri);
+		this.tripleCount++;
+		writeIri(subjectUri);
+		writeByte(' ');
+		writeIri(predicate.toString());
+		writeByte(' ');
+		writeValue(object);
+		writeEndOfTriple();
+	}
+
+	@Override
+	protected void writeStatement(Resource subject, IRI predicate, Value object)
+			throws RDFHandlerException {
+		writeResource(subject);
+		writeByte(' ');
+		writeIri(predicate.toString());
+		writeByte(' ');
+		writeValue(object);
+		writeEndOfTriple();
+	}
+
+	/**
+	 * Performs the same check as rdf4j when an IRI is created from a string.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the string is not a valid absolute IRI
+	 */
+	private static void checkIri(String iri) {
+		if (iri.indexOf(':') < 0) {
+			throw new IllegalArgumentException("Not a valid (absolute) IRI: "
+					+ iri);
+		}
+	}
+
+	private void writeEndOfTriple() {
+		writeByte(' ');
+		writeByte('.');
+		writeByte('\n');
+	}
+
+	private void writeResource(Resource resource) {
+		if (resource instanceof IRI) {
+			writeIri(resource.toString());
+		} else {
+			writeValue(resource);
+		}
+	}
+
+	private void writeValue(Value value) {
+		if (value instanceof IRI) {
+			writeIri(value.toString());
+		} else if (value instanceof Literal) {
+			writeLiteral((Literal) value);
+		} else if (value instanceof BNode) {
+			writeBNode((BNode) value);
+		} else {
+			throw new IllegalArgumentException("Unknown value type: "
+					+ value.getClass());
+		}
+	}
+
+	private void writeIri(String iri) {
+		byte[] constant = CONSTANT_IRIS.get(iri);
+		if (constant != null) {
+			writeBytes(constant);
+			return;
+		}
+		writeByte('<');
+		if (needsEscaping(iri, IRI_SAFE)) {
+			this.escapeBuffer.setLength(0);
+			try {
+				StringUtil.simpleEscapeIRI(iri, this.escapeBuffer, false);
+			} catch (IOException e) { // cannot happen with a StringBuilder
+				throw new IllegalStateException(e);
+			}
+			writeUtf8(this.escapeBuffer);
+		} else {
+			writeUtf8(iri);
+		}
+		writeByte('>');
+	}
+
+	private void writeLiteral(Literal literal) {
+		writeByte('"');
+		String label = literal.getLabel();
+		if (needsEscaping(label, LITERAL_SAFE)) {
+			this.escapeBuffer.setLength(0);
+			try {
+				NTriplesUtil.escapeString(label, this.escapeBuffer, false);
+			} catch (IOException e) { // cannot happen with a StringBuilder
+				throw new IllegalStateException(e);
+			}
+			writeUtf8(this.escapeBuffer);
+		} else {
+			writeUtf8(label);
+		}
+		writeByte('"');
+		if (Literals.isLanguageLiteral(literal)) {
+			writeByte('@');
+			writeUtf8(literal.getLanguage().get());
+		} else if (!XMLSchema.STRING.equals(literal.getDatatype())) {
+			writeByte('^');
+			writeByte('^');
+			writeIri(literal.getDatatype().toString());
+		}
+	}
+
+	/**
+	 * Writes a blank node like the rdf4j writer, which replaces characters
+	 * that are not allowed in blank node labels.
+	 */
+	private void writeBNode(BNode bNode) {
+		String id = bNode.getID();
+		writeByte('_');
+		writeByte(':');
+		if (id.isEmpty()) {
+			writeUtf8("genid" + Integer.toHexString(bNode.hashCode()));
+			return;
+		}
+		if (!ASCIIUtil.isLetter(id.charAt(0))) {
+			writeUtf8("genid" + Integer.toHexString(id.charAt(0)));
+		}
+		for (int i = 0; i < id.length(); i++) {
+			char c = id.charAt(i);
+			if (ASCIIUtil.isLetterOrNumber(c)) {
+				writeByte(c);
+			} else {
+				writeUtf8(Integer.toHexString(c));
+			}
+		}
+	}
+
+	/**
+	 * Checks if a string contains characters that have to be escaped.
+	 *
+	 * @param s
+	 *            the string to check
+	 * @param safe
+	 *            the characters that do not need escaping, all characters
+	 *            beyond this table do not need escaping either
+	 */
+	static boolean needsEscaping(String s, boolean[] safe) {
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < safe.length && !safe[c]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes characters in UTF-8. Unpaired surrogates are replaced by "?",
+	 * like the Java encoder used by rdf4j does.
+	 */
+	private void writeUtf8(CharSequence s) {
+		int length = s.length();
+		for (int i = 0; i < length; i++) {
+			if (this.position + 4 > this.buffer.length) {
+				flushBuffer();
+			}
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				this.buffer[this.position++] = (byte) c;
+			} else if (c < 0x800) {
+				this.buffer[this.position++] = (byte) (0xc0 | (c >> 6));
+				this.buffer[this.position++] = (byte) (0x80 | (c & 0x3f));
+			} else if (!Character.isSurrogate(c)) {
+				this.buffer[this.position++] = (byte) (0xe0 | (c >> 12));
+				this.buffer[this.position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				this.buffer[this.position++] = (byte) (0x80 | (c & 0x3f));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(s.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, s.charAt(++i));
+				this.buffer[this.position++] = (byte) (0xf0 | (codePoint >> 18));
+				this.buffer[this.position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+				this.buffer[this.position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+				this.buffer[this.position++] = (byte) (0x80 | (codePoint & 0x3f));
+			} else {
+				this.buffer[this.position++] = '?';
+			}
+		}
+	}
+
+	private void writeByte(int b) {
+		if (this.position == this.buffer.length) {
+			flushBuffer();
+		}
+		this.buffer[this.position++] = (byte) b;
+	}
+
+	private void writeBytes(byte[] bytes) {
+		if (this.position + bytes.length > this.buffer.length) {
+			flushBuffer();
+		}
+		System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+		this.position += bytes.length;
+	}
+
+	private void flushBuffer() {
+		try {
+			this.output.write(this.buffer, 0, this.position);
+		} catch (IOException e) {
+			throw new RDFHandlerException(e);
+		}
+		this.position = 0;
+	}
+}
@@ -28,6 +28,7 @@ import java.util.Set;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 
@@ -37,6 +38,12 @@ import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
  * are ordered by subject, (2) to avoid some duplicate triples for things that
  * are needed in many places. Due to memory constraints, this class does not
  * provide perfect duplicate elimination.
+ * <p>
+ * When spilling to disk is enabled, property declarations are not kept in
+ * memory but written to a {@link SortedRunBuffer}. They are then only written
+ * by {@link #writeSpilledPropertyDeclarations(RdfWriter, boolean, boolean)},
+ * at the end of the export, without duplicates. The buffer also tells value
+ * converters whether they should spill their auxiliary triples.
  *
  * @author Markus Kroetzsch
  *
@@ -52,6 +59,45 @@ public class OwlDeclarationBuffer {
 	final List<EntityIdValue> classEntityQueue = new ArrayList<>();
 	final Set<EntityIdValue> declaredClassEntities = new HashSet<>();
 
+	/**
+	 * Property declarations that have been spilled to disk, or null if
+	 * spilling is disabled. The keys are IRIs of properties, and the payloads
+	 * are the kind of declaration followed by the property id, if any.
+	 */
+	SortedRunBuffer spilledDeclarations = null;
+
+	static final char OBJECT_PROPERTY = 'o';
+	static final char DATATYPE_PROPERTY = 'd';
+	static final char OBJECT_PROPERTY_ID = 'O';
+	static final char DATATYPE_PROPERTY_ID = 'D';
+
+	/**
+	 * Sets whether declarations and auxiliary triples should be spilled to
+	 * disk and only be written at the end of the export. Disabling spilling
+	 * discards the declarations that have been spilled so far.
+	 *
+	 * @param spillToDisk
+	 *            true if buffers should be spilled to disk
+	 */
+	public void setSpillToDisk(boolean spillToDisk) {
+		if (spillToDisk && this.spilledDeclarations == null) {
+			this.spilledDeclarations = new SortedRunBuffer(
+					SortedRunBuffer.DEFAULT_RUN_SIZE);
+		} else if (!spillToDisk && this.spilledDeclarations != null) {
+			this.spilledDeclarations.close();
+			this.spilledDeclarations = null;
+		}
+	}
+
+	/**
+	 * Returns true if declarations and auxiliary triples are spilled to disk.
+	 *
+	 * @return true if spilling is enabled
+	 */
+	public boolean isSpillingToDisk() {
+		return this.spilledDeclarations != null;
+	}
+
 	/**
 	 * Adds the given property id value to the list of properties that should be
 	 * declared as OWL object properties.
@@ -60,7 +106,10 @@ public class OwlDeclarationBuffer {
 	 *            the property to declare
 	 */
 	public void addObjectProperty(PropertyIdValue propertyIdValue) {
-		if (!this.declaredProperties.contains(propertyIdValue)) {
+		if (this.spilledDeclarations != null) {
+			this.spilledDeclarations.add(propertyIdValue.getIri(),
+					OBJECT_PROPERTY_ID + propertyIdValue.getId());
+		} else if (!this.declaredProperties.contains(propertyIdValue)) {
 			this.objectPropertyQueue.add(propertyIdValue);
 		}
 	}
@@ -73,7 +122,10 @@ public class OwlDeclarationBuffer {
 	 *            the property to declare
 	 */
 	public void addObjectProperty(IRI propertyUri) {
-		if (!this.declaredPropertyUris.contains(propertyUri)) {
+		if (this.spilledDeclarations != null) {
+			this.spilledDeclarations.add(propertyUri.toString(),
+					String.valueOf(OBJECT_PROPERTY));
+		} else if (!this.declaredPropertyUris.contains(propertyUri)) {
 			this.objectPropertyUriQueue.add(propertyUri);
 		}
 	}
@@ -86,7 +138,10 @@ public class OwlDeclarationBuffer {
 	 *            the property to declare
 	 */
 	public void addDatatypeProperty(PropertyIdValue propertyIdValue) {
-		if (!this.declaredProperties.contains(propertyIdValue)) {
+		if (this.spilledDeclarations != null) {
+			this.spilledDeclarations.add(propertyIdValue.getIri(),
+					DATATYPE_PROPERTY_ID + propertyIdValue.getId());
+		} else if (!this.declaredProperties.contains(propertyIdValue)) {
 			this.datatypePropertyQueue.add(propertyIdValue);
 		}
 	}
@@ -99,7 +154,10 @@ public class OwlDeclarationBuffer {
 	 *            the property to declare
 	 */
 	public void addDatatypeProperty(IRI propertyUri) {
-		if (!this.declaredPropertyUris.contains(propertyUri)) {
+		if (this.spilledDeclarations != null) {
+			this.spilledDeclarations.add(propertyUri.toString(),
+					String.valueOf(DATATYPE_PROPERTY));
+		} else if (!this.declaredPropertyUris.contains(propertyUri)) {
 			this.datatypePropertyUriQueue.add(propertyUri);
 		}
 	}
@@ -117,6 +175,43 @@ public class OwlDeclarationBuffer {
 		}
 	}
 
+	/**
+	 * Moves the declarations of properties that have been added recently to
+	 * another buffer, instead of writing them. Moved properties are stored as
+	 * if they had been declared, so each of them is moved at most once. This
+	 * is used to collect the declarations of several converters running in
+	 * parallel, so that they can be written once at the end.
+	 *
+	 * @param target
+	 *            the buffer to add the declarations to
+	 */
+	public void transferPropertyDeclarations(OwlDeclarationBuffer target) {
+		for (PropertyIdValue propertyIdValue : this.objectPropertyQueue) {
+			if (this.declaredProperties.add(propertyIdValue)) {
+				target.addObjectProperty(propertyIdValue);
+			}
+		}
+		this.objectPropertyQueue.clear();
+		for (PropertyIdValue propertyIdValue : this.datatypePropertyQueue) {
+			if (this.declaredProperties.add(propertyIdValue)) {
+				target.addDatatypeProperty(propertyIdValue);
+			}
+		}
+		this.datatypePropertyQueue.clear();
+		for (IRI propertyUri : this.objectPropertyUriQueue) {
+			if (this.declaredPropertyUris.add(propertyUri)) {
+				target.addObjectProperty(propertyUri);
+			}
+		}
+		this.objectPropertyUriQueue.clear();
+		for (IRI propertyUri : this.datatypePropertyUriQueue) {
+			if (this.declaredPropertyUris.add(propertyUri)) {
+				target.addDatatypeProperty(propertyUri);
+			}
+		}
+		this.datatypePropertyUriQueue.clear();
+	}
+
 	/**
 	 * Writes OWL declarations for properties that have been added recently.
 	 * Declared properties are stored so that duplicate declarations are
@@ -136,107 +231,164 @@ public class OwlDeclarationBuffer {
 	public void writePropertyDeclarations(RdfWriter rdfWriter,
 			boolean fullStatements, boolean simpleClaims)
 			throws RDFHandlerException {
-		boolean anyStatements = fullStatements || simpleClaims;
 		for (PropertyIdValue propertyIdValue : this.objectPropertyQueue) {
-			if (!this.declaredProperties.add(propertyIdValue)) {
-				continue;
-			}
-			if (anyStatements) {
-				writeNoValueRestriction(rdfWriter, propertyIdValue.getIri(),
-						Vocabulary.OWL_THING, Vocabulary.getPropertyUri(
-								propertyIdValue, PropertyContext.NO_VALUE));
-			}
-			if (fullStatements) {
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.STATEMENT),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.VALUE_SIMPLE),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.VALUE),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.QUALIFIER),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.REFERENCE),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.QUALIFIER_SIMPLE),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.REFERENCE_SIMPLE),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
-			}
-			if (simpleClaims) {
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.DIRECT),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
+			if (this.declaredProperties.add(propertyIdValue)) {
+				writeObjectPropertyDeclaration(rdfWriter, propertyIdValue,
+						fullStatements, simpleClaims);
 			}
 		}
 		this.objectPropertyQueue.clear();
 
 		for (PropertyIdValue propertyIdValue : this.datatypePropertyQueue) {
-			if (!this.declaredProperties.add(propertyIdValue)) {
-				continue;
+			if (this.declaredProperties.add(propertyIdValue)) {
+				writeDatatypePropertyDeclaration(rdfWriter, propertyIdValue,
+						fullStatements, simpleClaims);
 			}
-			if (anyStatements) {
-				writeNoValueRestriction(rdfWriter, propertyIdValue.getIri(),
-						Vocabulary.XSD_STRING, Vocabulary.getPropertyUri(
-								propertyIdValue, PropertyContext.NO_VALUE));
-			}
-			if (fullStatements) {
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.STATEMENT),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.VALUE),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.QUALIFIER),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.REFERENCE),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.VALUE_SIMPLE),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.QUALIFIER_SIMPLE),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.REFERENCE_SIMPLE),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
-
-			}
-			if (simpleClaims) {
-				rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
-						propertyIdValue, PropertyContext.DIRECT),
-						RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
-			}
-
 		}
 		this.datatypePropertyQueue.clear();
 
 		for (IRI propertyUri : this.objectPropertyUriQueue) {
-			if (!this.declaredPropertyUris.add(propertyUri)) {
-				continue;
+			if (this.declaredPropertyUris.add(propertyUri)) {
+				rdfWriter.writeTripleValueObject(propertyUri,
+						RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
 			}
-			rdfWriter.writeTripleValueObject(propertyUri, RdfWriter.RDF_TYPE,
-					RdfWriter.OWL_OBJECT_PROPERTY);
 		}
 		this.objectPropertyUriQueue.clear();
 
 		for (IRI propertyUri : this.datatypePropertyUriQueue) {
-			if (!this.declaredPropertyUris.add(propertyUri)) {
-				continue;
+			if (this.declaredPropertyUris.add(propertyUri)) {
+				rdfWriter.writeTripleValueObject(propertyUri,
+						RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
 			}
-			rdfWriter.writeTripleValueObject(propertyUri, RdfWriter.RDF_TYPE,
-					RdfWriter.OWL_DATATYPE_PROPERTY);
 		}
 		this.datatypePropertyUriQueue.clear();
+	}
 
+	/**
+	 * Writes the OWL declarations for properties that have been spilled to
+	 * disk, sorted by IRI and without duplicates. Nothing is written if
+	 * spilling is disabled.
+	 *
+	 * @param rdfWriter
+	 *            the writer to write the declarations to
+	 * @param fullStatements
+	 *            if true, then properties need to export full statements (with
+	 *            qualifiers and references) will be declared
+	 * @param simpleClaims
+	 *            if true, then properties to export simple claims (flat
+	 *            triples) will be declared
+	 * @throws RDFHandlerException
+	 *             if there was a problem writing the declarations
+	 */
+	public void writeSpilledPropertyDeclarations(RdfWriter rdfWriter,
+			boolean fullStatements, boolean simpleClaims)
+			throws RDFHandlerException {
+		if (this.spilledDeclarations == null) {
+			return;
+		}
+		this.spilledDeclarations.merge((iri, declaration) -> {
+			char kind = declaration.charAt(0);
+			if (kind == OBJECT_PROPERTY) {
+				rdfWriter.writeTripleValueObject(iri, RdfWriter.RDF_TYPE,
+						RdfWriter.OWL_OBJECT_PROPERTY);
+			} else if (kind == DATATYPE_PROPERTY) {
+				rdfWriter.writeTripleValueObject(iri, RdfWriter.RDF_TYPE,
+						RdfWriter.OWL_DATATYPE_PROPERTY);
+			} else {
+				String id = declaration.substring(1);
+				PropertyIdValue propertyIdValue = Datamodel.makePropertyIdValue(
+						id, iri.substring(0, iri.length() - id.length()));
+				if (kind == OBJECT_PROPERTY_ID) {
+					writeObjectPropertyDeclaration(rdfWriter, propertyIdValue,
+							fullStatements, simpleClaims);
+				} else {
+					writeDatatypePropertyDeclaration(rdfWriter,
+							propertyIdValue, fullStatements, simpleClaims);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Writes the OWL declarations of a property whose values are resources.
+	 */
+	void writeObjectPropertyDeclaration(RdfWriter rdfWriter,
+			PropertyIdValue propertyIdValue, boolean fullStatements,
+			boolean simpleClaims) throws RDFHandlerException {
+		if (fullStatements || simpleClaims) {
+			writeNoValueRestriction(rdfWriter, propertyIdValue.getIri(),
+					Vocabulary.OWL_THING, Vocabulary.getPropertyUri(
+							propertyIdValue, PropertyContext.NO_VALUE));
+		}
+		if (fullStatements) {
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.STATEMENT),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.VALUE_SIMPLE),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.VALUE),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.QUALIFIER),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.REFERENCE),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.QUALIFIER_SIMPLE),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.REFERENCE_SIMPLE),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
+		}
+		if (simpleClaims) {
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.DIRECT),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
+		}
+	}
+
+	/**
+	 * Writes the OWL declarations of a property whose values are literals.
+	 */
+	void writeDatatypePropertyDeclaration(RdfWriter rdfWriter,
+			PropertyIdValue propertyIdValue, boolean fullStatements,
+			boolean simpleClaims) throws RDFHandlerException {
+		if (fullStatements || simpleClaims) {
+			writeNoValueRestriction(rdfWriter, propertyIdValue.getIri(),
+					Vocabulary.XSD_STRING, Vocabulary.getPropertyUri(
+							propertyIdValue, PropertyContext.NO_VALUE));
+		}
+		if (fullStatements) {
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.STATEMENT),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_OBJECT_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.VALUE),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.QUALIFIER),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.REFERENCE),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.VALUE_SIMPLE),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.QUALIFIER_SIMPLE),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.REFERENCE_SIMPLE),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
+		}
+		if (simpleClaims) {
+			rdfWriter.writeTripleValueObject(Vocabulary.getPropertyUri(
+					propertyIdValue, PropertyContext.DIRECT),
+					RdfWriter.RDF_TYPE, RdfWriter.OWL_DATATYPE_PROPERTY);
+		}
 	}
 
 	/**
@@ -0,0 +1,496 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFWriter;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.helpers.BasicWriterSettings;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentDumpProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.Sites;
+
+/**
+ * RDF serializer that converts entity documents on several threads. It
+ * produces the same triples as {@link RdfSerializer}, but the OWL
+ * declarations of properties are merged and written once at the end of the
+ * output, rather than after the first document that uses them.
+ * <p>
+ * Documents are collected in batches. Each batch is serialized by a worker
+ * with its own {@link RdfConverter} and {@link RdfWriter} into a byte buffer,
+ * and the buffers are written to the output on the thread that provides the
+ * documents. By default, the buffers are written in the order of the
+ * documents, so that the output does not depend on the number of threads
+ * (except for the names of blank nodes). If the order does not matter, as is
+ * often the case for N-Triples, buffers can be written as soon as they are
+ * ready.
+ * <p>
+ * Only formats whose documents can be concatenated after removing the prefix
+ * declarations are supported, i.e., N-Triples and Turtle. The
+ * {@link PropertyRegister} is shared by all workers.
+ */
+public class ParallelRdfSerializer implements EntityDocumentDumpProcessor {
+
+	/**
+	 * Number of documents that are serialized together if no other batch size
+	 * is set.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	/**
+	 * IRI of the triple used to find out which prefix declarations the writer
+	 * puts at the beginning of every buffer. It does not belong to any
+	 * namespace, so it is never abbreviated.
+	 */
+	static final String PROBE_IRI = "urn:x-wdtk:probe";
+
+	final RDFFormat format;
+	final OutputStream output;
+	final Sites sites;
+	final PropertyRegister propertyRegister;
+	final int threadCount;
+
+	/**
+	 * Writer and converter for the parts of the output that are written on
+	 * the calling thread.
+	 */
+	final RdfWriter rdfWriter;
+	final RdfConverter rdfConverter;
+
+	int tasks = RdfSerializer.TASK_ALL_ENTITIES
+			| RdfSerializer.TASK_ALL_EXACT_DATA;
+	int batchSize = DEFAULT_BATCH_SIZE;
+	boolean ordered = true;
+
+	/**
+	 * Prefix declarations written at the beginning of every buffer, which are
+	 * removed before the buffer is appended to the output.
+	 */
+	byte[] header;
+
+	ExecutorService executor;
+	final List<Worker> workers = new ArrayList<>();
+	BlockingQueue<Worker> idleWorkers;
+	List<EntityDocument> batch = new ArrayList<>();
+
+	/**
+	 * Serializations of batches that have not been written yet, in the order
+	 * of the batches. Only used for ordered output.
+	 */
+	final ArrayDeque<Future<byte[]>> pendingParts = new ArrayDeque<>();
+	/**
+	 * Serializations of batches in the order in which they are finished. Only
+	 * used for unordered output.
+	 */
+	CompletionService<byte[]> finishedParts;
+	int pendingPartCount = 0;
+
+	/**
+	 * Converts batches of documents on one thread at a time. Each worker has
+	 * its own converter, and thus its own buffers for OWL declarations,
+	 * references and values.
+	 */
+	class Worker {
+
+		final RdfWriter workerWriter;
+		final RdfConverter workerConverter;
+		/**
+		 * OWL declarations that are needed by the documents of this worker, to
+		 * be written at the end of the export.
+		 */
+		final OwlDeclarationBuffer declarations = new OwlDeclarationBuffer();
+
+		Worker() {
+			this.workerWriter = createRdfWriter(format, new ByteArrayOutputStream());
+			this.workerConverter = new RdfConverter(this.workerWriter, sites,
+					propertyRegister) {
+				@Override
+				public void writeOWLDeclarations() {
+					this.owlDeclarationBuffer
+							.transferPropertyDeclarations(declarations);
+				}
+			};
+			this.workerConverter.setTasks(tasks);
+		}
+
+		byte[] serialize(List<EntityDocument> documents)
+				throws RDFHandlerException {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			this.workerWriter.restart(buffer);
+			this.workerConverter.writeNamespaceDeclarations();
+			for (EntityDocument document : documents) {
+				if (document instanceof ItemDocument) {
+					this.workerConverter
+							.writeItemDocument((ItemDocument) document);
+				} else if (document instanceof PropertyDocument) {
+					this.workerConverter
+							.writePropertyDocument((PropertyDocument) document);
+				}
+			}
+			this.workerWriter.finish();
+			return buffer.toByteArray();
+		}
+	}
+
+	/**
+	 * Creates a new parallel RDF serializer for the specified format and
+	 * output stream.
+	 *
+	 * @param format
+	 *            RDF format, either RDFFormat.NTRIPLES or RDFFormat.TURTLE
+	 * @param output
+	 *            the output stream to write to
+	 * @param sites
+	 *            information about site links
+	 * @param propertyRegister
+	 *            the register of property datatypes, shared by all threads
+	 * @param threadCount
+	 *            the number of threads that convert documents
+	 * @throws IllegalArgumentException
+	 *             if the format is not supported
+	 */
+	public ParallelRdfSerializer(RDFFormat format, OutputStream output,
+			Sites sites, PropertyRegister propertyRegister, int threadCount) {
+		if (!RDFFormat.NTRIPLES.equals(format)
+				&& !RDFFormat.TURTLE.equals(format)) {
+			throw new IllegalArgumentException("Format " + format.getName()
+					+ " is not supported for parallel serialization");
+		}
+		if (threadCount < 1) {
+			throw new IllegalArgumentException(
+					"At least one thread is needed");
+		}
+		this.format = format;
+		this.output = output;
+		this.sites = sites;
+		this.propertyRegister = propertyRegister;
+		this.threadCount = threadCount;
+		this.rdfWriter = createRdfWriter(format, output);
+		if (!this.rdfWriter.supportsRestart()) {
+			throw new IllegalArgumentException("Format " + format.getName()
+					+ " cannot be written in parts");
+		}
+		this.rdfConverter = new RdfConverter(this.rdfWriter, sites,
+				propertyRegister);
+	}
+
+	/**
+	 * Sets the tasks that should be performed during export. The value should
+	 * be a combination of flags such as {@link RdfSerializer#TASK_STATEMENTS}.
+	 * This must be called before {@link #open()}. Spilling buffers to disk
+	 * ({@link RdfSerializer#TASK_SPILL_TO_DISK}) is not supported, since the
+	 * buffers of the workers are separate, and is ignored.
+	 *
+	 * @param tasks
+	 *            the tasks to be performed
+	 */
+	public void setTasks(int tasks) {
+		this.tasks = tasks & ~RdfSerializer.TASK_SPILL_TO_DISK;
+		this.rdfConverter.setTasks(this.tasks);
+	}
+
+	/**
+	 * Returns the tasks that should be performed during export.
+	 *
+	 * @return tasks to be performed
+	 */
+	public int getTasks() {
+		return this.tasks;
+	}
+
+	/**
+	 * Sets the number of documents that are serialized together by one
+	 * thread. This must be called before {@link #open()}.
+	 *
+	 * @param batchSize
+	 *            the number of documents per batch
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Sets whether the output should keep the order of the documents. If
+	 * not, the serializations of batches are written as soon as they are
+	 * finished. This must be called before {@link #open()}.
+	 *
+	 * @param ordered
+	 *            false if the order of the output does not matter
+	 */
+	public void setOrderedOutput(boolean ordered) {
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Returns the number of triples that have been written so far. The count
+	 * is only exact after {@link #close()}.
+	 *
+	 * @return number of triples
+	 */
+	public long getTripleCount() {
+		long result = this.rdfWriter.getTripleCount();
+		for (Worker worker : this.workers) {
+			result += worker.workerWriter.getTripleCount();
+		}
+		return result;
+	}
+
+	@Override
+	public void open() {
+		this.header = findHeader();
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(this.threadCount, runnable -> {
+			Thread thread = new Thread(runnable, "rdf-worker-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+		if (!this.ordered) {
+			this.finishedParts = new ExecutorCompletionService<>(this.executor);
+		}
+		this.idleWorkers = new ArrayBlockingQueue<>(this.threadCount);
+		for (int i = 0; i < this.threadCount; i++) {
+			Worker worker = new Worker();
+			this.workers.add(worker);
+			this.idleWorkers.add(worker);
+		}
+		this.batch = new ArrayList<>(this.batchSize);
+
+		try {
+			this.rdfWriter.start();
+			this.rdfConverter.writeNamespaceDeclarations();
+			this.rdfConverter.writeBasicDeclarations();
+			this.rdfWriter.finish();
+		} catch (RDFHandlerException e) { // we cannot recover here
+			throw new RuntimeException(e.toString(), e);
+		}
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		addDocument(itemDocument);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		addDocument(propertyDocument);
+	}
+
+	@Override
+	public void close() {
+		try {
+			submitBatch();
+			writeFinishedParts(0);
+		} finally {
+			// also stops the threads and drops the queued batches on failure
+			this.executor.shutdownNow();
+		}
+
+		for (Worker worker : this.workers) {
+			worker.declarations.transferPropertyDeclarations(
+					this.rdfConverter.owlDeclarationBuffer);
+		}
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try {
+			this.rdfWriter.restart(buffer);
+			this.rdfConverter.writeNamespaceDeclarations();
+			this.rdfConverter.writeOWLDeclarations();
+			this.rdfWriter.finish();
+		} catch (RDFHandlerException e) { // we cannot recover here
+			throw new RuntimeException(e.toString(), e);
+		}
+		try {
+			writePart(buffer.toByteArray());
+			this.output.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString(), e);
+		}
+	}
+
+	private void addDocument(EntityDocument document) {
+		this.batch.add(document);
+		if (this.batch.size() >= this.batchSize) {
+			submitBatch();
+			// keep enough batches in the queue to keep all threads busy
+			writeFinishedParts(2 * this.threadCount);
+		}
+	}
+
+	/**
+	 * Hands the current batch of documents over to the next free worker.
+	 */
+	private void submitBatch() {
+		if (this.batch.isEmpty()) {
+			return;
+		}
+		List<EntityDocument> documents = this.batch;
+		this.batch = new ArrayList<>(this.batchSize);
+		Callable<byte[]> task = () -> {
+			Worker worker = this.idleWorkers.take();
+			try {
+				return worker.serialize(documents);
+			} finally {
+				this.idleWorkers.put(worker);
+			}
+		};
+		if (this.ordered) {
+			this.pendingParts.add(this.executor.submit(task));
+		} else {
+			this.finishedParts.submit(task);
+		}
+		this.pendingPartCount++;
+	}
+
+	/**
+	 * Writes the serializations of batches that are finished, and waits for
+	 * further batches until at most the given number of batches is pending.
+	 *
+	 * @param maxPending
+	 *            the number of batches that may still be pending afterwards
+	 */
+	private void writeFinishedParts(int maxPending) {
+		try {
+			if (this.ordered) {
+				while (!this.pendingParts.isEmpty()
+						&& (this.pendingPartCount > maxPending
+								|| this.pendingParts.peek().isDone())) {
+					writePart(this.pendingParts.poll().get());
+					this.pendingPartCount--;
+				}
+			} else {
+				while (this.pendingPartCount > maxPending) {
+					writePart(this.finishedParts.take().get());
+					this.pendingPartCount--;
+				}
+				Future<byte[]> part;
+				while ((part = this.finishedParts.poll()) != null) {
+					writePart(part.get());
+					this.pendingPartCount--;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e.toString(), e);
+		} catch (ExecutionException e) { // we cannot recover here
+			this.executor.shutdownNow();
+			throw new RuntimeException(e.getCause().toString(), e.getCause());
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString(), e);
+		}
+	}
+
+	/**
+	 * Appends a serialized batch to the output, without the prefix
+	 * declarations at its beginning.
+	 *
+	 * @param part
+	 *            the serialization of the batch
+	 * @throws IOException
+	 *             if the output could not be written
+	 */
+	private void writePart(byte[] part) throws IOException {
+		if (part.length == 0) {
+			return;
+		}
+		if (part.length < this.header.length || !Arrays.equals(this.header,
+				Arrays.copyOf(part, this.header.length))) {
+			throw new IllegalStateException(
+					"Unexpected prefix declarations in serialized batch");
+		}
+		this.output.write(part, this.header.length,
+				part.length - this.header.length);
+	}
+
+	/**
+	 * Creates a writer for the given format. N-Triples are written directly
+	 * by {@link NTriplesRdfWriter}. For Turtle, pretty printing is disabled,
+	 * since it would only declare the prefixes that are used in each batch and
+	 * the batches could then not be concatenated.
+	 *
+	 * @param format
+	 *            the RDF format to write
+	 * @param output
+	 *            the stream to write to
+	 * @return the writer
+	 */
+	static RdfWriter createRdfWriter(RDFFormat format, OutputStream output) {
+		if (RDFFormat.NTRIPLES.equals(format)) {
+			return new NTriplesRdfWriter(output);
+		}
+		RDFWriter writer = Rio.createWriter(format, output);
+		writer.getWriterConfig().set(BasicWriterSettings.PRETTY_PRINT, false);
+		return new RdfWriter(writer);
+	}
+
+	/**
+	 * Finds the prefix declarations that the writer puts at the beginning of
+	 * every buffer, by serializing a single triple.
+	 *
+	 * @return the bytes written before the first triple
+	 */
+	private byte[] findHeader() {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		RdfWriter probeWriter = createRdfWriter(this.format, buffer);
+		try {
+			probeWriter.start();
+			new RdfConverter(probeWriter, this.sites, this.propertyRegister)
+					.writeNamespaceDeclarations();
+			probeWriter.writeTripleUriObject(PROBE_IRI, RdfWriter.RDF_TYPE,
+					PROBE_IRI);
+			probeWriter.finish();
+		} catch (RDFHandlerException e) { // we cannot recover here
+			throw new RuntimeException(e.toString(), e);
+		}
+		byte[] probe = buffer.toByteArray();
+		byte[] marker = ("<" + PROBE_IRI + ">")
+				.getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i + marker.length <= probe.length; i++) {
+			if (Arrays.equals(marker, Arrays.copyOfRange(probe, i, i + marker.length))) {
+				return Arrays.copyOf(probe, i);
+			}
+		}
+		throw new IllegalStateException("Could not find the prefix declarations of format " + this.format.getName());
+	}
+}
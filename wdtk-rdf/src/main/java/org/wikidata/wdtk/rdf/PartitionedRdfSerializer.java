@@ -0,0 +1,478 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelFilter;
+import org.wikidata.wdtk.datamodel.implementation.DataObjectFactoryImpl;
+import org.wikidata.wdtk.datamodel.interfaces.DocumentDataFilter;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentDumpProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Sites;
+import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.util.ParallelCompressorOutputStream;
+
+/**
+ * RDF serializer that splits the export into several partitions, each of
+ * which is written to its own output by its own thread. A partition can be
+ * restricted to some export tasks (such as
+ * {@link RdfSerializer#TASK_SITELINKS}), to a range of entity ids and to the
+ * statements of some properties, so that, for instance, site links, labels and
+ * statements can be loaded separately, or only the partitions that changed
+ * have to be loaded again.
+ * <p>
+ * Every partition has an {@link RdfSerializer} of its own, which is given all
+ * documents that belong to the partition. Each partition therefore starts
+ * with the namespace and basic declarations, and contains the OWL
+ * declarations of the properties it uses. Partitions may overlap; documents
+ * that do not belong to any partition are not exported. The
+ * {@link PropertyRegister} is shared by all partitions.
+ */
+public class PartitionedRdfSerializer implements EntityDocumentDumpProcessor {
+
+	static final Logger logger = LoggerFactory
+			.getLogger(PartitionedRdfSerializer.class);
+
+	/**
+	 * Number of documents that are handed over to the partitions together.
+	 */
+	static final int BATCH_SIZE = 100;
+
+	/**
+	 * Number of batches that may be waiting for each partition.
+	 */
+	static final int QUEUE_SIZE = 16;
+
+	final RDFFormat format;
+	final Sites sites;
+	final PropertyRegister propertyRegister;
+
+	final List<Partition> partitions = new ArrayList<>();
+	List<EntityDocument> batch = new ArrayList<>(BATCH_SIZE);
+	boolean open = false;
+
+	/**
+	 * One part of the export, written to its own output.
+	 */
+	public class Partition implements Runnable {
+
+		final String name;
+		final RdfSerializer rdfSerializer;
+		final BlockingQueue<List<EntityDocument>> batches = new ArrayBlockingQueue<>(
+				QUEUE_SIZE);
+
+		long firstId = 0;
+		long lastId = Long.MAX_VALUE;
+		DatamodelFilter propertyFilter = null;
+
+		Thread thread;
+		volatile Throwable failure = null;
+
+		Partition(String name, OutputStream output) {
+			this.name = name;
+			this.rdfSerializer = new RdfSerializer(format, output, sites,
+					propertyRegister);
+		}
+
+		/**
+		 * Returns the name of this partition.
+		 *
+		 * @return name of the partition
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Sets the tasks that should be performed for this partition, as for
+		 * {@link RdfSerializer#setTasks(int)}. The tasks must include
+		 * {@link RdfSerializer#TASK_ITEMS} or
+		 * {@link RdfSerializer#TASK_PROPERTIES} for any documents to be
+		 * written.
+		 *
+		 * @param tasks
+		 *            the tasks to be performed
+		 * @return this partition
+		 */
+		public Partition setTasks(int tasks) {
+			this.rdfSerializer.setTasks(tasks);
+			return this;
+		}
+
+		/**
+		 * Returns the tasks that are performed for this partition.
+		 *
+		 * @return tasks to be performed
+		 */
+		public int getTasks() {
+			return this.rdfSerializer.getTasks();
+		}
+
+		/**
+		 * Restricts this partition to entities whose numeric id is in the
+		 * given range, such as 1 to 999999 for the items Q1 to Q999999.
+		 *
+		 * @param firstId
+		 *            the smallest numeric id, inclusive
+		 * @param lastId
+		 *            the largest numeric id, inclusive
+		 * @return this partition
+		 */
+		public Partition setEntityIdRange(long firstId, long lastId) {
+			if (firstId > lastId) {
+				throw new IllegalArgumentException("Empty range of entity ids");
+			}
+			this.firstId = firstId;
+			this.lastId = lastId;
+			return this;
+		}
+
+		/**
+		 * Restricts the statements of this partition to the given main
+		 * properties, as described for
+		 * {@link DocumentDataFilter#setPropertyFilter(Set)}.
+		 *
+		 * @param properties
+		 *            the properties whose statements are exported, or null to
+		 *            export all statements
+		 * @return this partition
+		 */
+		public Partition setPropertyFilter(Set<PropertyIdValue> properties) {
+			if (properties == null) {
+				this.propertyFilter = null;
+			} else {
+				DocumentDataFilter filter = new DocumentDataFilter();
+				filter.setPropertyFilter(properties);
+				this.propertyFilter = new DatamodelFilter(
+						new DataObjectFactoryImpl(), filter);
+			}
+			return this;
+		}
+
+		/**
+		 * Returns the number of triples that have been written to this
+		 * partition. The count is only exact after
+		 * {@link PartitionedRdfSerializer#close()}.
+		 *
+		 * @return number of triples
+		 */
+		public long getTripleCount() {
+			return this.rdfSerializer.getTripleCount();
+		}
+
+		/**
+		 * Checks if the given document belongs to this partition.
+		 */
+		boolean includes(EntityDocument document) {
+			long id = getNumericId(document.getEntityId().getId());
+			return id >= this.firstId && id <= this.lastId;
+		}
+
+		void write(EntityDocument document) {
+			if (!includes(document)) {
+				return;
+			}
+			if (document instanceof ItemDocument) {
+				ItemDocument itemDocument = (ItemDocument) document;
+				this.rdfSerializer.processItemDocument(
+						this.propertyFilter == null ? itemDocument
+								: this.propertyFilter.filter(itemDocument));
+			} else if (document instanceof PropertyDocument) {
+				PropertyDocument propertyDocument = (PropertyDocument) document;
+				this.rdfSerializer.processPropertyDocument(
+						this.propertyFilter == null ? propertyDocument
+								: this.propertyFilter.filter(propertyDocument));
+			}
+		}
+
+		/**
+		 * Writes the batches of documents until an empty batch is received.
+		 * After a failure, the output is closed and the remaining batches are
+		 * discarded, so that the thread that provides the documents is never
+		 * blocked.
+		 */
+		@Override
+		public void run() {
+			List<EntityDocument> documents;
+			boolean finished = false;
+			try {
+				this.rdfSerializer.open();
+				while (!(documents = this.batches.take()).isEmpty()) {
+					if (this.failure != null) {
+						continue;
+					}
+					try {
+						for (EntityDocument document : documents) {
+							write(document);
+						}
+					} catch (Throwable e) {
+						this.failure = e;
+					}
+				}
+				finished = true;
+				if (this.failure == null) {
+					this.rdfSerializer.close();
+				}
+			} catch (InterruptedException e) {
+				this.failure = e;
+				finished = true;
+			} catch (Throwable e) {
+				this.failure = e;
+			} finally {
+				if (this.failure != null) {
+					closeOutput();
+					if (!finished) {
+						drain();
+					}
+				}
+			}
+		}
+
+		/**
+		 * Closes the output of this partition after a failure. The output is
+		 * incomplete then, but no resources such as the threads of a
+		 * {@link ParallelCompressorOutputStream} are left behind.
+		 */
+		private void closeOutput() {
+			try {
+				this.rdfSerializer.output.close();
+			} catch (IOException e) {
+				logger.error("Could not close the output of partition "
+						+ this.name + ": " + e.toString());
+			}
+		}
+
+		private void drain() {
+			try {
+				while (!this.batches.take().isEmpty()) {
+					// discard
+				}
+			} catch (InterruptedException e) {
+				// the serializer is closed anyway
+			}
+		}
+	}
+
+	/**
+	 * Creates a new partitioned RDF serializer for the specified format.
+	 * Partitions have to be added before {@link #open()} is called.
+	 *
+	 * @param format
+	 *            RDF format, such as RDFFormat.NTRIPLES
+	 * @param sites
+	 *            information about site links
+	 * @param propertyRegister
+	 *            the register of property datatypes, shared by all partitions
+	 */
+	public PartitionedRdfSerializer(RDFFormat format, Sites sites,
+			PropertyRegister propertyRegister) {
+		this.format = format;
+		this.sites = sites;
+		this.propertyRegister = propertyRegister;
+	}
+
+	/**
+	 * Adds a partition that is written to the given output. By default, it
+	 * contains all documents and performs the default tasks of
+	 * {@link RdfSerializer}. The output is closed when the serializer is
+	 * closed.
+	 *
+	 * @param name
+	 *            the name of the partition
+	 * @param output
+	 *            the stream to write the partition to
+	 * @return the new partition, which can be restricted further
+	 */
+	public Partition addPartition(String name, OutputStream output) {
+		if (this.open) {
+			throw new IllegalStateException(
+					"Partitions must be added before opening the serializer");
+		}
+		Partition partition = new Partition(name, output);
+		this.partitions.add(partition);
+		return partition;
+	}
+
+	/**
+	 * Adds a partition that is compressed with the given compression type on
+	 * a separate thread before it is written to the given output.
+	 *
+	 * @param name
+	 *            the name of the partition
+	 * @param output
+	 *            the stream to write the compressed partition to
+	 * @param compressionType
+	 *            {@link CompressionType#GZIP}, {@link CompressionType#BZ2}, or
+	 *            {@link CompressionType#NONE} for no compression
+	 * @return the new partition, which can be restricted further
+	 */
+	public Partition addPartition(String name, OutputStream output,
+			CompressionType compressionType) {
+		if (compressionType == CompressionType.NONE) {
+			return addPartition(name, output);
+		}
+		return addPartition(name, new ParallelCompressorOutputStream(output,
+				compressionType, 1,
+				compressionType == CompressionType.BZ2 ? ParallelCompressorOutputStream.DEFAULT_BZ2_CHUNK_SIZE
+						: ParallelCompressorOutputStream.DEFAULT_GZIP_CHUNK_SIZE));
+	}
+
+	/**
+	 * Returns the partitions of the export.
+	 *
+	 * @return unmodifiable list of partitions
+	 */
+	public List<Partition> getPartitions() {
+		return Collections.unmodifiableList(this.partitions);
+	}
+
+	/**
+	 * Returns the number of triples that have been written to all partitions.
+	 * The count is only exact after {@link #close()}.
+	 *
+	 * @return number of triples
+	 */
+	public long getTripleCount() {
+		long result = 0;
+		for (Partition partition : this.partitions) {
+			result += partition.getTripleCount();
+		}
+		return result;
+	}
+
+	@Override
+	public void open() {
+		this.open = true;
+		for (Partition partition : this.partitions) {
+			partition.thread = new Thread(partition, "rdf-partition-"
+					+ partition.name);
+			partition.thread.setDaemon(true);
+			partition.thread.start();
+		}
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		addDocument(itemDocument);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		addDocument(propertyDocument);
+	}
+
+	@Override
+	public void close() {
+		try {
+			submitBatch();
+		} finally {
+			// the partitions are stopped even if one of them failed
+			submit(Collections.emptyList());
+			try {
+				for (Partition partition : this.partitions) {
+					partition.thread.join();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e.toString(), e);
+			}
+		}
+		checkFailures();
+	}
+
+	/**
+	 * Returns the numeric part of an entity id, such as 42 for "Q42", or -1
+	 * if the id has no numeric part.
+	 *
+	 * @param id
+	 *            the entity id
+	 * @return the number in the id
+	 */
+	static long getNumericId(String id) {
+		int start = 0;
+		while (start < id.length() && !Character.isDigit(id.charAt(start))) {
+			start++;
+		}
+		int end = start;
+		while (end < id.length() && Character.isDigit(id.charAt(end))) {
+			end++;
+		}
+		if (start == end || end - start > 18) {
+			return -1;
+		}
+		return Long.parseLong(id.substring(start, end));
+	}
+
+	private void addDocument(EntityDocument document) {
+		this.batch.add(document);
+		if (this.batch.size() >= BATCH_SIZE) {
+			submitBatch();
+		}
+	}
+
+	private void submitBatch() {
+		if (this.batch.isEmpty()) {
+			return;
+		}
+		checkFailures();
+		submit(this.batch);
+		this.batch = new ArrayList<>(BATCH_SIZE);
+	}
+
+	/**
+	 * Hands the given batch over to all partitions. The batch is not
+	 * modified afterwards.
+	 */
+	private void submit(List<EntityDocument> documents) {
+		try {
+			for (Partition partition : this.partitions) {
+				partition.batches.put(documents);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e.toString(), e);
+		}
+	}
+
+	private void checkFailures() {
+		for (Partition partition : this.partitions) {
+			Throwable failure = partition.failure;
+			if (failure != null) { // we cannot recover here
+				throw new RuntimeException("Failed to write partition "
+						+ partition.name + ": " + failure, failure);
+			}
+		}
+	}
+}
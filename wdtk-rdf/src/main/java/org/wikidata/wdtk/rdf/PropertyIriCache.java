@@ -0,0 +1,120 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.eclipse.rdf4j.model.IRI;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+
+/**
+ * Cache for the IRIs of properties in their different
+ * {@link PropertyContext}s, so that they are not built again for every snak.
+ * The IRIs are stored in arrays indexed by the numeric part of the property
+ * id, one array per context, which grow as larger ids are seen. Properties
+ * with unusual or very large ids are not cached.
+ * <p>
+ * The cache is not thread-safe; every converter has its own.
+ */
+class PropertyIriCache {
+
+	/**
+	 * Numeric ids from this value on are not cached.
+	 */
+	static final int MAX_CACHED_ID = 1 << 20;
+
+	static final int INITIAL_SIZE = 1024;
+
+	final RdfWriter rdfWriter;
+	final IRI[][] iris = new IRI[PropertyContext.values().length][];
+
+	PropertyIriCache(RdfWriter rdfWriter) {
+		this.rdfWriter = rdfWriter;
+	}
+
+	/**
+	 * Returns the IRI of the given property in the given context, as given by
+	 * {@link Vocabulary#getPropertyUri(PropertyIdValue, PropertyContext)}.
+	 *
+	 * @param propertyIdValue
+	 *            the property
+	 * @param propertyContext
+	 *            the context in which the IRI is used
+	 * @return the IRI
+	 */
+	IRI getPropertyIri(PropertyIdValue propertyIdValue,
+			PropertyContext propertyContext) {
+		int id = getNumericId(propertyIdValue.getId());
+		if (id < 0) {
+			return this.rdfWriter.getUri(Vocabulary.getPropertyUri(
+					propertyIdValue, propertyContext));
+		}
+		IRI[] contextIris = this.iris[propertyContext.ordinal()];
+		if (contextIris == null || id >= contextIris.length) {
+			contextIris = grow(propertyContext, id);
+		}
+		IRI iri = contextIris[id];
+		if (iri == null) {
+			iri = this.rdfWriter.getUri(Vocabulary.getPropertyUri(
+					propertyIdValue, propertyContext));
+			contextIris[id] = iri;
+		}
+		return iri;
+	}
+
+	private IRI[] grow(PropertyContext propertyContext, int id) {
+		IRI[] contextIris = this.iris[propertyContext.ordinal()];
+		int size = contextIris == null ? INITIAL_SIZE : contextIris.length;
+		while (size <= id) {
+			size *= 2;
+		}
+		IRI[] result = new IRI[size];
+		if (contextIris != null) {
+			System.arraycopy(contextIris, 0, result, 0, contextIris.length);
+		}
+		this.iris[propertyContext.ordinal()] = result;
+		return result;
+	}
+
+	/**
+	 * Returns the number of a property id of the form "P123", or -1 if the id
+	 * has a different form (including leading zeros, which would map two ids
+	 * to the same number) or is too large to be cached.
+	 *
+	 * @param id
+	 *            the property id
+	 * @return the numeric id or -1
+	 */
+	static int getNumericId(String id) {
+		int length = id.length();
+		if (length < 2 || length > 8 || id.charAt(0) != 'P'
+				|| id.charAt(1) == '0') {
+			return -1;
+		}
+		int result = 0;
+		for (int i = 1; i < length; i++) {
+			char c = id.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = 10 * result + (c - '0');
+		}
+		return result < MAX_CACHED_ID ? result : -1;
+	}
+}
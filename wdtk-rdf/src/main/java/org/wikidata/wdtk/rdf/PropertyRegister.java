@@ -22,7 +22,17 @@ import java.io.IOException;
  * #L%
  */
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -41,6 +51,7 @@ import org.wikidata.wdtk.datamodel.implementation.EntityIdValueImpl;
 import org.wikidata.wdtk.datamodel.implementation.PropertyIdValueImpl;
 import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
 import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
@@ -60,18 +71,28 @@ import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 /**
  * This class helps to manage information about Properties that has to obtained
  * by a webservice.
+ * <p>
+ * The information can also be taken from the property documents of a dump,
+ * by processing them with the register before the conversion, and be stored
+ * in a file with {@link #writePropertyInformation(OutputStream)} to be read
+ * again with {@link #readPropertyInformation(InputStream)}. A register
+ * created without API connection never accesses the Web.
+ * <p>
+ * Lookups do not lock, so that a register can be shared by converters
+ * running on several threads. Only fetching data from the Web is
+ * synchronized.
  *
  * @author Michael Guenther
  *
  */
-public class PropertyRegister {
+public class PropertyRegister implements EntityDocumentProcessor {
 
 	static final Logger logger = LoggerFactory
 			.getLogger(PropertyRegister.class);
 
 	/**
 	 * Object used to fetch data. Kept package private to allow being replaced
-	 * by mock object in tests.
+	 * by mock object in tests. It is null if the Web should not be accessed.
 	 */
 	WikibaseDataFetcher dataFetcher;
 
@@ -79,14 +100,14 @@ public class PropertyRegister {
 	 * Map that stores the datatype of properties. Properties are identified by
 	 * their Pid; dataypes are identified by their datatype IRI.
 	 */
-	final protected Map<String, String> datatypes = new HashMap<>();
+	final protected Map<String, String> datatypes = new ConcurrentHashMap<>();
 
 	/**
 	 * Map that stores the URI patterns of properties. Properties are identified
 	 * by their Pid; patterns are given as strings using $1 as placeholder for
 	 * the escaped value.
 	 */
-	final protected Map<String, String> uriPatterns = new HashMap<>();
+	final protected Map<String, String> uriPatterns = new ConcurrentHashMap<>();
 
 	/**
 	 * Pid of the property used to store URI patterns, if used, or null if no
@@ -114,8 +135,8 @@ public class PropertyRegister {
 	int smallestUnfetchedPropertyIdNumber = 1;
 
 	/**
-	 * Properties that are known to be missing. This is used to avoid making
-	 * a request for this property again.
+	 * Properties that are known to be missing, or whose datatype is not known.
+	 * This is used to avoid making a request for this property again.
 	 */
 	final Set<String> knownMissing;
 
@@ -141,10 +162,30 @@ public class PropertyRegister {
 			ApiConnection apiConnection, String siteUri) {
 		this.uriPatternPropertyId = uriPatternPropertyId;
 		this.siteUri = siteUri;
-		this.knownMissing = new HashSet<>();
+		this.knownMissing = ConcurrentHashMap.newKeySet();
 		dataFetcher = new WikibaseDataFetcher(apiConnection, siteUri);
 	}
 
+	/**
+	 * Constructs a new property register that never accesses the Web. It
+	 * should be filled by processing the property documents of a dump, or by
+	 * reading a file written by {@link #writePropertyInformation(OutputStream)}.
+	 *
+	 * @param uriPatternPropertyId
+	 *            property id used for a URI Pattern property, e.g., P1921 on
+	 *            Wikidata; can be null if no such property should be used
+	 * @param siteUri
+	 *            the URI identifying the site that is accessed (usually the
+	 *            prefix of entity URIs), e.g.,
+	 *            "http://www.wikidata.org/entity/"
+	 */
+	public PropertyRegister(String uriPatternPropertyId, String siteUri) {
+		this.uriPatternPropertyId = uriPatternPropertyId;
+		this.siteUri = siteUri;
+		this.knownMissing = ConcurrentHashMap.newKeySet();
+		this.dataFetcher = null;
+	}
+
 	/**
 	 * Returns a singleton object that serves as a property register for
 	 * Wikidata.
@@ -174,10 +215,12 @@ public class PropertyRegister {
 	 *         not be determined
 	 */
 	public String getPropertyType(PropertyIdValue propertyIdValue) {
-		if (!datatypes.containsKey(propertyIdValue.getId())) {
+		String datatype = datatypes.get(propertyIdValue.getId());
+		if (datatype == null && !knownMissing.contains(propertyIdValue.getId())) {
 			fetchPropertyInformation(propertyIdValue);
+			datatype = datatypes.get(propertyIdValue.getId());
 		}
-		return datatypes.get(propertyIdValue.getId());
+		return datatype;
 	}
 
 	/**
@@ -186,11 +229,17 @@ public class PropertyRegister {
 	 *
 	 * @param propertyIdValue
 	 * @param datatypeIri
+	 *            the IRI of the datatype, or null if it is not known
 	 */
 	public void setPropertyType(PropertyIdValue propertyIdValue,
 			String datatypeIri) {
-		datatypes.put(propertyIdValue.getId(), datatypeIri);
-
+		if (datatypeIri == null) {
+			knownMissing.add(propertyIdValue.getId());
+			datatypes.remove(propertyIdValue.getId());
+		} else {
+			datatypes.put(propertyIdValue.getId(), datatypeIri);
+			knownMissing.remove(propertyIdValue.getId());
+		}
 	}
 
 	/**
@@ -204,11 +253,8 @@ public class PropertyRegister {
 	 *         was found for the given property
 	 */
 	public String getPropertyUriPattern(PropertyIdValue propertyIdValue) {
-		if (!this.datatypes.containsKey(propertyIdValue.getId())) {
-			fetchPropertyInformation(propertyIdValue);
-		}
+		getPropertyType(propertyIdValue);
 		return this.uriPatterns.get(propertyIdValue.getId());
-
 	}
 
 	/**
@@ -309,7 +355,11 @@ public class PropertyRegister {
 	 *
 	 * @param property
 	 */
-	protected void fetchPropertyInformation(PropertyIdValue property) {
+	protected synchronized void fetchPropertyInformation(PropertyIdValue property) {
+		if (dataFetcher == null || this.datatypes.containsKey(property.getId())) {
+			// offline, or fetched by another thread in the meantime
+			return;
+		}
 		int propertyIdNumber = Integer.parseInt(property.getId().substring(1));
 		// Don't do anything if all properties up to this index have already
 		// been fetched. In particular, don't try indefinitely to find a
@@ -348,41 +398,124 @@ public class PropertyRegister {
 				continue;
 			}
 
-			String datatype = ((PropertyDocument) propertyDocument)
-					.getDatatype().getIri();
-			this.datatypes.put(entry.getKey(), datatype);
+			processPropertyDocument((PropertyDocument) propertyDocument);
 			logger.info("Fetched type information for property "
-					+ entry.getKey() + " online: " + datatype);
+					+ entry.getKey() + " online: "
+					+ this.datatypes.get(entry.getKey()));
+		}
+
+		if (!this.datatypes.containsKey(property.getId())) {
+			logger.error("Failed to fetch type information for property "
+					+ property.getId() + " online.");
+			knownMissing.add(property.getId());
+		}
+	}
 
-			if (!DatatypeIdValue.DT_STRING.equals(datatype) && !DatatypeIdValue.DT_EXTERNAL_ID.equals(datatype)) {
+	/**
+	 * Stores the datatype and the URI pattern of the given property. This can
+	 * be used to fill the register with the property documents of a dump,
+	 * before converting its items.
+	 *
+	 * @param propertyDocument
+	 *            the document of the property
+	 */
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		String propertyId = propertyDocument.getEntityId().getId();
+		String datatype = propertyDocument.getDatatype().getIri();
+		setPropertyType(propertyDocument.getEntityId(), datatype);
+
+		if (!DatatypeIdValue.DT_STRING.equals(datatype) && !DatatypeIdValue.DT_EXTERNAL_ID.equals(datatype)) {
+			return;
+		}
+
+		for (StatementGroup sg : propertyDocument.getStatementGroups()) {
+			if (!sg.getProperty().getId().equals(this.uriPatternPropertyId)) {
 				continue;
 			}
-
-			for (StatementGroup sg : ((PropertyDocument) propertyDocument)
-					.getStatementGroups()) {
-				if (!sg.getProperty().getId().equals(this.uriPatternPropertyId)) {
-					continue;
-				}
-				for (Statement statement : sg) {
-					if (statement.getMainSnak() instanceof ValueSnak
-							&& statement.getValue() instanceof StringValue) {
-						String uriPattern = ((StringValue) statement.getValue()).getString();
-						if (this.uriPatterns.containsKey(entry.getKey())) {
-							logger.info("Found multiple URI patterns for property "
-									+ entry.getKey()
-									+ " but only one is supported in current code.");
-						}
-						this.uriPatterns.put(entry.getKey(), uriPattern);
+			for (Statement statement : sg) {
+				if (statement.getMainSnak() instanceof ValueSnak
+						&& statement.getValue() instanceof StringValue) {
+					String uriPattern = ((StringValue) statement.getValue()).getString();
+					if (this.uriPatterns.containsKey(propertyId)) {
+						logger.info("Found multiple URI patterns for property "
+								+ propertyId
+								+ " but only one is supported in current code.");
 					}
+					this.uriPatterns.put(propertyId, uriPattern);
 				}
 			}
 		}
+	}
 
-		if (!this.datatypes.containsKey(property.getId())) {
-			logger.error("Failed to fetch type information for property "
-					+ property.getId() + " online.");
-			knownMissing.add(property.getId());
+	/**
+	 * Writes the datatypes and URI patterns of all properties known to this
+	 * register. Each property is written on one line, with its id, its
+	 * datatype and its URI pattern if any, separated by tabs. Datatypes of
+	 * the Wikibase ontology are written without their namespace.
+	 *
+	 * @param output
+	 *            the stream to write to; it is not closed
+	 * @throws IOException
+	 *             if the information could not be written
+	 */
+	public void writePropertyInformation(OutputStream output) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output,
+				StandardCharsets.UTF_8));
+		for (Entry<String, String> entry : new TreeMap<>(this.datatypes).entrySet()) {
+			String datatype = entry.getValue();
+			if (datatype.startsWith(Vocabulary.PREFIX_WBONTO)) {
+				datatype = datatype.substring(Vocabulary.PREFIX_WBONTO.length());
+			}
+			writer.write(entry.getKey());
+			writer.write('\t');
+			writer.write(datatype);
+			String uriPattern = this.uriPatterns.get(entry.getKey());
+			if (uriPattern != null) {
+				writer.write('\t');
+				writer.write(uriPattern);
+			}
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Reads datatypes and URI patterns of properties, as written by
+	 * {@link #writePropertyInformation(OutputStream)}, and adds them to the
+	 * register.
+	 *
+	 * @param input
+	 *            the stream to read from; it is not closed
+	 * @throws IOException
+	 *             if the information could not be read or has an invalid
+	 *             format
+	 */
+	public void readPropertyInformation(InputStream input) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input,
+				StandardCharsets.UTF_8));
+		String line;
+		int count = 0;
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			String[] fields = line.split("\t", 3);
+			if (fields.length < 2) {
+				throw new IOException("Invalid property information: " + line);
+			}
+			String datatype = fields[1];
+			if (datatype.indexOf(':') < 0) {
+				datatype = Vocabulary.PREFIX_WBONTO + datatype;
+			}
+			this.datatypes.put(fields[0], datatype);
+			this.knownMissing.remove(fields[0]);
+			if (fields.length == 3) {
+				this.uriPatterns.put(fields[0], fields[2]);
+			}
+			count++;
 		}
+		logger.info("Read type information for " + count + " properties.");
 	}
 
 	/**
@@ -391,7 +524,7 @@ public class PropertyRegister {
 	 *
 	 * @param endpoint URI of the SPARQL service to use, for example "https://query.wikidata.org/sparql"
 	 */
-	public void fetchUsingSPARQL(URI endpoint) {
+	public synchronized void fetchUsingSPARQL(URI endpoint) {
 		try {
 			// this query is written without assuming any PREFIXES like wd: or wdt: to ensure it is as portable
 			// as possible (the PropertyRegister might be used with private Wikibase instances and SPARQL endpoints
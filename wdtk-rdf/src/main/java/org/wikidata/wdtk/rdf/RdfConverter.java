@@ -44,6 +44,8 @@ public class RdfConverter extends AbstractRdfConverter {
      */
     public void setTasks(int tasks) {
         this.tasks = tasks;
+        this.owlDeclarationBuffer.setSpillToDisk(
+                hasTask(RdfSerializer.TASK_SPILL_TO_DISK));
     }
 
     /**
@@ -134,4 +136,11 @@ public class RdfConverter extends AbstractRdfConverter {
                 this.hasTask(RdfSerializer.TASK_STATEMENTS),
                 this.hasTask(RdfSerializer.TASK_SIMPLE_STATEMENTS));
     }
+
+    @Override
+    public void writeSpilledOWLDeclarations() {
+        this.owlDeclarationBuffer.writeSpilledPropertyDeclarations(this.rdfWriter,
+                this.hasTask(RdfSerializer.TASK_STATEMENTS),
+                this.hasTask(RdfSerializer.TASK_SIMPLE_STATEMENTS));
+    }
 }
@@ -58,6 +58,16 @@ public class RdfSerializer implements EntityDocumentDumpProcessor {
 
 	public static final int TASK_SIMPLE_STATEMENTS = 0x00040000;
 
+	/**
+	 * Spill the auxiliary triples of complex values and the OWL declarations
+	 * of properties to disk in sorted runs, instead of buffering them in
+	 * memory. They are merged, deduplicated by IRI and written at the end of
+	 * the export, so that the memory needed does not grow with the size of
+	 * the dump. This is not a subset of {@link #TASK_ALL_EXACT_DATA} and has
+	 * to be added explicitly.
+	 */
+	public static final int TASK_SPILL_TO_DISK = 0x00080000;
+
 	public static final int TASK_ITEMS = 0x00000100;
 	public static final int TASK_PROPERTIES = 0x00000200;
 	public static final int TASK_ALL_ENTITIES = TASK_ITEMS | TASK_PROPERTIES;
@@ -68,6 +78,9 @@ public class RdfSerializer implements EntityDocumentDumpProcessor {
 
 	/**
 	 * Creates a new RDF serializer for the specified format and output stream.
+	 * N-Triples are written directly with a {@link NTriplesRdfWriter}.
+	 * The format {@link CompactRdfWriter#COMPACT_RDF} writes a binary file
+	 * with a {@link CompactRdfWriter}.
 	 *
 	 * @param format
 	 *            RDF format, such as RDFFormat.TURTLE
@@ -79,7 +92,13 @@ public class RdfSerializer implements EntityDocumentDumpProcessor {
 	public RdfSerializer(RDFFormat format, OutputStream output, Sites sites,
 			PropertyRegister propertyRegister) {
 		this.output = output;
-		this.rdfWriter = new RdfWriter(format, output);
+		if (RDFFormat.NTRIPLES.equals(format)) {
+			this.rdfWriter = new NTriplesRdfWriter(output);
+		} else if (CompactRdfWriter.COMPACT_RDF.equals(format)) {
+			this.rdfWriter = new CompactRdfWriter(output);
+		} else {
+			this.rdfWriter = new RdfWriter(format, output);
+		}
 		this.rdfConverter = new RdfConverter(this.rdfWriter, sites,
 				propertyRegister);
 	}
@@ -147,6 +166,7 @@ public class RdfSerializer implements EntityDocumentDumpProcessor {
 	@Override
 	public void close() {
 		try {
+			this.rdfConverter.writeSpilledTriples();
 			this.rdfWriter.finish();
 		} catch (RDFHandlerException e) { // we cannot recover here
 			throw new RuntimeException(e.toString(), e);
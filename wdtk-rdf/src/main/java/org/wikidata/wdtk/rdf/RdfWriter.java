@@ -155,6 +155,13 @@ public class RdfWriter {
 		this.writer = writer;
 	}
 
+	/**
+	 * Constructor for subclasses that write triples without an rdf4j writer.
+	 */
+	protected RdfWriter() {
+		this.writer = null;
+	}
+
 	public long getTripleCount() {
 		return this.tripleCount;
 	}
@@ -164,6 +171,36 @@ public class RdfWriter {
 		this.writer.startRDF();
 	}
 
+	/**
+	 * Starts writing to another output stream, using the same format and
+	 * settings. Unlike {@link #start()}, this does not reset the triple count.
+	 * It is used to write the parts of a parallel export to separate buffers.
+	 * It must only be called if {@link #supportsRestart()} is true.
+	 *
+	 * @param output
+	 *            the stream to write to from now on
+	 * @throws RDFHandlerException
+	 *             if the writer could not be started
+	 */
+	void restart(OutputStream output) throws RDFHandlerException {
+		RDFWriter newWriter = Rio.createWriter(this.writer.getRDFFormat(),
+				output);
+		newWriter.setWriterConfig(this.writer.getWriterConfig());
+		this.writer = newWriter;
+		this.writer.startRDF();
+	}
+
+	/**
+	 * Returns true if the output can be written in parts with
+	 * {@link #restart(OutputStream)}, which are then concatenated. Writers
+	 * that need to see all triples before writing anything return false.
+	 *
+	 * @return true if the writer can be restarted
+	 */
+	boolean supportsRestart() {
+		return true;
+	}
+
 	public void finish() throws RDFHandlerException {
 		this.writer.endRDF();
 	}
@@ -231,15 +268,13 @@ public class RdfWriter {
 		IRI subject = factory.createIRI(subjectUri);
 
 		this.tripleCount++;
-		this.writer.handleStatement(factory.createStatement(subject, predicate,
-				object));
+		writeStatement(subject, predicate, object);
 	}
 
 	public void writeTripleValueObject(Resource subject, IRI predicate,
 			Value object) throws RDFHandlerException {
 		this.tripleCount++;
-		this.writer.handleStatement(factory.createStatement(subject, predicate,
-				object));
+		writeStatement(subject, predicate, object);
 	}
 
 	public void writeTripleLiteralObject(Resource subject, IRI predicate,
@@ -247,6 +282,24 @@ public class RdfWriter {
 		Literal object = factory.createLiteral(objectLexicalValue, datatype);
 
 		this.tripleCount++;
+		writeStatement(subject, predicate, object);
+	}
+
+	/**
+	 * Writes a triple. All methods that write triples end up here, so that
+	 * subclasses can serialize triples without going through rdf4j.
+	 *
+	 * @param subject
+	 *            the subject of the triple
+	 * @param predicate
+	 *            the predicate of the triple
+	 * @param object
+	 *            the object of the triple
+	 * @throws RDFHandlerException
+	 *             if the triple could not be written
+	 */
+	protected void writeStatement(Resource subject, IRI predicate, Value object)
+			throws RDFHandlerException {
 		this.writer.handleStatement(factory.createStatement(subject, predicate,
 				object));
 	}
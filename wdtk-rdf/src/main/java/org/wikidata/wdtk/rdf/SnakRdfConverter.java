@@ -80,6 +80,7 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 	final RdfWriter rdfWriter;
 	final PropertyRegister propertyRegister;
 	final OwlDeclarationBuffer rdfConversionBuffer;
+	final PropertyIriCache propertyIris;
 
 	final List<PropertyRestriction> someValuesQueue;
 
@@ -95,6 +96,7 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 		this.rdfConversionBuffer = owlDeclarationBuffer;
 		this.propertyRegister = propertyRegister;
 		this.valueRdfConverter = valueRdfConverter;
+		this.propertyIris = new PropertyIriCache(rdfWriter);
 
 		this.someValuesQueue = new ArrayList<>();
 	}
@@ -144,9 +146,8 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 
 	@Override
 	public Void visit(ValueSnak snak) {
-		String propertyUri = Vocabulary.getPropertyUri(snak.getPropertyId(),
+		IRI property = this.propertyIris.getPropertyIri(snak.getPropertyId(),
 				this.currentPropertyContext);
-		IRI property = this.rdfWriter.getUri(propertyUri);
 		Value value = valueRdfConverter.getRdfValue(snak.getValue(),
 				snak.getPropertyId(), this.simple);
 		if (value == null) {
@@ -178,12 +179,12 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 			return null;
 		}
 
-		String propertyUri = Vocabulary.getPropertyUri(snak.getPropertyId(),
+		IRI property = this.propertyIris.getPropertyIri(snak.getPropertyId(),
 				this.currentPropertyContext);
 		Resource bnode = this.rdfWriter.getFreshBNode();
 		try {
 			this.rdfWriter.writeTripleValueObject(this.currentSubject,
-					this.rdfWriter.getUri(propertyUri), bnode);
+					property, bnode);
 		} catch (RDFHandlerException e) {
 			throw new RuntimeException(e.toString(), e);
 		}
@@ -201,18 +202,18 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 				return null;
 			}
 
-			String noValueClass;
+			IRI noValueClass;
 			if ((this.currentPropertyContext == PropertyContext.QUALIFIER)
 					|| (this.currentPropertyContext == PropertyContext.QUALIFIER_SIMPLE)) {
-				noValueClass = Vocabulary.getPropertyUri(snak.getPropertyId(),
-						PropertyContext.NO_QUALIFIER_VALUE);
+				noValueClass = this.propertyIris.getPropertyIri(
+						snak.getPropertyId(), PropertyContext.NO_QUALIFIER_VALUE);
 			} else {
-				noValueClass = Vocabulary.getPropertyUri(snak.getPropertyId(),
-						PropertyContext.NO_VALUE);
+				noValueClass = this.propertyIris.getPropertyIri(
+						snak.getPropertyId(), PropertyContext.NO_VALUE);
 			}
 			// TODO add restrictions
 			try {
-				this.rdfWriter.writeTripleUriObject(this.currentSubject,
+				this.rdfWriter.writeTripleValueObject(this.currentSubject,
 						RdfWriter.RDF_TYPE, noValueClass);
 			} catch (RDFHandlerException e) {
 				throw new RuntimeException(e.toString(), e);
@@ -0,0 +1,433 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects records made of a key and a payload, and returns them sorted by
+ * key, with one record per key. Records are kept in memory until a given
+ * number of them, or of bytes, has been added. They are then sorted and
+ * written to a temporary file as a sorted run. When the records are read,
+ * all runs are merged. At most {@link #MAX_MERGE_RUNS} runs are merged at
+ * once: whenever that many runs of the same size have been written, they are
+ * merged into a single larger run. The memory and the number of open files
+ * needed thus only depend on the run size, and not on the total number of
+ * records.
+ * <p>
+ * If several records have the same key, only the one that was added first is
+ * returned. Temporary files are created in the default temporary directory
+ * (see the system property java.io.tmpdir) and deleted when the records have
+ * been read or when the buffer is closed.
+ */
+public class SortedRunBuffer implements Closeable {
+
+	/**
+	 * Number of records that are kept in memory if no other run size is set.
+	 */
+	public static final int DEFAULT_RUN_SIZE = 100000;
+
+	/**
+	 * Estimated number of bytes used by a record in memory, in addition to
+	 * the characters of its key and payload.
+	 */
+	static final int RECORD_OVERHEAD = 100;
+
+	/**
+	 * Largest number of runs that are read at the same time during a merge.
+	 */
+	public static final int MAX_MERGE_RUNS = 64;
+
+	static final Comparator<Record> KEY_ORDER = Comparator
+			.comparing(record -> record.key);
+
+	/**
+	 * A record with its key and its payload.
+	 */
+	static class Record {
+		final String key;
+		final String payload;
+
+		Record(String key, String payload) {
+			this.key = key;
+			this.payload = payload;
+		}
+	}
+
+	final int runSize;
+	final long runBytes;
+	final List<Record> records;
+	/**
+	 * Estimated number of bytes used by {@link #records}.
+	 */
+	long recordBytes = 0;
+	final List<Path> runs = new ArrayList<>();
+	/**
+	 * Number of times the records of each run have been merged, in the order
+	 * of {@link #runs}. Older runs never have a lower level than newer ones.
+	 */
+	final List<Integer> runLevels = new ArrayList<>();
+
+	/**
+	 * Creates a new buffer that writes a sorted run each time the given
+	 * number of records has been added.
+	 *
+	 * @param runSize
+	 *            the number of records to keep in memory
+	 */
+	public SortedRunBuffer(int runSize) {
+		this(runSize, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a new buffer that writes a sorted run each time the given
+	 * number of records, or records of the given estimated size in memory,
+	 * have been added. The size is the better limit if records can be long.
+	 *
+	 * @param runSize
+	 *            the number of records to keep in memory
+	 * @param runBytes
+	 *            the number of bytes to keep in memory
+	 */
+	public SortedRunBuffer(int runSize, long runBytes) {
+		if (runSize < 1 || runBytes < 1) {
+			throw new IllegalArgumentException("Run size must be positive");
+		}
+		this.runSize = runSize;
+		this.runBytes = runBytes;
+		this.records = new ArrayList<>(Math.min(runSize, 1024));
+	}
+
+	/**
+	 * Adds a record. Its payload is only returned if no record with the same
+	 * key has been added before.
+	 *
+	 * @param key
+	 *            the key to sort and deduplicate by
+	 * @param payload
+	 *            the data stored with the key
+	 * @throws UncheckedIOException
+	 *             if a run could not be written
+	 */
+	public void add(String key, String payload) {
+		this.records.add(new Record(key, payload));
+		this.recordBytes += 2L * (key.length() + payload.length())
+				+ RECORD_OVERHEAD;
+		if (this.records.size() >= this.runSize
+				|| this.recordBytes >= this.runBytes) {
+			writeRun();
+		}
+	}
+
+	/**
+	 * Returns the number of runs that have been written to disk and not read
+	 * yet.
+	 *
+	 * @return number of runs
+	 */
+	public int getRunCount() {
+		return this.runs.size();
+	}
+
+	/**
+	 * Merges all records added since the last merge and passes them to the
+	 * given handler, sorted by key and with one record per key. The buffer is
+	 * empty afterwards.
+	 *
+	 * @param handler
+	 *            called with the key and the payload of each record
+	 * @throws UncheckedIOException
+	 *             if a run could not be read
+	 */
+	public void merge(BiConsumer<String, String> handler) {
+		// the sort is stable, so the record added first comes first
+		this.records.sort(KEY_ORDER);
+		try {
+			// leave room for the records in memory
+			while (this.runs.size() >= MAX_MERGE_RUNS) {
+				int count = Math.min(MAX_MERGE_RUNS,
+						this.runs.size() - MAX_MERGE_RUNS + 2);
+				mergeRuns(this.runs.size() - count);
+			}
+			List<Run> sources = openRuns(0);
+			sources.add(new Run(this.runs.size(), this.records.iterator()));
+			mergeSorted(sources, handler);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			close();
+		}
+	}
+
+	/**
+	 * Discards all records and deletes the temporary files.
+	 */
+	@Override
+	public void close() {
+		this.records.clear();
+		this.recordBytes = 0;
+		for (Path run : this.runs) {
+			try {
+				Files.deleteIfExists(run);
+			} catch (IOException e) {
+				// the file is in the temporary directory anyway
+			}
+		}
+		this.runs.clear();
+		this.runLevels.clear();
+	}
+
+	/**
+	 * Sorts the records in memory and writes them to a new temporary file,
+	 * leaving out records whose key has been seen before. If this completes a
+	 * group of runs of the same level, the group is merged.
+	 */
+	void writeRun() {
+		this.records.sort(KEY_ORDER);
+		try {
+			Path file = createRunFile();
+			try (DataOutputStream out = openRunOutput(file)) {
+				String lastKey = null;
+				for (Record record : this.records) {
+					if (record.key.equals(lastKey)) {
+						continue;
+					}
+					writeString(out, record.key);
+					writeString(out, record.payload);
+					lastKey = record.key;
+				}
+			}
+			this.runLevels.add(0);
+			while (this.runs.size() >= MAX_MERGE_RUNS) {
+				int first = this.runs.size() - MAX_MERGE_RUNS;
+				if (!this.runLevels.get(first).equals(
+						this.runLevels.get(this.runs.size() - 1))) {
+					break;
+				}
+				mergeRuns(first);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.records.clear();
+		this.recordBytes = 0;
+	}
+
+	/**
+	 * Replaces the runs from the given position to the end by a single run
+	 * that contains their merged records.
+	 *
+	 * @param first
+	 *            the position of the oldest run to merge
+	 */
+	void mergeRuns(int first) throws IOException {
+		int level = this.runLevels.get(first) + 1;
+		List<Run> sources = openRuns(first);
+		List<Path> merged = new ArrayList<>(this.runs.subList(first, this.runs.size()));
+		Path file = createRunFile();
+		try (DataOutputStream out = openRunOutput(file)) {
+			mergeSorted(sources, (key, payload) -> {
+				try {
+					writeString(out, key);
+					writeString(out, payload);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		// the new run is the last one, so remove it together with its sources
+		this.runs.remove(this.runs.size() - 1);
+		this.runs.subList(first, this.runs.size()).clear();
+		this.runLevels.subList(first, this.runLevels.size()).clear();
+		this.runs.add(file);
+		this.runLevels.add(level);
+		for (Path run : merged) {
+			Files.deleteIfExists(run);
+		}
+	}
+
+	/**
+	 * Creates a temporary file for a run. It is added to the runs right away,
+	 * so that it is deleted when the buffer is closed.
+	 */
+	private Path createRunFile() throws IOException {
+		Path file = Files.createTempFile("wdtk-rdf-run", ".bin");
+		this.runs.add(file);
+		return file;
+	}
+
+	private static DataOutputStream openRunOutput(Path file) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(file)));
+	}
+
+	/**
+	 * Opens the runs from the given position to the end for reading.
+	 */
+	private List<Run> openRuns(int first) throws IOException {
+		List<Run> sources = new ArrayList<>();
+		try {
+			for (int i = first; i < this.runs.size(); i++) {
+				sources.add(new Run(i, this.runs.get(i)));
+			}
+		} catch (IOException e) {
+			for (Run run : sources) {
+				run.close();
+			}
+			throw e;
+		}
+		return sources;
+	}
+
+	/**
+	 * Merges the given runs and passes the records to the handler, keeping
+	 * only the record of the oldest run for each key. The runs are closed
+	 * afterwards.
+	 */
+	private static void mergeSorted(List<Run> sources,
+			BiConsumer<String, String> handler) throws IOException {
+		PriorityQueue<Run> queue = new PriorityQueue<>();
+		try {
+			for (Run run : sources) {
+				addIfNotEmpty(queue, run);
+			}
+			String lastKey = null;
+			while (!queue.isEmpty()) {
+				Run run = queue.poll();
+				if (!run.key.equals(lastKey)) {
+					handler.accept(run.key, run.payload);
+					lastKey = run.key;
+				}
+				addIfNotEmpty(queue, run);
+			}
+		} finally {
+			for (Run run : sources) {
+				run.close();
+			}
+		}
+	}
+
+	private static void addIfNotEmpty(PriorityQueue<Run> queue, Run run)
+			throws IOException {
+		if (run.next()) {
+			queue.add(run);
+		} else {
+			run.close();
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String string)
+			throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Sorted sequence of records that is read during a merge, either from a
+	 * file or from memory. Runs are ordered by their current key, and by the
+	 * time they were written if the keys are equal.
+	 */
+	static class Run implements Comparable<Run> {
+		final int index;
+		final DataInputStream in;
+		final Iterator<Record> iterator;
+		String key;
+		String payload;
+
+		Run(int index, Path file) throws IOException {
+			this.index = index;
+			this.in = new DataInputStream(new BufferedInputStream(
+					Files.newInputStream(file)));
+			this.iterator = null;
+		}
+
+		Run(int index, Iterator<Record> iterator) {
+			this.index = index;
+			this.in = null;
+			this.iterator = iterator;
+		}
+
+		/**
+		 * Moves to the next record.
+		 *
+		 * @return false if there are no further records
+		 */
+		boolean next() throws IOException {
+			if (this.iterator != null) {
+				if (!this.iterator.hasNext()) {
+					return false;
+				}
+				Record record = this.iterator.next();
+				this.key = record.key;
+				this.payload = record.payload;
+				return true;
+			}
+			try {
+				this.key = readString(this.in);
+			} catch (EOFException e) {
+				return false;
+			}
+			this.payload = readString(this.in);
+			return true;
+		}
+
+		void close() {
+			if (this.in != null) {
+				try {
+					this.in.close();
+				} catch (IOException e) {
+					// nothing left to read
+				}
+			}
+		}
+
+		@Override
+		public int compareTo(Run other) {
+			int result = this.key.compareTo(other.key);
+			return (result != 0) ? result : Integer.compare(this.index, other.index);
+		}
+	}
+}
@@ -39,15 +39,12 @@ import org.wikidata.wdtk.wikibaseapi.RandomGuidGenerator;
  */
 public class Vocabulary {
 
-	final static MessageDigest md;
-	static {
-		try {
-			md = MessageDigest.getInstance("MD5");
-		} catch (NoSuchAlgorithmException e) {
-			throw new RuntimeException(
-					"Your Java does not support MD5 hashes. You should be concerned.");
-		}
-	}
+	/**
+	 * Digests used to compute the URIs of values and references. Each thread
+	 * has its own, so that several converters can run in parallel.
+	 */
+	static final ThreadLocal<UriDigest> DIGESTS = ThreadLocal
+			.withInitial(UriDigest::new);
 
 	private final static GuidGenerator GUID_GENERATOR = new RandomGuidGenerator();
 
@@ -497,7 +494,16 @@ public class Vocabulary {
 		if (statementId == null || statementId.isEmpty()) {
 			statementId = GUID_GENERATOR.freshStatementId(statement.getSubject().getId());
 		}
-		return PREFIX_WIKIDATA_STATEMENT + statementId.replaceFirst("\\$", "-");
+		// the first "$" is replaced by "-", without a regular expression
+		int prefixLength = PREFIX_WIKIDATA_STATEMENT.length();
+		char[] chars = new char[prefixLength + statementId.length()];
+		PREFIX_WIKIDATA_STATEMENT.getChars(0, prefixLength, chars, 0);
+		statementId.getChars(0, statementId.length(), chars, prefixLength);
+		int separator = statementId.indexOf('$');
+		if (separator >= 0) {
+			chars[prefixLength + separator] = '-';
+		}
+		return new String(chars);
 	}
 
 	/**
@@ -543,58 +549,61 @@ public class Vocabulary {
 			return PREFIX_WIKIDATA_REFERENCE + hash;
 		}
 
-		md.reset();
-		reference.getSnakGroups().stream()
-				.flatMap(g -> g.getSnaks().stream())
-				.map(Objects::hashCode)
-				.sorted()
-				.forEach(i -> updateMessageDigestWithInt(md, i));
+		UriDigest digest = UriDigest.start();
+		int[] snakHashes = digest.getSnakHashes(reference);
+		int count = 0;
+		for (SnakGroup snakGroup : reference.getSnakGroups()) {
+			for (Snak snak : snakGroup) {
+				snakHashes[count++] = Objects.hashCode(snak);
+			}
+		}
+		Arrays.sort(snakHashes, 0, count);
+		for (int i = 0; i < count; i++) {
+			digest.updateWithInt(snakHashes[i]);
+		}
 
-		return PREFIX_WIKIDATA_REFERENCE + bytesToHex(md.digest());
+		return PREFIX_WIKIDATA_REFERENCE + digest.digestToHex();
 	}
 
 	public static String getTimeValueUri(TimeValue value) {
-		md.reset();
-		updateMessageDigestWithLong(md, value.getYear());
-		md.update(value.getMonth());
-		md.update(value.getDay());
-		md.update(value.getHour());
-		md.update(value.getMinute());
-		md.update(value.getSecond());
-		md.update(value.getPrecision());
-		updateMessageDigestWithString(md, value.getPreferredCalendarModel());
-		updateMessageDigestWithInt(md, value.getBeforeTolerance());
-		updateMessageDigestWithInt(md, value.getAfterTolerance());
-		updateMessageDigestWithInt(md, value.getTimezoneOffset());
-
-		return PREFIX_WIKIDATA_VALUE + bytesToHex(md.digest());
+		UriDigest digest = UriDigest.start();
+		digest.updateWithLong(value.getYear());
+		digest.md.update(value.getMonth());
+		digest.md.update(value.getDay());
+		digest.md.update(value.getHour());
+		digest.md.update(value.getMinute());
+		digest.md.update(value.getSecond());
+		digest.md.update(value.getPrecision());
+		digest.updateWithString(value.getPreferredCalendarModel());
+		digest.updateWithInt(value.getBeforeTolerance());
+		digest.updateWithInt(value.getAfterTolerance());
+		digest.updateWithInt(value.getTimezoneOffset());
+
+		return PREFIX_WIKIDATA_VALUE + digest.digestToHex();
 	}
 
 	public static String getGlobeCoordinatesValueUri(GlobeCoordinatesValue value) {
-		md.reset();
-		updateMessageDigestWithString(md, value.getGlobe());
-		updateMessageDigestWithLong(md, Double.valueOf(value.getLatitude())
-				.hashCode());
-		updateMessageDigestWithLong(md, Double.valueOf(value.getLongitude())
-				.hashCode());
-		updateMessageDigestWithLong(md, Double.valueOf(value.getPrecision())
-				.hashCode());
+		UriDigest digest = UriDigest.start();
+		digest.updateWithString(value.getGlobe());
+		digest.updateWithLong(Double.hashCode(value.getLatitude()));
+		digest.updateWithLong(Double.hashCode(value.getLongitude()));
+		digest.updateWithLong(Double.hashCode(value.getPrecision()));
 
-		return PREFIX_WIKIDATA_VALUE + bytesToHex(md.digest());
+		return PREFIX_WIKIDATA_VALUE + digest.digestToHex();
 	}
 
 	public static String getQuantityValueUri(QuantityValue value) {
-		md.reset();
-		updateMessageDigestWithInt(md, value.getNumericValue().hashCode());
+		UriDigest digest = UriDigest.start();
+		digest.updateWithInt(value.getNumericValue().hashCode());
 		if(value.getLowerBound() != null) {
-			updateMessageDigestWithInt(md, value.getLowerBound().hashCode());
+			digest.updateWithInt(value.getLowerBound().hashCode());
 		}
 		if(value.getUpperBound() != null) {
-			updateMessageDigestWithInt(md, value.getUpperBound().hashCode());
+			digest.updateWithInt(value.getUpperBound().hashCode());
 		}
-		updateMessageDigestWithInt(md, value.getUnit().hashCode());
+		digest.updateWithInt(value.getUnit().hashCode());
 
-		return PREFIX_WIKIDATA_VALUE + bytesToHex(md.digest());
+		return PREFIX_WIKIDATA_VALUE + digest.digestToHex();
 	}
 
 	public static String getStatementRankUri(StatementRank rank) {
@@ -610,27 +619,73 @@ public class Vocabulary {
 		}
 	}
 
-	static ByteBuffer longByteBuffer = ByteBuffer.allocate(Long.SIZE / 8);
+	/**
+	 * MD5 digest together with the buffers that are needed to feed it. An
+	 * instance must only be used by one thread.
+	 */
+	static final class UriDigest {
 
-	static void updateMessageDigestWithLong(MessageDigest md, long x) {
-		longByteBuffer.putLong(0, x);
-		longByteBuffer.rewind(); // important!
-		md.update(longByteBuffer);
-	}
+		final MessageDigest md;
+		final ByteBuffer longByteBuffer = ByteBuffer.allocate(Long.SIZE / 8);
+		final ByteBuffer intByteBuffer = ByteBuffer.allocate(Integer.SIZE / 8);
+		int[] snakHashes = new int[16];
 
-	static ByteBuffer intByteBuffer = ByteBuffer.allocate(Integer.SIZE / 8);
+		UriDigest() {
+			try {
+				md = MessageDigest.getInstance("MD5");
+			} catch (NoSuchAlgorithmException e) {
+				throw new RuntimeException(
+						"Your Java does not support MD5 hashes. You should be concerned.");
+			}
+		}
 
-	static void updateMessageDigestWithInt(MessageDigest md, int x) {
-		intByteBuffer.putInt(0, x);
-		intByteBuffer.rewind(); // important!
-		md.update(intByteBuffer);
-	}
+		/**
+		 * Returns the digest of the current thread, ready to compute a new
+		 * hash.
+		 */
+		static UriDigest start() {
+			UriDigest digest = DIGESTS.get();
+			digest.md.reset();
+			return digest;
+		}
+
+		void updateWithLong(long x) {
+			longByteBuffer.putLong(0, x);
+			longByteBuffer.rewind(); // important!
+			md.update(longByteBuffer);
+		}
+
+		void updateWithInt(int x) {
+			intByteBuffer.putInt(0, x);
+			intByteBuffer.rewind(); // important!
+			md.update(intByteBuffer);
+		}
+
+		void updateWithString(String s) {
+			if (s == null) {
+				return;
+			}
+			md.update(s.getBytes(StandardCharsets.UTF_8));
+		}
+
+		String digestToHex() {
+			return bytesToHex(md.digest());
+		}
 
-	static void updateMessageDigestWithString(MessageDigest md, String s) {
-		if (s == null) {
-			return;
+		/**
+		 * Returns an array that is large enough to hold the hashes of all
+		 * snaks of the given reference.
+		 */
+		int[] getSnakHashes(Reference reference) {
+			int size = 0;
+			for (SnakGroup snakGroup : reference.getSnakGroups()) {
+				size += snakGroup.size();
+			}
+			if (snakHashes.length < size) {
+				snakHashes = new int[Math.max(size, 2 * snakHashes.length)];
+			}
+			return snakHashes;
 		}
-		md.update(s.getBytes(StandardCharsets.UTF_8));
 	}
 
 	final protected static char[] hexArray = "0123456789abcdef".toCharArray();
@@ -137,6 +137,19 @@ public class AnyValueConverter implements
 		this.quantityValueConverter.writeAuxiliaryTriples();
 	}
 
+	/**
+	 * Writes the auxiliary triples of all values that have been spilled to
+	 * disk.
+	 *
+	 * @throws RDFHandlerException
+	 *             if there was a problem writing the triples
+	 */
+	public void writeSpilledValues() throws RDFHandlerException {
+		this.globeCoordinatesValueConverter.writeSpilledValues();
+		this.timeValueConverter.writeSpilledValues();
+		this.quantityValueConverter.writeSpilledValues();
+	}
+
 	@Override
 	public Value visit(UnsupportedValue value) {
 		return this.rdfWriter.getFreshBNode();
@@ -20,16 +20,25 @@ package org.wikidata.wdtk.rdf.values;
  * #L%
  */
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.ValueImpl;
 import org.wikidata.wdtk.rdf.OwlDeclarationBuffer;
 import org.wikidata.wdtk.rdf.PropertyRegister;
 import org.wikidata.wdtk.rdf.RdfWriter;
+import org.wikidata.wdtk.rdf.SortedRunBuffer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
 
 public abstract class BufferedValueConverter<V extends org.wikidata.wdtk.datamodel.interfaces.Value>
 		extends AbstractValueConverter<V> {
@@ -38,12 +47,76 @@ public abstract class BufferedValueConverter<V extends org.wikidata.wdtk.datamod
 	final List<Resource> valueSubjectQueue = new ArrayList<>();
 	final HashSet<Resource> declaredValues = new HashSet<>();
 
+	/**
+	 * Maximal number of values whose value nodes are cached.
+	 */
+	static final int VALUE_NODE_CACHE_SIZE = 10000;
+
+	/**
+	 * Value node of a value, and whether the value has been added to the
+	 * values that should be serialized.
+	 */
+	static class ValueNode {
+		final IRI iri;
+		boolean added = false;
+
+		ValueNode(IRI iri) {
+			this.iri = iri;
+		}
+	}
+
+	/**
+	 * Value nodes of recently used values, so that the hashes of frequent
+	 * values are not computed again. The map is kept in access order and
+	 * thus works as a least recently used cache.
+	 */
+	final Map<V, ValueNode> valueNodes = new LinkedHashMap<V, ValueNode>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<V, ValueNode> eldest) {
+			return size() > VALUE_NODE_CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Values that have been spilled to disk, as JSON serializations keyed by
+	 * the IRIs of their value nodes. Only used if the
+	 * {@link OwlDeclarationBuffer} spills to disk.
+	 */
+	SortedRunBuffer spilledValues = null;
+	DatamodelMapper mapper = null;
+
 	public BufferedValueConverter(RdfWriter rdfWriter,
 			PropertyRegister propertyRegister,
 			OwlDeclarationBuffer rdfConversionBuffer) {
 		super(rdfWriter, propertyRegister, rdfConversionBuffer);
 	}
 
+	/**
+	 * Returns the value node of the given value, and adds the value to the
+	 * values that should still be serialized unless this was done before.
+	 * Values that are no longer cached are still only serialized once, since
+	 * {@link #writeAuxiliaryTriples()} checks all value nodes again.
+	 *
+	 * @param value
+	 *            the value to be serialized
+	 * @return the IRI of the value node
+	 */
+	IRI addValue(V value) {
+		ValueNode valueNode = this.valueNodes.get(value);
+		if (valueNode == null) {
+			valueNode = new ValueNode(this.rdfWriter.getUri(getValueUri(value)));
+			this.valueNodes.put(value, valueNode);
+		}
+		if (!valueNode.added) {
+			valueNode.added = true;
+			addValue(value, valueNode.iri);
+		}
+		return valueNode.iri;
+	}
+
 	/**
 	 * Adds the given value to the list of values that should still be
 	 * serialized. The given RDF resource will be used as a subject.
@@ -54,8 +127,12 @@ public abstract class BufferedValueConverter<V extends org.wikidata.wdtk.datamod
 	 *            the RDF resource that is used as a subject for serialization
 	 */
 	void addValue(V value, Resource resource) {
-		this.valueQueue.add(value);
-		this.valueSubjectQueue.add(resource);
+		if (this.rdfConversionBuffer.isSpillingToDisk()) {
+			spillValue(value, resource);
+		} else {
+			this.valueQueue.add(value);
+			this.valueSubjectQueue.add(resource);
+		}
 	}
 
 	@Override
@@ -72,6 +149,53 @@ public abstract class BufferedValueConverter<V extends org.wikidata.wdtk.datamod
 		this.valueQueue.clear();
 	}
 
+	/**
+	 * Writes the triples for all values that have been spilled to disk,
+	 * sorted by the IRIs of their value nodes and without duplicates.
+	 *
+	 * @throws RDFHandlerException
+	 *             if there was a problem writing the triples
+	 */
+	@SuppressWarnings("unchecked")
+	public void writeSpilledValues() throws RDFHandlerException {
+		if (this.spilledValues == null) {
+			return;
+		}
+		this.spilledValues.merge((iri, json) -> {
+			V value;
+			try {
+				value = (V) this.mapper.readValue(json, ValueImpl.class);
+			} catch (IOException e) {
+				throw new RDFHandlerException("Could not read spilled value "
+						+ json, e);
+			}
+			writeValue(value, this.rdfWriter.getUri(iri));
+		});
+	}
+
+	private void spillValue(V value, Resource resource) {
+		if (this.spilledValues == null) {
+			this.spilledValues = new SortedRunBuffer(
+					SortedRunBuffer.DEFAULT_RUN_SIZE);
+			this.mapper = new DatamodelMapper(
+					this.propertyRegister.getUriPrefix());
+		}
+		try {
+			this.spilledValues.add(resource.stringValue(),
+					this.mapper.writeValueAsString(value));
+		} catch (JsonProcessingException e) {
+			throw new RDFHandlerException("Could not spill value " + value, e);
+		}
+	}
+
+	/**
+	 * Computes the IRI of the value node of the given value.
+	 *
+	 * @param value
+	 * @return the IRI as a string
+	 */
+	protected abstract String getValueUri(V value);
+
 	/**
 	 * Writes the triples for a single value, using the given resource as
 	 * subject.
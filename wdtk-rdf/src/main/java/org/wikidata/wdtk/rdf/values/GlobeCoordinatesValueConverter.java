@@ -53,11 +53,8 @@ public class GlobeCoordinatesValueConverter extends
 			if (simple) {
 				return getSimpleGeoValue(value);
 			} else {
-				IRI valueUri = this.rdfWriter.getUri(Vocabulary.getGlobeCoordinatesValueUri(value));
 				this.rdfConversionBuffer.addObjectProperty(propertyIdValue);
-				addValue(value, valueUri);
-
-				return valueUri;
+				return addValue(value);
 			}
 		default:
 			logIncompatibleValueError(propertyIdValue, datatype,
@@ -66,6 +63,11 @@ public class GlobeCoordinatesValueConverter extends
 		}
 	}
 
+	@Override
+	protected String getValueUri(GlobeCoordinatesValue value) {
+		return Vocabulary.getGlobeCoordinatesValueUri(value);
+	}
+
 	@Override
 	public void writeValue(GlobeCoordinatesValue value, Resource resource)
 			throws RDFHandlerException {
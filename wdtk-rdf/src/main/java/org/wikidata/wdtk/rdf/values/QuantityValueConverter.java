@@ -21,7 +21,6 @@ package org.wikidata.wdtk.rdf.values;
  */
 
 import org.eclipse.rdf4j.model.Resource;
-import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
 import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
@@ -54,12 +53,8 @@ public class QuantityValueConverter extends
 				return this.rdfWriter.getLiteral(value.getNumericValue()
 						.toPlainString(), RdfWriter.XSD_DECIMAL);
 			} else {
-				IRI valueUri = this.rdfWriter.getUri(Vocabulary.getQuantityValueUri(value));
-
 				this.rdfConversionBuffer.addObjectProperty(propertyIdValue);
-				addValue(value, valueUri);
-
-				return valueUri;
+				return addValue(value);
 			}
 		default:
 			logIncompatibleValueError(propertyIdValue, datatype, "quantity");
@@ -67,6 +62,11 @@ public class QuantityValueConverter extends
 		}
 	}
 
+	@Override
+	protected String getValueUri(QuantityValue value) {
+		return Vocabulary.getQuantityValueUri(value);
+	}
+
 	@Override
 	public void writeValue(QuantityValue value, Resource resource)
 			throws RDFHandlerException {
@@ -22,7 +22,6 @@ package org.wikidata.wdtk.rdf.values;
 
 import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Resource;
-import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
 import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
@@ -56,11 +55,8 @@ public class TimeValueConverter extends BufferedValueConverter<TimeValue> {
 				this.rdfConversionBuffer.addDatatypeProperty(propertyIdValue);
 				return TimeValueConverter.getTimeLiteral(value, this.rdfWriter);
 			} else {
-				IRI valueUri = this.rdfWriter.getUri(Vocabulary.getTimeValueUri(value));
 				this.rdfConversionBuffer.addObjectProperty(propertyIdValue);
-				addValue(value, valueUri);
-
-				return valueUri;
+				return addValue(value);
 			}
 		default:
 			logIncompatibleValueError(propertyIdValue, datatype, "time");
@@ -68,6 +64,11 @@ public class TimeValueConverter extends BufferedValueConverter<TimeValue> {
 		}
 	}
 
+	@Override
+	protected String getValueUri(TimeValue value) {
+		return Vocabulary.getTimeValueUri(value);
+	}
+
 	/**
 	 * Write the auxiliary RDF data for encoding the given value.
 	 *
@@ -0,0 +1,98 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.junit.Test;
+
+public class CompactRdfReaderTest {
+
+	static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	@Test
+	public void testTerms() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RdfWriter writer = new CompactRdfWriter(out);
+		writer.start();
+		IRI subject = factory.createIRI("http://example.org/b");
+		writer.writeTripleValueObject(subject, RdfWriter.RDFS_LABEL,
+				factory.createLiteral("label", "en"));
+		writer.writeTripleValueObject(subject, RdfWriter.RDF_TYPE,
+				factory.createIRI("http://example.org/a"));
+		writer.finish();
+
+		CompactRdfReader reader = new CompactRdfReader(new ByteArrayInputStream(
+				out.toByteArray()));
+		// terms are sorted by their N-Triples serialization
+		assertEquals(5, reader.getTermCount());
+		assertEquals(factory.createLiteral("label", "en"), reader.getTerm(0));
+		assertEquals(factory.createIRI("http://example.org/a"), reader.getTerm(1));
+		assertEquals(subject, reader.getTerm(2));
+		assertEquals(RdfWriter.RDF_TYPE, reader.getTerm(3));
+		assertEquals(RdfWriter.RDFS_LABEL, reader.getTerm(4));
+	}
+
+	@Test(expected = IOException.class)
+	public void testWrongMagic() throws IOException {
+		new CompactRdfReader(new ByteArrayInputStream(
+				"NOTRDF12345678901234".getBytes()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownTerm() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RdfWriter writer = new CompactRdfWriter(out);
+		writer.start();
+		writer.finish();
+		new CompactRdfReader(new ByteArrayInputStream(out.toByteArray()))
+				.getTerm(0);
+	}
+
+	@Test
+	public void testBits() throws IOException {
+		Random random = new Random(3);
+		long[] values = new long[1000];
+		int[] bits = new int[values.length];
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CompactRdfWriter.BitWriter bitWriter = new CompactRdfWriter.BitWriter(out);
+		for (int i = 0; i < values.length; i++) {
+			bits[i] = 1 + random.nextInt(63);
+			values[i] = random.nextLong() >>> (64 - bits[i]);
+			bitWriter.write(values[i], bits[i]);
+		}
+		bitWriter.flush();
+
+		CompactRdfReader.BitReader bitReader = new CompactRdfReader.BitReader(
+				new ByteArrayInputStream(out.toByteArray()));
+		for (int i = 0; i < values.length; i++) {
+			assertEquals(values[i], bitReader.read(bits[i]));
+		}
+	}
+}
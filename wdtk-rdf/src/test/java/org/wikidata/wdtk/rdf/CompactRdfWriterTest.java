@@ -0,0 +1,148 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.helpers.StatementCollector;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+
+public class CompactRdfWriterTest {
+
+	final TestObjectFactory objectFactory = new TestObjectFactory();
+
+	static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	static Model readModel(byte[] bytes) throws IOException {
+		Model model = new LinkedHashModel();
+		new CompactRdfReader(new ByteArrayInputStream(bytes))
+				.read(new StatementCollector(model));
+		return model;
+	}
+
+	@Test
+	public void testSerialization() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RdfSerializer serializer = new RdfSerializer(
+				CompactRdfWriter.COMPACT_RDF, out, new SitesImpl(),
+				new MockPropertyRegister());
+		serializer.open();
+		serializer.processItemDocument(this.objectFactory.createItemDocument());
+		serializer.close();
+
+		assertEquals(RdfTestHelpers.parseRdf(RdfTestHelpers
+				.getResourceFromFile("completeRDFDocument.rdf")),
+				readModel(out.toByteArray()));
+	}
+
+	@Test
+	public void testManyRuns() throws IOException {
+		Resource subject = factory.createIRI("http://example.org/subject");
+		IRI predicate = factory.createIRI("http://example.org/predicate");
+		Random random = new Random(42);
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		RdfWriter nTriplesWriter = new NTriplesRdfWriter(expected);
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		// small runs, so that there are many more than the runs merged at once
+		RdfWriter compactWriter = new CompactRdfWriter(actual, 2000);
+		nTriplesWriter.start();
+		compactWriter.start();
+		for (int i = 0; i < 300; i++) {
+			String text = "text " + random.nextInt(50) + " é中😀";
+			for (RdfWriter writer : new RdfWriter[] { nTriplesWriter, compactWriter }) {
+				writer.writeTripleStringObject(subject, predicate, text);
+				writer.writeTripleValueObject(subject, RdfWriter.RDFS_LABEL,
+						factory.createLiteral(text, "en"));
+				writer.writeTripleUriObject("http://example.org/" + i,
+						predicate, "http://example.org/" + (i % 17));
+				writer.writeTripleValueObject(factory.createBNode("b" + i),
+						RdfWriter.RDF_TYPE, subject);
+			}
+		}
+		nTriplesWriter.finish();
+		compactWriter.finish();
+
+		assertEquals(Rio.parse(new ByteArrayInputStream(expected.toByteArray()),
+				"", RDFFormat.NTRIPLES), readModel(actual.toByteArray()));
+
+		// duplicate triples are kept
+		List<Statement> statements = new ArrayList<>();
+		new CompactRdfReader(new ByteArrayInputStream(actual.toByteArray()))
+				.read(new StatementCollector(statements));
+		assertEquals(compactWriter.getTripleCount(), statements.size());
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RdfWriter writer = new CompactRdfWriter(out);
+		writer.start();
+		writer.finish();
+		assertEquals(0, readModel(out.toByteArray()).size());
+	}
+
+	@Test
+	public void testNoRestart() {
+		assertFalse(new CompactRdfWriter(new ByteArrayOutputStream())
+				.supportsRestart());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoParallelSerialization() {
+		new ParallelRdfSerializer(CompactRdfWriter.COMPACT_RDF,
+				new ByteArrayOutputStream(), new SitesImpl(),
+				new MockPropertyRegister(), 2);
+	}
+
+	@Test
+	public void testBitsPerId() {
+		assertEquals(1, CompactRdfWriter.getBitsPerId(0));
+		assertEquals(1, CompactRdfWriter.getBitsPerId(2));
+		assertEquals(2, CompactRdfWriter.getBitsPerId(3));
+		assertEquals(8, CompactRdfWriter.getBitsPerId(256));
+		assertEquals(9, CompactRdfWriter.getBitsPerId(257));
+	}
+
+	@Test
+	public void testFixedHex() {
+		assertEquals("0000000000000000", CompactRdfWriter.toFixedHex(0));
+		assertEquals("00000000000000ff", CompactRdfWriter.toFixedHex(255));
+	}
+}
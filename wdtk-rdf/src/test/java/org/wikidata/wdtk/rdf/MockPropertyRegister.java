@@ -59,12 +59,9 @@ public class MockPropertyRegister extends PropertyRegister {
 
 		public WithNullPropertyTypes() {
 			super();
-			Map<String, String> NULL_PROPERTY_TYPES = new HashMap<>();
-			for (Map.Entry<String, String> e : KNOWN_PROPERTY_TYPES.entrySet()) {
-				NULL_PROPERTY_TYPES.put(e.getKey(), null);
-			}
-			this.datatypes.putAll(NULL_PROPERTY_TYPES);
-			this.uriPatterns.putAll(KNOWN_URI_PATTERNS);
+			// the types are known to be missing, so that they are not fetched
+			this.datatypes.clear();
+			this.knownMissing.addAll(KNOWN_PROPERTY_TYPES.keySet());
 
 		}
 	}
@@ -0,0 +1,171 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+
+public class NTriplesRdfWriterTest {
+
+	final TestObjectFactory objectFactory = new TestObjectFactory();
+
+	/**
+	 * Blank nodes are numbered, so that both writers get the same ones.
+	 */
+	static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	/**
+	 * Writes the same triples with the given writer.
+	 */
+	interface TripleSource {
+		void write(RdfWriter writer);
+	}
+
+	private static void assertSameOutput(TripleSource source) {
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		RdfWriter rdf4jWriter = new RdfWriter(RDFFormat.NTRIPLES, expected) {
+			int bNodeCount = 0;
+
+			@Override
+			public BNode getFreshBNode() {
+				return factory.createBNode("b" + bNodeCount++);
+			}
+		};
+		rdf4jWriter.start();
+		source.write(rdf4jWriter);
+		rdf4jWriter.finish();
+
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		RdfWriter directWriter = new NTriplesRdfWriter(actual) {
+			int bNodeCount = 0;
+
+			@Override
+			public BNode getFreshBNode() {
+				return factory.createBNode("b" + bNodeCount++);
+			}
+		};
+		directWriter.start();
+		source.write(directWriter);
+		directWriter.finish();
+
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(rdf4jWriter.getTripleCount(), directWriter.getTripleCount());
+	}
+
+	private static String randomString(Random random, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			switch (random.nextInt(4)) {
+			case 0:
+				builder.append((char) random.nextInt(128));
+				break;
+			case 1:
+				builder.append((char) (128 + random.nextInt(128)));
+				break;
+			case 2:
+				builder.appendCodePoint(0x10000 + random.nextInt(0x1000));
+				break;
+			default:
+				// includes unpaired surrogates
+				builder.append((char) random.nextInt(0x10000));
+			}
+		}
+		return builder.toString();
+	}
+
+	@Test
+	public void testDocuments() {
+		assertSameOutput(writer -> {
+			RdfConverter converter = new RdfConverter(writer, new SitesImpl(),
+					new MockPropertyRegister());
+			converter.writeNamespaceDeclarations();
+			converter.writeBasicDeclarations();
+			converter.writeItemDocument(this.objectFactory.createItemDocument());
+			converter.writePropertyDocument(this.objectFactory.createEmptyPropertyDocument());
+		});
+	}
+
+	@Test
+	public void testRandomStrings() {
+		Resource subject = factory.createIRI("http://example.org/subject");
+		IRI predicate = factory.createIRI("http://example.org/predicate");
+		assertSameOutput(writer -> {
+			Random random = new Random(42);
+			for (int i = 0; i < 1000; i++) {
+				String s = randomString(random, random.nextInt(20));
+				writer.writeTripleStringObject(subject, predicate, s);
+				writer.writeTripleValueObject(subject, predicate,
+						factory.createLiteral(s, "en"));
+				writer.writeTripleLiteralObject(subject, predicate, s,
+						RdfWriter.XSD_DECIMAL);
+				writer.writeTripleUriObject("http://example.org/" + s, predicate,
+						"urn:" + s);
+				writer.writeTripleValueObject(factory.createBNode(s),
+						RdfWriter.RDF_TYPE, factory.createIRI("http://example.org/", s));
+			}
+		});
+	}
+
+	@Test
+	public void testTypedLiterals() {
+		Resource subject = factory.createIRI("http://example.org/subject");
+		assertSameOutput(writer -> {
+			writer.writeTripleIntegerObject(subject, RdfWriter.WB_TIME_PRECISION, 11);
+			writer.writeTripleLiteralObject(subject, RdfWriter.WB_TIME,
+					"+2020-01-01T00:00:00Z", RdfWriter.XSD_DATETIME);
+			writer.writeTripleLiteralObject(subject, RdfWriter.RDFS_LABEL,
+					"string", RdfWriter.XSD_STRING);
+			writer.writeTripleValueObject(subject, RdfWriter.RDFS_SEE_ALSO,
+					writer.getLiteral("text", factory.createIRI("http://example.org/type")));
+		});
+	}
+
+	@Test
+	public void testOutputAcrossBuffers() {
+		Resource subject = factory.createIRI("http://example.org/subject");
+		String label = randomString(new Random(7), 1000);
+		assertSameOutput(writer -> {
+			for (int i = 0; i < 500; i++) {
+				writer.writeTripleValueObject(subject, RdfWriter.RDFS_LABEL,
+						writer.getLiteral(label, "de"));
+			}
+		});
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidIri() {
+		RdfWriter writer = new NTriplesRdfWriter(new ByteArrayOutputStream());
+		writer.start();
+		writer.writeTripleUriObject("http://example.org/", RdfWriter.RDF_TYPE,
+				"not an IRI");
+	}
+}
@@ -0,0 +1,194 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentDumpProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+
+public class ParallelRdfSerializerTest {
+
+	final TestObjectFactory objectFactory = new TestObjectFactory();
+
+	private List<EntityDocument> createDocuments() {
+		List<EntityDocument> documents = new ArrayList<>();
+		documents.add(this.objectFactory.createItemDocument());
+		for (int i = 1; i <= 20; i++) {
+			ItemIdValue itemIdValue = this.objectFactory.createItemIdValue("Q" + i);
+			documents.add(ItemDocumentBuilder.forItemId(itemIdValue)
+					.withLabel("Item " + i, "en")
+					.withStatement(StatementBuilder
+							.forSubjectAndProperty(itemIdValue,
+									this.objectFactory.createPropertyIdValue("P549"))
+							.withValue(Datamodel.makeStringValue("Value " + i))
+							.withId("Q" + i + "$1")
+							.build())
+					.build());
+			if (i == 10) {
+				documents.add(this.objectFactory.createEmptyPropertyDocument());
+			}
+		}
+		return documents;
+	}
+
+	private static void feed(List<EntityDocument> documents,
+			EntityDocumentDumpProcessor processor) {
+		processor.open();
+		for (EntityDocument document : documents) {
+			if (document instanceof ItemDocument) {
+				processor.processItemDocument((ItemDocument) document);
+			} else {
+				processor.processPropertyDocument((PropertyDocument) document);
+			}
+		}
+		processor.close();
+	}
+
+	private String serializeSequentially(List<EntityDocument> documents) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RdfSerializer serializer = new RdfSerializer(RDFFormat.TURTLE, out,
+				new SitesImpl(), new MockPropertyRegister());
+		feed(documents, serializer);
+		return out.toString();
+	}
+
+	private ParallelRdfSerializer serializeInParallel(List<EntityDocument> documents,
+			RDFFormat format, int threads, boolean ordered, ByteArrayOutputStream out) {
+		ParallelRdfSerializer serializer = new ParallelRdfSerializer(format,
+				out, new SitesImpl(), new MockPropertyRegister(), threads);
+		serializer.setBatchSize(3);
+		serializer.setOrderedOutput(ordered);
+		feed(documents, serializer);
+		return serializer;
+	}
+
+	@Test
+	public void testSameTriplesAsSequentialTurtle() throws IOException {
+		List<EntityDocument> documents = createDocuments();
+		Model expected = RdfTestHelpers.parseRdf(serializeSequentially(documents));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializeInParallel(documents, RDFFormat.TURTLE, 4, true, out);
+		assertEquals(expected, RdfTestHelpers.parseRdf(out.toString()));
+	}
+
+	@Test
+	public void testSameTriplesAsSequentialNTriples() throws IOException {
+		List<EntityDocument> documents = createDocuments();
+		Model expected = RdfTestHelpers.parseRdf(serializeSequentially(documents));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializeInParallel(documents, RDFFormat.NTRIPLES, 4, false, out);
+		// N-Triples is a subset of Turtle
+		assertEquals(expected, RdfTestHelpers.parseRdf(out.toString()));
+	}
+
+	@Test
+	public void testOrderedOutput() throws IOException {
+		List<EntityDocument> documents = createDocuments();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializeInParallel(documents, RDFFormat.TURTLE, 3, true, out);
+		String output = out.toString();
+
+		int previous = -1;
+		for (int i = 1; i <= 20; i++) {
+			int position = output.indexOf("\"Item " + i + "\"@en");
+			assertTrue(position > previous);
+			previous = position;
+		}
+	}
+
+	@Test
+	public void testDeclarationsAreWrittenOnce() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializeInParallel(createDocuments(), RDFFormat.NTRIPLES, 4, false, out);
+		String output = out.toString();
+
+		String declaration = "<" + Vocabulary.getPropertyUri(
+				this.objectFactory.createPropertyIdValue("P549"),
+				PropertyContext.STATEMENT) + "> <" + Vocabulary.RDF_TYPE
+				+ "> <" + Vocabulary.OWL_OBJECT_PROPERTY + "> .";
+		int first = output.indexOf(declaration);
+		assertTrue(first >= 0);
+		assertEquals(-1, output.indexOf(declaration, first + 1));
+	}
+
+	@Test
+	public void testTripleCount() {
+		List<EntityDocument> documents = createDocuments();
+		ByteArrayOutputStream sequentialOut = new ByteArrayOutputStream();
+		RdfSerializer sequential = new RdfSerializer(RDFFormat.NTRIPLES,
+				sequentialOut, new SitesImpl(), new MockPropertyRegister());
+		feed(documents, sequential);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParallelRdfSerializer parallel = serializeInParallel(documents,
+				RDFFormat.NTRIPLES, 2, true, out);
+		assertEquals(sequential.getTripleCount(), parallel.getTripleCount());
+		assertEquals(out.toString().split("\n").length, parallel.getTripleCount());
+	}
+
+	@Test
+	public void testFailedBatchStopsThreads() {
+		List<EntityDocument> documents = createDocuments();
+		documents.add(5, (ItemDocument) Proxy.newProxyInstance(
+				ItemDocument.class.getClassLoader(),
+				new Class<?>[] { ItemDocument.class }, (proxy, method, args) -> {
+					throw new IllegalStateException("Broken document");
+				}));
+		ParallelRdfSerializer serializer = new ParallelRdfSerializer(RDFFormat.NTRIPLES,
+				new ByteArrayOutputStream(), new SitesImpl(), new MockPropertyRegister(), 2);
+		serializer.setBatchSize(3);
+
+		try {
+			feed(documents, serializer);
+			fail("Expected the serialization to fail");
+		} catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertTrue(serializer.executor.isShutdown());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedFormat() {
+		new ParallelRdfSerializer(RDFFormat.RDFXML, new ByteArrayOutputStream(),
+				new SitesImpl(), new MockPropertyRegister(), 2);
+	}
+}
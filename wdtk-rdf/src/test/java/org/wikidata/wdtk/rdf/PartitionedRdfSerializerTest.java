@@ -0,0 +1,245 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.Rio;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelFilter;
+import org.wikidata.wdtk.datamodel.implementation.DataObjectFactoryImpl;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+import org.wikidata.wdtk.datamodel.interfaces.DocumentDataFilter;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.util.CompressionType;
+
+public class PartitionedRdfSerializerTest {
+
+	final TestObjectFactory objectFactory = new TestObjectFactory();
+
+	final ItemDocument item = this.objectFactory.createItemDocument();
+	final PropertyDocument property = this.objectFactory
+			.createEmptyPropertyDocument();
+
+	static Model parse(InputStream input) throws IOException {
+		return Rio.parse(input, "", RDFFormat.NTRIPLES);
+	}
+
+	static Model parse(ByteArrayOutputStream out) throws IOException {
+		return parse(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	/**
+	 * Serializes the given documents with a single {@link RdfSerializer}.
+	 */
+	static Model serialize(int tasks, List<EntityDocument> documents)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RdfSerializer serializer = new RdfSerializer(RDFFormat.NTRIPLES, out,
+				new SitesImpl(), new MockPropertyRegister());
+		serializer.setTasks(tasks);
+		serializer.open();
+		for (EntityDocument document : documents) {
+			if (document instanceof ItemDocument) {
+				serializer.processItemDocument((ItemDocument) document);
+			} else {
+				serializer.processPropertyDocument((PropertyDocument) document);
+			}
+		}
+		serializer.close();
+		return parse(out);
+	}
+
+	PartitionedRdfSerializer createSerializer() {
+		return new PartitionedRdfSerializer(RDFFormat.NTRIPLES,
+				new SitesImpl(), new MockPropertyRegister());
+	}
+
+	void processDocuments(PartitionedRdfSerializer serializer) {
+		serializer.open();
+		serializer.processItemDocument(this.item);
+		serializer.processPropertyDocument(this.property);
+		serializer.close();
+	}
+
+	@Test
+	public void testPartitionsByTask() throws IOException {
+		int labelTasks = RdfSerializer.TASK_ALL_ENTITIES
+				| RdfSerializer.TASK_LABELS;
+		int siteLinkTasks = RdfSerializer.TASK_ITEMS
+				| RdfSerializer.TASK_SITELINKS;
+		PartitionedRdfSerializer serializer = createSerializer();
+		ByteArrayOutputStream labels = new ByteArrayOutputStream();
+		ByteArrayOutputStream siteLinks = new ByteArrayOutputStream();
+		serializer.addPartition("labels", labels).setTasks(labelTasks);
+		serializer.addPartition("sitelinks", siteLinks).setTasks(siteLinkTasks);
+		processDocuments(serializer);
+
+		List<EntityDocument> documents = Arrays.asList(this.item, this.property);
+		assertEquals(serialize(labelTasks, documents), parse(labels));
+		assertEquals(serialize(siteLinkTasks, documents), parse(siteLinks));
+		assertEquals(labelTasks, serializer.getPartitions().get(0).getTasks());
+	}
+
+	@Test
+	public void testPartitionsByIdRange() throws IOException {
+		PartitionedRdfSerializer serializer = createSerializer();
+		ByteArrayOutputStream low = new ByteArrayOutputStream();
+		ByteArrayOutputStream high = new ByteArrayOutputStream();
+		serializer.addPartition("low", low).setEntityIdRange(1, 9);
+		serializer.addPartition("high", high).setEntityIdRange(10, 19);
+		processDocuments(serializer);
+
+		int tasks = serializer.getPartitions().get(0).getTasks();
+		assertEquals(serialize(tasks, Collections.singletonList(this.property)),
+				parse(low));
+		assertEquals(serialize(tasks, Collections.singletonList(this.item)),
+				parse(high));
+		assertEquals(serializer.getPartitions().get(0).getTripleCount()
+				+ serializer.getPartitions().get(1).getTripleCount(),
+				serializer.getTripleCount());
+	}
+
+	@Test
+	public void testPartitionByProperty() throws IOException {
+		PropertyIdValue p569 = this.objectFactory
+				.createPropertyIdValue("P569");
+		PartitionedRdfSerializer serializer = createSerializer();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializer.addPartition("P569", out).setPropertyFilter(
+				Collections.singleton(p569));
+		processDocuments(serializer);
+
+		DocumentDataFilter filter = new DocumentDataFilter();
+		filter.setPropertyFilter(Collections.singleton(p569));
+		ItemDocument filteredItem = new DatamodelFilter(
+				new DataObjectFactoryImpl(), filter).filter(this.item);
+		assertEquals(1, filteredItem.getStatementGroups().size());
+		int tasks = serializer.getPartitions().get(0).getTasks();
+		assertEquals(serialize(tasks, Arrays.asList(filteredItem, this.property)),
+				parse(out));
+	}
+
+	@Test
+	public void testCompressedPartition() throws IOException {
+		PartitionedRdfSerializer serializer = createSerializer();
+		ByteArrayOutputStream plain = new ByteArrayOutputStream();
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		serializer.addPartition("plain", plain, CompressionType.NONE);
+		serializer.addPartition("compressed", compressed, CompressionType.GZIP);
+		processDocuments(serializer);
+
+		assertEquals(parse(plain), parse(new GZIPInputStream(
+				new ByteArrayInputStream(compressed.toByteArray()))));
+	}
+
+	@Test
+	public void testManyDocuments() throws IOException {
+		PartitionedRdfSerializer serializer = createSerializer();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializer.addPartition("all", out);
+		serializer.open();
+		List<EntityDocument> documents = new ArrayList<>();
+		for (int i = 0; i < 3 * PartitionedRdfSerializer.BATCH_SIZE; i++) {
+			serializer.processItemDocument(this.item);
+			documents.add(this.item);
+		}
+		serializer.close();
+
+		int tasks = serializer.getPartitions().get(0).getTasks();
+		assertEquals(serialize(tasks, documents), parse(out));
+	}
+
+	@Test
+	public void testFailedPartitionIsClosed() {
+		AtomicBoolean closed = new AtomicBoolean(false);
+		ByteArrayOutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public void close() {
+				closed.set(true);
+			}
+		};
+		ItemDocument broken = (ItemDocument) Proxy.newProxyInstance(
+				ItemDocument.class.getClassLoader(),
+				new Class<?>[] { ItemDocument.class }, (proxy, method, args) -> {
+					throw new IllegalStateException("Broken document");
+				});
+		PartitionedRdfSerializer serializer = createSerializer();
+		serializer.addPartition("broken", out);
+		serializer.open();
+		serializer.processItemDocument(broken);
+		// later batches are discarded without blocking
+		for (int i = 0; i < 3 * PartitionedRdfSerializer.BATCH_SIZE; i++) {
+			try {
+				serializer.processItemDocument(this.item);
+			} catch (RuntimeException e) {
+				break;
+			}
+		}
+
+		try {
+			serializer.close();
+			fail("Expected the partition to fail");
+		} catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertTrue(closed.get());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAddPartitionAfterOpen() {
+		PartitionedRdfSerializer serializer = createSerializer();
+		serializer.open();
+		serializer.addPartition("late", new ByteArrayOutputStream());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyIdRange() {
+		createSerializer().addPartition("empty", new ByteArrayOutputStream())
+				.setEntityIdRange(10, 9);
+	}
+
+	@Test
+	public void testNumericId() {
+		assertEquals(42, PartitionedRdfSerializer.getNumericId("Q42"));
+		assertEquals(7, PartitionedRdfSerializer.getNumericId("L7-F1"));
+		assertEquals(-1, PartitionedRdfSerializer.getNumericId("Q"));
+	}
+}
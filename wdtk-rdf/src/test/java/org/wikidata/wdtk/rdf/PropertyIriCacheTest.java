@@ -0,0 +1,73 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+
+public class PropertyIriCacheTest {
+
+	final PropertyIriCache cache = new PropertyIriCache(new NTriplesRdfWriter(
+			new ByteArrayOutputStream()));
+
+	@Test
+	public void testIrisMatchVocabulary() {
+		for (String id : new String[] { "P1", "P31", "P1023", "P123456",
+				"P0", "P01", "P99999999" }) {
+			PropertyIdValue property = Datamodel.makeWikidataPropertyIdValue(id);
+			for (PropertyContext context : PropertyContext.values()) {
+				IRI iri = this.cache.getPropertyIri(property, context);
+				assertEquals(Vocabulary.getPropertyUri(property, context),
+						iri.stringValue());
+				assertEquals(iri, this.cache.getPropertyIri(property, context));
+			}
+		}
+	}
+
+	@Test
+	public void testIrisAreReused() {
+		PropertyIdValue property = Datamodel.makeWikidataPropertyIdValue("P31");
+		IRI iri = this.cache.getPropertyIri(property, PropertyContext.DIRECT);
+		// growing the arrays keeps the cached IRIs
+		this.cache.getPropertyIri(Datamodel.makeWikidataPropertyIdValue("P5000"),
+				PropertyContext.DIRECT);
+		assertSame(iri, this.cache.getPropertyIri(
+				Datamodel.makeWikidataPropertyIdValue("P31"),
+				PropertyContext.DIRECT));
+	}
+
+	@Test
+	public void testNumericId() {
+		assertEquals(31, PropertyIriCache.getNumericId("P31"));
+		assertEquals(-1, PropertyIriCache.getNumericId("P031"));
+		assertEquals(-1, PropertyIriCache.getNumericId("P"));
+		assertEquals(-1, PropertyIriCache.getNumericId("Q31"));
+		assertEquals(-1, PropertyIriCache.getNumericId("P3a"));
+		assertEquals(-1, PropertyIriCache.getNumericId("P" + PropertyIriCache.MAX_CACHED_ID));
+	}
+}
@@ -24,7 +24,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import org.hamcrest.core.IsCollectionContaining;
@@ -38,6 +41,7 @@ import org.wikidata.wdtk.datamodel.interfaces.DataObjectFactory;
 import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.DocumentDataFilter;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
 import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
@@ -55,9 +59,10 @@ public class PropertyRegisterTest {
 	final TestObjectFactory objectFactory = new TestObjectFactory();
 	final DataObjectFactory dataObjectFactory = new DataObjectFactoryImpl();
 
+	final Map<String, EntityDocument> mockResult = new HashMap<>();
+
 	@Before
 	public void setUp() throws MediaWikiApiErrorException, IOException {
-		Map<String, EntityDocument> mockResult = new HashMap<>();
 		List<StatementGroup> mockStatementGroups = new ArrayList<>();
 
 		PropertyIdValue pid434 = dataObjectFactory.getPropertyIdValue("P434",
@@ -241,6 +246,71 @@ public class PropertyRegisterTest {
 				"http://wikiba.se/ontology#String");
 	}
 
+	@Test
+	public void testProcessPropertyDocuments() {
+		PropertyRegister register = new PropertyRegister("P1921", this.siteIri);
+		for (EntityDocument document : this.mockResult.values()) {
+			register.processPropertyDocument((PropertyDocument) document);
+		}
+
+		PropertyIdValue pid434 = dataObjectFactory.getPropertyIdValue("P434", this.siteIri);
+		assertEquals(DatatypeIdValue.DT_STRING, register.getPropertyType(pid434));
+		assertEquals("http://musicbrainz.org/$1/artist",
+				register.getPropertyUriPattern(pid434));
+		assertEquals(DatatypeIdValue.DT_ITEM, register.getPropertyType(
+				dataObjectFactory.getPropertyIdValue("P23", this.siteIri)));
+		assertNull(register.getPropertyUriPattern(
+				dataObjectFactory.getPropertyIdValue("P23", this.siteIri)));
+	}
+
+	@Test
+	public void testOfflineRegisterDoesNotFetch() {
+		PropertyRegister register = new PropertyRegister("P1921", this.siteIri);
+		assertNull(register.getPropertyType(dataObjectFactory
+				.getPropertyIdValue("P434", this.siteIri)));
+		assertNull(register.getPropertyUriPattern(dataObjectFactory
+				.getPropertyIdValue("P434", this.siteIri)));
+	}
+
+	@Test
+	public void testWriteAndReadPropertyInformation() throws IOException {
+		PropertyRegister register = new PropertyRegister("P1921", this.siteIri);
+		for (EntityDocument document : this.mockResult.values()) {
+			register.processPropertyDocument((PropertyDocument) document);
+		}
+		register.setPropertyType(dataObjectFactory.getPropertyIdValue("P9", this.siteIri),
+				"http://example.org/datatype");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		register.writePropertyInformation(out);
+		assertEquals("P23\tWikibaseItem\n"
+				+ "P434\tString\thttp://musicbrainz.org/$1/artist\n"
+				+ "P508\tExternalId\thttp://purl.org/bncf/tid/$1\n"
+				+ "P9\thttp://example.org/datatype\n",
+				new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+		PropertyRegister copy = new PropertyRegister("P1921", this.siteIri);
+		copy.readPropertyInformation(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(register.datatypes, copy.datatypes);
+		assertEquals(register.uriPatterns, copy.uriPatterns);
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadInvalidPropertyInformation() throws IOException {
+		PropertyRegister register = new PropertyRegister("P1921", this.siteIri);
+		register.readPropertyInformation(new ByteArrayInputStream(
+				"P434\n".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testSetUnknownPropertyType() {
+		PropertyIdValue pid = dataObjectFactory.getPropertyIdValue("P434", this.siteIri);
+		this.propertyRegister.setPropertyType(pid, null);
+		assertNull(this.propertyRegister.getPropertyType(pid));
+		assertEquals("no requests should be made for properties with unknown type",
+				1, this.propertyRegister.smallestUnfetchedPropertyIdNumber);
+	}
+
 	@Test
 	public void testWikidataPropertyRegister() {
 		PropertyRegister pr = PropertyRegister.getWikidataPropertyRegister();
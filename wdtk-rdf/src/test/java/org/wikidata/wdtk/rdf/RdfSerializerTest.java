@@ -61,4 +61,36 @@ public class RdfSerializerTest {
 				.getResourceFromFile("completeRDFDocument.rdf")), model);
 	}
 
+	@Test
+	public void testSerializationWithSpilling() throws RDFParseException,
+			RDFHandlerException, IOException {
+		// the second document makes sure that all declarations are written;
+		// pretty printed Turtle would not accept its duplicate triples
+		RdfSerializer serializer = new RdfSerializer(RDFFormat.NTRIPLES,
+				this.out, new SitesImpl(), new MockPropertyRegister());
+		serializer.open();
+		serializer.processItemDocument(this.objectFactory
+				.createItemDocument());
+		serializer.processItemDocument(this.objectFactory
+				.createItemDocument());
+		serializer.close();
+
+		ByteArrayOutputStream spillingOut = new ByteArrayOutputStream();
+		RdfSerializer spillingSerializer = new RdfSerializer(RDFFormat.NTRIPLES,
+				spillingOut, new SitesImpl(), new MockPropertyRegister());
+		spillingSerializer.setTasks(spillingSerializer.getTasks()
+				| RdfSerializer.TASK_SPILL_TO_DISK);
+		spillingSerializer.open();
+		spillingSerializer.processItemDocument(this.objectFactory
+				.createItemDocument());
+		spillingSerializer.processItemDocument(this.objectFactory
+				.createItemDocument());
+		spillingSerializer.close();
+
+		assertEquals(RdfTestHelpers.parseRdf(this.out.toString()),
+				RdfTestHelpers.parseRdf(spillingOut.toString()));
+		assertEquals(serializer.getTripleCount(),
+				spillingSerializer.getTripleCount());
+	}
+
 }
@@ -0,0 +1,124 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SortedRunBufferTest {
+
+	@Test
+	public void testMergeInMemory() {
+		SortedRunBuffer buffer = new SortedRunBuffer(10);
+		buffer.add("c", "1");
+		buffer.add("a", "2");
+		buffer.add("b", "3");
+		buffer.add("a", "4");
+
+		List<String> result = new ArrayList<>();
+		buffer.merge((key, payload) -> result.add(key + payload));
+		assertEquals(Arrays.asList("a2", "b3", "c1"), result);
+		assertEquals(0, buffer.getRunCount());
+	}
+
+	@Test
+	public void testMergeRuns() {
+		SortedRunBuffer buffer = new SortedRunBuffer(3);
+		for (int i = 0; i < 20; i++) {
+			buffer.add("k" + (i % 7), Integer.toString(i));
+		}
+		assertEquals(6, buffer.getRunCount());
+
+		List<String> result = new ArrayList<>();
+		buffer.merge((key, payload) -> result.add(key + "=" + payload));
+		// the payload added first is kept for each key
+		assertEquals(Arrays.asList("k0=0", "k1=1", "k2=2", "k3=3", "k4=4",
+				"k5=5", "k6=6"), result);
+		assertEquals(0, buffer.getRunCount());
+
+		buffer.add("x", "é😀");
+		result.clear();
+		buffer.merge((key, payload) -> result.add(key + "=" + payload));
+		assertEquals(Arrays.asList("x=é😀"), result);
+	}
+
+	@Test
+	public void testMergeMoreRunsThanLimit() {
+		SortedRunBuffer buffer = new SortedRunBuffer(2);
+		int keyCount = 1000;
+		// enough runs to merge groups of merged runs again
+		int recordCount = 2 * SortedRunBuffer.MAX_MERGE_RUNS
+				* SortedRunBuffer.MAX_MERGE_RUNS + 3;
+		for (int i = 0; i < recordCount; i++) {
+			buffer.add(String.format("k%04d", i % keyCount), Integer.toString(i));
+			assertTrue(buffer.getRunCount() < SortedRunBuffer.MAX_MERGE_RUNS * 2);
+		}
+
+		List<String> result = new ArrayList<>();
+		buffer.merge((key, payload) -> result.add(key + "=" + payload));
+		assertEquals(keyCount, result.size());
+		for (int i = 0; i < keyCount; i++) {
+			// the payload added first is kept for each key
+			assertEquals(String.format("k%04d=%d", i, i), result.get(i));
+		}
+		assertEquals(0, buffer.getRunCount());
+	}
+
+	@Test
+	public void testRunBytes() {
+		SortedRunBuffer buffer = new SortedRunBuffer(1000,
+				2 * SortedRunBuffer.RECORD_OVERHEAD);
+		buffer.add("a", "1");
+		assertEquals(0, buffer.getRunCount());
+		buffer.add("b", "2");
+		assertEquals(1, buffer.getRunCount());
+		buffer.add("a key that is long enough to fill a run of its own...", "3");
+		assertEquals(2, buffer.getRunCount());
+		buffer.add("c", "4");
+		assertEquals(2, buffer.getRunCount());
+		buffer.close();
+	}
+
+	@Test
+	public void testClose() {
+		SortedRunBuffer buffer = new SortedRunBuffer(1);
+		buffer.add("a", "1");
+		buffer.add("b", "2");
+		assertEquals(2, buffer.getRunCount());
+		buffer.close();
+		assertEquals(0, buffer.getRunCount());
+
+		List<String> result = new ArrayList<>();
+		buffer.merge((key, payload) -> result.add(key));
+		assertEquals(0, result.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidRunSize() {
+		new SortedRunBuffer(0);
+	}
+}
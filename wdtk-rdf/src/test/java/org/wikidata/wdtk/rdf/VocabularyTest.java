@@ -0,0 +1,135 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+
+public class VocabularyTest {
+
+	private static Reference makeReference(int i, boolean reversed) {
+		PropertyIdValue property = Datamodel.makeWikidataPropertyIdValue("P854");
+		List<Snak> snaks = new ArrayList<>();
+		for (int j = 0; j < 3; j++) {
+			snaks.add(Datamodel.makeValueSnak(property,
+					Datamodel.makeStringValue("http://example.org/" + i + "/" + j)));
+		}
+		if (reversed) {
+			Collections.reverse(snaks);
+		}
+		return Datamodel.makeReference(Arrays.asList(
+				Datamodel.makeSnakGroup(snaks),
+				Datamodel.makeSnakGroup(Collections.singletonList(
+						Datamodel.makeSomeValueSnak(Datamodel.makeWikidataPropertyIdValue("P813"))))));
+	}
+
+	/**
+	 * Computes the URIs of a range of values and references.
+	 */
+	private static List<String> computeUris(int count) {
+		List<String> uris = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			uris.add(Vocabulary.getReferenceUri(makeReference(i, false)));
+			uris.add(Vocabulary.getTimeValueUri(Datamodel.makeTimeValue(1900 + i,
+					(byte) 1, (byte) 1, (byte) 0, (byte) 0, (byte) 0,
+					TimeValue.PREC_DAY, 0, 0, 0, TimeValue.CM_GREGORIAN_PRO)));
+			uris.add(Vocabulary.getGlobeCoordinatesValueUri(Datamodel
+					.makeGlobeCoordinatesValue(i / 10.0, -i / 10.0, 0.1,
+							"http://www.wikidata.org/entity/Q2")));
+			uris.add(Vocabulary.getQuantityValueUri(Datamodel.makeQuantityValue(
+					new BigDecimal(i), new BigDecimal(i - 1), new BigDecimal(i + 1))));
+		}
+		return uris;
+	}
+
+	@Test
+	public void testReferenceUriIndependentOfSnakOrder() {
+		assertEquals(Vocabulary.getReferenceUri(makeReference(1, false)),
+				Vocabulary.getReferenceUri(makeReference(1, true)));
+		assertNotEquals(Vocabulary.getReferenceUri(makeReference(1, false)),
+				Vocabulary.getReferenceUri(makeReference(2, false)));
+	}
+
+	private static Statement makeStatement(String statementId) {
+		return Datamodel.makeStatement(
+				Datamodel.makeWikidataItemIdValue("Q42"),
+				Datamodel.makeNoValueSnak(Datamodel.makeWikidataPropertyIdValue("P31")),
+				Collections.emptyList(), Collections.emptyList(),
+				StatementRank.NORMAL, statementId);
+	}
+
+	@Test
+	public void testStatementUri() {
+		assertEquals(Vocabulary.PREFIX_WIKIDATA_STATEMENT + "Q42-F078E5B3-F9A8-480E-B7AC-D97778CBBEF9",
+				Vocabulary.getStatementUri(makeStatement("Q42$F078E5B3-F9A8-480E-B7AC-D97778CBBEF9")));
+		// only the first separator is replaced
+		assertEquals(Vocabulary.PREFIX_WIKIDATA_STATEMENT + "Q42-a$b",
+				Vocabulary.getStatementUri(makeStatement("Q42$a$b")));
+		assertEquals(Vocabulary.PREFIX_WIKIDATA_STATEMENT + "none",
+				Vocabulary.getStatementUri(makeStatement("none")));
+		assertTrue(Vocabulary.getStatementUri(makeStatement("")).startsWith(
+				Vocabulary.PREFIX_WIKIDATA_STATEMENT + "Q42-"));
+	}
+
+	@Test
+	public void testUrisAreStable() {
+		assertEquals(computeUris(10), computeUris(10));
+	}
+
+	@Test
+	public void testConcurrentUris() throws Exception {
+		List<String> expected = computeUris(200);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<List<String>>> results = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				Callable<List<String>> task = () -> computeUris(200);
+				results.add(executor.submit(task));
+			}
+			for (Future<List<String>> result : results) {
+				assertEquals(expected, result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -21,6 +21,7 @@ package org.wikidata.wdtk.rdf.values;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
@@ -164,6 +165,46 @@ public class ValueRdfConverterTest {
 				.getResourceFromFile("TimeValue.rdf")));
 	}
 	
+	@Test
+	public void testRepeatedTimeValues() throws RDFHandlerException {
+		TimeValueConverter valueConverter = new TimeValueConverter(
+				this.rdfWriter, this.propertyRegister, this.rdfConversionBuffer);
+		PropertyIdValue propertyIdValue = objectFactory.getPropertyIdValue(
+				"P569", "http://www.wikidata.org/entity/");
+
+		Value valueUri = valueConverter.getRdfValue(getTimeValue(2008),
+				propertyIdValue, false);
+		assertSame(valueUri, valueConverter.getRdfValue(getTimeValue(2008),
+				propertyIdValue, false));
+		valueConverter.writeAuxiliaryTriples();
+		long tripleCount = this.rdfWriter.getTripleCount();
+		assertTrue(tripleCount > 0);
+
+		valueConverter.getRdfValue(getTimeValue(2008), propertyIdValue, false);
+		valueConverter.writeAuxiliaryTriples();
+		assertEquals(tripleCount, this.rdfWriter.getTripleCount());
+
+		// values that are no longer cached are not written again either
+		for (int i = 0; i < BufferedValueConverter.VALUE_NODE_CACHE_SIZE; i++) {
+			valueConverter.getRdfValue(getTimeValue(10000 + i),
+					propertyIdValue, false);
+		}
+		valueConverter.writeAuxiliaryTriples();
+		assertEquals(BufferedValueConverter.VALUE_NODE_CACHE_SIZE,
+				valueConverter.valueNodes.size());
+		tripleCount = this.rdfWriter.getTripleCount();
+		valueConverter.getRdfValue(getTimeValue(2008), propertyIdValue, false);
+		valueConverter.writeAuxiliaryTriples();
+		assertEquals(tripleCount, this.rdfWriter.getTripleCount());
+		this.rdfWriter.finish();
+	}
+
+	private TimeValue getTimeValue(long year) {
+		return objectFactory.getTimeValue(year, (byte) 1, (byte) 1,
+				(byte) 0, (byte) 0, (byte) 0, (byte) 9, 0, 0, 0,
+				"http://www.wikidata.org/entity/Q1985727");
+	}
+
 	@Test
 	public void testWriteUnsupportedEntityIdValue() throws RDFHandlerException,
 			RDFParseException, IOException {
@@ -298,7 +298,7 @@ public class MockDirectoryManager implements DirectoryManager {
 			return new GZIPInputStream(getInputStreamForMockFile(fileName));
 		} else if (compressionType == CompressionType.BZ2) {
 			return new BZip2CompressorInputStream(
-					getInputStreamForMockFile(fileName));
+					getInputStreamForMockFile(fileName), true);
 		} else {
 			return getInputStreamForMockFile(fileName);
 		}
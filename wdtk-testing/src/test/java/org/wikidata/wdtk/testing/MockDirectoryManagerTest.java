@@ -166,6 +166,34 @@ public class MockDirectoryManagerTest {
 		assertEquals("New contents", content);
 	}
 
+	@Test
+	public void createGzipFileUsingOutputstream() throws IOException {
+		OutputStream out = mdm.getOutputStreamForFile("newfile.txt.gz",
+				CompressionType.GZIP);
+
+		BufferedWriter ow = new BufferedWriter(new OutputStreamWriter(out));
+		ow.write("New GZIP contents");
+		ow.close();
+
+		String content = MockStringContentFactory.getStringFromInputStream(mdm
+				.getInputStreamForFile("newfile.txt.gz", CompressionType.GZIP));
+		assertEquals("New GZIP contents", content);
+	}
+
+	@Test
+	public void createBz2FileUsingOutputstream() throws IOException {
+		OutputStream out = mdm.getOutputStreamForFile("newfile.txt.bz2",
+				CompressionType.BZ2);
+
+		BufferedWriter ow = new BufferedWriter(new OutputStreamWriter(out));
+		ow.write("New BZ2 contents");
+		ow.close();
+
+		String content = MockStringContentFactory.getStringFromInputStream(mdm
+				.getInputStreamForFile("newfile.txt.bz2", CompressionType.BZ2));
+		assertEquals("New BZ2 contents", content);
+	}
+
 	@Test
 	public void readFileFails() throws IOException {
 		mdm.setReturnFailingReaders(true);
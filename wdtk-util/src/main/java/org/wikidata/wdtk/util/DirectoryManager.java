@@ -133,6 +133,36 @@ public interface DirectoryManager {
 	 */
 	OutputStream getOutputStreamForFile(String fileName) throws IOException;
 
+	/**
+	 * Opens and returns an output stream that can be used to write to the file
+	 * of the given name within the current directory, compressing the data
+	 * written to it if required. The stream is owned by the caller and must
+	 * be closed after use. If the file already exists, it will be truncated
+	 * at this operation.
+	 *
+	 * @param fileName
+	 *            the name of the file
+	 * @param compressionType
+	 *            for types other than {@link CompressionType#NONE}, the data
+	 *            will be compressed appropriately, possibly on several threads
+	 * @return the stream to write to
+	 * @throws IOException
+	 */
+	default OutputStream getOutputStreamForFile(String fileName,
+			CompressionType compressionType) throws IOException {
+		switch (compressionType) {
+		case NONE:
+			return getOutputStreamForFile(fileName);
+		case GZIP:
+		case BZ2:
+			return new ParallelCompressorOutputStream(
+					getOutputStreamForFile(fileName), compressionType);
+		default:
+			throw new IllegalArgumentException("Unsupported compression type: "
+					+ compressionType);
+		}
+	}
+
 	/**
 	 * Returns an input stream to access file of the given name within the
 	 * current directory, possibly uncompressing it if required.
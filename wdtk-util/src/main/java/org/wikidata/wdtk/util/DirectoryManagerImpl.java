@@ -196,8 +196,9 @@ public class DirectoryManagerImpl implements DirectoryManager {
 		case GZIP:
 			return new GZIPInputStream(inputStream);
 		case BZ2:
+			// files may consist of several streams, e.g., if written by pbzip2
 			return new BZip2CompressorInputStream(new BufferedInputStream(
-					inputStream));
+					inputStream), true);
 		default:
 			throw new IllegalArgumentException("Unsupported compression type: "
 					+ compressionType);
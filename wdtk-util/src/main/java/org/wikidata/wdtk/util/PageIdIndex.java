@@ -0,0 +1,311 @@
+package org.wikidata.wdtk.util;
+
+/*
+ * #%L
+ * Wikidata Toolkit Utilities
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Compact hash index that maps page titles to MediaWiki page ids. Titles are
+ * not stored themselves: every entry only consists of a 64 bit hash of the
+ * title and the page id, so that the index needs 12 bytes per page on disk
+ * and about 16 to 32 bytes per page in memory. This makes it feasible to keep
+ * the page ids of all files on Wikimedia Commons locally.
+ * <p>
+ * Since only hashes are compared, a title that is not in the index may be
+ * reported with the page id of another title. With 64 bit hashes, this is
+ * very unlikely even for hundreds of millions of titles, but the index should
+ * not be used where this is not acceptable.
+ * <p>
+ * The index does not normalize titles, so they have to be added and looked
+ * up in the same form, usually with namespace prefix and with spaces rather
+ * than underscores, as returned by the MediaWiki API.
+ * <p>
+ * The methods of this class are thread-safe.
+ */
+public class PageIdIndex {
+
+	/**
+	 * Value returned by {@link #get(String)} for titles that are not in the
+	 * index.
+	 */
+	public static final int NOT_FOUND = -1;
+
+	/**
+	 * Marker at the start of index files.
+	 */
+	static final int MAGIC = 0x50494458; // "PIDX"
+
+	static final int VERSION = 1;
+
+	static final int MIN_CAPACITY = 16;
+
+	static final int MAX_CAPACITY = 1 << 30;
+
+	/**
+	 * Hashes of the titles, or 0 for empty slots. The length of the array is
+	 * a power of two.
+	 */
+	long[] keys;
+
+	/**
+	 * Page ids of the titles in the slots of {@link #keys}.
+	 */
+	int[] values;
+
+	int size = 0;
+
+	/**
+	 * Creates an empty index.
+	 */
+	public PageIdIndex() {
+		this(0);
+	}
+
+	/**
+	 * Creates an empty index that can hold the given number of titles
+	 * without growing.
+	 *
+	 * @param expectedSize
+	 *            the number of titles that the index is expected to hold
+	 */
+	public PageIdIndex(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Loads an index from a file that was written with {@link #save(Path)}.
+	 *
+	 * @param path
+	 *            the file to read
+	 * @return the index
+	 * @throws IOException
+	 *             if the file could not be read or is not an index file
+	 */
+	public static PageIdIndex load(Path path) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(path), 1 << 16))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Not a page id index: " + path);
+			}
+			int size = in.readInt();
+			PageIdIndex index = new PageIdIndex(size);
+			for (int i = 0; i < size; i++) {
+				long key = in.readLong();
+				int pageId = in.readInt();
+				if (key == 0 || pageId < 0) {
+					throw new IOException("Corrupted page id index: " + path);
+				}
+				index.putHash(key, pageId);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Writes the index to the given file. The data is written to a temporary
+	 * file first, which then replaces the given file, so that an existing
+	 * index is not lost if writing fails. The file is replaced atomically
+	 * where the file system supports this, so that readers never see a
+	 * partially written index.
+	 *
+	 * @param path
+	 *            the file to write
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	public synchronized void save(Path path) throws IOException {
+		Path parent = path.toAbsolutePath().getParent();
+		Path temporaryFile = Files.createTempFile(parent,
+				path.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(
+							Files.newOutputStream(temporaryFile), 1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(this.size);
+				for (int i = 0; i < this.keys.length; i++) {
+					if (this.keys[i] != 0) {
+						out.writeLong(this.keys[i]);
+						out.writeInt(this.values[i]);
+					}
+				}
+			}
+			try {
+				Files.move(temporaryFile, path,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryFile, path,
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	/**
+	 * Returns the page id of the given title.
+	 *
+	 * @param title
+	 *            the title of the page
+	 * @return the page id, or {@link #NOT_FOUND} if the title is not in the
+	 *         index
+	 */
+	public synchronized int get(String title) {
+		long key = hash(title);
+		int mask = this.keys.length - 1;
+		for (int slot = (int) key & mask;; slot = (slot + 1) & mask) {
+			if (this.keys[slot] == key) {
+				return this.values[slot];
+			} else if (this.keys[slot] == 0) {
+				return NOT_FOUND;
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the given title is in the index.
+	 *
+	 * @param title
+	 *            the title of the page
+	 * @return true if the page id of the title is known
+	 */
+	public boolean contains(String title) {
+		return get(title) != NOT_FOUND;
+	}
+
+	/**
+	 * Sets the page id of the given title, replacing any page id that was
+	 * stored for it before.
+	 *
+	 * @param title
+	 *            the title of the page
+	 * @param pageId
+	 *            the page id, which must not be negative
+	 */
+	public synchronized void put(String title, int pageId) {
+		if (pageId < 0) {
+			throw new IllegalArgumentException("Invalid page id: " + pageId);
+		}
+		putHash(hash(title), pageId);
+	}
+
+	/**
+	 * Returns the number of titles in the index.
+	 *
+	 * @return the number of titles
+	 */
+	public synchronized int size() {
+		return this.size;
+	}
+
+	void putHash(long key, int pageId) {
+		int mask = this.keys.length - 1;
+		int slot = (int) key & mask;
+		while (this.keys[slot] != 0 && this.keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		if (this.keys[slot] == 0) {
+			if (this.size + 1 > maxSize(this.keys.length)) {
+				grow();
+				putHash(key, pageId);
+				return;
+			}
+			this.keys[slot] = key;
+			this.size++;
+		}
+		this.values[slot] = pageId;
+	}
+
+	/**
+	 * Doubles the number of slots and inserts all entries again.
+	 */
+	void grow() {
+		if (this.keys.length == MAX_CAPACITY) {
+			throw new IllegalStateException("Page id index is full");
+		}
+		long[] oldKeys = this.keys;
+		int[] oldValues = this.values;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				putHash(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		this.size = 0;
+	}
+
+	/**
+	 * Returns the number of entries that fit into the given number of slots,
+	 * keeping the load factor at 3/4.
+	 */
+	static int maxSize(int capacity) {
+		return (int) (capacity * 3L / 4);
+	}
+
+	/**
+	 * Returns the smallest power of two of slots that holds the given number
+	 * of entries.
+	 */
+	static int capacityFor(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (maxSize(capacity) < expectedSize && capacity < MAX_CAPACITY) {
+			capacity *= 2;
+		}
+		return capacity;
+	}
+
+	/**
+	 * Computes the 64 bit hash of a title, using FNV-1a on the characters and
+	 * the finalizer of MurmurHash3 to spread the bits. The result is never 0,
+	 * which marks empty slots.
+	 *
+	 * @param title
+	 *            the title to hash
+	 * @return the hash of the title
+	 */
+	static long hash(String title) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < title.length(); i++) {
+			hash ^= title.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return (hash == 0) ? 1 : hash;
+	}
+}
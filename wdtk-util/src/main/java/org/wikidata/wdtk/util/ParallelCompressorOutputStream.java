@@ -0,0 +1,270 @@
+package org.wikidata.wdtk.util;
+
+/*
+ * #%L
+ * Wikidata Toolkit Utilities
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+
+/**
+ * Output stream that compresses data on several threads. The data is split
+ * into chunks of a fixed size, and each chunk is compressed independently, as
+ * a gzip member or as a bzip2 stream. The compressed chunks are written to
+ * the underlying stream in the order of the data. The result is a
+ * multi-member gzip file or a multi-stream bzip2 file, as created by pigz or
+ * pbzip2, which common tools decompress like any other file. When reading
+ * bzip2 with Apache Commons Compress, concatenated streams must be enabled.
+ * <p>
+ * Calling {@link #flush()} compresses the data written so far as a chunk of
+ * its own, so it should only be called rarely.
+ * <p>
+ * If compressing or writing a chunk fails, the chunks that are still queued
+ * are dropped when the stream is closed, and the underlying stream is closed
+ * nonetheless. The output is then incomplete and should be discarded.
+ */
+public class ParallelCompressorOutputStream extends OutputStream {
+
+	/**
+	 * Number of bytes that are compressed together in gzip files if no other
+	 * chunk size is set.
+	 */
+	public static final int DEFAULT_GZIP_CHUNK_SIZE = 1024 * 1024;
+
+	/**
+	 * Number of bytes that are compressed together in bzip2 files if no other
+	 * chunk size is set. This is the size of the largest bzip2 block, as used
+	 * by pbzip2.
+	 */
+	public static final int DEFAULT_BZ2_CHUNK_SIZE = 900 * 1000;
+
+	final OutputStream out;
+	final CompressionType compressionType;
+	final int chunkSize;
+	final int maxPendingChunks;
+	final ExecutorService executor;
+
+	/**
+	 * Compressed chunks that have not been written yet, in the order of the
+	 * data.
+	 */
+	final ArrayDeque<Future<byte[]>> pendingChunks = new ArrayDeque<>();
+
+	byte[] buffer;
+	int bufferPosition = 0;
+	long chunkCount = 0;
+	boolean closed = false;
+
+	/**
+	 * Creates a new stream that compresses data with as many threads as
+	 * processors are available, using the default chunk size of the given
+	 * compression type.
+	 *
+	 * @param out
+	 *            the stream to write the compressed data to
+	 * @param compressionType
+	 *            either {@link CompressionType#GZIP} or
+	 *            {@link CompressionType#BZ2}
+	 */
+	public ParallelCompressorOutputStream(OutputStream out,
+			CompressionType compressionType) {
+		this(out, compressionType, Runtime.getRuntime().availableProcessors(),
+				compressionType == CompressionType.BZ2 ? DEFAULT_BZ2_CHUNK_SIZE
+						: DEFAULT_GZIP_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates a new stream that compresses data with the given number of
+	 * threads.
+	 *
+	 * @param out
+	 *            the stream to write the compressed data to
+	 * @param compressionType
+	 *            either {@link CompressionType#GZIP} or
+	 *            {@link CompressionType#BZ2}
+	 * @param threadCount
+	 *            the number of threads that compress chunks
+	 * @param chunkSize
+	 *            the number of bytes that are compressed together
+	 */
+	public ParallelCompressorOutputStream(OutputStream out,
+			CompressionType compressionType, int threadCount, int chunkSize) {
+		if (compressionType != CompressionType.GZIP
+				&& compressionType != CompressionType.BZ2) {
+			throw new IllegalArgumentException(
+					"Unsupported compression type: " + compressionType);
+		}
+		if (threadCount < 1 || chunkSize < 1) {
+			throw new IllegalArgumentException(
+					"Thread count and chunk size must be positive");
+		}
+		this.out = out;
+		this.compressionType = compressionType;
+		this.chunkSize = chunkSize;
+		// keep enough chunks in the queue to keep all threads busy
+		this.maxPendingChunks = 2 * threadCount;
+		this.buffer = new byte[chunkSize];
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+			Thread thread = new Thread(runnable,
+					"parallel-compressor-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+		this.buffer[this.bufferPosition++] = (byte) b;
+		if (this.bufferPosition == this.chunkSize) {
+			submitChunk();
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		while (len > 0) {
+			int length = Math.min(len, this.chunkSize - this.bufferPosition);
+			System.arraycopy(b, off, this.buffer, this.bufferPosition, length);
+			this.bufferPosition += length;
+			off += length;
+			len -= length;
+			if (this.bufferPosition == this.chunkSize) {
+				submitChunk();
+			}
+		}
+	}
+
+	/**
+	 * Compresses the data written so far and writes it to the underlying
+	 * stream, which is then flushed.
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		submitChunk();
+		writeCompressedChunks(0);
+		this.out.flush();
+	}
+
+	/**
+	 * Writes the remaining data and closes the underlying stream, which is
+	 * closed even if this fails. In this case, chunks that have not been
+	 * written are dropped, so the output is incomplete.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		try {
+			// an empty file would not be valid, so write at least one chunk
+			if (this.bufferPosition > 0 || this.chunkCount == 0) {
+				submitChunk();
+			}
+			writeCompressedChunks(0);
+		} finally {
+			this.closed = true;
+			this.executor.shutdownNow();
+			this.out.close();
+		}
+	}
+
+	/**
+	 * Hands the buffered data over to a thread that compresses it.
+	 */
+	void submitChunk() throws IOException {
+		if (this.bufferPosition == 0 && this.chunkCount > 0) {
+			return;
+		}
+		final byte[] data = this.buffer;
+		final int length = this.bufferPosition;
+		this.pendingChunks.add(this.executor.submit(() -> compress(data, length)));
+		this.chunkCount++;
+		this.buffer = new byte[this.chunkSize];
+		this.bufferPosition = 0;
+		writeCompressedChunks(this.maxPendingChunks);
+	}
+
+	/**
+	 * Writes the chunks that have been compressed, and waits for further
+	 * chunks until at most the given number of chunks is pending.
+	 *
+	 * @param maxPending
+	 *            the number of chunks that may still be pending afterwards
+	 */
+	void writeCompressedChunks(int maxPending) throws IOException {
+		try {
+			while (!this.pendingChunks.isEmpty()
+					&& (this.pendingChunks.size() > maxPending
+							|| this.pendingChunks.peek().isDone())) {
+				this.out.write(this.pendingChunks.poll().get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(e.toString());
+		} catch (ExecutionException e) {
+			throw new IOException("Could not compress data", e.getCause());
+		}
+	}
+
+	/**
+	 * Compresses the given data as a complete gzip member or bzip2 stream.
+	 *
+	 * @param data
+	 *            array containing the data
+	 * @param length
+	 *            number of bytes to compress from the start of the array
+	 * @return the compressed data
+	 * @throws IOException
+	 *             if the data could not be compressed
+	 */
+	byte[] compress(byte[] data, int length) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream(
+				length / 4 + 64);
+		OutputStream compressor;
+		if (this.compressionType == CompressionType.BZ2) {
+			compressor = new BZip2CompressorOutputStream(result);
+		} else {
+			compressor = new GzipCompressorOutputStream(result);
+		}
+		compressor.write(data, 0, length);
+		compressor.close();
+		return result.toByteArray();
+	}
+
+	private void ensureOpen() throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package org.wikidata.wdtk.util;
+
+/*
+ * #%L
+ * Wikidata Toolkit Utilities
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PageIdIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testPutAndGet() {
+		PageIdIndex index = new PageIdIndex();
+		index.put("File:Cat.jpg", 32455073);
+		index.put("File:Albert Einstein Head.jpg", 925243);
+
+		assertEquals(32455073, index.get("File:Cat.jpg"));
+		assertEquals(925243, index.get("File:Albert Einstein Head.jpg"));
+		assertEquals(PageIdIndex.NOT_FOUND, index.get("File:Dog.jpg"));
+		assertTrue(index.contains("File:Cat.jpg"));
+		assertFalse(index.contains("File:Cat.JPG"));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testReplace() {
+		PageIdIndex index = new PageIdIndex();
+		index.put("File:Cat.jpg", 1);
+		index.put("File:Cat.jpg", 2);
+
+		assertEquals(2, index.get("File:Cat.jpg"));
+		assertEquals(1, index.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativePageId() {
+		new PageIdIndex().put("File:Cat.jpg", -2);
+	}
+
+	@Test
+	public void testGrow() {
+		PageIdIndex index = new PageIdIndex();
+		for (int i = 0; i < 100000; i++) {
+			index.put("File:" + i + ".jpg", i);
+		}
+
+		assertEquals(100000, index.size());
+		for (int i = 0; i < 100000; i++) {
+			assertEquals(i, index.get("File:" + i + ".jpg"));
+		}
+		assertEquals(PageIdIndex.NOT_FOUND, index.get("File:100000.jpg"));
+	}
+
+	@Test
+	public void testCapacity() {
+		assertEquals(PageIdIndex.MIN_CAPACITY, PageIdIndex.capacityFor(0));
+		assertEquals(128, PageIdIndex.capacityFor(96));
+		assertEquals(256, PageIdIndex.capacityFor(97));
+		assertEquals(128, new PageIdIndex(96).keys.length);
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		PageIdIndex index = new PageIdIndex();
+		for (int i = 0; i < 1000; i++) {
+			index.put("File:" + i + ".jpg", 2 * i);
+		}
+		Path path = folder.getRoot().toPath().resolve("pageids.idx");
+		index.save(path);
+
+		assertEquals(12 + 12 * 1000, Files.size(path));
+		PageIdIndex loaded = PageIdIndex.load(path);
+		assertEquals(1000, loaded.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(2 * i, loaded.get("File:" + i + ".jpg"));
+		}
+
+		// saving again replaces the file
+		loaded.put("File:Cat.jpg", 32455073);
+		loaded.save(path);
+		assertEquals(32455073, PageIdIndex.load(path).get("File:Cat.jpg"));
+		assertEquals(1, folder.getRoot().list().length);
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoadInvalidFile() throws IOException {
+		Path path = folder.getRoot().toPath().resolve("invalid.idx");
+		Files.write(path, "not an index file".getBytes(StandardCharsets.UTF_8));
+		PageIdIndex.load(path);
+	}
+}
@@ -0,0 +1,155 @@
+package org.wikidata.wdtk.util;
+
+/*
+ * #%L
+ * Wikidata Toolkit Utilities
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.Test;
+
+public class ParallelCompressorOutputStreamTest {
+
+	/**
+	 * Creates data that contains both repetitive and random parts.
+	 */
+	static byte[] createData(int length) {
+		byte[] data = new byte[length];
+		Random random = new Random(42);
+		for (int i = 0; i < length; i++) {
+			data[i] = (i % 100 < 50) ? (byte) ('a' + i % 7)
+					: (byte) random.nextInt(256);
+		}
+		return data;
+	}
+
+	static byte[] compress(byte[] data, CompressionType compressionType,
+			int chunkSize) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ParallelCompressorOutputStream compressor = new ParallelCompressorOutputStream(
+				out, compressionType, 3, chunkSize)) {
+			// mix single bytes and arrays of various lengths
+			int position = 0;
+			int length = 1;
+			while (position < data.length) {
+				if (length == 1) {
+					compressor.write(data[position]);
+				} else {
+					compressor.write(data, position,
+							Math.min(length, data.length - position));
+				}
+				position += length;
+				length = (length * 3) % 1777 + 1;
+			}
+		}
+		return out.toByteArray();
+	}
+
+	static byte[] decompress(byte[] compressed, CompressionType compressionType)
+			throws IOException {
+		InputStream in;
+		if (compressionType == CompressionType.BZ2) {
+			in = new BZip2CompressorInputStream(
+					new ByteArrayInputStream(compressed), true);
+		} else {
+			in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+		}
+		return IOUtils.toByteArray(in);
+	}
+
+	@Test
+	public void testGzip() throws IOException {
+		byte[] data = createData(100000);
+		byte[] compressed = compress(data, CompressionType.GZIP, 4096);
+		assertArrayEquals(data, decompress(compressed, CompressionType.GZIP));
+	}
+
+	@Test
+	public void testBz2() throws IOException {
+		byte[] data = createData(50000);
+		byte[] compressed = compress(data, CompressionType.BZ2, 10000);
+		// one stream per chunk
+		assertEquals(5, countOccurrences(compressed, "BZh9".getBytes(StandardCharsets.US_ASCII)));
+		assertArrayEquals(data, decompress(compressed, CompressionType.BZ2));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		byte[] gzip = compress(new byte[0], CompressionType.GZIP, 100);
+		assertTrue(gzip.length > 0);
+		assertEquals(0, decompress(gzip, CompressionType.GZIP).length);
+		byte[] bz2 = compress(new byte[0], CompressionType.BZ2, 100);
+		assertEquals(0, decompress(bz2, CompressionType.BZ2).length);
+	}
+
+	@Test
+	public void testFlush() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParallelCompressorOutputStream compressor = new ParallelCompressorOutputStream(
+				out, CompressionType.GZIP);
+		compressor.write("first".getBytes(StandardCharsets.UTF_8));
+		compressor.flush();
+		assertEquals("first", new String(decompress(out.toByteArray(),
+				CompressionType.GZIP), StandardCharsets.UTF_8));
+		compressor.write("second".getBytes(StandardCharsets.UTF_8));
+		compressor.close();
+		assertEquals("firstsecond", new String(decompress(out.toByteArray(),
+				CompressionType.GZIP), StandardCharsets.UTF_8));
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteAfterClose() throws IOException {
+		ParallelCompressorOutputStream compressor = new ParallelCompressorOutputStream(
+				new ByteArrayOutputStream(), CompressionType.GZIP);
+		compressor.close();
+		compressor.write(1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedCompressionType() {
+		new ParallelCompressorOutputStream(new ByteArrayOutputStream(),
+				CompressionType.NONE);
+	}
+
+	private static int countOccurrences(byte[] data, byte[] pattern) {
+		int count = 0;
+		for (int i = 0; i + pattern.length <= data.length; i++) {
+			boolean match = true;
+			for (int j = 0; j < pattern.length && match; j++) {
+				match = data[i + j] == pattern[j];
+			}
+			if (match) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
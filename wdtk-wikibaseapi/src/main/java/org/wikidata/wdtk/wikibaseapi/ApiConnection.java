@@ -20,6 +20,7 @@ package org.wikidata.wdtk.wikibaseapi;
  * #L%
  */
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -33,13 +34,17 @@ import org.wikidata.wdtk.wikibaseapi.apierrors.AssertUserFailedException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorHandler;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.URLEncoder;
 import java.util.*;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Class to build up and hold a connection to a Wikibase API.
@@ -85,6 +90,16 @@ public abstract class ApiConnection {
 
 	protected static final MediaType URLENCODED_MEDIA_TYPE = MediaType.parse("application/x-www-form-urlencoded");
 
+	/**
+	 * Maximum number of idle connections that are kept open for reuse.
+	 */
+	static final int MAX_IDLE_CONNECTIONS = 16;
+
+	/**
+	 * Time in minutes that idle connections are kept open for reuse.
+	 */
+	static final int KEEP_ALIVE_DURATION = 5;
+
 	/**
 	 * URL to access the Wikibase API.
 	 */
@@ -118,10 +133,35 @@ public abstract class ApiConnection {
 	protected int readTimeout = -1;
 
 	/**
-	 * Http client used for making requests.
+	 * Maximum number of requests that are sent at the same time, counting a
+	 * request until its response was read or closed. For negative values,
+	 * there is no limit.
+	 */
+	protected int maxConcurrentRequests = -1;
+
+	/**
+	 * Permits for requests if their number is limited, or null otherwise.
+	 */
+	private volatile Semaphore requestPermits;
+
+	/**
+	 * Statistics about the requests sent over this connection.
+	 */
+	private final RequestMetrics requestMetrics = new RequestMetrics();
+
+	/**
+	 * Http client used for making requests. It is only accessed while
+	 * holding the lock of the connection, so that a change of the timeouts
+	 * is seen by all threads.
 	 */
 	private OkHttpClient client;
 
+	/**
+	 * Controls the rate of requests based on the responses of the server, or
+	 * null if no rate control should be done.
+	 */
+	private volatile RateController rateController;
+
 	/**
 	 * Mapper object used for deserializing JSON data.
 	 */
@@ -231,7 +271,7 @@ public abstract class ApiConnection {
 	 *
 	 * @see HttpURLConnection#setConnectTimeout
 	 */
-	public void setConnectTimeout(int timeout) {
+	public synchronized void setConnectTimeout(int timeout) {
 		connectTimeout = timeout;
 		client = null;
 	}
@@ -242,11 +282,73 @@ public abstract class ApiConnection {
 	 *
 	 * @see HttpURLConnection#setReadTimeout
 	 */
-	public void setReadTimeout(int timeout) {
+	public synchronized void setReadTimeout(int timeout) {
 		readTimeout = timeout;
 		client = null;
 	}
 
+	/**
+	 * Returns the maximum number of requests that are sent at the same time
+	 * over this connection, or a negative number if there is no limit.
+	 *
+	 * @return the maximum number of concurrent requests
+	 */
+	@JsonIgnore
+	public int getMaxConcurrentRequests() {
+		return maxConcurrentRequests;
+	}
+
+	/**
+	 * Sets the maximum number of requests that are sent at the same time over
+	 * this connection, by all threads that use it. A request counts until its
+	 * response was read to the end or closed. For negative values, there is no
+	 * limit, which is the default.
+	 *
+	 * @param maxConcurrentRequests
+	 *            the maximum number of concurrent requests
+	 */
+	public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+		if (maxConcurrentRequests == 0) {
+			throw new IllegalArgumentException("At least one request must be allowed");
+		}
+		this.maxConcurrentRequests = maxConcurrentRequests;
+		this.requestPermits = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests, true) : null;
+	}
+
+	/**
+	 * Returns statistics about the requests sent over this connection.
+	 *
+	 * @return the request metrics
+	 */
+	@JsonIgnore
+	public RequestMetrics getRequestMetrics() {
+		return requestMetrics;
+	}
+
+	/**
+	 * Returns the object that controls the rate of requests sent over this
+	 * connection, or null if there is none.
+	 *
+	 * @return the rate controller
+	 */
+	@JsonIgnore
+	public RateController getRateController() {
+		return rateController;
+	}
+
+	/**
+	 * Sets the object that controls the rate of requests sent over this
+	 * connection. It is informed about response times, Retry-After headers
+	 * and maxlag errors, and is used by all actions that use this
+	 * connection. By default, there is none.
+	 *
+	 * @param rateController
+	 *            the rate controller, or null to disable rate control
+	 */
+	public void setRateController(RateController rateController) {
+		this.rateController = rateController;
+	}
+
 	/**
 	 * Maximum time to wait for when establishing a connection, in milliseconds.
 	 * For negative values, no timeout is set, which is the default behaviour (for
@@ -288,7 +390,7 @@ public abstract class ApiConnection {
 	 * @throws IOException
 	 *     if a network error occurred
 	 */
-	String getOrFetchToken(String tokenType) throws IOException, MediaWikiApiErrorException {
+	synchronized String getOrFetchToken(String tokenType) throws IOException, MediaWikiApiErrorException {
 		if (tokens.containsKey(tokenType)) {
 			return tokens.get(tokenType);
 		}
@@ -303,7 +405,7 @@ public abstract class ApiConnection {
 	/**
 	 * Remove fetched value of given token.
 	 */
-	void clearToken(String tokenType) {
+	synchronized void clearToken(String tokenType) {
 		tokens.remove(tokenType);
 	}
 
@@ -346,22 +448,44 @@ public abstract class ApiConnection {
 	 * @throws MediaWikiApiErrorException if the API returns an error
 	 */
 	public JsonNode sendJsonRequest(String requestMethod, Map<String,String> parameters) throws IOException, MediaWikiApiErrorException {
-		parameters.put(ApiConnection.PARAM_FORMAT, "json");
-		if (loggedIn) {
-			parameters.put(ApiConnection.ASSERT_PARAMETER, "user");
-		}
-		try (InputStream response = sendRequest(requestMethod, parameters)) {
+		try (InputStream response = sendStreamingJsonRequest(requestMethod, parameters)) {
 			JsonNode root = this.mapper.readTree(response);
-			this.checkErrors(root);
+			this.checkErrors(root, parameters);
 			this.logWarnings(root);
 			return root;
 		}
 	}
 
+	/**
+	 * Sends a request to the API like {@link #sendJsonRequest(String, Map)},
+	 * but returns the JSON response as a stream, so that it can be parsed
+	 * incrementally. The caller has to close the stream, and to check the
+	 * response for errors and warnings with {@link #checkErrors(JsonNode)} and
+	 * {@link #logWarnings(JsonNode)}.
+	 *
+	 * @param requestMethod
+	 *            either POST or GET
+	 * @param parameters
+	 *            Maps parameter keys to values. Out of this map the function
+	 *            will create a query string for the request.
+	 * @return API result
+	 * @throws IOException
+	 */
+	InputStream sendStreamingJsonRequest(String requestMethod, Map<String,String> parameters) throws IOException {
+		parameters.put(ApiConnection.PARAM_FORMAT, "json");
+		if (loggedIn) {
+			parameters.put(ApiConnection.ASSERT_PARAMETER, "user");
+		}
+		return sendRequest(requestMethod, parameters);
+	}
+
 	/**
 	 * Sends a request to the API with the given parameters and the given
 	 * request method and returns the result string. It automatically fills the
 	 * cookie map with cookies in the result header after the request.
+	 * <p>
+	 * The returned stream must be closed, so that the connection to the server
+	 * can be reused.
 	 *
 	 * Warning: You probably want to use ApiConnection.sendJsonRequest
 	 * that execute the request using JSON content format,
@@ -387,11 +511,113 @@ public abstract class ApiConnection {
 			throw new IllegalArgumentException("Expected the requestMethod to be either GET or POST, but got " + requestMethod);
 		}
 
+		Semaphore permits = requestPermits;
+		if (permits != null) {
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(e.toString());
+			}
+		}
+		Response response = null;
+		try {
+			RateController controller = rateController;
+			long startTime = System.nanoTime();
+			response = getClient().newCall(request).execute();
+			if (controller != null) {
+				controller.onResponse(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+				long retryAfter = getRetryAfter(response);
+				if (retryAfter > 0) {
+					controller.onRetryAfter(retryAfter);
+				}
+			}
+			return new ResponseInputStream(Objects.requireNonNull(response.body()), permits);
+		} catch (IOException | RuntimeException e) {
+			if (response != null) {
+				response.close();
+			}
+			if (permits != null) {
+				permits.release();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Stream of a response body that closes the body and releases the permit
+	 * of its request when it is closed, or when the end of the body was read.
+	 */
+	static class ResponseInputStream extends FilterInputStream {
+
+		final ResponseBody body;
+		final Semaphore permits;
+		final AtomicBoolean released = new AtomicBoolean(false);
+
+		ResponseInputStream(ResponseBody body, Semaphore permits) {
+			super(body.byteStream());
+			this.body = body;
+			this.permits = permits;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int result = super.read();
+			if (result < 0) {
+				release();
+			}
+			return result;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int result = super.read(b, off, len);
+			if (result < 0) {
+				release();
+			}
+			return result;
+		}
+
+		@Override
+		public void close() {
+			body.close();
+			release();
+		}
+
+		private void release() {
+			if (permits != null && released.compareAndSet(false, true)) {
+				permits.release();
+			}
+		}
+	}
+
+	/**
+	 * Returns the time in milliseconds that the Retry-After header of a
+	 * response asks to wait, or 0 if there is no such header. Only the number
+	 * of seconds is supported, which is what MediaWiki sends.
+	 */
+	static long getRetryAfter(Response response) {
+		String retryAfter = response.header("Retry-After");
+		if (retryAfter == null) {
+			return 0;
+		}
+		try {
+			return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+		} catch (NumberFormatException e) {
+			logger.warn("Ignoring unsupported Retry-After header: " + retryAfter);
+			return 0;
+		}
+	}
+
+	/**
+	 * Returns the HTTP client, which is built on first use. It is shared by
+	 * all threads that send requests over this connection.
+	 */
+	private synchronized OkHttpClient getClient() {
 		if (client == null) {
 			buildClient();
 		}
-		Response response = client.newCall(request).execute();
-		return Objects.requireNonNull(response.body()).byteStream();
+		return client;
 	}
 
 	private void buildClient() {
@@ -402,6 +628,11 @@ public abstract class ApiConnection {
 		if (readTimeout >= 0) {
 			builder.readTimeout(readTimeout, TimeUnit.MILLISECONDS);
 		}
+		// OkHttp asks for gzip-compressed responses and decompresses them
+		// transparently; HTTP/2 is used if the server supports it
+		builder.connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION, TimeUnit.MINUTES))
+				.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+				.eventListenerFactory(requestMetrics.getEventListenerFactory());
 		client = builder.build();
 	}
 
@@ -429,6 +660,30 @@ public abstract class ApiConnection {
 		}
 	}
 
+	/**
+	 * Checks if the response to a request with the given parameters contains
+	 * an error, like {@link #checkErrors(JsonNode)}. Maxlag errors are
+	 * reported to the rate controller, unless the request only asked for the
+	 * current lag with a negative maxlag.
+	 *
+	 * @param root
+	 *            root node of the JSON result
+	 * @param parameters
+	 *            the parameters of the request
+	 * @throws MediaWikiApiErrorException
+	 */
+	void checkErrors(JsonNode root, Map<String, String> parameters) throws MediaWikiApiErrorException {
+		try {
+			this.checkErrors(root);
+		} catch (MaxlagErrorException e) {
+			RateController controller = rateController;
+			if (controller != null && !parameters.getOrDefault("maxlag", "").startsWith("-")) {
+				controller.onMaxlag(e.getLag());
+			}
+			throw e;
+		}
+	}
+
 	/**
 	 * Extracts and logs any warnings that are returned in an API response.
 	 *
@@ -0,0 +1,484 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.EntityDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.util.DirectoryManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Cache for entity documents that can be used by a
+ * {@link WikibaseDataFetcher} to avoid fetching the same documents over and
+ * over again. Documents are kept in memory up to a given total size, which is
+ * estimated by the length of their JSON serialization. Optionally, they are
+ * also stored as JSON files in a directory, so that they survive the end of
+ * the program.
+ * <p>
+ * The memory tier uses the W-TinyLFU policy: new documents enter a small
+ * window of recently used documents. When they leave the window, they only
+ * replace documents of the main space if they have been used more often
+ * recently, as estimated by a {@link FrequencySketch}. The main space is a
+ * segmented LRU list, where documents that are used again are protected from
+ * being evicted by documents that are only used once.
+ * <p>
+ * The cache does not check if documents are still current. This is done by
+ * the {@link WikibaseDataFetcher}, which compares the revision ids of cached
+ * documents with the ones on the site. A cache should only be shared by
+ * fetchers that use the same {@link WikibaseDataFetcher#getFilter() filter},
+ * since the documents are stored as they were filtered by the API.
+ * <p>
+ * The cache can be used from several threads.
+ */
+public class EntityDocumentCache {
+
+	static final Logger logger = LoggerFactory
+			.getLogger(EntityDocumentCache.class);
+
+	/**
+	 * Part of the size of the cache that is used for the window of recently
+	 * added documents.
+	 */
+	static final double WINDOW_FRACTION = 0.01;
+
+	/**
+	 * Part of the size of the main space that is used for documents that were
+	 * used more than once.
+	 */
+	static final double PROTECTED_FRACTION = 0.8;
+
+	/**
+	 * Usual size of an entity document, used to estimate how many documents
+	 * are in the cache.
+	 */
+	static final int AVERAGE_DOCUMENT_SIZE = 4096;
+
+	/**
+	 * Smallest number of keys that the frequency sketch is made for, so that
+	 * small caches can still tell apart the frequencies of many keys.
+	 */
+	static final int MIN_SKETCH_SIZE = 1024;
+
+	/**
+	 * Longest file name that is used for the directory tier. Documents with
+	 * longer keys are only cached in memory.
+	 */
+	static final int MAX_FILE_NAME_LENGTH = 200;
+
+	final long maximumSize;
+	final long windowMaximumSize;
+	final long protectedMaximumSize;
+
+	final DirectoryManager directoryManager;
+
+	final ObjectMapper mapper;
+	final ObjectReader documentReader;
+
+	final FrequencySketch sketch;
+
+	final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+	final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+	final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+	long windowSize = 0;
+	long probationSize = 0;
+	long protectedSize = 0;
+
+	long hitCount = 0;
+	long directoryHitCount = 0;
+	long missCount = 0;
+	long evictionCount = 0;
+
+	/**
+	 * Document in the memory tier, together with its estimated size.
+	 */
+	static class Entry {
+		final String key;
+		final EntityDocument document;
+		final int size;
+
+		Entry(String key, EntityDocument document, int size) {
+			this.key = key;
+			this.document = document;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Creates a cache that only keeps documents in memory.
+	 *
+	 * @param maximumSize
+	 *            the total size in bytes of the JSON serializations of the
+	 *            documents that are kept in memory
+	 * @param siteIri
+	 *            the IRI of the site that the documents are from
+	 */
+	public EntityDocumentCache(long maximumSize, String siteIri) {
+		this(maximumSize, siteIri, null);
+	}
+
+	/**
+	 * Creates a cache that keeps documents in memory and in the given
+	 * directory. Documents that are not found in memory are read from the
+	 * directory if possible.
+	 *
+	 * @param maximumSize
+	 *            the total size in bytes of the JSON serializations of the
+	 *            documents that are kept in memory
+	 * @param siteIri
+	 *            the IRI of the site that the documents are from
+	 * @param directoryManager
+	 *            the directory to store the documents in, or null to only
+	 *            keep them in memory
+	 */
+	public EntityDocumentCache(long maximumSize, String siteIri,
+			DirectoryManager directoryManager) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException(
+					"The size of the cache must not be negative");
+		}
+		this.maximumSize = maximumSize;
+		this.windowMaximumSize = (long) (maximumSize * WINDOW_FRACTION);
+		this.protectedMaximumSize = (long) ((maximumSize - this.windowMaximumSize)
+				* PROTECTED_FRACTION);
+		this.directoryManager = directoryManager;
+		this.mapper = new DatamodelMapper(siteIri);
+		this.documentReader = this.mapper.readerFor(EntityDocumentImpl.class);
+		this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE,
+				Math.max(MIN_SKETCH_SIZE, maximumSize / AVERAGE_DOCUMENT_SIZE)));
+	}
+
+	/**
+	 * Returns the document that was stored for the given key, or null if
+	 * there is none.
+	 *
+	 * @param key
+	 *            the key of the document, such as an entity id
+	 * @return the document or null
+	 */
+	public EntityDocument get(String key) {
+		EntityDocument document = getFromMemory(key);
+		if (document != null) {
+			return document;
+		}
+		String json = readFile(key);
+		if (json != null) {
+			try {
+				document = this.documentReader.readValue(json);
+			} catch (IOException e) {
+				logger.warn("Ignoring cached document " + key + ": "
+						+ e.getMessage());
+			}
+		}
+		synchronized (this) {
+			if (document == null) {
+				this.missCount++;
+				return null;
+			}
+			this.directoryHitCount++;
+			addToMemory(new Entry(key, document, json.length()));
+		}
+		return document;
+	}
+
+	/**
+	 * Stores a document for the given key. Any document that was stored for
+	 * the key before is replaced.
+	 *
+	 * @param key
+	 *            the key of the document, such as an entity id
+	 * @param document
+	 *            the document to store
+	 */
+	public void put(String key, EntityDocument document) {
+		String json;
+		try {
+			json = this.mapper.writeValueAsString(document);
+		} catch (JsonProcessingException e) {
+			logger.warn("Could not cache document " + key + ": "
+					+ e.getMessage());
+			return;
+		}
+		synchronized (this) {
+			this.sketch.increment(key);
+			addToMemory(new Entry(key, document, json.length()));
+		}
+		writeFile(key, json);
+	}
+
+	/**
+	 * Removes the document of the given key, if any.
+	 *
+	 * @param key
+	 *            the key of the document, such as an entity id
+	 */
+	public void remove(String key) {
+		synchronized (this) {
+			removeFromMemory(key);
+		}
+		String fileName = getFileName(key);
+		if (fileName != null && this.directoryManager.hasFile(fileName)) {
+			// the directory manager cannot delete files; empty files are
+			// ignored when reading
+			writeFile(key, "");
+		}
+	}
+
+	/**
+	 * Returns the number of times that a document was found in memory.
+	 *
+	 * @return number of hits in memory
+	 */
+	public synchronized long getHitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * Returns the number of times that a document was not found in memory
+	 * but read from the directory.
+	 *
+	 * @return number of hits in the directory
+	 */
+	public synchronized long getDirectoryHitCount() {
+		return this.directoryHitCount;
+	}
+
+	/**
+	 * Returns the number of times that no document was found.
+	 *
+	 * @return number of misses
+	 */
+	public synchronized long getMissCount() {
+		return this.missCount;
+	}
+
+	/**
+	 * Returns the number of documents that were removed from memory to make
+	 * room for other documents, or not kept in memory at all.
+	 *
+	 * @return number of evictions
+	 */
+	public synchronized long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+	/**
+	 * Returns the estimated size in bytes of the documents in memory.
+	 *
+	 * @return size of the documents in memory
+	 */
+	public synchronized long getSize() {
+		return this.windowSize + this.probationSize + this.protectedSize;
+	}
+
+	/**
+	 * Returns the number of documents in memory.
+	 *
+	 * @return number of documents in memory
+	 */
+	public synchronized int getDocumentCount() {
+		return this.window.size() + this.probation.size()
+				+ this.protectedSegment.size();
+	}
+
+	/**
+	 * Looks up a document in memory and records the use of the key.
+	 */
+	synchronized EntityDocument getFromMemory(String key) {
+		this.sketch.increment(key);
+		Entry entry = this.window.get(key);
+		if (entry == null) {
+			entry = this.protectedSegment.get(key);
+		}
+		if (entry == null) {
+			entry = this.probation.remove(key);
+			if (entry != null) {
+				// used again: move to the protected segment
+				this.probationSize -= entry.size;
+				this.protectedSegment.put(key, entry);
+				this.protectedSize += entry.size;
+				demoteProtectedEntries();
+			}
+		}
+		if (entry == null) {
+			return null;
+		}
+		this.hitCount++;
+		return entry.document;
+	}
+
+	/**
+	 * Adds a document to the window, and moves the least recently used
+	 * documents of the window to the main space if the window is full.
+	 */
+	void addToMemory(Entry entry) {
+		removeFromMemory(entry.key);
+		if (entry.size > this.maximumSize - this.windowMaximumSize) {
+			this.evictionCount++;
+			return;
+		}
+		this.window.put(entry.key, entry);
+		this.windowSize += entry.size;
+		while (this.windowSize > this.windowMaximumSize) {
+			Entry candidate = removeEldest(this.window);
+			this.windowSize -= candidate.size;
+			admit(candidate);
+		}
+	}
+
+	/**
+	 * Adds a document that left the window to the probation segment of the
+	 * main space, if it is used more often than all the documents that would
+	 * have to be evicted for it. Otherwise, no document is evicted.
+	 */
+	void admit(Entry candidate) {
+		long mainMaximumSize = this.maximumSize - this.windowMaximumSize;
+		int candidateFrequency = this.sketch.frequency(candidate.key);
+		long excess = this.probationSize + this.protectedSize + candidate.size
+				- mainMaximumSize;
+		List<String> victims = new ArrayList<>();
+		Iterator<Entry> probationIterator = this.probation.values().iterator();
+		Iterator<Entry> protectedIterator = this.protectedSegment.values().iterator();
+		while (excess > 0) {
+			Entry victim = probationIterator.hasNext() ? probationIterator.next()
+					: protectedIterator.next();
+			if (this.sketch.frequency(victim.key) >= candidateFrequency) {
+				this.evictionCount++;
+				return;
+			}
+			victims.add(victim.key);
+			excess -= victim.size;
+		}
+		for (String victim : victims) {
+			removeFromMemory(victim);
+			this.evictionCount++;
+		}
+		this.probation.put(candidate.key, candidate);
+		this.probationSize += candidate.size;
+	}
+
+	/**
+	 * Moves the least recently used documents of the protected segment back
+	 * to the probation segment while the protected segment is too large.
+	 */
+	void demoteProtectedEntries() {
+		while (this.protectedSize > this.protectedMaximumSize) {
+			Entry entry = removeEldest(this.protectedSegment);
+			this.protectedSize -= entry.size;
+			this.probation.put(entry.key, entry);
+			this.probationSize += entry.size;
+		}
+	}
+
+	void removeFromMemory(String key) {
+		Entry entry;
+		if ((entry = this.window.remove(key)) != null) {
+			this.windowSize -= entry.size;
+		} else if ((entry = this.probation.remove(key)) != null) {
+			this.probationSize -= entry.size;
+		} else if ((entry = this.protectedSegment.remove(key)) != null) {
+			this.protectedSize -= entry.size;
+		}
+	}
+
+	static Entry removeEldest(LinkedHashMap<String, Entry> segment) {
+		Iterator<Entry> iterator = segment.values().iterator();
+		Entry entry = iterator.next();
+		iterator.remove();
+		return entry;
+	}
+
+	/**
+	 * Returns the name of the file for the given key, or null if documents
+	 * are not stored in a directory or the key is too long.
+	 */
+	String getFileName(String key) {
+		if (this.directoryManager == null) {
+			return null;
+		}
+		String fileName;
+		try {
+			fileName = URLEncoder.encode(key, "UTF-8") + ".json";
+		} catch (UnsupportedEncodingException e) { // UTF-8 is always supported
+			throw new RuntimeException(e.toString(), e);
+		}
+		return fileName.length() <= MAX_FILE_NAME_LENGTH ? fileName : null;
+	}
+
+	/**
+	 * Returns the contents of the file of the given key, or null if there is
+	 * no such file or it is empty.
+	 */
+	String readFile(String key) {
+		String fileName = getFileName(key);
+		if (fileName == null || !this.directoryManager.hasFile(fileName)) {
+			return null;
+		}
+		try (InputStream in = this.directoryManager.getInputStreamForFile(
+				fileName, CompressionType.NONE)) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int length;
+			while ((length = in.read(buffer)) != -1) {
+				out.write(buffer, 0, length);
+			}
+			return out.size() == 0 ? null
+					: new String(out.toByteArray(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			logger.warn("Could not read cached document " + key + ": "
+					+ e.toString());
+			return null;
+		}
+	}
+
+	void writeFile(String key, String json) {
+		String fileName = getFileName(key);
+		if (fileName == null) {
+			return;
+		}
+		try (OutputStream out = this.directoryManager
+				.getOutputStreamForFile(fileName)) {
+			out.write(json.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			logger.warn("Could not store cached document " + key + ": "
+					+ e.toString());
+		}
+	}
+}
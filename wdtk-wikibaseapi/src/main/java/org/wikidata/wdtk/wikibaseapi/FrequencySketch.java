@@ -0,0 +1,111 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Approximate counter of how often keys have been used recently, as needed
+ * for the admission policy of {@link EntityDocumentCache}. This is a
+ * count-min sketch with four rows of small saturating counters. All counters
+ * are halved periodically, so that keys that were popular a long time ago do
+ * not keep their high count forever.
+ */
+class FrequencySketch {
+
+	static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+			0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+	/**
+	 * Largest value that a counter can have.
+	 */
+	static final int MAX_COUNT = 15;
+
+	final byte[][] table;
+	final int mask;
+
+	/**
+	 * Number of increments after which all counters are halved.
+	 */
+	final int sampleSize;
+
+	int size = 0;
+
+	/**
+	 * Creates a sketch that is suitable to track the given number of keys.
+	 *
+	 * @param expectedKeys
+	 *            the number of keys that are expected to be in the cache
+	 */
+	FrequencySketch(int expectedKeys) {
+		int width = Integer.highestOneBit(
+				Math.max(16, Math.min(expectedKeys, 1 << 24)) - 1) << 1;
+		this.table = new byte[SEEDS.length][width];
+		this.mask = width - 1;
+		this.sampleSize = 10 * width;
+	}
+
+	/**
+	 * Returns the estimated number of recent uses of the given key.
+	 */
+	int frequency(String key) {
+		int hash = key.hashCode();
+		int frequency = MAX_COUNT;
+		for (int i = 0; i < SEEDS.length; i++) {
+			frequency = Math.min(frequency, this.table[i][indexOf(hash, i)]);
+		}
+		return frequency;
+	}
+
+	/**
+	 * Records a use of the given key.
+	 */
+	void increment(String key) {
+		int hash = key.hashCode();
+		boolean added = false;
+		for (int i = 0; i < SEEDS.length; i++) {
+			int index = indexOf(hash, i);
+			if (this.table[i][index] < MAX_COUNT) {
+				this.table[i][index]++;
+				added = true;
+			}
+		}
+		if (added && ++this.size == this.sampleSize) {
+			reset();
+		}
+	}
+
+	/**
+	 * Halves all counters.
+	 */
+	void reset() {
+		for (byte[] row : this.table) {
+			for (int i = 0; i < row.length; i++) {
+				row[i] = (byte) (row[i] >>> 1);
+			}
+		}
+		this.size /= 2;
+	}
+
+	int indexOf(int hash, int row) {
+		long result = (hash + SEEDS[row]) * SEEDS[row];
+		result += result >>> 32;
+		return (int) result & this.mask;
+	}
+}
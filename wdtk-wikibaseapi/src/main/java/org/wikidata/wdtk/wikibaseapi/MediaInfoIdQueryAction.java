@@ -62,6 +62,23 @@ public class MediaInfoIdQueryAction {
 	 */
 	public Map<String, MediaInfoIdValue> getMediaInfoIds(List<String> fileNames)
 			throws IOException, MediaWikiApiErrorException {
+		return getMediaInfoIds(fileNames, false);
+	}
+
+	/**
+	 * Fetches the MediaInfoIds of files with the given names, as
+	 * {@link #getMediaInfoIds(List)}. If redirects are followed, files that
+	 * redirect to other files get the MediaInfoId of the file that they
+	 * redirect to, rather than the id of the redirect page, which has no
+	 * MediaInfo entity.
+	 *
+	 * @param fileNames list of file names of the requested MediaInfoIds
+	 * @param followRedirects true if redirects should be resolved
+	 * @return map from file names for which data could be found to the MediaInfoIds
+	 * that were retrieved
+	 */
+	public Map<String, MediaInfoIdValue> getMediaInfoIds(List<String> fileNames,
+			boolean followRedirects) throws IOException, MediaWikiApiErrorException {
 		// file name => file name with prefix
 		List<String> fileNamesWithPrefix = new ArrayList<>();
 		for (String fileName : fileNames) {
@@ -72,25 +89,24 @@ public class MediaInfoIdQueryAction {
 		Map<String, String> parameters = new HashMap<>();
 		parameters.put(ApiConnection.PARAM_ACTION, "query");
 		parameters.put("titles", ApiConnection.implodeObjects(fileNamesWithPrefix));
+		if (followRedirects) {
+			parameters.put("redirects", "");
+		}
 
 		Map<String, MediaInfoIdValue> result = new HashMap<>();
 
+		RateController rateController = connection.getRateController();
+		if (rateController != null) {
+			rateController.beforeRead();
+		}
 		JsonNode root = connection.sendJsonRequest("POST", parameters);
 		if (!root.has("query")) return result; // empty query
 		JsonNode query = root.get("query");
 
 		// file name with prefix => normalized file name
-		Map<String, String> normalizedMap = new HashMap<>();
-		if (query.has("normalized")) {
-			ArrayNode normalized = (ArrayNode) query.get("normalized");
-			Iterator<JsonNode> iterator = normalized.elements();
-			while (iterator.hasNext()) {
-				JsonNode next = iterator.next();
-				String from = next.get("from").asText();
-				String to = next.get("to").asText();
-				normalizedMap.put(from, to);
-			}
-		}
+		Map<String, String> normalizedMap = getTitleMap(query, "normalized");
+		// normalized file name => file name of redirect target
+		Map<String, String> redirectMap = getTitleMap(query, "redirects");
 
 		// normalized file name => Mid
 		Map<String, MediaInfoIdValue> midMap = new HashMap<>();
@@ -108,9 +124,29 @@ public class MediaInfoIdQueryAction {
 		for (String fileName : fileNames) {
 			String fileNameWithPrefix = fileName.startsWith("File:") ? fileName : "File:" + fileName;
 			String normalizedFileName = normalizedMap.getOrDefault(fileNameWithPrefix, fileNameWithPrefix);
-			result.put(fileName, midMap.get(normalizedFileName));
+			String targetFileName = redirectMap.getOrDefault(normalizedFileName, normalizedFileName);
+			result.put(fileName, midMap.get(targetFileName));
 		}
 
 		return result;
 	}
+
+	/**
+	 * Reads a list of title mappings such as "normalized" or "redirects" from
+	 * the result of a query.
+	 */
+	private static Map<String, String> getTitleMap(JsonNode query, String field) {
+		Map<String, String> titleMap = new HashMap<>();
+		if (query.has(field)) {
+			ArrayNode mappings = (ArrayNode) query.get(field);
+			Iterator<JsonNode> iterator = mappings.elements();
+			while (iterator.hasNext()) {
+				JsonNode next = iterator.next();
+				String from = next.get("from").asText();
+				String to = next.get("to").asText();
+				titleMap.put(from, to);
+			}
+		}
+		return titleMap;
+	}
 }
@@ -0,0 +1,351 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Controls the rate of requests sent over an {@link ApiConnection}, based on
+ * how the server responds. It is set with
+ * {@link ApiConnection#setRateController(RateController)} and then shared by
+ * all actions that use the connection.
+ * <p>
+ * Edits are limited to a number per second, which is adapted in the AIMD
+ * manner: it grows slowly while edits succeed, by
+ * {@link #getAdditiveIncrease()} edits per second every second, and is
+ * multiplied by {@link #getDecreaseFactor()} when the server reports too much
+ * lag or responds slowly. Since the server needs some time to recover, the
+ * rate is decreased at most once per {@link #getDecreaseInterval()}.
+ * <p>
+ * When the server reports too much lag, or asks to wait with a Retry-After
+ * header, all requests are paused, including requests that only read data.
+ * Reading requests are not limited otherwise.
+ */
+public class RateController {
+
+	static final Logger logger = LoggerFactory.getLogger(RateController.class);
+
+	/**
+	 * Shortest pause after a maxlag error, in milliseconds.
+	 */
+	static final long MIN_MAXLAG_PAUSE = 1000;
+
+	/**
+	 * Longest pause after a maxlag error, in milliseconds.
+	 */
+	static final long MAX_MAXLAG_PAUSE = 60000;
+
+	/**
+	 * Source of the current time in nanoseconds.
+	 */
+	final LongSupplier clock;
+
+	final TokenBucket editBucket;
+
+	final double minRate;
+	final double maxRate;
+
+	double additiveIncrease = 0.05;
+	double decreaseFactor = 0.5;
+	long slowResponseTime = 5000;
+	long decreaseInterval = 5000;
+
+	/**
+	 * Time in nanoseconds of the last decrease of the rate.
+	 */
+	long lastDecreaseTime;
+
+	/**
+	 * Time in nanoseconds until which all requests are paused.
+	 */
+	long pausedUntil;
+
+	long maxlagCount = 0;
+	long slowResponseCount = 0;
+
+	/**
+	 * Creates a controller for the given range of edit rates.
+	 *
+	 * @param initialRate
+	 *            the number of edits per second to start with
+	 * @param minRate
+	 *            the smallest number of edits per second
+	 * @param maxRate
+	 *            the largest number of edits per second
+	 */
+	public RateController(double initialRate, double minRate, double maxRate) {
+		this(initialRate, minRate, maxRate, System::nanoTime);
+	}
+
+	/**
+	 * Creates a controller that reads the time from the given clock, so that
+	 * tests do not depend on the actual time.
+	 */
+	RateController(double initialRate, double minRate, double maxRate,
+			LongSupplier clock) {
+		if (minRate <= 0 || minRate > initialRate || initialRate > maxRate) {
+			throw new IllegalArgumentException(
+					"The rates must be positive, and the initial rate must be between the smallest and the largest rate");
+		}
+		this.minRate = minRate;
+		this.maxRate = maxRate;
+		this.clock = clock;
+		this.editBucket = new TokenBucket(initialRate, 1, clock);
+		long now = clock.getAsLong();
+		this.lastDecreaseTime = now - TimeUnit.MILLISECONDS.toNanos(this.decreaseInterval);
+		this.pausedUntil = now;
+	}
+
+	/**
+	 * Returns the current number of edits per second.
+	 *
+	 * @return the edit rate
+	 */
+	public double getRate() {
+		return this.editBucket.getRate();
+	}
+
+	/**
+	 * Returns the number of edits per second that the rate grows every second
+	 * while edits succeed.
+	 *
+	 * @return the additive increase
+	 */
+	public synchronized double getAdditiveIncrease() {
+		return this.additiveIncrease;
+	}
+
+	/**
+	 * Sets the number of edits per second that the rate grows every second
+	 * while edits succeed. The default is 0.05.
+	 *
+	 * @param additiveIncrease
+	 *            the additive increase
+	 */
+	public synchronized void setAdditiveIncrease(double additiveIncrease) {
+		this.additiveIncrease = additiveIncrease;
+	}
+
+	/**
+	 * Returns the factor that the rate is multiplied with when the server is
+	 * overloaded.
+	 *
+	 * @return the decrease factor
+	 */
+	public synchronized double getDecreaseFactor() {
+		return this.decreaseFactor;
+	}
+
+	/**
+	 * Sets the factor that the rate is multiplied with when the server is
+	 * overloaded. The default is 0.5.
+	 *
+	 * @param decreaseFactor
+	 *            the decrease factor, between 0 and 1
+	 */
+	public synchronized void setDecreaseFactor(double decreaseFactor) {
+		if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+			throw new IllegalArgumentException(
+					"The decrease factor must be between 0 and 1");
+		}
+		this.decreaseFactor = decreaseFactor;
+	}
+
+	/**
+	 * Returns the time in milliseconds after which a response is considered
+	 * slow, so that the rate is decreased.
+	 *
+	 * @return the time for slow responses
+	 */
+	public synchronized long getSlowResponseTime() {
+		return this.slowResponseTime;
+	}
+
+	/**
+	 * Sets the time in milliseconds after which a response is considered
+	 * slow, so that the rate is decreased. The default is 5 seconds.
+	 *
+	 * @param slowResponseTime
+	 *            the time for slow responses
+	 */
+	public synchronized void setSlowResponseTime(long slowResponseTime) {
+		this.slowResponseTime = slowResponseTime;
+	}
+
+	/**
+	 * Returns the shortest time in milliseconds between two decreases of the
+	 * rate.
+	 *
+	 * @return the decrease interval
+	 */
+	public synchronized long getDecreaseInterval() {
+		return this.decreaseInterval;
+	}
+
+	/**
+	 * Sets the shortest time in milliseconds between two decreases of the
+	 * rate. The default is 5 seconds.
+	 *
+	 * @param decreaseInterval
+	 *            the decrease interval
+	 */
+	public synchronized void setDecreaseInterval(long decreaseInterval) {
+		this.decreaseInterval = decreaseInterval;
+	}
+
+	/**
+	 * Returns the number of maxlag errors that were reported.
+	 *
+	 * @return number of maxlag errors
+	 */
+	public synchronized long getMaxlagCount() {
+		return this.maxlagCount;
+	}
+
+	/**
+	 * Returns the number of slow responses that were reported.
+	 *
+	 * @return number of slow responses
+	 */
+	public synchronized long getSlowResponseCount() {
+		return this.slowResponseCount;
+	}
+
+	/**
+	 * Waits until an edit may be sent.
+	 */
+	public void beforeEdit() {
+		this.editBucket.acquire();
+	}
+
+	/**
+	 * Waits until a request that only reads data may be sent.
+	 */
+	public void beforeRead() {
+		long waitTime;
+		while ((waitTime = getPausedUntil() - this.clock.getAsLong()) > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(waitTime);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Reports that an edit succeeded, which increases the rate.
+	 */
+	public synchronized void onEditSucceeded() {
+		double rate = this.editBucket.getRate();
+		// one edit takes 1/rate seconds, so the rate grows by
+		// additiveIncrease per second
+		this.editBucket.setRate(Math.min(this.maxRate,
+				rate + this.additiveIncrease / rate));
+	}
+
+	/**
+	 * Reports the time that the server took to respond to a request. Slow
+	 * responses decrease the rate.
+	 *
+	 * @param milliseconds
+	 *            the response time
+	 */
+	public void onResponse(long milliseconds) {
+		if (milliseconds > getSlowResponseTime()) {
+			synchronized (this) {
+				this.slowResponseCount++;
+			}
+			decrease("slow response after " + milliseconds + " ms");
+		}
+	}
+
+	/**
+	 * Reports a maxlag error. The rate is decreased and all requests are
+	 * paused for about as long as the reported lag.
+	 *
+	 * @param lag
+	 *            the lag in seconds that the server reported
+	 */
+	public void onMaxlag(double lag) {
+		synchronized (this) {
+			this.maxlagCount++;
+		}
+		decrease("lag of " + lag + " s");
+		pause(Math.max(MIN_MAXLAG_PAUSE,
+				Math.min(MAX_MAXLAG_PAUSE, (long) (lag * 1000))));
+	}
+
+	/**
+	 * Reports a Retry-After header of a response. All requests are paused
+	 * for the given time.
+	 *
+	 * @param milliseconds
+	 *            the time to wait
+	 */
+	public void onRetryAfter(long milliseconds) {
+		pause(milliseconds);
+	}
+
+	/**
+	 * Pauses all requests for the given time, counted from now.
+	 *
+	 * @param milliseconds
+	 *            the duration of the pause
+	 */
+	public void pause(long milliseconds) {
+		synchronized (this) {
+			long until = this.clock.getAsLong()
+					+ TimeUnit.MILLISECONDS.toNanos(milliseconds);
+			if (until - this.pausedUntil > 0) {
+				this.pausedUntil = until;
+			}
+		}
+		this.editBucket.pause(milliseconds);
+	}
+
+	synchronized long getPausedUntil() {
+		return this.pausedUntil;
+	}
+
+	/**
+	 * Multiplies the rate with the decrease factor, unless it was decreased
+	 * recently.
+	 */
+	synchronized void decrease(String reason) {
+		long now = this.clock.getAsLong();
+		if (now - this.lastDecreaseTime < TimeUnit.MILLISECONDS
+				.toNanos(this.decreaseInterval)) {
+			return;
+		}
+		this.lastDecreaseTime = now;
+		double rate = Math.max(this.minRate,
+				this.editBucket.getRate() * this.decreaseFactor);
+		this.editBucket.setRate(rate);
+		logger.info(String.format(
+				"Reducing the edit rate to %.2f edits per second after a %s.",
+				rate, reason));
+	}
+}
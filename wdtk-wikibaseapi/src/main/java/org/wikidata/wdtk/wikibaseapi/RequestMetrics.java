@@ -0,0 +1,171 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Response;
+
+/**
+ * Statistics about the HTTP requests sent over an {@link ApiConnection},
+ * obtained with {@link ApiConnection#getRequestMetrics()}. The numbers are
+ * updated by all threads that use the connection. Byte counts are measured
+ * on the network, i.e., for compressed responses they are the compressed
+ * sizes.
+ */
+public class RequestMetrics {
+
+	final LongAdder requestCount = new LongAdder();
+	final LongAdder failedRequestCount = new LongAdder();
+	final LongAdder latencyNanos = new LongAdder();
+	final LongAdder durationNanos = new LongAdder();
+	final LongAdder bytesSent = new LongAdder();
+	final LongAdder bytesReceived = new LongAdder();
+
+	/**
+	 * Returns the number of requests that were completed, including the
+	 * reading of their response.
+	 *
+	 * @return number of requests
+	 */
+	public long getRequestCount() {
+		return requestCount.sum();
+	}
+
+	/**
+	 * Returns the number of requests that failed because of network errors.
+	 *
+	 * @return number of failed requests
+	 */
+	public long getFailedRequestCount() {
+		return failedRequestCount.sum();
+	}
+
+	/**
+	 * Returns the total time from the start of the requests until their
+	 * response headers were received.
+	 *
+	 * @return the total latency in milliseconds
+	 */
+	public long getTotalLatency() {
+		return TimeUnit.NANOSECONDS.toMillis(latencyNanos.sum());
+	}
+
+	/**
+	 * Returns the average time from the start of a request until its
+	 * response headers were received.
+	 *
+	 * @return the average latency in milliseconds, or 0 if no requests were
+	 *         completed
+	 */
+	public double getAverageLatency() {
+		long count = getRequestCount();
+		return count == 0 ? 0 : (double) latencyNanos.sum() / count / 1000000;
+	}
+
+	/**
+	 * Returns the total time from the start of the requests until their
+	 * response was read completely.
+	 *
+	 * @return the total duration in milliseconds
+	 */
+	public long getTotalDuration() {
+		return TimeUnit.NANOSECONDS.toMillis(durationNanos.sum());
+	}
+
+	/**
+	 * Returns the number of bytes sent in request bodies.
+	 *
+	 * @return bytes sent
+	 */
+	public long getBytesSent() {
+		return bytesSent.sum();
+	}
+
+	/**
+	 * Returns the number of bytes received in response bodies.
+	 *
+	 * @return bytes received
+	 */
+	public long getBytesReceived() {
+		return bytesReceived.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"%d requests (%d failed), %.1f ms average latency, %d bytes sent, %d bytes received",
+				getRequestCount(), getFailedRequestCount(), getAverageLatency(),
+				getBytesSent(), getBytesReceived());
+	}
+
+	/**
+	 * Returns a factory for listeners that record the metrics of each call of
+	 * an HTTP client.
+	 */
+	EventListener.Factory getEventListenerFactory() {
+		return call -> new CallListener();
+	}
+
+	/**
+	 * Records the metrics of one call.
+	 */
+	class CallListener extends EventListener {
+
+		long startTime;
+
+		@Override
+		public void callStart(Call call) {
+			startTime = System.nanoTime();
+		}
+
+		@Override
+		public void requestBodyEnd(Call call, long byteCount) {
+			bytesSent.add(byteCount);
+		}
+
+		@Override
+		public void responseHeadersEnd(Call call, Response response) {
+			latencyNanos.add(System.nanoTime() - startTime);
+		}
+
+		@Override
+		public void responseBodyEnd(Call call, long byteCount) {
+			bytesReceived.add(byteCount);
+		}
+
+		@Override
+		public void callEnd(Call call) {
+			durationNanos.add(System.nanoTime() - startTime);
+			requestCount.increment();
+		}
+
+		@Override
+		public void callFailed(Call call, IOException ioe) {
+			durationNanos.add(System.nanoTime() - startTime);
+			failedRequestCount.increment();
+		}
+	}
+}
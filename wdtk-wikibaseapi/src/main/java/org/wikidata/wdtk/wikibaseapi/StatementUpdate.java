@@ -50,6 +50,12 @@ public class StatementUpdate {
 
 	static final Logger logger = LoggerFactory.getLogger(StatementUpdate.class);
 
+	/**
+	 * Largest number of snaks in a set that are compared pairwise by
+	 * {@link #isSameSnakSet(Iterator, Iterator)}.
+	 */
+	static final int MAX_PAIRWISE_SNAK_COUNT = 8;
+
 	/**
 	 * Helper class to store a statement together with the information of
 	 * whether or not it is new (modified, not in current data) and therefore
@@ -67,6 +73,64 @@ public class StatementUpdate {
 			this.write = write;
 		}
 	}
+
+	/**
+	 * Index of the statements to be kept for one property. It finds the
+	 * statements with a given id, and the statements that may have an
+	 * equivalent claim, without comparing all statements of the property.
+	 * Statements are identified by their position in the list of statements
+	 * to be kept.
+	 */
+	static class StatementIndex {
+		/**
+		 * Positions of the statements with a non-empty id, by id.
+		 */
+		final Map<String, List<Integer>> idPositions = new HashMap<>();
+		/**
+		 * Positions of the statements, by the fingerprint of their claim, in
+		 * ascending order.
+		 */
+		final Map<Integer, List<Integer>> claimPositions = new HashMap<>();
+
+		/**
+		 * Returns the first position of a statement with the given id, or -1
+		 * if there is none.
+		 */
+		int firstPositionOfId(String id) {
+			List<Integer> positions = idPositions.get(id);
+			return positions == null ? -1 : Collections.min(positions);
+		}
+
+		/**
+		 * Returns the positions of the statements whose claims have the given
+		 * fingerprint, in ascending order.
+		 */
+		List<Integer> positionsOfClaim(int fingerprint) {
+			return claimPositions.getOrDefault(fingerprint, Collections.emptyList());
+		}
+
+		void add(int position, Statement statement) {
+			addId(position, statement.getStatementId());
+			claimPositions.computeIfAbsent(claimFingerprint(statement.getClaim()),
+					k -> new ArrayList<>()).add(position);
+		}
+
+		void addId(int position, String id) {
+			if (id != null && !"".equals(id)) {
+				idPositions.computeIfAbsent(id, k -> new ArrayList<>(1)).add(position);
+			}
+		}
+
+		void removeId(int position, String id) {
+			List<Integer> positions = idPositions.get(id);
+			if (positions != null) {
+				positions.remove(Integer.valueOf(position));
+				if (positions.isEmpty()) {
+					idPositions.remove(id);
+				}
+			}
+		}
+	}
 	
 	/**
 	 * Helper class to ease serialization of deleted statements. Jackson will
@@ -154,8 +218,12 @@ public class StatementUpdate {
 	@JsonIgnore
 	final HashMap<PropertyIdValue, List<StatementWithUpdate>> toKeep;
 	@JsonIgnore
+	final HashMap<PropertyIdValue, StatementIndex> toKeepIndex;
+	@JsonIgnore
 	final List<String> toDelete;
 	@JsonIgnore
+	final Set<String> deletedIds;
+	@JsonIgnore
 	StatementDocument currentDocument;
 
 	/**
@@ -176,7 +244,9 @@ public class StatementUpdate {
 			List<Statement> addStatements, List<Statement> deleteStatements) {
 		this.currentDocument = currentDocument;
 		this.toKeep = new HashMap<>();
+		this.toKeepIndex = new HashMap<>();
 		this.toDelete = new ArrayList<>();
+		this.deletedIds = new HashSet<>();
 		markStatementsForUpdate(currentDocument, addStatements,
 				deleteStatements);
 		this.mapper = new DatamodelMapper(currentDocument.getEntityId().getSiteIri());
@@ -320,45 +390,58 @@ public class StatementUpdate {
 	 */
 	protected void markStatementsForDeletion(StatementDocument currentDocument,
 			List<Statement> deleteStatements) {
+		if (deleteStatements.isEmpty()) {
+			return;
+		}
+		// (we assume all existing statement ids to be nonempty here)
+		Map<String, Statement> currentStatements = new HashMap<>();
+		Set<PropertyIdValue> currentProperties = new HashSet<>();
+		for (StatementGroup sg : currentDocument.getStatementGroups()) {
+			currentProperties.add(sg.getProperty());
+			for (Statement existingStatement : sg) {
+				currentStatements.putIfAbsent(existingStatement.getStatementId(), existingStatement);
+			}
+		}
+
 		for (Statement statement : deleteStatements) {
-			boolean found = false;
-			for (StatementGroup sg : currentDocument.getStatementGroups()) {
-				if (!sg.getProperty().equals(statement.getMainSnak().getPropertyId())) {
-					continue;
-				}
+			PropertyIdValue pid = statement.getMainSnak().getPropertyId();
+			if (!currentProperties.contains(pid)) {
+				continue;
+			}
 
-				Statement changedStatement = null;
-				for (Statement existingStatement : sg) {
-					if (existingStatement.equals(statement)) {
-						found = true;
-						toDelete.add(statement.getStatementId());
-					} else if (existingStatement.getStatementId().equals(
-							statement.getStatementId())) {
-						// (we assume all existing statement ids to be nonempty
-						// here)
-						changedStatement = existingStatement;
-						break;
-					}
-				}
+			Statement existingStatement = currentStatements.get(statement.getStatementId());
+			if (statement.equals(existingStatement)) {
+				markForDeletion(statement.getStatementId());
+				continue;
+			}
 
-				if (!found) {
-					StringBuilder warning = new StringBuilder();
-					warning.append("Cannot delete statement (id ")
-							.append(statement.getStatementId())
-							.append(") since it is not present in data. Statement was:\n")
-							.append(statement);
-
-					if (changedStatement != null) {
-						warning.append(
-								"\nThe data contains another statement with the same id: maybe it has been edited? Other statement was:\n")
-								.append(changedStatement);
-					}
-					logger.warn(warning.toString());
-				}
+			StringBuilder warning = new StringBuilder();
+			warning.append("Cannot delete statement (id ")
+					.append(statement.getStatementId())
+					.append(") since it is not present in data. Statement was:\n")
+					.append(statement);
+
+			if (existingStatement != null
+					&& pid.equals(existingStatement.getMainSnak().getPropertyId())) {
+				warning.append(
+						"\nThe data contains another statement with the same id: maybe it has been edited? Other statement was:\n")
+						.append(existingStatement);
 			}
+			logger.warn(warning.toString());
 		}
 	}
 
+	/**
+	 * Marks the statement with the given id for deletion.
+	 *
+	 * @param statementId
+	 *            the id of the statement to delete
+	 */
+	private void markForDeletion(String statementId) {
+		this.toDelete.add(statementId);
+		this.deletedIds.add(statementId);
+	}
+
 	/**
 	 * Marks a given list of statements for insertion into the current document.
 	 * Inserted statements can have an id if they should update an existing
@@ -381,7 +464,7 @@ public class StatementUpdate {
 		for (StatementGroup sg : currentDocument.getStatementGroups()) {
 			if (this.toKeep.containsKey(sg.getProperty())) {
 				for (Statement statement : sg) {
-					if (!this.toDelete.contains(statement.getStatementId())) {
+					if (!this.deletedIds.contains(statement.getStatementId())) {
 						addStatement(statement, false);
 					}
 				}
@@ -404,64 +487,73 @@ public class StatementUpdate {
 	 */
 	protected void addStatement(Statement statement, boolean isNew) {
 		PropertyIdValue pid = statement.getMainSnak().getPropertyId();
+		List<StatementWithUpdate> statements = this.toKeep.computeIfAbsent(pid,
+				k -> new ArrayList<>());
+		StatementIndex index = this.toKeepIndex.computeIfAbsent(pid,
+				k -> new StatementIndex());
 
 		// This code maintains the following properties:
 		// (1) the toKeep structure does not contain two statements with the
 		// same statement id
 		// (2) the toKeep structure does not contain two statements that can
 		// be merged
-		if (this.toKeep.containsKey(pid)) {
-			List<StatementWithUpdate> statements = this.toKeep.get(pid);
-			for (int i = 0; i < statements.size(); i++) {
-				Statement currentStatement = statements.get(i).statement;
-				boolean currentIsNew = statements.get(i).write;
+		// The statement is compared with the first kept statement that has
+		// the same id or can be merged with it. Only statements with the same
+		// claim fingerprint can be merged, so the others are not compared.
+		String statementId = statement.getStatementId();
+		int idPosition = "".equals(statementId) ? -1 : index.firstPositionOfId(statementId);
+		for (int i : index.positionsOfClaim(claimFingerprint(statement.getClaim()))) {
+			if (idPosition >= 0 && i >= idPosition) {
+				break;
+			}
+			Statement currentStatement = statements.get(i).statement;
+			boolean currentIsNew = statements.get(i).write;
+
+			Statement newStatement = mergeStatements(statement,
+					currentStatement);
+			if (newStatement != null) {
+				boolean writeNewStatement = (isNew || !newStatement
+						.equals(statement))
+						&& (currentIsNew || !newStatement
+								.equals(currentStatement));
+				// noWrite: (newS == statement && !isNew)
+				// || (newS == cur && !curIsNew)
+				// Write: (newS != statement || isNew )
+				// && (newS != cur || curIsNew)
+
+				statements.set(i, new StatementWithUpdate(newStatement,
+						writeNewStatement));
+				if (!newStatement.getStatementId().equals(
+						currentStatement.getStatementId())) {
+					index.removeId(i, currentStatement.getStatementId());
+					index.addId(i, newStatement.getStatementId());
+				}
 
-				if (!"".equals(currentStatement.getStatementId())
-						&& currentStatement.getStatementId().equals(
+				// Impossible with default merge code:
+				// Kept here for future extensions that may choose to not
+				// reuse this id.
+				if (!"".equals(statement.getStatementId())
+						&& !newStatement.getStatementId().equals(
 								statement.getStatementId())) {
-					// Same, non-empty id: ignore existing statement as if
-					// deleted
-					return;
+					markForDeletion(statement.getStatementId());
 				}
-
-				Statement newStatement = mergeStatements(statement,
-						currentStatement);
-				if (newStatement != null) {
-					boolean writeNewStatement = (isNew || !newStatement
-							.equals(statement))
-							&& (currentIsNew || !newStatement
-									.equals(currentStatement));
-					// noWrite: (newS == statement && !isNew)
-					// || (newS == cur && !curIsNew)
-					// Write: (newS != statement || isNew )
-					// && (newS != cur || curIsNew)
-
-					statements.set(i, new StatementWithUpdate(newStatement,
-							writeNewStatement));
-
-					// Impossible with default merge code:
-					// Kept here for future extensions that may choose to not
-					// reuse this id.
-					if (!"".equals(statement.getStatementId())
-							&& !newStatement.getStatementId().equals(
-									statement.getStatementId())) {
-						this.toDelete.add(statement.getStatementId());
-					}
-					if (!"".equals(currentStatement.getStatementId())
-							&& !newStatement.getStatementId().equals(
-									currentStatement.getStatementId())) {
-						this.toDelete.add(currentStatement.getStatementId());
-					}
-					return;
+				if (!"".equals(currentStatement.getStatementId())
+						&& !newStatement.getStatementId().equals(
+								currentStatement.getStatementId())) {
+					markForDeletion(currentStatement.getStatementId());
 				}
+				return;
 			}
+		}
 
-			statements.add(new StatementWithUpdate(statement, isNew));
-		} else {
-			List<StatementWithUpdate> statements = new ArrayList<>();
-			statements.add(new StatementWithUpdate(statement, isNew));
-			this.toKeep.put(pid, statements);
+		if (idPosition >= 0) {
+			// Same, non-empty id: ignore existing statement as if
+			// deleted
+			return;
 		}
+
+		index.add(statements.size(), statement);
+		statements.add(new StatementWithUpdate(statement, isNew));
 	}
 
 	/**
@@ -538,9 +630,28 @@ public class StatementUpdate {
 		referenceList.add(reference);
 	}
 
+	/**
+	 * Computes a hash code of a claim that does not depend on the order of its
+	 * qualifiers. Claims that are equivalent in the sense of
+	 * {@link #equivalentClaims(Claim, Claim)} have the same fingerprint.
+	 *
+	 * @param claim
+	 * @return the fingerprint of the claim
+	 */
+	static int claimFingerprint(Claim claim) {
+		int qualifierHash = 0;
+		Iterator<Snak> qualifiers = claim.getAllQualifiers();
+		while (qualifiers.hasNext()) {
+			qualifierHash += qualifiers.next().hashCode();
+		}
+		return 31 * claim.getMainSnak().hashCode() + qualifierHash;
+	}
+
 	/**
 	 * Checks if two claims are equivalent in the sense that they have the same
 	 * main snak and the same qualifiers, but possibly in a different order.
+	 * Subclasses that change this must keep {@link #claimFingerprint(Claim)}
+	 * equal for equivalent claims.
 	 *
 	 * @param claim1
 	 * @param claim2
@@ -553,9 +664,9 @@ public class StatementUpdate {
 	}
 
 	/**
-	 * Compares two sets of snaks, given by iterators. The method is optimised
-	 * for short lists of snaks, as they are typically found in claims and
-	 * references.
+	 * Compares two sets of snaks, given by iterators. Short lists of snaks, as
+	 * they are typically found in claims and references, are compared pairwise;
+	 * longer lists are compared by counting the snaks in a hash map.
 	 *
 	 * @param snaks1
 	 * @param snaks2
@@ -566,25 +677,46 @@ public class StatementUpdate {
 		while (snaks1.hasNext()) {
 			snakList1.add(snaks1.next());
 		}
-
-		int snakCount2 = 0;
+		ArrayList<Snak> snakList2 = new ArrayList<>(snakList1.size());
 		while (snaks2.hasNext()) {
-			snakCount2++;
-			Snak snak2 = snaks2.next();
-			boolean found = false;
-			for (int i = 0; i < snakList1.size(); i++) {
-				if (snak2.equals(snakList1.get(i))) {
-					snakList1.set(i, null);
-					found = true;
-					break;
+			snakList2.add(snaks2.next());
+		}
+		if (snakList1.size() != snakList2.size()) {
+			return false;
+		}
+
+		if (snakList1.size() <= MAX_PAIRWISE_SNAK_COUNT) {
+			for (Snak snak2 : snakList2) {
+				boolean found = false;
+				for (int i = 0; i < snakList1.size(); i++) {
+					if (snak2.equals(snakList1.get(i))) {
+						snakList1.set(i, null);
+						found = true;
+						break;
+					}
+				}
+				if (!found) {
+					return false;
 				}
 			}
-			if (!found) {
+			return true;
+		}
+
+		Map<Snak, Integer> snakCounts = new HashMap<>();
+		for (Snak snak1 : snakList1) {
+			snakCounts.merge(snak1, 1, Integer::sum);
+		}
+		for (Snak snak2 : snakList2) {
+			Integer count = snakCounts.get(snak2);
+			if (count == null) {
 				return false;
+			} else if (count == 1) {
+				snakCounts.remove(snak2);
+			} else {
+				snakCounts.put(snak2, count - 1);
 			}
 		}
-
-		return snakCount2 == snakList1.size();
+		return true;
 	}
 	
 	/**
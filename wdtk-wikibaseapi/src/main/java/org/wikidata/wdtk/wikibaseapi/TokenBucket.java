@@ -0,0 +1,192 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter that allows a number of requests per second, with short bursts
+ * of up to a given number of requests. It can be shared by several threads,
+ * which then use the same budget. Requests wait in the order in which they
+ * were made.
+ * <p>
+ * All requests can also be paused for some time, for example when the server
+ * reports too much lag. Tokens are not collected during a pause, so requests
+ * resume at the normal rate afterwards rather than in a burst.
+ */
+public class TokenBucket {
+
+	static final long NANOS_PER_SECOND = 1000000000L;
+
+	/**
+	 * Source of the current time in nanoseconds.
+	 */
+	final LongSupplier clock;
+
+	double tokensPerSecond;
+
+	final double capacity;
+
+	/**
+	 * Number of available tokens. It is negative if requests are waiting for
+	 * tokens.
+	 */
+	double tokens;
+
+	/**
+	 * Time in nanoseconds up to which tokens have been added. It is in the
+	 * future during a pause.
+	 */
+	long lastRefillTime;
+
+	/**
+	 * Time in nanoseconds up to which requests are paused.
+	 */
+	long pausedUntil;
+
+	/**
+	 * Creates a bucket that is full initially.
+	 *
+	 * @param tokensPerSecond
+	 *            the number of requests that are allowed per second
+	 * @param capacity
+	 *            the largest number of requests that are allowed in a burst,
+	 *            at least 1
+	 */
+	public TokenBucket(double tokensPerSecond, double capacity) {
+		this(tokensPerSecond, capacity, System::nanoTime);
+	}
+
+	/**
+	 * Creates a bucket that is full initially and reads the time from the
+	 * given clock, so that tests do not depend on the actual time.
+	 */
+	TokenBucket(double tokensPerSecond, double capacity, LongSupplier clock) {
+		if (tokensPerSecond <= 0 || capacity < 1) {
+			throw new IllegalArgumentException(
+					"The rate must be positive and the capacity at least 1");
+		}
+		this.tokensPerSecond = tokensPerSecond;
+		this.capacity = capacity;
+		this.tokens = capacity;
+		this.clock = clock;
+		this.lastRefillTime = clock.getAsLong();
+		this.pausedUntil = this.lastRefillTime;
+	}
+
+	/**
+	 * Returns the number of requests that are allowed per second.
+	 *
+	 * @return the rate
+	 */
+	public synchronized double getRate() {
+		return this.tokensPerSecond;
+	}
+
+	/**
+	 * Changes the number of requests that are allowed per second. Requests
+	 * that are already waiting keep their place.
+	 *
+	 * @param tokensPerSecond
+	 *            the new rate
+	 */
+	public synchronized void setRate(double tokensPerSecond) {
+		if (tokensPerSecond <= 0) {
+			throw new IllegalArgumentException("The rate must be positive");
+		}
+		refill(this.clock.getAsLong());
+		this.tokensPerSecond = tokensPerSecond;
+	}
+
+	/**
+	 * Waits until a request is allowed. If the thread is interrupted while
+	 * waiting, it returns early with the interrupt flag set.
+	 */
+	public void acquire() {
+		long waitTime = reserve();
+		try {
+			// a pause may have started while waiting
+			while (waitTime > 0) {
+				TimeUnit.NANOSECONDS.sleep(waitTime);
+				waitTime = getRemainingPause();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stops all requests for the given time, counted from now. Requests that
+	 * are waiting already and would be allowed during the pause wait until
+	 * it is over.
+	 *
+	 * @param milliseconds
+	 *            the duration of the pause
+	 */
+	public synchronized void pause(long milliseconds) {
+		long now = this.clock.getAsLong();
+		refill(now);
+		long pausedUntil = now + TimeUnit.MILLISECONDS.toNanos(milliseconds);
+		if (pausedUntil - this.pausedUntil > 0) {
+			this.pausedUntil = pausedUntil;
+		}
+		if (pausedUntil - this.lastRefillTime > 0) {
+			this.lastRefillTime = pausedUntil;
+			this.tokens = Math.min(this.tokens, 0);
+		}
+	}
+
+	/**
+	 * Returns the time in nanoseconds until the current pause is over, or a
+	 * value that is not positive if there is no pause.
+	 */
+	synchronized long getRemainingPause() {
+		return this.pausedUntil - this.clock.getAsLong();
+	}
+
+	/**
+	 * Takes a token and returns the time in nanoseconds that the caller has
+	 * to wait until it is available.
+	 */
+	synchronized long reserve() {
+		long now = this.clock.getAsLong();
+		refill(now);
+		this.tokens--;
+		long waitTime = this.lastRefillTime - now;
+		if (this.tokens < 0) {
+			waitTime += (long) (-this.tokens * NANOS_PER_SECOND / this.tokensPerSecond);
+		}
+		return waitTime;
+	}
+
+	/**
+	 * Adds the tokens that were produced up to the given time.
+	 */
+	void refill(long now) {
+		long elapsed = now - this.lastRefillTime;
+		if (elapsed > 0) {
+			this.tokens = Math.min(this.capacity, this.tokens
+					+ elapsed * this.tokensPerSecond / NANOS_PER_SECOND);
+			this.lastRefillTime = now;
+		}
+	}
+}
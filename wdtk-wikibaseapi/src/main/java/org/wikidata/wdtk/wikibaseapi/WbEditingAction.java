@@ -121,6 +121,13 @@ public class WbEditingAction {
 	 */
 	int remainingEdits = -1;
 
+	/**
+	 * Rate limiter that is used instead of {@link #averageMsecsPerEdit} if
+	 * set. It can be shared with other objects, which are then also paused if
+	 * the lag is too high.
+	 */
+	TokenBucket rateLimiter = null;
+
 	/**
 	 * Creates an object to modify data on a Wikibase site. The API is used to
 	 * request the changes. The site URI is necessary since it is not contained
@@ -201,6 +208,10 @@ public class WbEditingAction {
 	 * This means that it will only wait as long as necessary. If your program
 	 * takes time between edits for other reasons, there will be no additional
 	 * delay caused by this feature.
+	 * <p>
+	 * The average time is not used if a rate limiter is set, or if the
+	 * connection has a {@link RateController}, which adapts the rate of edits
+	 * to the load of the site.
 	 *
 	 * @return average time per edit in milliseconds
 	 */
@@ -219,6 +230,29 @@ public class WbEditingAction {
 		this.averageMsecsPerEdit = milliseconds;
 	}
 
+	/**
+	 * Returns the rate limiter that is used instead of the average time per
+	 * edit, or null if there is none.
+	 *
+	 * @return the rate limiter or null
+	 */
+	public TokenBucket getRateLimiter() {
+		return this.rateLimiter;
+	}
+
+	/**
+	 * Sets a rate limiter that is used instead of the average time per edit.
+	 * Unlike the average time per edit, the rate limiter can be shared by
+	 * several threads and objects. If a request fails because the lag is too
+	 * high, all requests that use the rate limiter are paused.
+	 *
+	 * @param rateLimiter
+	 *            the rate limiter, or null to use the average time per edit
+	 */
+	public void setRateLimiter(TokenBucket rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
 	/**
 	 * Executes the API action "wbeditentity" for the given parameters. Created
 	 * or modified items are returned as a result. In particular, this is
@@ -728,15 +762,26 @@ public class WbEditingAction {
 		parameters.put("maxlag", Integer.toString(this.maxLag));
 		parameters.put("token", connection.getOrFetchToken("csrf"));
 
-		if (this.remainingEdits > 0) {
-			this.remainingEdits--;
-		} else if (this.remainingEdits == 0) {
-			logger.info("Not editing entity (simulation mode). Request parameters were: "
-					+ parameters.toString());
-			return null;
+		synchronized (this) {
+			if (this.remainingEdits > 0) {
+				this.remainingEdits--;
+			} else if (this.remainingEdits == 0) {
+				logger.info("Not editing entity (simulation mode). Request parameters were: "
+						+ parameters.toString());
+				return null;
+			}
 		}
 
-		checkEditSpeed();
+		TokenBucket rateLimiter = this.rateLimiter;
+		RateController rateController = this.connection.getRateController();
+		if (rateLimiter != null) {
+			rateLimiter.acquire();
+		}
+		if (rateController != null) {
+			rateController.beforeEdit();
+		} else if (rateLimiter == null) {
+			checkEditSpeed();
+		}
 		JsonNode result = null;
 		
 		int retry = getMaxLagMaxRetries();
@@ -745,6 +790,9 @@ public class WbEditingAction {
 		while (retry > 0) {
 			try {
 				result = this.connection.sendJsonRequest("POST", parameters);
+				if (rateController != null) {
+					rateController.onEditSucceeded();
+				}
 				break;
 			} catch (TokenErrorException e) { // try again with a fresh token
 				lastException = e;
@@ -752,11 +800,30 @@ public class WbEditingAction {
 				parameters.put("token", connection.getOrFetchToken("csrf"));
 			} catch (MaxlagErrorException e) { // wait for 5 seconds
 				lastException = e;
+				if (rateController != null) {
+					// the controller was informed about the lag by the connection
+					// and pauses all requests that use it
+					logger.warn(e.getMessage() + String.format(" -- slowing down to %.2f edits per second.",
+							rateController.getRate()));
+					retry--;
+					if (retry > 0) {
+						if (rateLimiter != null) {
+							rateLimiter.acquire();
+						}
+						rateController.beforeEdit();
+					}
+					continue;
+				}
 				logger.warn(e.getMessage() + String.format(" -- pausing for %d milliseconds.", maxLagSleepTime));
-				try {
-					Thread.sleep(maxLagSleepTime);
-				} catch (InterruptedException ex) {
-					Thread.currentThread().interrupt();
+				if (rateLimiter != null) {
+					rateLimiter.pause(maxLagSleepTime);
+					rateLimiter.acquire();
+				} else {
+					try {
+						Thread.sleep(maxLagSleepTime);
+					} catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
 				}
 				maxLagSleepTime *= getMaxLagBackOffFactor();
 			}
@@ -823,13 +890,8 @@ public class WbEditingAction {
 	 * thread for the remaining time.
 	 */
 	private void checkEditSpeed() {
-		long currentTime = System.nanoTime();
-		int nextIndex = (this.curEditTimeSlot + 1) % editTimeWindow;
-		if (this.recentEditTimes[nextIndex] != 0
-				&& (currentTime - this.recentEditTimes[nextIndex]) / 1000000 < this.averageMsecsPerEdit
-						* editTimeWindow) {
-			long sleepTime = this.averageMsecsPerEdit * editTimeWindow
-					- (currentTime - this.recentEditTimes[nextIndex]) / 1000000;
+		long sleepTime = reserveEditTime();
+		if (sleepTime > 0) {
 			logger.info("We are editing too fast. Pausing for " + sleepTime
 					+ " milliseconds.");
 			try {
@@ -837,11 +899,28 @@ public class WbEditingAction {
 			} catch (InterruptedException ex) {
 				Thread.currentThread().interrupt();
 			}
-			currentTime = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Records the time of the next edit in the window of recent edits and
+	 * returns the number of milliseconds to wait until then. The waiting is
+	 * done by the caller, so that other threads are not blocked meanwhile.
+	 */
+	private synchronized long reserveEditTime() {
+		long currentTime = System.nanoTime();
+		int nextIndex = (this.curEditTimeSlot + 1) % editTimeWindow;
+		long sleepTime = 0;
+		if (this.recentEditTimes[nextIndex] != 0
+				&& (currentTime - this.recentEditTimes[nextIndex]) / 1000000 < this.averageMsecsPerEdit
+						* editTimeWindow) {
+			sleepTime = this.averageMsecsPerEdit * editTimeWindow
+					- (currentTime - this.recentEditTimes[nextIndex]) / 1000000;
 		}
 
-		this.recentEditTimes[nextIndex] = currentTime;
+		this.recentEditTimes[nextIndex] = currentTime + sleepTime * 1000000;
 		this.curEditTimeSlot = nextIndex;
+		return sleepTime;
 	}
 	
 	/**
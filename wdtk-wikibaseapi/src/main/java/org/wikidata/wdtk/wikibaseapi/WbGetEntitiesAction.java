@@ -21,10 +21,17 @@ package org.wikidata.wdtk.wikibaseapi;
  */
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.function.BiConsumer;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
@@ -32,10 +39,10 @@ import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
 import org.wikidata.wdtk.datamodel.implementation.EntityDocumentImpl;
 import org.wikidata.wdtk.datamodel.implementation.EntityIdValueImpl;
 import org.wikidata.wdtk.datamodel.interfaces.*;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -64,6 +71,11 @@ public class WbGetEntitiesAction {
 	 */
 	final ObjectMapper mapper;
 
+	/**
+	 * Reader for entity documents, configured once and shared by all requests.
+	 */
+	final ObjectReader entityReader;
+
 	/**
 	 * Creates an object to fetch data from the given ApiConnection. The site
 	 * URI is necessary since it is not contained in the data retrieved from the
@@ -80,6 +92,8 @@ public class WbGetEntitiesAction {
 		this.connection = connection;
 		this.siteIri = siteIri;
 		this.mapper = new DatamodelMapper(siteIri);
+		this.entityReader = this.mapper.readerFor(EntityDocumentImpl.class)
+				.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
 	}
 
 	/**
@@ -98,9 +112,9 @@ public class WbGetEntitiesAction {
 	public Map<String, EntityDocument> wbGetEntities(
 			WbGetEntitiesActionData properties)
 			throws MediaWikiApiErrorException, IOException {
-		return wbGetEntities(properties.ids, properties.sites,
-				properties.titles, properties.props, properties.languages,
-				properties.sitefilter);
+		Map<String, EntityDocument> result = new HashMap<>();
+		wbGetEntities(properties, result::put);
+		return result;
 	}
 
 	/**
@@ -154,13 +168,48 @@ public class WbGetEntitiesAction {
 	public Map<String, EntityDocument> wbGetEntities(String ids, String sites,
 			String titles, String props, String languages, String sitefilter)
 			throws MediaWikiApiErrorException, IOException {
+		WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+		properties.ids = ids;
+		properties.sites = sites;
+		properties.titles = titles;
+		properties.props = props;
+		properties.languages = languages;
+		properties.sitefilter = sitefilter;
+		return wbGetEntities(properties);
+	}
+
+	/**
+	 * Retrieves documents via the API as
+	 * {@link #wbGetEntities(String, String, String, String, String, String)},
+	 * but passes every document to the given consumer as soon as it has been
+	 * read, together with its identifier or page title. The response is parsed
+	 * incrementally, so that only one entity at a time is kept in memory. If
+	 * the maxlag parameter is set, the API answers with a
+	 * {@link MaxlagErrorException} if the replication lag is larger.
+	 *
+	 * @param properties
+	 *            parameter setting for wbgetentities
+	 * @param consumer
+	 *            receives the identifier or title and the document of every
+	 *            entity that was found
+	 * @throws MediaWikiApiErrorException
+	 *             if the API returns an error
+	 * @throws IOException
+	 *             if we encounter network errors, or HTTP 500 errors on Wikibase's side
+	 * @throws IllegalArgumentException
+	 *             if the given combination of parameters does not make sense
+	 */
+	public void wbGetEntities(WbGetEntitiesActionData properties,
+			BiConsumer<String, EntityDocument> consumer)
+			throws MediaWikiApiErrorException, IOException {
+		String titles = properties.titles;
+		String sites = properties.sites;
 
 		Map<String, String> parameters = new HashMap<>();
 		parameters.put(ApiConnection.PARAM_ACTION, "wbgetentities");
-		List<String> titlesList = titles == null ? Collections.emptyList() : Arrays.asList(titles.split("-"));
 
-		if (ids != null) {
-			parameters.put("ids", ids);
+		if (properties.ids != null) {
+			parameters.put("ids", properties.ids);
 			if (titles != null || sites != null) {
 				throw new IllegalArgumentException(
 						"Cannot use parameters \"sites\" or \"titles\" when using ids to get entity data");
@@ -177,72 +226,143 @@ public class WbGetEntitiesAction {
 					"Either ids, or titles and site must be specified for this action.");
 		}
 
-		if (props != null) {
-			parameters.put("props", props);
+		if (properties.props != null) {
+			parameters.put("props", properties.props);
 		}
-
-		if (languages != null) {
-			parameters.put("languages", languages);
+		if (properties.languages != null) {
+			parameters.put("languages", properties.languages);
 		}
-		if (sitefilter != null) {
-			parameters.put("sitefilter", sitefilter);
+		if (properties.sitefilter != null) {
+			parameters.put("sitefilter", properties.sitefilter);
+		}
+		if (properties.maxlag != null) {
+			parameters.put("maxlag", properties.maxlag);
 		}
 
-		Map<String, EntityDocument> result = new HashMap<>();
-
-		try {
-			JsonNode root = this.connection.sendJsonRequest("POST", parameters);
-
-			JsonNode entities = root.path("entities");
-			Iterator<Entry<String,JsonNode>> entitiesIterator = entities.fields();
-			int i = 0;
-			while(entitiesIterator.hasNext()) {
-				Entry<String,JsonNode> entry = entitiesIterator.next();
-				JsonNode entityNode = entry.getValue();
-				if(!entityNode.has("missing")) {
-					try {
-						EntityDocument ed = mapper.reader()
-								.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT)
-								.treeToValue(entityNode, EntityDocumentImpl.class);
-
-						if (titles == null) {
-							// We use the JSON key rather than the id of the value
-							// so that retrieving redirected entities works.
-							result.put(entry.getKey(), ed);
-						} else {
-							if (ed instanceof ItemDocument) {
-								SiteLink siteLink = ((ItemDocument) ed).getSiteLinks().get(sites);
-								if(siteLink != null) {
-									result.put(siteLink.getPageTitle(), ed);
-								}
-							} else if(ed instanceof MediaInfoDocument) {
-								result.put(entityNode.get("title").textValue(), ed);
-							}
-						}
-					} catch (JsonProcessingException e) {
-						logger.error("Error when reading JSON for entity "
-								+ entityNode.path("id").asText("UNKNOWN")
-								+ ": " + e.toString());
-					}
-				} else if(entityNode.has("id")) {
-					try {
-						EntityIdValue entityIdValue = EntityIdValueImpl.fromId(entityNode.get("id").asText(), siteIri);
-						if(entityIdValue instanceof MediaInfoIdValue) {
-							//TODO: bad hack, it would be much nicer if the API would return the page title
-							result.put(titlesList.get(i), Datamodel.makeMediaInfoDocument((MediaInfoIdValue) entityIdValue));
-						}
-					} catch (IllegalArgumentException e) {
-						logger.warn("Invalid entity id returned: " + entityNode.get("id").asText());
+		List<String> titlesList = titles == null ? Collections.emptyList() : Arrays.asList(titles.split("-"));
+		RateController rateController = this.connection.getRateController();
+		if (rateController != null) {
+			rateController.beforeRead();
+		}
+		try (InputStream response = this.connection.sendStreamingJsonRequest("POST", parameters);
+				JsonParser parser = this.mapper.getFactory().createParser(response)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonParseException(parser, "API response is not a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				if ("entities".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+					int i = 0;
+					while (parser.nextToken() == JsonToken.FIELD_NAME) {
+						String key = parser.getCurrentName();
+						parser.nextToken();
+						readEntity(parser, key, sites,
+								i < titlesList.size() ? titlesList.get(i) : null, consumer);
+						i++;
 					}
+				} else if ("error".equals(field) || "warnings".equals(field)) {
+					ObjectNode root = this.mapper.createObjectNode();
+					root.set(field, this.mapper.readTree(parser));
+					this.connection.checkErrors(root, parameters);
+					this.connection.logWarnings(root);
+				} else {
+					parser.skipChildren();
 				}
-				i++;
 			}
 		} catch (IOException e) {
 			logger.error("Could not retrive data: " + e.toString());
 			throw e;
 		}
+	}
 
-		return result;
+	/**
+	 * Reads one entry of the "entities" object of the response, and passes
+	 * its document to the consumer if the entity was found. The tokens of the
+	 * entity are buffered, so that entries for missing entities, which cannot
+	 * be read as documents, can be recognized.
+	 *
+	 * @param parser
+	 *            parser at the start of the entry
+	 * @param key
+	 *            the key of the entry in the response
+	 * @param sites
+	 *            the site key of the requested titles, or null if entities
+	 *            were requested by id
+	 * @param requestedTitle
+	 *            the title that was requested at the position of this entry,
+	 *            or null
+	 * @param consumer
+	 *            receives the document
+	 */
+	private void readEntity(JsonParser parser, String key, String sites,
+			String requestedTitle, BiConsumer<String, EntityDocument> consumer)
+			throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return;
+		}
+		TokenBuffer buffer = new TokenBuffer(parser);
+		boolean missing = false;
+		String id = null;
+		String title = null;
+		String fieldName = null;
+		int depth = 0;
+		JsonToken token = parser.currentToken();
+		do {
+			if (depth == 1) {
+				if (token == JsonToken.FIELD_NAME) {
+					fieldName = parser.getCurrentName();
+					missing |= "missing".equals(fieldName);
+				} else if (token == JsonToken.VALUE_STRING) {
+					if ("id".equals(fieldName)) {
+						id = parser.getText();
+					} else if ("title".equals(fieldName)) {
+						title = parser.getText();
+					}
+				}
+			}
+			buffer.copyCurrentEvent(parser);
+			if (token.isStructStart()) {
+				depth++;
+			} else if (token.isStructEnd()) {
+				depth--;
+			}
+		} while (depth > 0 && (token = parser.nextToken()) != null);
+
+		if (!missing) {
+			EntityDocument ed;
+			try (JsonParser entityParser = buffer.asParser()) {
+				ed = this.entityReader.readValue(entityParser);
+			} catch (JsonProcessingException e) {
+				logger.error("Error when reading JSON for entity "
+						+ (id == null ? "UNKNOWN" : id)
+						+ ": " + e.toString());
+				return;
+			}
+			if (sites == null) {
+				// We use the JSON key rather than the id of the value
+				// so that retrieving redirected entities works.
+				consumer.accept(key, ed);
+			} else if (ed instanceof ItemDocument) {
+				SiteLink siteLink = ((ItemDocument) ed).getSiteLinks().get(sites);
+				if (siteLink != null) {
+					consumer.accept(siteLink.getPageTitle(), ed);
+				}
+			} else if (ed instanceof MediaInfoDocument && title != null) {
+				consumer.accept(title, ed);
+			}
+		} else if (id != null) {
+			try {
+				EntityIdValue entityIdValue = EntityIdValueImpl.fromId(id, siteIri);
+				if (entityIdValue instanceof MediaInfoIdValue && requestedTitle != null) {
+					//TODO: bad hack, it would be much nicer if the API would return the page title
+					consumer.accept(requestedTitle, Datamodel.makeMediaInfoDocument((MediaInfoIdValue) entityIdValue));
+				}
+			} catch (IllegalArgumentException e) {
+				logger.warn("Invalid entity id returned: " + id);
+			}
+		}
 	}
 
 }
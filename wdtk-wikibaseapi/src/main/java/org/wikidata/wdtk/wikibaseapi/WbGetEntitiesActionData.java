@@ -73,4 +73,11 @@ public class WbGetEntitiesActionData {
 	 * for details.
 	 */
 	public String sitefilter = null;
+
+	/**
+	 * Maximal replication lag in seconds that the server should accept before
+	 * answering, or null to not set the maxlag parameter. See
+	 * {@link WbEditingAction#setMaxLag(int)} for details.
+	 */
+	public String maxlag = null;
 }
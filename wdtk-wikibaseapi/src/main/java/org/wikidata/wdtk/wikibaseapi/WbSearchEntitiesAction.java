@@ -22,9 +22,22 @@ package org.wikidata.wdtk.wikibaseapi;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,12 +90,57 @@ public class WbSearchEntitiesAction {
         this.siteIri = siteUri;
     }
 
+    /**
+     * One page of search results, together with the offset where the search
+     * continues.
+     */
+    static class SearchPage {
+        final List<WbSearchEntitiesResult> results;
+        /**
+         * Offset of the next page, or null if there are no further results.
+         */
+        final Long continueOffset;
+
+        SearchPage(List<WbSearchEntitiesResult> results, Long continueOffset) {
+            this.results = results;
+            this.continueOffset = continueOffset;
+        }
+    }
+
     public List<WbSearchEntitiesResult> wbSearchEntities(WbGetEntitiesSearchData properties)
             throws MediaWikiApiErrorException, IOException {
         return wbSearchEntities(properties.search, properties.language,
                 properties.strictlanguage, properties.type, properties.limit, properties.offset);
     }
 
+    /**
+     * Returns all results of a search as a lazy stream, starting at the offset
+     * of the given properties. Further pages of results are requested
+     * automatically, with the given limit as their size. The next page is
+     * requested on the given executor while the results of the current page
+     * are consumed. Entities that were found on an earlier page are skipped.
+     * <p>
+     * If a request fails, the stream throws a {@link CompletionException}
+     * whose cause is the {@link IOException} or
+     * {@link MediaWikiApiErrorException}.
+     *
+     * @param properties
+     *            the parameters of the search
+     * @param executor
+     *            executor that requests the pages
+     * @return stream of the search results
+     */
+    public Stream<WbSearchEntitiesResult> wbSearchEntitiesStream(
+            WbGetEntitiesSearchData properties, Executor executor) {
+        if (properties.search == null || properties.language == null) {
+            throw new IllegalArgumentException(
+                    "Search and language parameters must be specified for this action.");
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new SearchResultIterator(properties, executor),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
     /**
      * Executes the API action "wbsearchentity" for the given parameters.
      * Searches for entities using labels and aliases. Returns a label and
@@ -124,6 +182,17 @@ public class WbSearchEntitiesAction {
     public List<WbSearchEntitiesResult> wbSearchEntities(String search, String language,
                                                          Boolean strictLanguage, String type, Long limit, Long offset)
             throws MediaWikiApiErrorException, IOException {
+        return wbSearchEntitiesPage(search, language, strictLanguage, type, limit, offset).results;
+    }
+
+    /**
+     * Executes the API action "wbsearchentity" like
+     * {@link #wbSearchEntities(String, String, Boolean, String, Long, Long)},
+     * and also returns the offset where the search continues.
+     */
+    SearchPage wbSearchEntitiesPage(String search, String language,
+            Boolean strictLanguage, String type, Long limit, Long offset)
+            throws MediaWikiApiErrorException, IOException {
 
         Map<String, String> parameters = new HashMap<>();
         parameters.put(ApiConnection.PARAM_ACTION, "wbsearchentities");
@@ -159,6 +228,10 @@ public class WbSearchEntitiesAction {
 
         List<WbSearchEntitiesResult> results = new ArrayList<>();
 
+        RateController rateController = this.connection.getRateController();
+        if (rateController != null) {
+            rateController.beforeRead();
+        }
         JsonNode root = this.connection.sendJsonRequest("POST", parameters);
         JsonNode entities = root.path("search");
         for (JsonNode entityNode : entities) {
@@ -173,7 +246,91 @@ public class WbSearchEntitiesAction {
             }
         }
 
-        return results;
+        JsonNode continueNode = root.path("search-continue");
+        return new SearchPage(results, continueNode.canConvertToLong() ? continueNode.asLong() : null);
+    }
+
+    /**
+     * Iterates over the results of all pages of a search, requesting the next
+     * page while the current one is consumed. The first page is only
+     * requested when the first result is needed.
+     */
+    class SearchResultIterator implements Iterator<WbSearchEntitiesResult> {
+
+        final WbGetEntitiesSearchData properties;
+        final Executor executor;
+        /**
+         * Ids of the entities that were returned so far.
+         */
+        final Set<String> seenIds = new HashSet<>();
+
+        Iterator<WbSearchEntitiesResult> currentPage;
+        CompletableFuture<SearchPage> nextPage;
+        WbSearchEntitiesResult nextResult;
+        boolean started = false;
+
+        SearchResultIterator(WbGetEntitiesSearchData properties, Executor executor) {
+            this.properties = properties;
+            this.executor = executor;
+            this.currentPage = Collections.emptyIterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!started) {
+                started = true;
+                nextPage = requestPage(properties.offset);
+            }
+            while (nextResult == null) {
+                if (currentPage.hasNext()) {
+                    WbSearchEntitiesResult result = currentPage.next();
+                    if (seenIds.add(result.getEntityId())) {
+                        nextResult = result;
+                    }
+                } else if (nextPage != null) {
+                    SearchPage page = waitForPage(nextPage);
+                    currentPage = page.results.iterator();
+                    // an empty page would not advance the search
+                    nextPage = (page.continueOffset == null || page.results.isEmpty())
+                            ? null : requestPage(page.continueOffset);
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public WbSearchEntitiesResult next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            WbSearchEntitiesResult result = nextResult;
+            nextResult = null;
+            return result;
+        }
+
+        private CompletableFuture<SearchPage> requestPage(Long offset) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return wbSearchEntitiesPage(properties.search, properties.language,
+                            properties.strictlanguage, properties.type, properties.limit, offset);
+                } catch (IOException | MediaWikiApiErrorException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+
+        private SearchPage waitForPage(CompletableFuture<SearchPage> page) {
+            try {
+                return page.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            }
+        }
     }
 
 }
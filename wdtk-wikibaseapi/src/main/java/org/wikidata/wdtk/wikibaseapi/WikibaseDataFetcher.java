@@ -22,11 +22,22 @@ package org.wikidata.wdtk.wikibaseapi;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.interfaces.DocumentDataFilter;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
 import org.wikidata.wdtk.datamodel.interfaces.MediaInfoIdValue;
+import org.wikidata.wdtk.util.PageIdIndex;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 
 /**
@@ -37,6 +48,9 @@ import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
  */
 public class WikibaseDataFetcher {
 
+	static final Logger logger = LoggerFactory
+			.getLogger(WikibaseDataFetcher.class);
+
 	/**
 	 * API Action to fetch data.
 	 */
@@ -62,6 +76,80 @@ public class WikibaseDataFetcher {
 	 */
 	int maxListSize = 50;
 
+	/**
+	 * Maximal number of requests that are sent at the same time by the
+	 * asynchronous methods.
+	 */
+	int maxRequestsInFlight = 4;
+
+	/**
+	 * Value in seconds of MediaWiki's maxlag parameter for the asynchronous
+	 * methods, or a negative value to not send it.
+	 */
+	int maxLag = -1;
+
+	/**
+	 * Number of times that a request of the asynchronous methods is repeated
+	 * after a maxlag error or a network error.
+	 */
+	int maxRetries = 5;
+
+	/**
+	 * Time in milliseconds to wait before the first retry of a request. The
+	 * time is doubled for every further retry.
+	 */
+	int retryWaitTime = 1000;
+
+	/**
+	 * Time in milliseconds until which no new requests are sent by the
+	 * asynchronous methods, because the server reported too much lag.
+	 */
+	long pausedUntil = 0;
+
+	/**
+	 * Threads that send the requests of the asynchronous methods, created on
+	 * first use.
+	 */
+	ExecutorService executor = null;
+
+	/**
+	 * Cache for fetched documents, or null if documents are always fetched.
+	 */
+	EntityDocumentCache cache = null;
+
+	/**
+	 * True if the revisions of cached documents are compared to the current
+	 * revisions on the site before they are used.
+	 */
+	boolean revalidateCache = true;
+
+	/**
+	 * Prefix of the cache keys of the MediaInfo ids of files. Site keys do
+	 * not contain "#", so that these keys cannot clash with titles.
+	 */
+	static final String MEDIA_INFO_CACHE_KEY_PREFIX = "#mediainfo:";
+
+	/**
+	 * Index of the page ids of files, used to find the MediaInfo ids of files
+	 * without requests, or null if it is not used.
+	 */
+	PageIdIndex pageIdIndex = null;
+
+	/**
+	 * Function that fetches documents for a list of ids or titles.
+	 */
+	private interface DocumentSource {
+		Map<String, EntityDocument> fetch(List<String> keys)
+				throws MediaWikiApiErrorException, IOException;
+	}
+
+	/**
+	 * Request that is sent by the asynchronous methods.
+	 */
+	private interface ApiRequest<T> {
+		T send() throws MediaWikiApiErrorException, IOException;
+	}
+
 	/**
 	 * Creates an object to fetch data from wikidata.org. This convenience
 	 * method creates a default {@link ApiConnection} that is not logged in. To
@@ -171,6 +259,16 @@ public class WikibaseDataFetcher {
 	 */
 	public Map<String, EntityDocument> getEntityDocuments(List<String> entityIds)
 			throws MediaWikiApiErrorException, IOException {
+		return getThroughCache(entityIds, Function.identity(),
+				this::fetchEntityDocuments);
+	}
+
+	/**
+	 * Fetches the documents for the entities of the given string IDs from the
+	 * API, without using the cache.
+	 */
+	Map<String, EntityDocument> fetchEntityDocuments(List<String> entityIds)
+			throws MediaWikiApiErrorException, IOException {
 		Map<String, EntityDocument> result = new HashMap<>();
 		List<String> newEntityIds = new ArrayList<>(entityIds);
 		boolean moreItems = !newEntityIds.isEmpty();
@@ -190,6 +288,419 @@ public class WikibaseDataFetcher {
 		return result;
 	}
 
+	/**
+	 * Fetches the documents for the entities of the given string IDs
+	 * asynchronously. The IDs are split into chunks that are requested
+	 * concurrently, with at most {@link #getMaxRequestsInFlight()} requests at
+	 * the same time. The result is a map as for
+	 * {@link #getEntityDocuments(List)}.
+	 * <p>
+	 * Requests that fail with a maxlag error or a network error are repeated
+	 * after a growing delay, up to {@link #getMaxRetries()} times. While the
+	 * server reports too much lag, no other requests are sent either. If a
+	 * request fails for good, the future completes exceptionally with the
+	 * {@link MediaWikiApiErrorException} or {@link IOException} as its cause.
+	 *
+	 * @param entityIds
+	 *            list of string IDs (e.g., "P31", "Q42") of requested entities
+	 * @return future for the map from IDs for which data could be found to
+	 *         the documents that were retrieved
+	 */
+	public CompletableFuture<Map<String, EntityDocument>> getEntityDocumentsAsync(
+			List<String> entityIds) {
+		Map<String, EntityDocument> result = new HashMap<>();
+		return getEntityDocumentsAsync(entityIds, result::putAll)
+				.thenApply(done -> result);
+	}
+
+	/**
+	 * Fetches the documents for the entities of the given string IDs
+	 * asynchronously, as {@link #getEntityDocumentsAsync(List)}, but passes the
+	 * documents of every chunk to the given consumer as soon as they are
+	 * retrieved. The consumer is called on the threads that send the
+	 * requests, but never by two threads at the same time.
+	 *
+	 * @param entityIds
+	 *            list of string IDs (e.g., "P31", "Q42") of requested entities
+	 * @param consumer
+	 *            receives maps from IDs to the documents of each chunk
+	 * @return future that completes when all chunks have been processed
+	 */
+	public CompletableFuture<Void> getEntityDocumentsAsync(
+			List<String> entityIds,
+			Consumer<Map<String, EntityDocument>> consumer) {
+		ExecutorService requestExecutor = getExecutor();
+		List<CompletableFuture<Void>> chunks = new ArrayList<>();
+		for (int start = 0; start < entityIds.size(); start += maxListSize) {
+			List<String> chunk = new ArrayList<>(entityIds.subList(start,
+					Math.min(entityIds.size(), start + maxListSize)));
+			chunks.add(CompletableFuture
+					.supplyAsync(() -> fetchChunk(chunk), requestExecutor)
+					.thenAccept(documents -> {
+						synchronized (consumer) {
+							consumer.accept(documents);
+						}
+					}));
+		}
+		return CompletableFuture.allOf(chunks
+				.toArray(new CompletableFuture<?>[0]));
+	}
+
+	/**
+	 * Returns the maximal number of requests that are sent at the same time
+	 * by the asynchronous methods.
+	 *
+	 * @return the number of concurrent requests
+	 */
+	public int getMaxRequestsInFlight() {
+		return this.maxRequestsInFlight;
+	}
+
+	/**
+	 * Sets the maximal number of requests that are sent at the same time by
+	 * the asynchronous methods. Requests that were started already are not
+	 * affected.
+	 *
+	 * @param maxRequestsInFlight
+	 *            the number of concurrent requests, at least 1
+	 */
+	public synchronized void setMaxRequestsInFlight(int maxRequestsInFlight) {
+		if (maxRequestsInFlight < 1) {
+			throw new IllegalArgumentException(
+					"At least one request must be allowed");
+		}
+		this.maxRequestsInFlight = maxRequestsInFlight;
+		if (this.executor != null) {
+			this.executor.shutdown();
+			this.executor = null;
+		}
+	}
+
+	/**
+	 * Returns the value of the maxlag parameter that is sent by the
+	 * asynchronous methods, or a negative value if it is not sent.
+	 *
+	 * @return the maxlag parameter in seconds
+	 */
+	public int getMaxLag() {
+		return this.maxLag;
+	}
+
+	/**
+	 * Sets the value of the maxlag parameter that is sent by the asynchronous
+	 * methods. See {@link WbEditingAction#setMaxLag(int)} for details. By
+	 * default, it is not sent.
+	 *
+	 * @param maxLag
+	 *            the maxlag parameter in seconds, or a negative value to not
+	 *            send it
+	 */
+	public void setMaxLag(int maxLag) {
+		this.maxLag = maxLag;
+	}
+
+	/**
+	 * Returns the number of times that a request of the asynchronous methods
+	 * is repeated after a maxlag error or a network error.
+	 *
+	 * @return the number of retries
+	 */
+	public int getMaxRetries() {
+		return this.maxRetries;
+	}
+
+	/**
+	 * Sets the number of times that a request of the asynchronous methods is
+	 * repeated after a maxlag error or a network error.
+	 *
+	 * @param maxRetries
+	 *            the number of retries
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * Returns the time to wait before the first retry of a request of the
+	 * asynchronous methods. The time is doubled for every further retry.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public int getRetryWaitTime() {
+		return this.retryWaitTime;
+	}
+
+	/**
+	 * Sets the time to wait before the first retry of a request of the
+	 * asynchronous methods. The time is doubled for every further retry.
+	 *
+	 * @param retryWaitTime
+	 *            the time in milliseconds
+	 */
+	public void setRetryWaitTime(int retryWaitTime) {
+		this.retryWaitTime = retryWaitTime;
+	}
+
+	/**
+	 * Fetches the documents of one chunk of IDs, repeating the request if
+	 * needed.
+	 *
+	 * @throws CompletionException
+	 *             if the documents could not be fetched
+	 */
+	Map<String, EntityDocument> fetchChunk(List<String> entityIds) {
+		WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+		properties.ids = ApiConnection.implodeObjects(entityIds);
+		if (this.maxLag >= 0) {
+			properties.maxlag = Integer.toString(this.maxLag);
+		}
+		return sendWithRetries(() -> getEntityDocumentMap(entityIds.size(),
+				properties));
+	}
+
+	/**
+	 * Sends a request of the asynchronous methods, repeating it after maxlag
+	 * errors and network errors.
+	 *
+	 * @throws CompletionException
+	 *             if the request failed for good
+	 */
+	private <T> T sendWithRetries(ApiRequest<T> request) {
+		long waitTime = this.retryWaitTime;
+		for (int retry = 0;; retry++) {
+			waitWhilePaused();
+			try {
+				return request.send();
+			} catch (MaxlagErrorException e) {
+				if (retry >= this.maxRetries) {
+					throw new CompletionException(e);
+				}
+				logger.warn(e.getMessage() + String.format(
+						" -- pausing requests for %d milliseconds.", waitTime));
+				pause(waitTime);
+			} catch (IOException e) {
+				if (retry >= this.maxRetries) {
+					throw new CompletionException(e);
+				}
+				logger.warn("Retrying request after error: " + e.toString());
+				sleep(waitTime);
+			} catch (MediaWikiApiErrorException e) {
+				throw new CompletionException(e);
+			}
+			waitTime *= 2;
+		}
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if (this.executor == null) {
+			this.executor = Executors.newFixedThreadPool(
+					this.maxRequestsInFlight, runnable -> {
+						Thread thread = new Thread(runnable, "wikibase-data-fetcher");
+						thread.setDaemon(true);
+						return thread;
+					});
+		}
+		return this.executor;
+	}
+
+	/**
+	 * Stops all asynchronous requests from being sent for the given time.
+	 */
+	private synchronized void pause(long milliseconds) {
+		this.pausedUntil = Math.max(this.pausedUntil,
+				System.currentTimeMillis() + milliseconds);
+	}
+
+	private void waitWhilePaused() {
+		long waitTime;
+		while ((waitTime = getPausedUntil() - System.currentTimeMillis()) > 0) {
+			sleep(waitTime);
+		}
+	}
+
+	private synchronized long getPausedUntil() {
+		return this.pausedUntil;
+	}
+
+	private static void sleep(long milliseconds) {
+		try {
+			Thread.sleep(milliseconds);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CompletionException(e);
+		}
+	}
+
+	/**
+	 * Returns the cache that is used for fetched documents, or null if
+	 * documents are always fetched.
+	 *
+	 * @return the cache or null
+	 */
+	public EntityDocumentCache getEntityDocumentCache() {
+		return this.cache;
+	}
+
+	/**
+	 * Sets the cache that is used by {@link #getEntityDocuments(List)},
+	 * {@link #getEntityDocumentsByTitle(String, List)} and
+	 * {@link #getMediaInfoIdsByFileName(List)}. Documents that are not in the
+	 * cache are fetched and added to it. The cache should not be shared with
+	 * fetchers that use a different {@link #getFilter() filter}.
+	 *
+	 * @param cache
+	 *            the cache, or null to always fetch documents
+	 */
+	public void setEntityDocumentCache(EntityDocumentCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns true if cached documents are only used after checking that they
+	 * are still current.
+	 *
+	 * @return true if cached documents are revalidated
+	 */
+	public boolean isRevalidatingCache() {
+		return this.revalidateCache;
+	}
+
+	/**
+	 * Sets whether cached documents are only used after checking that they
+	 * are still current. If enabled, which is the default, the current
+	 * revision ids of the cached documents are fetched with a cheap request
+	 * for page information only, and only the documents that have changed
+	 * are fetched again. If disabled, cached documents are used as they are,
+	 * which is only sensible if the data does not change while it is used.
+	 * <p>
+	 * The MediaInfo ids of files are not revalidated, since they are the ids
+	 * of the file pages and only change if a file is deleted.
+	 *
+	 * @param revalidateCache
+	 *            true if cached documents should be revalidated
+	 */
+	public void setRevalidatingCache(boolean revalidateCache) {
+		this.revalidateCache = revalidateCache;
+	}
+
+	/**
+	 * Returns the index of the page ids of files that is used by
+	 * {@link #getMediaInfoIdsByFileNameAsync(List)}, or null if it is not
+	 * used.
+	 *
+	 * @return the index or null
+	 */
+	public PageIdIndex getPageIdIndex() {
+		return this.pageIdIndex;
+	}
+
+	/**
+	 * Sets the index of the page ids of files that is used by
+	 * {@link #getMediaInfoIdsByFileNameAsync(List)}. Files that are in the
+	 * index get their MediaInfo ids without requests, and the page ids of all
+	 * other files that are found are added to it. The index can be built
+	 * from a dump of Wikimedia Commons beforehand, and it can be saved after
+	 * use, so that the page ids are kept across runs.
+	 * <p>
+	 * The titles in the index have the "File:" prefix and spaces rather than
+	 * underscores. Redirects have the page id of the file that they redirect
+	 * to.
+	 *
+	 * @param pageIdIndex
+	 *            the index, or null to always send requests
+	 */
+	public void setPageIdIndex(PageIdIndex pageIdIndex) {
+		this.pageIdIndex = pageIdIndex;
+	}
+
+	/**
+	 * Returns the documents for the given ids or titles from the cache, if
+	 * they are still current, and fetches the remaining ones.
+	 *
+	 * @param keys
+	 *            the ids or titles of the requested documents
+	 * @param cacheKeys
+	 *            function that returns the cache key of an id or title
+	 * @param source
+	 *            function that fetches documents that are not cached
+	 * @return map from ids or titles for which data could be found to the
+	 *         documents
+	 */
+	Map<String, EntityDocument> getThroughCache(List<String> keys,
+			Function<String, String> cacheKeys, DocumentSource source)
+			throws MediaWikiApiErrorException, IOException {
+		EntityDocumentCache cache = this.cache;
+		if (cache == null) {
+			return source.fetch(keys);
+		}
+		Map<String, EntityDocument> result = new HashMap<>();
+		for (String key : keys) {
+			EntityDocument document = cache.get(cacheKeys.apply(key));
+			if (document != null) {
+				result.put(key, document);
+			}
+		}
+		if (this.revalidateCache && !result.isEmpty()) {
+			Set<String> entityIds = new HashSet<>();
+			for (EntityDocument document : result.values()) {
+				entityIds.add(document.getEntityId().getId());
+			}
+			Map<String, Long> revisionIds = getRevisionIds(new ArrayList<>(entityIds));
+			Iterator<Map.Entry<String, EntityDocument>> iterator = result
+					.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, EntityDocument> entry = iterator.next();
+				Long revisionId = revisionIds.get(entry.getValue().getEntityId().getId());
+				if (revisionId == null
+						|| revisionId != entry.getValue().getRevisionId()) {
+					cache.remove(cacheKeys.apply(entry.getKey()));
+					iterator.remove();
+				}
+			}
+		}
+
+		List<String> missingKeys = new ArrayList<>();
+		for (String key : keys) {
+			if (!result.containsKey(key)) {
+				missingKeys.add(key);
+			}
+		}
+		if (!missingKeys.isEmpty()) {
+			Map<String, EntityDocument> fetched = source.fetch(missingKeys);
+			for (Map.Entry<String, EntityDocument> entry : fetched.entrySet()) {
+				cache.put(cacheKeys.apply(entry.getKey()), entry.getValue());
+			}
+			result.putAll(fetched);
+		}
+		return result;
+	}
+
+	/**
+	 * Fetches the current revision ids of the given entities. Only page
+	 * information is requested, which is much smaller than the documents.
+	 *
+	 * @param entityIds
+	 *            string IDs of the entities
+	 * @return map from the IDs of existing entities to their revision ids
+	 */
+	Map<String, Long> getRevisionIds(List<String> entityIds)
+			throws MediaWikiApiErrorException, IOException {
+		Map<String, Long> result = new HashMap<>();
+		for (int i = 0; i < entityIds.size(); i += this.maxListSize) {
+			WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+			properties.ids = ApiConnection.implodeObjects(entityIds.subList(i,
+					Math.min(i + this.maxListSize, entityIds.size())));
+			// the datatype is needed to read property documents
+			properties.props = "info|datatype";
+			for (EntityDocument document : this.wbGetEntitiesAction
+					.wbGetEntities(properties).values()) {
+				result.put(document.getEntityId().getId(),
+						document.getRevisionId());
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Fetches the document for the entity that has a page of the given title on
 	 * the given site. Site keys should be some site identifier known to the
@@ -259,6 +770,16 @@ public class WikibaseDataFetcher {
 	public Map<String, EntityDocument> getEntityDocumentsByTitle(
 			String siteKey, List<String> titles)
 			throws MediaWikiApiErrorException, IOException {
+		return getThroughCache(titles, title -> siteKey + ":" + title,
+				keys -> fetchEntityDocumentsByTitle(siteKey, keys));
+	}
+
+	/**
+	 * Fetches the documents for the entities that have pages of the given
+	 * titles on the given site from the API, without using the cache.
+	 */
+	Map<String, EntityDocument> fetchEntityDocumentsByTitle(String siteKey,
+			List<String> titles) throws MediaWikiApiErrorException, IOException {
 		List<String> newTitles = new ArrayList<>(titles);
 		Map<String, EntityDocument> result = new HashMap<>();
 		boolean moreItems = !newTitles.isEmpty();
@@ -353,6 +874,9 @@ public class WikibaseDataFetcher {
 	 * Otherwise, you may need to use
 	 * {@link WikibaseDataFetcher#getEntityDocumentsByTitle(String siteKey, List titles)}
 	 *
+	 * For large numbers of files, {@link #getMediaInfoIdsByFileNameAsync(List)}
+	 * is much faster, since it sends requests concurrently.
+	 *
 	 * @param fileNames
 	 *            list of file names of the requested MediaInfoIds
 	 * @return map from file names for which data could be found to the MediaInfoIds
@@ -362,8 +886,17 @@ public class WikibaseDataFetcher {
 	 */
 	public Map<String, MediaInfoIdValue> getMediaInfoIdsByFileName(List<String> fileNames)
 			throws IOException, MediaWikiApiErrorException {
-		List<String> newFileNames = new ArrayList<>(fileNames);
 		Map<String, MediaInfoIdValue> result = new HashMap<>();
+		List<String> newFileNames = new ArrayList<>();
+		for (String fileName : fileNames) {
+			EntityDocument document = (this.cache == null) ? null
+					: this.cache.get(MEDIA_INFO_CACHE_KEY_PREFIX + fileName);
+			if (document != null) {
+				result.put(fileName, (MediaInfoIdValue) document.getEntityId());
+			} else {
+				newFileNames.add(fileName);
+			}
+		}
 		boolean moreItems = !newFileNames.isEmpty();
 
 		while (moreItems) {
@@ -374,12 +907,113 @@ public class WikibaseDataFetcher {
 			} else {
 				subListOfFileNames = newFileNames.subList(0, maxListSize);
 			}
-			result.putAll(mediaInfoIdQueryAction.getMediaInfoIds(subListOfFileNames));
+			Map<String, MediaInfoIdValue> ids = mediaInfoIdQueryAction
+					.getMediaInfoIds(subListOfFileNames);
+			if (this.cache != null) {
+				for (Map.Entry<String, MediaInfoIdValue> entry : ids.entrySet()) {
+					this.cache.put(MEDIA_INFO_CACHE_KEY_PREFIX + entry.getKey(),
+							Datamodel.makeMediaInfoDocument(entry.getValue()));
+				}
+			}
+			result.putAll(ids);
 			subListOfFileNames.clear();
 		}
 		return result;
 	}
 
+	/**
+	 * Fetches the MediaInfoIds of files with the given names asynchronously.
+	 * This is meant for resolving large numbers of files: the names are
+	 * normalized locally, looked up in the {@link #setPageIdIndex(PageIdIndex)
+	 * page id index} if there is one, and the remaining names are split into
+	 * chunks that are requested concurrently, with at most
+	 * {@link #getMaxRequestsInFlight()} requests at the same time. Requests
+	 * are repeated as for {@link #getEntityDocumentsAsync(List)}.
+	 * <p>
+	 * Unlike {@link #getMediaInfoIdsByFileName(List)}, redirects are followed,
+	 * so that files that redirect to other files get the MediaInfoId of the
+	 * file that they redirect to. The "File:" prefix can be omitted as for
+	 * {@link #getMediaInfoIdsByFileName(List)}. The cache of documents is not
+	 * used.
+	 *
+	 * @param fileNames
+	 *            list of file names of the requested MediaInfoIds
+	 * @return future for the map from file names for which data could be
+	 *         found to the MediaInfoIds that were retrieved
+	 */
+	public CompletableFuture<Map<String, MediaInfoIdValue>> getMediaInfoIdsByFileNameAsync(
+			List<String> fileNames) {
+		PageIdIndex index = this.pageIdIndex;
+		Map<String, MediaInfoIdValue> result = new HashMap<>();
+		// normalized file name => requested file names
+		Map<String, List<String>> requestedFileNames = new LinkedHashMap<>();
+		for (String fileName : fileNames) {
+			String title = normalizeFileName(fileName);
+			int pageId = (index == null) ? PageIdIndex.NOT_FOUND : index.get(title);
+			if (pageId != PageIdIndex.NOT_FOUND) {
+				result.put(fileName, Datamodel.makeMediaInfoIdValue("M" + pageId, this.siteIri));
+			} else {
+				requestedFileNames.computeIfAbsent(title, k -> new ArrayList<>())
+						.add(fileName);
+			}
+		}
+
+		ExecutorService requestExecutor = getExecutor();
+		List<String> titles = new ArrayList<>(requestedFileNames.keySet());
+		List<CompletableFuture<Void>> chunks = new ArrayList<>();
+		for (int start = 0; start < titles.size(); start += maxListSize) {
+			List<String> chunk = new ArrayList<>(titles.subList(start,
+					Math.min(titles.size(), start + maxListSize)));
+			chunks.add(CompletableFuture
+					.supplyAsync(() -> sendWithRetries(() -> mediaInfoIdQueryAction
+							.getMediaInfoIds(chunk, true)), requestExecutor)
+					.thenAccept(ids -> {
+						synchronized (result) {
+							for (Map.Entry<String, MediaInfoIdValue> entry : ids.entrySet()) {
+								MediaInfoIdValue id = entry.getValue();
+								if (id == null) {
+									continue;
+								}
+								if (index != null) {
+									index.put(entry.getKey(), Integer.parseInt(id.getId().substring(1)));
+								}
+								for (String fileName : requestedFileNames.get(entry.getKey())) {
+									result.put(fileName, id);
+								}
+							}
+						}
+					}));
+		}
+		return CompletableFuture.allOf(chunks
+				.toArray(new CompletableFuture<?>[0]))
+				.thenApply(done -> result);
+	}
+
+	/**
+	 * Normalizes a file name as MediaWiki does for titles of files, so that
+	 * it can be looked up in the page id index: the "File:" prefix is added
+	 * if needed, underscores are replaced by spaces, repeated and surrounding
+	 * spaces are removed and the first letter of the name is capitalized.
+	 *
+	 * @param fileName
+	 *            the name of a file, with or without "File:" prefix
+	 * @return the normalized title of the file
+	 */
+	static String normalizeFileName(String fileName) {
+		String name = fileName.replaceAll("[_ ]+", " ").trim();
+		if (name.regionMatches(true, 0, "File:", 0, 5)) {
+			name = name.substring(5).trim();
+		}
+		if (!name.isEmpty()) {
+			int first = name.codePointAt(0);
+			name = new StringBuilder(name.length())
+					.appendCodePoint(Character.toUpperCase(first))
+					.append(name, Character.charCount(first), name.length())
+					.toString();
+		}
+		return "File:" + name;
+	}
+
 	/**
 	 * Creates a map of identifiers or page titles to documents retrieved via
 	 * the APIs.
@@ -443,6 +1077,91 @@ public class WikibaseDataFetcher {
 		return this.wbSearchEntitiesAction.wbSearchEntities(properties);
 	}
 
+	/**
+	 * Returns all results of a search for the given text in the given
+	 * language as a lazy stream, as
+	 * {@link #searchEntitiesStream(WbGetEntitiesSearchData)}.
+	 *
+	 * @param search
+	 *            the text to search for
+	 * @param language
+	 *            the language to search in
+	 * @return stream of the search results
+	 */
+	public Stream<WbSearchEntitiesResult> searchEntitiesStream(String search, String language) {
+		WbGetEntitiesSearchData properties = new WbGetEntitiesSearchData();
+		properties.search = search;
+		properties.language = language;
+		properties.limit = (long) maxListSize;
+		return searchEntitiesStream(properties);
+	}
+
+	/**
+	 * Returns all results of a search as a lazy stream. The pages of results
+	 * are requested automatically, and the next page is requested while the
+	 * current one is consumed. Entities that were found on an earlier page are
+	 * skipped. If a request fails, the stream throws a
+	 * {@link CompletionException} whose cause is the {@link IOException} or
+	 * {@link MediaWikiApiErrorException}.
+	 *
+	 * @param properties
+	 *            the parameters of the search; the limit is the size of each
+	 *            page
+	 * @return stream of the search results
+	 */
+	public Stream<WbSearchEntitiesResult> searchEntitiesStream(WbGetEntitiesSearchData properties) {
+		return this.wbSearchEntitiesAction.wbSearchEntitiesStream(properties, getExecutor());
+	}
+
+	/**
+	 * Fetches the documents of the entities of the given search results. The
+	 * documents are fetched in batches while the results are consumed, so
+	 * that further pages of a search stream are requested in the meantime.
+	 * The results can be limited by the caller, e.g., with
+	 * {@link Stream#limit(long)}.
+	 *
+	 * @param results
+	 *            the search results, e.g., from
+	 *            {@link #searchEntitiesStream(WbGetEntitiesSearchData)}
+	 * @return map from entity ids to documents, in the order of the search
+	 *         results
+	 * @throws MediaWikiApiErrorException
+	 * @throws IOException
+	 */
+	public Map<String, EntityDocument> getEntityDocumentsOfSearchResults(
+			Stream<WbSearchEntitiesResult> results)
+			throws MediaWikiApiErrorException, IOException {
+		Map<String, EntityDocument> documents = new LinkedHashMap<>();
+		List<String> batch = new ArrayList<>(maxListSize);
+		try {
+			Iterator<WbSearchEntitiesResult> iterator = results.iterator();
+			while (iterator.hasNext()) {
+				String entityId = iterator.next().getEntityId();
+				if (!documents.containsKey(entityId) && !batch.contains(entityId)) {
+					batch.add(entityId);
+				}
+				if (batch.size() == maxListSize || (!iterator.hasNext() && !batch.isEmpty())) {
+					Map<String, EntityDocument> batchDocuments = getEntityDocuments(batch);
+					for (String id : batch) {
+						EntityDocument document = batchDocuments.get(id);
+						if (document != null) {
+							documents.put(id, document);
+						}
+					}
+					batch.clear();
+				}
+			}
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else if (e.getCause() instanceof MediaWikiApiErrorException) {
+				throw (MediaWikiApiErrorException) e.getCause();
+			}
+			throw e;
+		}
+		return documents;
+	}
+
 	/**
 	 * Configures props, languages and sitefilter properties.
 	 *
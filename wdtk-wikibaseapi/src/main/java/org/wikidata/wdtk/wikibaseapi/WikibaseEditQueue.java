@@ -0,0 +1,420 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.TermedStatementDocument;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
+import org.wikidata.wdtk.wikibaseapi.apierrors.NoSuchEntityErrorException;
+
+/**
+ * Queue that performs many edits of a {@link WikibaseDataEditor} on several
+ * threads. Edits are collected in batches. The current documents of a batch
+ * are fetched with one request, the updates are computed on the threads of
+ * the queue, and the edits are sent as fast as a shared {@link TokenBucket}
+ * allows. If the server reports too much lag for any edit, all edits of the
+ * queue are paused. Each edit returns a future that is completed with the
+ * updated document, or with the exception that made the edit fail.
+ * <p>
+ * Edits of the same entity in one batch are performed one after the other,
+ * each based on the result of the previous one. Edits of the same entity in
+ * different batches may run at the same time and cause edit conflicts, so
+ * they should be avoided.
+ * <p>
+ * A batch is sent when it is full, or when {@link #flush()} or
+ * {@link #close()} is called. The settings of the editor, such as maxlag and
+ * the number of remaining edits, are copied when the queue is created.
+ */
+public class WikibaseEditQueue implements AutoCloseable {
+
+	static final Logger logger = LoggerFactory
+			.getLogger(WikibaseEditQueue.class);
+
+	/**
+	 * Largest number of documents that the API returns for one request.
+	 */
+	static final int MAX_BATCH_SIZE = 50;
+
+	final WbEditingAction wbEditingAction;
+
+	final WikibaseDataFetcher wikibaseDataFetcher;
+
+	final GuidGenerator guidGenerator;
+
+	final boolean editAsBot;
+
+	final ExecutorService executor;
+
+	/**
+	 * Number of edits whose documents are fetched together.
+	 */
+	int batchSize = MAX_BATCH_SIZE;
+
+	/**
+	 * Number of edits that can be queued before adding further edits blocks.
+	 */
+	int maxPendingEdits = 20 * MAX_BATCH_SIZE;
+
+	/**
+	 * Edits that have not been sent to the threads yet.
+	 */
+	List<PendingEdit> batch = new ArrayList<>();
+
+	/**
+	 * Futures of the edits that have been added but not completed.
+	 */
+	final Set<CompletableFuture<StatementDocument>> pendingEdits = new HashSet<>();
+
+	boolean closed = false;
+
+	/**
+	 * Edit that has been added to the queue.
+	 */
+	static class PendingEdit {
+		final String entityId;
+		final Function<StatementDocument, StatementUpdate> update;
+		final String summary;
+		final List<String> tags;
+		final CompletableFuture<StatementDocument> future = new CompletableFuture<>();
+
+		PendingEdit(String entityId,
+				Function<StatementDocument, StatementUpdate> update,
+				String summary, List<String> tags) {
+			this.entityId = entityId;
+			this.update = update;
+			this.summary = summary;
+			this.tags = tags;
+		}
+	}
+
+	/**
+	 * Creates a queue for the given editor.
+	 *
+	 * @param editor
+	 *            the editor whose connection and settings are used
+	 * @param threadCount
+	 *            the number of threads that compute and send edits
+	 * @param rateLimiter
+	 *            the rate limiter for all edits of the queue; it can be
+	 *            shared with other queues that use the same account
+	 */
+	public WikibaseEditQueue(WikibaseDataEditor editor, int threadCount,
+			TokenBucket rateLimiter) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException(
+					"The number of threads must be positive");
+		}
+		WbEditingAction editorAction = editor.wbEditingAction;
+		this.wbEditingAction = new WbEditingAction(editorAction.connection,
+				editor.siteIri);
+		this.wbEditingAction.setMaxLag(editorAction.getMaxLag());
+		this.wbEditingAction.setMaxLagMaxRetries(editorAction.getMaxLagMaxRetries());
+		this.wbEditingAction.setMaxLagFirstWaitTime(editorAction.getMaxLagFirstWaitTime());
+		this.wbEditingAction.setMaxLagBackOffFactor(editorAction.getMaxLagBackOffFactor());
+		this.wbEditingAction.setRemainingEdits(editorAction.getRemainingEdits());
+		this.wbEditingAction.setRateLimiter(rateLimiter);
+		this.wikibaseDataFetcher = editor.wikibaseDataFetcher;
+		this.guidGenerator = editor.guidGenerator;
+		this.editAsBot = editor.editAsBot();
+		this.executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+			Thread thread = new Thread(runnable, "wikibase-edit-queue");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Returns the number of edits whose documents are fetched together.
+	 *
+	 * @return the batch size
+	 */
+	public synchronized int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Sets the number of edits whose documents are fetched together. The
+	 * default is 50, which is the most that the API allows. The batch size
+	 * must not be larger than the {@link #getMaxPendingEdits() maximal number
+	 * of pending edits}.
+	 *
+	 * @param batchSize
+	 *            the new batch size, between 1 and 50
+	 */
+	public synchronized void setBatchSize(int batchSize) {
+		if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+			throw new IllegalArgumentException(
+					"The batch size must be between 1 and " + MAX_BATCH_SIZE);
+		}
+		if (batchSize > this.maxPendingEdits) {
+			throw new IllegalArgumentException(
+					"The batch size must not exceed the number of pending edits");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Returns the number of edits that can be queued before adding further
+	 * edits blocks.
+	 *
+	 * @return the maximal number of pending edits
+	 */
+	public synchronized int getMaxPendingEdits() {
+		return this.maxPendingEdits;
+	}
+
+	/**
+	 * Sets the number of edits that can be queued before adding further edits
+	 * blocks until some of them are completed. This limits the memory that is
+	 * used for documents that are waiting to be edited.
+	 *
+	 * @param maxPendingEdits
+	 *            the maximal number of pending edits, at least the
+	 *            {@link #getBatchSize() batch size}
+	 */
+	public synchronized void setMaxPendingEdits(int maxPendingEdits) {
+		if (maxPendingEdits < this.batchSize) {
+			throw new IllegalArgumentException(
+					"The number of pending edits must be at least the batch size");
+		}
+		this.maxPendingEdits = maxPendingEdits;
+		notifyAll();
+	}
+
+	/**
+	 * Adds an edit that updates the statements of the given entity. The
+	 * update is computed as in
+	 * {@link WikibaseDataEditor#updateStatements(StatementDocument, List, List, String, List)},
+	 * based on the current document that is fetched by the queue.
+	 *
+	 * @param entityId
+	 *            id of the entity to update
+	 * @param addStatements
+	 *            the statements to be added or updated
+	 * @param deleteStatements
+	 *            the statements to be deleted
+	 * @param summary
+	 *            summary for the edit
+	 * @param tags
+	 *            string identifiers of the tags to apply to the edit
+	 * @return future for the updated document
+	 */
+	public CompletableFuture<StatementDocument> updateStatements(
+			EntityIdValue entityId, List<Statement> addStatements,
+			List<Statement> deleteStatements, String summary, List<String> tags) {
+		return add(new PendingEdit(entityId.getId(),
+				document -> new StatementUpdate(document, addStatements,
+						deleteStatements),
+				summary, tags));
+	}
+
+	/**
+	 * Adds an edit that updates the terms and statements of the given
+	 * entity. The update is computed as in
+	 * {@link WikibaseDataEditor#updateTermsStatements(TermedStatementDocument, List, List, List, List, List, List, String, List)},
+	 * based on the current document that is fetched by the queue.
+	 *
+	 * @param entityId
+	 *            id of the entity to update
+	 * @param addLabels
+	 *            labels to be set
+	 * @param addDescriptions
+	 *            descriptions to be set
+	 * @param addAliases
+	 *            aliases to be added
+	 * @param deleteAliases
+	 *            aliases to be deleted
+	 * @param addStatements
+	 *            the statements to be added or updated
+	 * @param deleteStatements
+	 *            the statements to be deleted
+	 * @param summary
+	 *            summary for the edit
+	 * @param tags
+	 *            string identifiers of the tags to apply to the edit
+	 * @return future for the updated document
+	 */
+	public CompletableFuture<TermedStatementDocument> updateTermsStatements(
+			EntityIdValue entityId,
+			List<MonolingualTextValue> addLabels,
+			List<MonolingualTextValue> addDescriptions,
+			List<MonolingualTextValue> addAliases,
+			List<MonolingualTextValue> deleteAliases,
+			List<Statement> addStatements, List<Statement> deleteStatements,
+			String summary, List<String> tags) {
+		return add(new PendingEdit(entityId.getId(),
+				document -> new TermStatementUpdate(
+						(TermedStatementDocument) document, addStatements,
+						deleteStatements, addLabels, addDescriptions,
+						addAliases, deleteAliases),
+				summary, tags)).thenApply(document -> (TermedStatementDocument) document);
+	}
+
+	/**
+	 * Sends the edits that have been added so far, even if the current batch
+	 * is not full yet.
+	 */
+	public synchronized void flush() {
+		if (!this.batch.isEmpty()) {
+			final List<PendingEdit> edits = this.batch;
+			this.batch = new ArrayList<>();
+			this.executor.execute(() -> processBatch(edits));
+		}
+	}
+
+	/**
+	 * Sends the remaining edits, waits until all edits are completed, and
+	 * stops the threads of the queue. If the calling thread is interrupted
+	 * while waiting, the edits that are not completed yet are cancelled.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			flush();
+			try {
+				while (!this.pendingEdits.isEmpty()) {
+					wait();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				for (CompletableFuture<StatementDocument> future : new ArrayList<>(
+						this.pendingEdits)) {
+					future.cancel(false);
+				}
+			}
+		}
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Adds an edit to the current batch, waiting if too many edits are
+	 * pending already.
+	 */
+	synchronized CompletableFuture<StatementDocument> add(PendingEdit edit) {
+		if (this.closed) {
+			throw new IllegalStateException("The edit queue has been closed");
+		}
+		try {
+			if (this.pendingEdits.size() >= this.maxPendingEdits) {
+				// the edits in the current batch only complete once it is sent
+				flush();
+				while (this.pendingEdits.size() >= this.maxPendingEdits) {
+					wait();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			edit.future.cancel(false);
+			return edit.future;
+		}
+		this.pendingEdits.add(edit.future);
+		edit.future.whenComplete((document, error) -> editCompleted(edit.future));
+		this.batch.add(edit);
+		if (this.batch.size() >= this.batchSize) {
+			flush();
+		}
+		return edit.future;
+	}
+
+	synchronized void editCompleted(CompletableFuture<StatementDocument> future) {
+		this.pendingEdits.remove(future);
+		notifyAll();
+	}
+
+	/**
+	 * Fetches the current documents of a batch and starts the edits, one task
+	 * per entity.
+	 */
+	void processBatch(List<PendingEdit> edits) {
+		Map<String, List<PendingEdit>> editsByEntity = new LinkedHashMap<>();
+		for (PendingEdit edit : edits) {
+			editsByEntity.computeIfAbsent(edit.entityId, id -> new ArrayList<>())
+					.add(edit);
+		}
+		Map<String, EntityDocument> documents;
+		try {
+			documents = this.wikibaseDataFetcher.getEntityDocuments(
+					new ArrayList<>(editsByEntity.keySet()));
+		} catch (IOException | MediaWikiApiErrorException | RuntimeException e) {
+			logger.error("Could not fetch documents for editing: " + e.toString());
+			for (PendingEdit edit : edits) {
+				edit.future.completeExceptionally(e);
+			}
+			return;
+		}
+		for (Map.Entry<String, List<PendingEdit>> entry : editsByEntity.entrySet()) {
+			EntityDocument document = documents.get(entry.getKey());
+			if (document instanceof StatementDocument) {
+				this.executor.execute(() -> performEdits(entry.getValue(),
+						(StatementDocument) document));
+			} else {
+				for (PendingEdit edit : entry.getValue()) {
+					edit.future.completeExceptionally(new NoSuchEntityErrorException(
+							"Could not fetch a document with statements for " + entry.getKey()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Performs the edits of one entity in order, each based on the document
+	 * that the previous edit returned.
+	 */
+	void performEdits(List<PendingEdit> edits, StatementDocument document) {
+		for (PendingEdit edit : edits) {
+			try {
+				StatementUpdate update = edit.update.apply(document);
+				update.setGuidGenerator(this.guidGenerator);
+				StatementDocument result = update.performEdit(
+						this.wbEditingAction, this.editAsBot, edit.summary,
+						edit.tags);
+				if (result != null) {
+					document = result;
+				}
+				edit.future.complete(result);
+			} catch (IOException | MediaWikiApiErrorException | RuntimeException e) {
+				edit.future.completeExceptionally(e);
+			}
+		}
+	}
+}
@@ -25,9 +25,15 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpCookie;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
@@ -83,6 +89,12 @@ public class BasicApiConnectionTest {
 							.setHeader("Content-Type", "application/json; charset=utf-8")
 							.setBody("{\"entities\":{\"Q8\":{\"pageid\":134,\"ns\":0,\"title\":\"Q8\",\"lastrevid\":1174289176,\"modified\":\"2020-05-05T12:39:07Z\",\"type\":\"item\",\"id\":\"Q8\"}},\"success\":1}\n");
 				}
+				if (request.getPath().contains("maxlag=")) {
+					return new MockResponse()
+							.setHeader("Content-Type", "application/json; charset=utf-8")
+							.setHeader("Retry-After", "5")
+							.setBody("{\"error\":{\"code\":\"maxlag\",\"info\":\"Waiting for 10.64.48.35: 3 seconds lagged.\",\"host\":\"10.64.48.35\",\"lag\":3,\"type\":\"db\"}}");
+				}
 				try {
 					switch (request.getBody().readUtf8()) {
 						case "meta=tokens&format=json&action=query&type=login":
@@ -351,4 +363,98 @@ public class BasicApiConnectionTest {
 	public void testUnsupportedMethod() throws IOException, MediaWikiApiErrorException {
 		connection.sendJsonRequest("PUT", new HashMap<>());
 	}
+
+	@Test
+	public void testRateControllerMaxlag() throws IOException, MediaWikiApiErrorException {
+		RateController rateController = new RateController(1, 0.1, 10);
+		connection.setRateController(rateController);
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put("action", "query");
+		parameters.put("maxlag", "1");
+		try {
+			connection.sendJsonRequest("GET", parameters);
+			fail("Expected a maxlag error");
+		} catch (MaxlagErrorException e) {
+			assertEquals(3, e.getLag(), 0);
+		}
+		assertEquals(1, rateController.getMaxlagCount());
+		assertEquals(0.5, rateController.getRate(), 0);
+		// the Retry-After header asks for a longer pause than the lag
+		assertTrue(rateController.getPausedUntil() - System.nanoTime() > 4000000000L);
+	}
+
+	@Test
+	public void testRateControllerCurrentLag() throws IOException, MediaWikiApiErrorException {
+		RateController rateController = new RateController(1, 0.1, 10);
+		connection.setRateController(rateController);
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put("action", "query");
+		parameters.put("maxlag", "-1");
+		try {
+			connection.sendJsonRequest("GET", parameters);
+			fail("Expected a maxlag error");
+		} catch (MaxlagErrorException e) {
+			assertEquals(3, e.getLag(), 0);
+		}
+		// asking for the current lag does not slow down edits
+		assertEquals(0, rateController.getMaxlagCount());
+		assertEquals(1, rateController.getRate(), 0);
+	}
+
+	@Test
+	public void testRequestMetrics() throws IOException, MediaWikiApiErrorException {
+		testGetMethod();
+		RequestMetrics metrics = connection.getRequestMetrics();
+		assertEquals(1, metrics.getRequestCount());
+		assertEquals(0, metrics.getFailedRequestCount());
+		assertTrue(metrics.getBytesReceived() > 100);
+		assertTrue(metrics.getAverageLatency() > 0);
+		assertTrue(metrics.getTotalDuration() >= metrics.getTotalLatency());
+	}
+
+	@Test
+	public void testMaxConcurrentRequests() throws Exception {
+		connection.setMaxConcurrentRequests(1);
+		assertEquals(1, connection.getMaxConcurrentRequests());
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put("action", "wbgetentities");
+		parameters.put("languages", "fr");
+		parameters.put("ids", "Q8");
+		parameters.put("sitefilter", "enwiki");
+		parameters.put("props", "info");
+		parameters.put("format", "json");
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			InputStream first = connection.sendRequest("GET", parameters);
+			Future<Integer> second = executor.submit(() -> {
+				try (InputStream response = connection.sendRequest("GET", parameters)) {
+					return response.read();
+				}
+			});
+			// the second request waits until the first response is closed
+			try {
+				second.get(200, TimeUnit.MILLISECONDS);
+				fail("Expected the second request to wait");
+			} catch (TimeoutException e) {
+				// expected
+			}
+			first.close();
+			assertEquals('{', (int) second.get(10, TimeUnit.SECONDS));
+
+			// reading a response to the end also allows the next request
+			InputStream third = connection.sendRequest("GET", parameters);
+			while (third.read() >= 0) {
+				// read the whole response
+			}
+			connection.sendRequest("GET", parameters).close();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoConcurrentRequests() {
+		connection.setMaxConcurrentRequests(0);
+	}
 }
@@ -0,0 +1,166 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.testing.MockDirectoryManager;
+
+public class EntityDocumentCacheTest {
+
+	MockDirectoryManager directoryManager;
+
+	@Before
+	public void setUp() throws IOException {
+		directoryManager = new MockDirectoryManager(
+				Paths.get(System.getProperty("user.dir")), true, false);
+	}
+
+	private static ItemDocument makeDocument(int i) {
+		return ItemDocumentBuilder
+				.forItemId(Datamodel.makeItemIdValue("Q" + i, Datamodel.SITE_WIKIDATA))
+				.withLabel("label " + i, "en")
+				.withRevisionId(1000 + i)
+				.build();
+	}
+
+	@Test
+	public void testGetAndPut() {
+		EntityDocumentCache cache = new EntityDocumentCache(100000, Datamodel.SITE_WIKIDATA);
+		assertNull(cache.get("Q1"));
+		cache.put("Q1", makeDocument(1));
+
+		assertEquals(makeDocument(1), cache.get("Q1"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getDocumentCount());
+		assertTrue(cache.getSize() > 0);
+	}
+
+	@Test
+	public void testReplace() {
+		EntityDocumentCache cache = new EntityDocumentCache(100000, Datamodel.SITE_WIKIDATA);
+		cache.put("Q1", makeDocument(1));
+		cache.put("Q1", makeDocument(2));
+
+		assertEquals(makeDocument(2), cache.get("Q1"));
+		assertEquals(1, cache.getDocumentCount());
+	}
+
+	@Test
+	public void testSizeIsBounded() {
+		EntityDocumentCache cache = new EntityDocumentCache(5000, Datamodel.SITE_WIKIDATA);
+		for (int i = 0; i < 1000; i++) {
+			cache.put("Q" + i, makeDocument(i));
+			assertTrue(cache.getSize() <= 5000);
+		}
+		assertTrue(cache.getEvictionCount() > 0);
+		assertEquals(1000, cache.getEvictionCount() + cache.getDocumentCount());
+	}
+
+	@Test
+	public void testFrequentDocumentsAreKept() {
+		EntityDocumentCache cache = new EntityDocumentCache(5000, Datamodel.SITE_WIKIDATA);
+		cache.put("Q1", makeDocument(1));
+		for (int i = 0; i < 5; i++) {
+			cache.get("Q1");
+		}
+		// documents that are only used once do not replace Q1
+		for (int i = 2; i < 1000; i++) {
+			cache.put("Q" + i, makeDocument(i));
+		}
+		assertEquals(makeDocument(1), cache.get("Q1"));
+	}
+
+	@Test
+	public void testRejectedDocumentEvictsNothing() {
+		EntityDocumentCache cache = new EntityDocumentCache(1000, Datamodel.SITE_WIKIDATA);
+		cache.admit(new EntityDocumentCache.Entry("Q1", makeDocument(1), 100));
+		cache.admit(new EntityDocumentCache.Entry("Q2", makeDocument(2), 700));
+		for (int i = 0; i < 3; i++) {
+			cache.sketch.increment("Q2");
+		}
+		cache.sketch.increment("Q3");
+
+		// Q3 is used more often than Q1, but it would also displace Q2
+		cache.admit(new EntityDocumentCache.Entry("Q3", makeDocument(3), 500));
+		assertTrue(cache.probation.containsKey("Q1"));
+		assertTrue(cache.probation.containsKey("Q2"));
+		assertFalse(cache.probation.containsKey("Q3"));
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testTooLargeDocument() {
+		EntityDocumentCache cache = new EntityDocumentCache(10, Datamodel.SITE_WIKIDATA);
+		cache.put("Q1", makeDocument(1));
+
+		assertNull(cache.get("Q1"));
+		assertEquals(0, cache.getSize());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testDirectoryTier() {
+		EntityDocumentCache cache = new EntityDocumentCache(100000,
+				Datamodel.SITE_WIKIDATA, directoryManager);
+		cache.put("Q1", makeDocument(1));
+		cache.put("enwiki:AC/DC", makeDocument(2));
+
+		// a new cache finds the documents that were stored before
+		EntityDocumentCache otherCache = new EntityDocumentCache(100000,
+				Datamodel.SITE_WIKIDATA, directoryManager);
+		assertEquals(makeDocument(1), otherCache.get("Q1"));
+		assertEquals(makeDocument(2), otherCache.get("enwiki:AC/DC"));
+		assertEquals(2, otherCache.getDirectoryHitCount());
+		assertEquals(0, otherCache.getMissCount());
+
+		// the documents are in memory now
+		assertNotNull(otherCache.get("Q1"));
+		assertEquals(1, otherCache.getHitCount());
+		assertEquals(2, otherCache.getDirectoryHitCount());
+	}
+
+	@Test
+	public void testRemove() {
+		EntityDocumentCache cache = new EntityDocumentCache(100000,
+				Datamodel.SITE_WIKIDATA, directoryManager);
+		cache.put("Q1", makeDocument(1));
+		cache.remove("Q1");
+
+		assertNull(cache.get("Q1"));
+		assertNull(new EntityDocumentCache(100000, Datamodel.SITE_WIKIDATA,
+				directoryManager).get("Q1"));
+		assertEquals(0, cache.getDocumentCount());
+	}
+}
@@ -0,0 +1,71 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FrequencySketchTest {
+
+	@Test
+	public void testIncrement() {
+		FrequencySketch sketch = new FrequencySketch(64);
+		assertEquals(0, sketch.frequency("Q42"));
+		for (int i = 0; i < 3; i++) {
+			sketch.increment("Q42");
+		}
+		assertEquals(3, sketch.frequency("Q42"));
+		assertTrue(sketch.frequency("Q1") < 3);
+	}
+
+	@Test
+	public void testCountersSaturate() {
+		FrequencySketch sketch = new FrequencySketch(64);
+		for (int i = 0; i < 100; i++) {
+			sketch.increment("Q42");
+		}
+		assertEquals(FrequencySketch.MAX_COUNT, sketch.frequency("Q42"));
+	}
+
+	@Test
+	public void testReset() {
+		FrequencySketch sketch = new FrequencySketch(16);
+		for (int i = 0; i < 8; i++) {
+			sketch.increment("Q42");
+		}
+		sketch.reset();
+		assertEquals(4, sketch.frequency("Q42"));
+		assertEquals(4, sketch.size);
+	}
+
+	@Test
+	public void testResetAfterSampleSize() {
+		FrequencySketch sketch = new FrequencySketch(16);
+		int previousSize = 0;
+		for (int i = 0; sketch.size >= previousSize; i++) {
+			previousSize = sketch.size;
+			sketch.increment("Q" + i);
+		}
+		assertEquals(sketch.sampleSize / 2, sketch.size);
+	}
+}
@@ -0,0 +1,130 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class RateControllerTest {
+
+	/**
+	 * Time in nanoseconds for controllers that do not use the actual time.
+	 */
+	final AtomicLong clock = new AtomicLong();
+
+	@Test
+	public void testAdditiveIncrease() {
+		RateController controller = new RateController(1, 0.5, 10);
+		controller.setAdditiveIncrease(0.1);
+		controller.onEditSucceeded();
+		assertEquals(1.1, controller.getRate(), 1e-9);
+		// at a higher rate, each edit adds less, so the rate grows linearly
+		// in time
+		controller.onEditSucceeded();
+		assertEquals(1.1 + 0.1 / 1.1, controller.getRate(), 1e-9);
+	}
+
+	@Test
+	public void testMaximumRate() {
+		RateController controller = new RateController(1, 0.5, 1.05);
+		controller.onEditSucceeded();
+		controller.onEditSucceeded();
+		assertEquals(1.05, controller.getRate(), 0);
+	}
+
+	@Test
+	public void testSlowResponse() {
+		RateController controller = new RateController(4, 0.5, 10);
+		controller.setSlowResponseTime(1000);
+		controller.onResponse(500);
+		assertEquals(4, controller.getRate(), 0);
+		controller.onResponse(1500);
+		assertEquals(2, controller.getRate(), 0);
+		assertEquals(1, controller.getSlowResponseCount());
+	}
+
+	@Test
+	public void testDecreaseInterval() {
+		RateController controller = new RateController(4, 0.5, 10);
+		controller.setDecreaseFactor(0.25);
+		controller.onResponse(10000);
+		controller.onResponse(10000);
+		// the second slow response came too soon after the first one
+		assertEquals(1, controller.getRate(), 0);
+		assertEquals(2, controller.getSlowResponseCount());
+
+		controller.setDecreaseInterval(0);
+		controller.onResponse(10000);
+		controller.onResponse(10000);
+		// but the rate does not fall below the minimum
+		assertEquals(0.5, controller.getRate(), 0);
+	}
+
+	@Test
+	public void testMaxlag() {
+		RateController controller = new RateController(4, 0.5, 10, clock::get);
+		controller.onMaxlag(0.2);
+		assertEquals(2, controller.getRate(), 0);
+		assertEquals(1, controller.getMaxlagCount());
+		// short lags still pause for the minimum time
+		assertEquals(1000000000L, controller.getPausedUntil());
+
+		controller.onMaxlag(3600);
+		assertEquals(60000000000L, controller.getPausedUntil());
+	}
+
+	@Test
+	public void testPause() {
+		RateController controller = new RateController(1000, 1, 1000, clock::get);
+		controller.onRetryAfter(200);
+		// a shorter pause does not end the longer one
+		controller.pause(10);
+		assertEquals(200000000L, controller.getPausedUntil());
+		assertEquals(200000000L, controller.editBucket.getRemainingPause());
+
+		// edits are not delayed any further after the pause
+		clock.set(200000000L);
+		assertEquals(1000000L, controller.editBucket.reserve());
+	}
+
+	@Test
+	public void testBeforeReadWaitsForPause() {
+		RateController controller = new RateController(1000, 1, 1000);
+		long start = System.nanoTime();
+		controller.onRetryAfter(100);
+		controller.beforeRead();
+		assertTrue(System.nanoTime() - start >= 100000000L);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidRates() {
+		new RateController(0.1, 0.5, 10);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDecreaseFactor() {
+		new RateController(1, 0.5, 10).setDecreaseFactor(1);
+	}
+}
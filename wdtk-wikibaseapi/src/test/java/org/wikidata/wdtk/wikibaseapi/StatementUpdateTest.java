@@ -25,6 +25,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -168,6 +169,76 @@ public class StatementUpdateTest {
 		assertFalse(su.toKeep.get(P1).get(1).write);
 	}
 
+	@Test
+	public void testMergeManyQualifiers() {
+		StatementBuilder builder1 = StatementBuilder.forSubjectAndProperty(Q1, P1)
+				.withValue(Q1).withId("ID-s1");
+		StatementBuilder builder2 = StatementBuilder.forSubjectAndProperty(Q1, P1)
+				.withValue(Q1);
+		StatementBuilder builder3 = StatementBuilder.forSubjectAndProperty(Q1, P1)
+				.withValue(Q1);
+		for (int i = 0; i < 12; i++) {
+			builder1.withQualifierValue(P2, Datamodel.makeStringValue("v" + i));
+			builder2.withQualifierValue(P2, Datamodel.makeStringValue("v" + (11 - i)));
+			builder3.withQualifierValue(P2, Datamodel.makeStringValue("v" + (i % 6)));
+		}
+		Statement s1 = builder1.build();
+		Statement s2 = builder2.build();
+		Statement s3 = builder3.build();
+
+		ItemDocument currentDocument = ItemDocumentBuilder.forItemId(Q1)
+				.withStatement(s1).build();
+
+		StatementUpdate su = new StatementUpdate(currentDocument,
+				Arrays.asList(s2, s3), Collections.emptyList());
+
+		// s2 has the same qualifiers in a different order, so nothing needs
+		// to be written for it; s3 has other qualifiers with the same number
+		// of snaks
+		assertEquals(2, su.toKeep.get(P1).size());
+		assertEquals(s1, su.toKeep.get(P1).get(0).statement);
+		assertFalse(su.toKeep.get(P1).get(0).write);
+		assertEquals(s3, su.toKeep.get(P1).get(1).statement);
+		assertTrue(su.toKeep.get(P1).get(1).write);
+		assertTrue(su.toDelete.isEmpty());
+	}
+
+	@Test
+	public void testLargeUpdate() {
+		Reference r1 = ReferenceBuilder.newInstance().withPropertyValue(P3, Q3)
+				.build();
+		ItemDocumentBuilder documentBuilder = ItemDocumentBuilder.forItemId(Q1);
+		List<Statement> addStatements = new ArrayList<>();
+		List<Statement> deleteStatements = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			Statement statement = StatementBuilder.forSubjectAndProperty(Q1, P1)
+					.withValue(Datamodel.makeStringValue("v" + i))
+					.withQualifierValue(P2, Q2).withId("ID-" + i).build();
+			documentBuilder.withStatement(statement);
+			if (i < 1500) {
+				addStatements.add(StatementBuilder.forSubjectAndProperty(Q1, P1)
+						.withValue(Datamodel.makeStringValue("v" + i))
+						.withQualifierValue(P2, Q2).withReference(r1).build());
+			} else {
+				deleteStatements.add(statement);
+			}
+		}
+
+		StatementUpdate su = new StatementUpdate(documentBuilder.build(),
+				addStatements, deleteStatements);
+
+		// every new statement is merged with the existing one
+		List<StatementUpdate.StatementWithUpdate> statements = su.toKeep.get(P1);
+		assertEquals(1500, statements.size());
+		for (int i = 0; i < 1500; i++) {
+			assertEquals("ID-" + i, statements.get(i).statement.getStatementId());
+			assertEquals(Collections.singletonList(r1), statements.get(i).statement.getReferences());
+			assertTrue(statements.get(i).write);
+		}
+		assertEquals(500, su.toDelete.size());
+		assertEquals("ID-1500", su.toDelete.get(0));
+	}
+
 	@Test
 	public void testNoMergeRankConflict() {
 		Statement s1 = StatementBuilder.forSubjectAndProperty(Q1, P1)
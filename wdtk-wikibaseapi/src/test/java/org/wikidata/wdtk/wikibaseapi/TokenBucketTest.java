@@ -0,0 +1,134 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+	/**
+	 * Time in nanoseconds for buckets that do not use the actual time.
+	 */
+	final AtomicLong clock = new AtomicLong();
+
+	@Test
+	public void testBurst() {
+		TokenBucket bucket = new TokenBucket(1, 3, clock::get);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, bucket.reserve());
+		}
+		// the next token is produced after one second
+		assertEquals(1000000000L, bucket.reserve());
+		// requests wait in order
+		assertEquals(2000000000L, bucket.reserve());
+
+		clock.set(3000000000L);
+		assertEquals(0, bucket.reserve());
+	}
+
+	@Test
+	public void testRate() {
+		TokenBucket bucket = new TokenBucket(200, 1);
+		long start = System.nanoTime();
+		for (int i = 0; i < 21; i++) {
+			bucket.acquire();
+		}
+		// 20 tokens take at least 100 milliseconds
+		assertTrue(System.nanoTime() - start >= 95000000L);
+	}
+
+	@Test
+	public void testSetRate() {
+		TokenBucket bucket = new TokenBucket(1, 1, clock::get);
+		bucket.setRate(1000);
+		assertEquals(1000, bucket.getRate(), 0);
+		bucket.reserve();
+		assertEquals(1000000L, bucket.reserve());
+	}
+
+	@Test
+	public void testPause() {
+		TokenBucket bucket = new TokenBucket(1000, 10, clock::get);
+		bucket.pause(200);
+		// a shorter pause does not end the longer one
+		bucket.pause(10);
+		assertEquals(200000000L, bucket.getRemainingPause());
+		assertEquals(201000000L, bucket.reserve());
+		// no burst after the pause
+		assertEquals(202000000L, bucket.reserve());
+
+		clock.set(200000000L);
+		assertEquals(0, bucket.getRemainingPause());
+	}
+
+	@Test
+	public void testPauseDelaysWaitingRequests() throws Exception {
+		TokenBucket bucket = new TokenBucket(10, 1);
+		bucket.reserve();
+		// the next token is available after 100 ms
+		long start = System.nanoTime();
+		Thread waiting = new Thread(bucket::acquire);
+		waiting.start();
+		Thread.sleep(20);
+		bucket.pause(300);
+		waiting.join();
+		assertTrue(System.nanoTime() - start >= 300000000L);
+	}
+
+	@Test
+	public void testShared() throws Exception {
+		TokenBucket bucket = new TokenBucket(500, 1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			long start = System.nanoTime();
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < 25; j++) {
+						bucket.acquire();
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			// 99 tokens after the first one take at least 198 milliseconds
+			assertTrue(System.nanoTime() - start >= 190000000L);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidRate() {
+		new TokenBucket(0, 1);
+	}
+}
@@ -23,6 +23,9 @@ import static org.junit.Assert.assertEquals;
  */
 
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -137,6 +140,88 @@ public class WbEditingActionTest {
 		weea.wbEditEntity("Q42", null, null, null, "{}", false, false, 0, null, null);
 	}
 
+	@Test
+	public void testApiErrorMaxLagPausesRateLimiter() throws IOException,
+			MediaWikiApiErrorException {
+		MockBasicApiConnection con = new MockBasicApiConnection();
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "query");
+		params.put("meta", "tokens");
+		params.put("type", "csrf");
+		params.put("format", "json");
+		con.setWebResourceFromPath(params, this.getClass(),
+				"/query-csrf-token-loggedin-response.json",
+				CompressionType.NONE);
+
+		params.clear();
+		params.put("action", "wbeditentity");
+		params.put("id", "Q42");
+		params.put("token", "42307b93c79b0cb558d2dfb4c3c92e0955e06041+\\");
+		params.put("format", "json");
+		params.put("data", "{}");
+		params.put("maxlag", "5");
+		con.setWebResourceFromPath(params, this.getClass(),
+				"/error-maxlag.json", CompressionType.NONE);
+
+		WbEditingAction weea = new WbEditingAction(con,
+				Datamodel.SITE_WIKIDATA);
+		TokenBucket rateLimiter = new TokenBucket(1000, 10);
+		weea.setRateLimiter(rateLimiter);
+		weea.setMaxLagMaxRetries(2);
+		weea.setMaxLagFirstWaitTime(50);
+		assertSame(rateLimiter, weea.getRateLimiter());
+
+		long start = System.nanoTime();
+		try {
+			weea.wbEditEntity("Q42", null, null, null, "{}", false, false, 0, null, null);
+			fail("Expected a maxlag error");
+		} catch (MaxlagErrorException e) {
+			// the rate limiter was paused after each error
+			assertTrue(System.nanoTime() - start >= 100000000L);
+		}
+	}
+
+	@Test
+	public void testApiErrorMaxLagSlowsRateController() throws IOException,
+			MediaWikiApiErrorException {
+		MockBasicApiConnection con = new MockBasicApiConnection();
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "query");
+		params.put("meta", "tokens");
+		params.put("type", "csrf");
+		params.put("format", "json");
+		con.setWebResourceFromPath(params, this.getClass(),
+				"/query-csrf-token-loggedin-response.json",
+				CompressionType.NONE);
+
+		params.clear();
+		params.put("action", "wbeditentity");
+		params.put("id", "Q42");
+		params.put("token", "42307b93c79b0cb558d2dfb4c3c92e0955e06041+\\");
+		params.put("format", "json");
+		params.put("data", "{}");
+		params.put("maxlag", "5");
+		con.setWebResourceFromPath(params, this.getClass(),
+				"/error-maxlag-full.json", CompressionType.NONE);
+
+		RateController rateController = new RateController(2, 0.1, 10);
+		con.setRateController(rateController);
+		WbEditingAction weea = new WbEditingAction(con,
+				Datamodel.SITE_WIKIDATA);
+		weea.setMaxLagMaxRetries(1);
+
+		try {
+			weea.wbEditEntity("Q42", null, null, null, "{}", false, false, 0, null, null);
+			fail("Expected a maxlag error");
+		} catch (MaxlagErrorException e) {
+			assertEquals(3.45, e.getLag(), 0);
+		}
+		assertEquals(1, rateController.getMaxlagCount());
+		assertEquals(1, rateController.getRate(), 0);
+		// all requests are paused for as long as the lag
+		assertTrue(rateController.getPausedUntil() - System.nanoTime() > 3000000000L);
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testIdAndSite() throws IOException, MediaWikiApiErrorException {
 		WbEditingAction weea = new WbEditingAction(
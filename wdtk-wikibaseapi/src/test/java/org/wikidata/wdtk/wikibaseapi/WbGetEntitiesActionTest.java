@@ -24,13 +24,17 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
 import org.wikidata.wdtk.util.CompressionType;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 
@@ -115,6 +119,51 @@ public class WbGetEntitiesActionTest {
 		assertEquals(result1, result2);
 	}
 
+	@Test
+	public void testWbGetEntitiesStreaming() throws MediaWikiApiErrorException, IOException {
+		WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+		properties.ids = "Q6|Q42|P31";
+		Map<String, EntityDocument> result = new HashMap<>();
+		List<String> keys = new ArrayList<>();
+		action.wbGetEntities(properties, (key, document) -> {
+			keys.add(key);
+			result.put(key, document);
+		});
+
+		assertEquals(2, keys.size());
+		assertEquals(action.wbGetEntities(properties), result);
+	}
+
+	@Test
+	public void testWbGetEntitiesSkipsBrokenEntities() throws MediaWikiApiErrorException, IOException {
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "wbgetentities");
+		params.put("format", "json");
+		params.put("ids", "Q1|Q2|Q3");
+		this.con.setWebResource(params, "{\"warnings\":{\"main\":{\"*\":\"Unrecognized parameter\"}},"
+				+ "\"entities\":{\"Q1\":{\"type\":\"item\",\"id\":\"Q1\",\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"one\"}}},"
+				+ "\"Q2\":{\"type\":\"item\",\"id\":\"Q2\",\"labels\":5},"
+				+ "\"Q3\":{\"id\":\"Q3\",\"missing\":\"\"}},\"success\":1}");
+		WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+		properties.ids = "Q1|Q2|Q3";
+		Map<String, EntityDocument> result = action.wbGetEntities(properties);
+
+		assertEquals(Collections.singleton("Q1"), result.keySet());
+		assertEquals("one", ((ItemDocument) result.get("Q1")).findLabel("en"));
+	}
+
+	@Test(expected = MediaWikiApiErrorException.class)
+	public void testWbGetEntitiesApiError() throws MediaWikiApiErrorException, IOException {
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "wbgetentities");
+		params.put("format", "json");
+		params.put("ids", "Q1");
+		this.con.setWebResource(params, "{\"error\":{\"code\":\"param-illegal\",\"info\":\"Illegal parameter\"}}");
+		WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+		properties.ids = "Q1";
+		action.wbGetEntities(properties);
+	}
+
 	@Test(expected = IOException.class)
 	public void testWbGetEntitiesIoError() throws MediaWikiApiErrorException, IOException {
 		WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
@@ -21,13 +21,18 @@ package org.wikidata.wdtk.wikibaseapi;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -52,6 +57,13 @@ public class WbSearchEntitiesActionTest {
         this.con.setWebResourceFromPath(params, getClass(),
                 "/wbsearchentities-abc.json", CompressionType.NONE);
 
+        params.put("continue", "7");
+        this.con.setWebResource(params, "{\"search\":["
+                + "{\"id\":\"Q26298\",\"title\":\"Q26298\",\"pageid\":28798},"
+                + "{\"id\":\"Q42\",\"title\":\"Q42\",\"pageid\":138}],"
+                + "\"success\":1}");
+        params.remove("continue");
+
         params.put("search", "some search string with no results");
         this.con.setWebResourceFromPath(params, getClass(),
                 "/wbsearchentities-empty.json", CompressionType.NONE);
@@ -103,4 +115,82 @@ public class WbSearchEntitiesActionTest {
     public void testIdsAndSites() throws MediaWikiApiErrorException, IOException {
         action.wbSearchEntities("abc", null, null, null, null, null);
     }
+
+    @Test
+    public void testWbSearchEntitiesStream() {
+        WbGetEntitiesSearchData properties = new WbGetEntitiesSearchData();
+        properties.search = "abc";
+        properties.language = "en";
+        List<String> ids = action.wbSearchEntitiesStream(properties, Runnable::run)
+                .map(WbSearchEntitiesResult::getEntityId)
+                .collect(Collectors.toList());
+
+        // the second page repeats the last result of the first one
+        assertEquals(8, ids.size());
+        assertEquals("Q169889", ids.get(0));
+        assertEquals("Q26298", ids.get(6));
+        assertEquals("Q42", ids.get(7));
+    }
+
+    @Test
+    public void testWbSearchEntitiesStreamIsLazy() throws IOException {
+        WbGetEntitiesSearchData properties = new WbGetEntitiesSearchData();
+        properties.search = "abc";
+        properties.language = "en";
+        // the second page is not mocked for this limit, but its failure
+        // does not matter if its results are not needed
+        properties.limit = 3L;
+        con.setWebResourceFromPath(withLimit(3), getClass(),
+                "/wbsearchentities-abc.json", CompressionType.NONE);
+        assertEquals(2, action.wbSearchEntitiesStream(properties, Runnable::run)
+                .limit(2).count());
+    }
+
+    @Test
+    public void testWbSearchEntitiesStreamRequestsNothingUntilUsed() {
+        WbGetEntitiesSearchData properties = new WbGetEntitiesSearchData();
+        properties.search = "abc";
+        properties.language = "en";
+        List<Runnable> requests = new ArrayList<>();
+        Stream<WbSearchEntitiesResult> results = action
+                .wbSearchEntitiesStream(properties, request -> {
+                    requests.add(request);
+                    request.run();
+                });
+        assertTrue(requests.isEmpty());
+
+        assertEquals("Q169889", results.findFirst().get().getEntityId());
+        assertFalse(requests.isEmpty());
+    }
+
+    @Test
+    public void testWbSearchEntitiesStreamError() throws IOException {
+        WbGetEntitiesSearchData properties = new WbGetEntitiesSearchData();
+        properties.search = "abc";
+        properties.language = "en";
+        properties.limit = 3L;
+        con.setWebResourceFromPath(withLimit(3), getClass(),
+                "/wbsearchentities-abc.json", CompressionType.NONE);
+        try {
+            action.wbSearchEntitiesStream(properties, Runnable::run).count();
+            fail("Expected the request of the second page to fail");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWbSearchEntitiesStreamWithoutSearch() {
+        action.wbSearchEntitiesStream(new WbGetEntitiesSearchData(), Runnable::run);
+    }
+
+    private Map<String, String> withLimit(long limit) {
+        Map<String, String> params = new HashMap<>();
+        params.put(ApiConnection.PARAM_ACTION, "wbsearchentities");
+        params.put(ApiConnection.PARAM_FORMAT, "json");
+        params.put("search", "abc");
+        params.put("language", "en");
+        params.put("limit", Long.toString(limit));
+        return params;
+    }
 }
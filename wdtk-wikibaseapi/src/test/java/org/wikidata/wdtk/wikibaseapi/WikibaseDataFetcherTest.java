@@ -21,14 +21,24 @@ package org.wikidata.wdtk.wikibaseapi;
  */
 
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.Before;
 import org.junit.Test;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
 import org.wikidata.wdtk.datamodel.interfaces.MediaInfoIdValue;
 import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.util.PageIdIndex;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.NoSuchEntityErrorException;
 
@@ -370,6 +380,353 @@ public class WikibaseDataFetcherTest {
 		assertEquals("M925243", result.get("File:Albert Einstein Head.jpg").getId());
 	}
 
+	/**
+	 * Answers wbgetentities requests with minimal items for all requested
+	 * ids whose number is even, after answering a given number of requests
+	 * with maxlag errors. It records the number of concurrent requests.
+	 */
+	static class EntitiesDispatcher extends Dispatcher {
+		final AtomicInteger maxlagErrors;
+		final AtomicInteger requestCount = new AtomicInteger();
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+		final List<String> requestBodies = Collections.synchronizedList(new ArrayList<>());
+
+		EntitiesDispatcher(int maxlagErrors) {
+			this.maxlagErrors = new AtomicInteger(maxlagErrors);
+		}
+
+		@Override
+		public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+			int current = inFlight.incrementAndGet();
+			maxInFlight.accumulateAndGet(current, Math::max);
+			try {
+				requestCount.incrementAndGet();
+				String body = request.getBody().readUtf8();
+				requestBodies.add(body);
+				// give other requests the chance to run concurrently
+				Thread.sleep(50);
+				if (maxlagErrors.getAndDecrement() > 0) {
+					return new MockResponse().setBody("{\"error\":{\"code\":\"maxlag\","
+							+ "\"info\":\"Waiting for a database server: 6 seconds lagged.\",\"lag\":6}}");
+				}
+				String ids = "";
+				for (String parameter : body.split("&")) {
+					if (parameter.startsWith("ids=")) {
+						ids = URLDecoder.decode(parameter.substring(4), "UTF-8");
+					}
+				}
+				StringBuilder entities = new StringBuilder();
+				for (String id : ids.split("\\|")) {
+					if (entities.length() > 0) {
+						entities.append(',');
+					}
+					if (Integer.parseInt(id.substring(1)) % 2 == 0) {
+						entities.append("\"").append(id).append("\":{\"type\":\"item\",\"id\":\"")
+								.append(id).append("\"}");
+					} else {
+						entities.append("\"").append(id).append("\":{\"id\":\"")
+								.append(id).append("\",\"missing\":\"\"}");
+					}
+				}
+				return new MockResponse().setBody("{\"entities\":{" + entities + "}}");
+			} catch (UnsupportedEncodingException e) {
+				throw new RuntimeException(e);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		}
+	}
+
+	private static List<String> makeIds(int count) {
+		List<String> ids = new ArrayList<>();
+		for (int i = 1; i <= count; i++) {
+			ids.add("Q" + i);
+		}
+		return ids;
+	}
+
+	private static WikibaseDataFetcher makeFetcher(MockWebServer server) {
+		WikibaseDataFetcher fetcher = new WikibaseDataFetcher(
+				new BasicApiConnection(server.url("/w/api.php").toString()),
+				Datamodel.SITE_WIKIDATA);
+		fetcher.setRetryWaitTime(10);
+		return fetcher;
+	}
+
+	@Test
+	public void testGetEntityDocumentsAsync() throws Exception {
+		EntitiesDispatcher dispatcher = new EntitiesDispatcher(0);
+		MockWebServer server = new MockWebServer();
+		server.setDispatcher(dispatcher);
+		server.start();
+		try {
+			WikibaseDataFetcher fetcher = makeFetcher(server);
+			fetcher.setMaxRequestsInFlight(2);
+			Map<String, EntityDocument> results = fetcher
+					.getEntityDocumentsAsync(makeIds(120)).get();
+
+			assertEquals(60, results.size());
+			assertEquals("Q42", results.get("Q42").getEntityId().getId());
+			assertFalse(results.containsKey("Q41"));
+			assertEquals(3, dispatcher.requestCount.get());
+			assertTrue(dispatcher.maxInFlight.get() <= 2);
+			assertFalse(dispatcher.requestBodies.get(0).contains("maxlag"));
+		} finally {
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void testGetEntityDocumentsAsyncByChunk() throws Exception {
+		EntitiesDispatcher dispatcher = new EntitiesDispatcher(0);
+		MockWebServer server = new MockWebServer();
+		server.setDispatcher(dispatcher);
+		server.start();
+		try {
+			List<Integer> chunkSizes = new ArrayList<>();
+			makeFetcher(server).getEntityDocumentsAsync(makeIds(120),
+					documents -> chunkSizes.add(documents.size())).get();
+
+			Collections.sort(chunkSizes);
+			assertEquals(Arrays.asList(10, 25, 25), chunkSizes);
+		} finally {
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void testGetEntityDocumentsAsyncMaxlagRetry() throws Exception {
+		EntitiesDispatcher dispatcher = new EntitiesDispatcher(2);
+		MockWebServer server = new MockWebServer();
+		server.setDispatcher(dispatcher);
+		server.start();
+		try {
+			WikibaseDataFetcher fetcher = makeFetcher(server);
+			fetcher.setMaxLag(5);
+			Map<String, EntityDocument> results = fetcher
+					.getEntityDocumentsAsync(makeIds(10)).get();
+
+			assertEquals(5, results.size());
+			assertEquals(3, dispatcher.requestCount.get());
+			assertTrue(dispatcher.requestBodies.get(2).contains("maxlag=5"));
+		} finally {
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void testGetEntityDocumentsAsyncFailure() throws Exception {
+		EntitiesDispatcher dispatcher = new EntitiesDispatcher(100);
+		MockWebServer server = new MockWebServer();
+		server.setDispatcher(dispatcher);
+		server.start();
+		try {
+			WikibaseDataFetcher fetcher = makeFetcher(server);
+			fetcher.setMaxRetries(2);
+			fetcher.getEntityDocumentsAsync(makeIds(10)).get();
+			fail("Expected the request to fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof MaxlagErrorException);
+			assertEquals(3, dispatcher.requestCount.get());
+		} finally {
+			server.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoRequestsInFlight() {
+		wdf.setMaxRequestsInFlight(0);
+	}
+
+	private void setRevisionResource(String entityId, long revisionId) {
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put("action", "wbgetentities");
+		parameters.put("format", "json");
+		parameters.put("props", "info|datatype");
+		parameters.put("ids", entityId);
+		con.setWebResource(parameters, "{\"entities\":{\"" + entityId
+				+ "\":{\"pageid\":138,\"ns\":0,\"title\":\"" + entityId
+				+ "\",\"lastrevid\":" + revisionId
+				+ ",\"type\":\"item\",\"id\":\"" + entityId + "\"}},\"success\":1}");
+	}
+
+	@Test
+	public void testCachedEntityDocument() throws IOException,
+			MediaWikiApiErrorException {
+		EntityDocumentCache cache = new EntityDocumentCache(1000000, Datamodel.SITE_WIKIDATA);
+		wdf.setEntityDocumentCache(cache);
+		Map<String, String> parameters = new HashMap<>();
+		setStandardParameters(parameters);
+		parameters.put("ids", "Q42");
+		con.setWebResourceFromPath(parameters, getClass(),
+				"/wbgetentities-Q6-Q42-P31.json", CompressionType.NONE);
+		EntityDocument document = wdf.getEntityDocument("Q42");
+		setRevisionResource("Q42", document.getRevisionId());
+		// the document must not be fetched again
+		con.setWebResourceFromPath(parameters, getClass(),
+				"/wbgetentities-bogus.json", CompressionType.NONE);
+
+		assertSame(document, wdf.getEntityDocument("Q42"));
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void testCachedEntityDocumentChanged() throws IOException,
+			MediaWikiApiErrorException {
+		EntityDocumentCache cache = new EntityDocumentCache(1000000, Datamodel.SITE_WIKIDATA);
+		wdf.setEntityDocumentCache(cache);
+		Map<String, String> parameters = new HashMap<>();
+		setStandardParameters(parameters);
+		parameters.put("ids", "Q42");
+		con.setWebResourceFromPath(parameters, getClass(),
+				"/wbgetentities-Q6-Q42-P31.json", CompressionType.NONE);
+		EntityDocument document = wdf.getEntityDocument("Q42");
+		setRevisionResource("Q42", document.getRevisionId() + 1);
+
+		EntityDocument result = wdf.getEntityDocument("Q42");
+		assertNotSame(document, result);
+		assertEquals(document, result);
+		// the new document is cached
+		assertSame(result, cache.get("Q42"));
+	}
+
+	@Test
+	public void testCachedEntityDocumentWithoutRevalidation() throws IOException,
+			MediaWikiApiErrorException {
+		wdf.setEntityDocumentCache(new EntityDocumentCache(1000000, Datamodel.SITE_WIKIDATA));
+		wdf.setRevalidatingCache(false);
+		Map<String, String> parameters = new HashMap<>();
+		setStandardParameters(parameters);
+		parameters.put("ids", "Q42");
+		con.setWebResourceFromPath(parameters, getClass(),
+				"/wbgetentities-Q6-Q42-P31.json", CompressionType.NONE);
+		EntityDocument document = wdf.getEntityDocument("Q42");
+		con.setWebResourceFromPath(parameters, getClass(),
+				"/wbgetentities-bogus.json", CompressionType.NONE);
+
+		// no request is needed at all
+		assertSame(document, wdf.getEntityDocument("Q42"));
+		assertFalse(wdf.isRevalidatingCache());
+	}
+
+	@Test
+	public void testCachedEntityDocumentByTitle() throws IOException,
+			MediaWikiApiErrorException {
+		wdf.setEntityDocumentCache(new EntityDocumentCache(1000000, Datamodel.SITE_WIKIDATA));
+		Map<String, String> parameters = new HashMap<>();
+		this.setStandardParameters(parameters);
+		parameters.put("titles", "Douglas Adams");
+		parameters.put("sites", "enwiki");
+		con.setWebResourceFromPath(parameters, getClass(),
+				"/wbgetentities-Douglas-Adams.json", CompressionType.NONE);
+		EntityDocument document = wdf.getEntityDocumentByTitle("enwiki", "Douglas Adams");
+		setRevisionResource("Q42", document.getRevisionId());
+		con.setWebResourceFromPath(parameters, getClass(),
+				"/wbgetentities-bogus.json", CompressionType.NONE);
+
+		assertSame(document, wdf.getEntityDocumentByTitle("enwiki", "Douglas Adams"));
+	}
+
+	@Test
+	public void testCachedMediaInfoId() throws IOException, MediaWikiApiErrorException {
+		wdf.setEntityDocumentCache(new EntityDocumentCache(1000000, Datamodel.SITE_WIKIMEDIA_COMMONS));
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put("action", "query");
+		parameters.put("format", "json");
+		parameters.put("titles", "File:Albert Einstein Head.jpg");
+		con.setWebResourceFromPath(parameters, getClass(),
+				"/query-Albert Einstein Head.jpg.json", CompressionType.NONE);
+		assertEquals("M925243", wdf.getMediaInfoIdByFileName("File:Albert Einstein Head.jpg").getId());
+		con.setWebResourceFromPath(parameters, getClass(),
+				"/query-Not Found.json", CompressionType.NONE);
+
+		assertEquals("M925243", wdf.getMediaInfoIdByFileName("File:Albert Einstein Head.jpg").getId());
+	}
+
+	private void setMediaInfoQuery(String titles, String path) throws IOException {
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put("action", "query");
+		parameters.put("format", "json");
+		parameters.put("titles", titles);
+		parameters.put("redirects", "");
+		con.setWebResourceFromPath(parameters, getClass(), path, CompressionType.NONE);
+	}
+
+	@Test
+	public void testGetMediaInfoIdsAsync() throws Exception {
+		setMediaInfoQuery("File:Cat.jpg", "/query-Cat.jpg.json");
+		setMediaInfoQuery("File:Albert Einstein Head.jpg", "/query-Albert Einstein Head.jpg.json");
+		setMediaInfoQuery("File:Not Found", "/query-Not Found.json");
+		PageIdIndex index = new PageIdIndex();
+		wdf.setPageIdIndex(index);
+		wdf.setMaxRetries(0);
+		wdf.maxListSize = 1;
+
+		Map<String, MediaInfoIdValue> result = wdf.getMediaInfoIdsByFileNameAsync(Arrays.asList(
+				"Cat.jpg", "File:Cat.jpg", "albert_Einstein_Head.jpg", "Not Found")).get();
+
+		assertEquals(3, result.size());
+		assertEquals("M32455073", result.get("Cat.jpg").getId());
+		assertEquals("M32455073", result.get("File:Cat.jpg").getId());
+		assertEquals("M925243", result.get("albert_Einstein_Head.jpg").getId());
+		assertEquals(32455073, index.get("File:Cat.jpg"));
+		assertEquals(925243, index.get("File:Albert Einstein Head.jpg"));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testGetMediaInfoIdsAsyncRedirect() throws Exception {
+		setMediaInfoQuery("File:Cat redirect.jpg", "/query-Cat redirect.jpg.json");
+		PageIdIndex index = new PageIdIndex();
+		wdf.setPageIdIndex(index);
+		wdf.setMaxRetries(0);
+
+		Map<String, MediaInfoIdValue> result = wdf.getMediaInfoIdsByFileNameAsync(
+				Collections.singletonList("Cat_redirect.jpg")).get();
+
+		assertEquals("M32455073", result.get("Cat_redirect.jpg").getId());
+		assertEquals(32455073, index.get("File:Cat redirect.jpg"));
+	}
+
+	@Test
+	public void testGetMediaInfoIdsAsyncFromIndex() throws Exception {
+		PageIdIndex index = new PageIdIndex();
+		index.put("File:Cat.jpg", 32455073);
+		wdf.setPageIdIndex(index);
+		wdf.setMaxRetries(0);
+
+		// no requests are mocked, so they would fail
+		Map<String, MediaInfoIdValue> result = wdf.getMediaInfoIdsByFileNameAsync(
+				Arrays.asList("Cat.jpg", "File:Cat.jpg")).get();
+
+		assertEquals(2, result.size());
+		assertEquals("M32455073", result.get("File:Cat.jpg").getId());
+		assertEquals(Datamodel.SITE_WIKIDATA, result.get("Cat.jpg").getSiteIri());
+	}
+
+	@Test
+	public void testGetMediaInfoIdsAsyncError() {
+		wdf.setMaxRetries(0);
+
+		try {
+			wdf.getMediaInfoIdsByFileNameAsync(Collections.singletonList("Cat.jpg")).get();
+			fail("Expected the request to fail");
+		} catch (InterruptedException | ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	@Test
+	public void testNormalizeFileName() {
+		assertEquals("File:Cat.jpg", WikibaseDataFetcher.normalizeFileName("cat.jpg"));
+		assertEquals("File:Cat.jpg", WikibaseDataFetcher.normalizeFileName("file:Cat.jpg"));
+		assertEquals("File:Albert Einstein Head.jpg",
+				WikibaseDataFetcher.normalizeFileName(" File:_Albert__Einstein Head.jpg "));
+		assertEquals("File:Élan.jpg", WikibaseDataFetcher.normalizeFileName("élan.jpg"));
+		assertEquals("File:", WikibaseDataFetcher.normalizeFileName(""));
+	}
+
 	private void setStandardParameters(Map<String, String> parameters) {
 		parameters.put("action", "wbgetentities");
 		parameters.put("format", "json");
@@ -407,4 +764,34 @@ public class WikibaseDataFetcherTest {
 		parameters.put("action", "wbsearchentities");
 		parameters.put("format", "json");
 	}
+
+	@Test
+	public void testGetEntityDocumentsOfSearchResults() throws IOException,
+			MediaWikiApiErrorException {
+		Map<String, String> parameters = new HashMap<>();
+		setStandardSearchParameters(parameters);
+		parameters.put("search", "life");
+		parameters.put("language", "en");
+		parameters.put("limit", "50");
+		con.setWebResource(parameters, "{\"search\":["
+				+ "{\"id\":\"Q42\"},{\"id\":\"Q6\"},{\"id\":\"P31\"},{\"id\":\"Q42\"}],"
+				+ "\"success\":1}");
+		parameters.clear();
+		setStandardParameters(parameters);
+		parameters.put("ids", "Q42|Q6|P31");
+		con.setWebResourceFromPath(parameters, this.getClass(),
+				"/wbgetentities-Q6-Q42-P31.json", CompressionType.NONE);
+
+		Map<String, EntityDocument> results = wdf.getEntityDocumentsOfSearchResults(
+				wdf.searchEntitiesStream("life", "en"));
+
+		// Q6 is missing in the data
+		assertEquals(Arrays.asList("Q42", "P31"), new ArrayList<>(results.keySet()));
+	}
+
+	@Test(expected = IOException.class)
+	public void testGetEntityDocumentsOfSearchResultsError() throws IOException,
+			MediaWikiApiErrorException {
+		wdf.getEntityDocumentsOfSearchResults(wdf.searchEntitiesStream("life", "en"));
+	}
 }
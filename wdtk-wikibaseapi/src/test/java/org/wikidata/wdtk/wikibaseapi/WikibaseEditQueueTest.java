@@ -0,0 +1,353 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2020 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.JsonSerializer;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.TermedStatementDocument;
+import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.wikibaseapi.apierrors.NoSuchEntityErrorException;
+
+public class WikibaseEditQueueTest {
+
+	static final String TOKEN = "42307b93c79b0cb558d2dfb4c3c92e0955e06041+\\";
+
+	MockBasicApiConnection con;
+	WikibaseDataEditor wde;
+	ItemIdValue Q5 = Datamodel.makeWikidataItemIdValue("Q5");
+	PropertyIdValue P31 = Datamodel.makeWikidataPropertyIdValue("P31");
+
+	@Before
+	public void setUp() throws IOException {
+		this.con = new MockBasicApiConnection();
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "query");
+		params.put("meta", "tokens");
+		params.put("type", "csrf");
+		params.put("format", "json");
+		this.con.setWebResourceFromPath(params, this.getClass(),
+				"/query-csrf-token-loggedin-response.json",
+				CompressionType.NONE);
+		this.wde = new WikibaseDataEditor(this.con, Datamodel.SITE_WIKIDATA,
+				new MockGuidGenerator("8372EF7A-B72C-7DE2-98D0-DFB4-8EC8392AC28E"));
+	}
+
+	private WikibaseEditQueue makeQueue() {
+		return new WikibaseEditQueue(wde, 4, new TokenBucket(1000, 10));
+	}
+
+	private void setDocumentsResource(String ids, ItemDocument... documents) {
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "wbgetentities");
+		params.put("format", "json");
+		params.put("props", "info|datatype|labels|aliases|descriptions|claims|sitelinks");
+		params.put("ids", ids);
+		StringBuilder result = new StringBuilder("{\"entities\":{");
+		for (int i = 0; i < documents.length; i++) {
+			if (i > 0) {
+				result.append(',');
+			}
+			result.append('"').append(documents[i].getEntityId().getId())
+					.append("\":").append(JsonSerializer.getJsonString(documents[i]));
+		}
+		con.setWebResource(params, result.append("},\"success\":1}").toString());
+	}
+
+	private void setLabelResource(String id, long baseRevisionId,
+			String language, String value) {
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "wbsetlabel");
+		params.put("id", id);
+		params.put("summary", "Adding a label");
+		params.put("token", TOKEN);
+		params.put("format", "json");
+		params.put("baserevid", Long.toString(baseRevisionId));
+		params.put("maxlag", "5");
+		params.put("language", language);
+		params.put("value", value);
+		con.setWebResource(params, "{\"entity\":{\"labels\":{\"" + language
+				+ "\":{\"language\":\"" + language + "\",\"value\":\"" + value + "\"}},"
+				+ "\"id\":\"" + id + "\",\"type\":\"item\",\"lastrevid\":"
+				+ (baseRevisionId + 1) + "},\"success\":1}");
+	}
+
+	private CompletableFuture<TermedStatementDocument> addLabel(
+			WikibaseEditQueue queue, ItemIdValue id, MonolingualTextValue label) {
+		return queue.updateTermsStatements(id, Collections.singletonList(label),
+				Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyList(), "Adding a label", Collections.emptyList());
+	}
+
+	@Test
+	public void testUpdateStatements() throws Exception {
+		String guid = "8372EF7A-B72C-7DE2-98D0-DFB4-8EC8392AC28E";
+		ItemIdValue id = Datamodel.makeWikidataItemIdValue("Q1234");
+		Statement s1 = StatementBuilder.forSubjectAndProperty(id, P31)
+				.withValue(Q5).build();
+		Statement s2 = StatementBuilder.forSubjectAndProperty(id, P31)
+				.withValue(Q5).withId("Q1234$" + guid).build();
+		setDocumentsResource("Q1234", ItemDocumentBuilder.forItemId(id)
+				.withRevisionId(1234).build());
+
+		String statementJson = JsonSerializer.getJsonString(s2);
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "wbsetclaim");
+		params.put("summary", "Adding a claim");
+		params.put("tags", "statement-creation");
+		params.put("token", TOKEN);
+		params.put("format", "json");
+		params.put("baserevid", "1234");
+		params.put("maxlag", "5");
+		params.put("claim", statementJson);
+		con.setWebResource(params, "{\"pageinfo\":{\"lastrevid\":1235},\"success\":1,\"claim\":"
+				+ statementJson + "}");
+
+		CompletableFuture<StatementDocument> result;
+		try (WikibaseEditQueue queue = makeQueue()) {
+			result = queue.updateStatements(id, Collections.singletonList(s1),
+					Collections.emptyList(), "Adding a claim",
+					Collections.singletonList("statement-creation"));
+		}
+
+		assertEquals(ItemDocumentBuilder.forItemId(id).withStatement(s2)
+				.withRevisionId(1235).build(), result.get());
+	}
+
+	@Test
+	public void testEmptyEdit() throws Exception {
+		ItemIdValue id = Datamodel.makeWikidataItemIdValue("Q1234");
+		Statement s1 = StatementBuilder.forSubjectAndProperty(id, P31)
+				.withValue(Q5).withId("ID-s1").build();
+		ItemDocument document = ItemDocumentBuilder.forItemId(id)
+				.withStatement(s1).withRevisionId(1234).build();
+		setDocumentsResource("Q1234", document);
+		Statement s1dup = StatementBuilder.forSubjectAndProperty(id, P31)
+				.withValue(Q5).build();
+
+		CompletableFuture<StatementDocument> result;
+		try (WikibaseEditQueue queue = makeQueue()) {
+			// no edit request is needed
+			result = queue.updateStatements(id, Collections.singletonList(s1dup),
+					Collections.emptyList(), "Nothing", Collections.emptyList());
+		}
+
+		assertEquals(document, result.get());
+	}
+
+	@Test
+	public void testSeveralEntities() throws Exception {
+		ItemIdValue q1 = Datamodel.makeWikidataItemIdValue("Q1");
+		ItemIdValue q2 = Datamodel.makeWikidataItemIdValue("Q2");
+		setDocumentsResource("Q1|Q2",
+				ItemDocumentBuilder.forItemId(q1).withRevisionId(10).build(),
+				ItemDocumentBuilder.forItemId(q2).withRevisionId(20).build());
+		setLabelResource("Q1", 10, "en", "one");
+		setLabelResource("Q2", 20, "en", "two");
+
+		CompletableFuture<TermedStatementDocument> result1;
+		CompletableFuture<TermedStatementDocument> result2;
+		try (WikibaseEditQueue queue = makeQueue()) {
+			result1 = addLabel(queue, q1, Datamodel.makeMonolingualTextValue("one", "en"));
+			result2 = addLabel(queue, q2, Datamodel.makeMonolingualTextValue("two", "en"));
+		}
+
+		assertEquals("one", result1.get().findLabel("en"));
+		assertEquals(11, result1.get().getRevisionId());
+		assertEquals("two", result2.get().findLabel("en"));
+		assertEquals(21, result2.get().getRevisionId());
+	}
+
+	@Test
+	public void testEditsOfSameEntityAreChained() throws Exception {
+		ItemIdValue id = Datamodel.makeWikidataItemIdValue("Q1234");
+		setDocumentsResource("Q1234", ItemDocumentBuilder.forItemId(id)
+				.withRevisionId(1234).build());
+		setLabelResource("Q1234", 1234, "en", "label");
+		setLabelResource("Q1234", 1235, "de", "Bezeichnung");
+
+		CompletableFuture<TermedStatementDocument> result;
+		try (WikibaseEditQueue queue = makeQueue()) {
+			addLabel(queue, id, Datamodel.makeMonolingualTextValue("label", "en"));
+			result = addLabel(queue, id, Datamodel.makeMonolingualTextValue("Bezeichnung", "de"));
+		}
+
+		assertEquals("label", result.get().findLabel("en"));
+		assertEquals("Bezeichnung", result.get().findLabel("de"));
+		assertEquals(1236, result.get().getRevisionId());
+	}
+
+	@Test
+	public void testBatches() throws Exception {
+		ItemIdValue q1 = Datamodel.makeWikidataItemIdValue("Q1");
+		ItemIdValue q2 = Datamodel.makeWikidataItemIdValue("Q2");
+		setDocumentsResource("Q1", ItemDocumentBuilder.forItemId(q1).withRevisionId(10).build());
+		setDocumentsResource("Q2", ItemDocumentBuilder.forItemId(q2).withRevisionId(20).build());
+		setLabelResource("Q1", 10, "en", "one");
+		setLabelResource("Q2", 20, "en", "two");
+
+		try (WikibaseEditQueue queue = makeQueue()) {
+			queue.setBatchSize(1);
+			assertEquals(1, queue.getBatchSize());
+			// full batches are sent without flushing
+			assertEquals("one", addLabel(queue, q1,
+					Datamodel.makeMonolingualTextValue("one", "en")).get().findLabel("en"));
+			assertEquals("two", addLabel(queue, q2,
+					Datamodel.makeMonolingualTextValue("two", "en")).get().findLabel("en"));
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testSmallPendingLimit() throws Exception {
+		ItemIdValue q1 = Datamodel.makeWikidataItemIdValue("Q1");
+		ItemIdValue q2 = Datamodel.makeWikidataItemIdValue("Q2");
+		ItemIdValue q3 = Datamodel.makeWikidataItemIdValue("Q3");
+		ItemIdValue q4 = Datamodel.makeWikidataItemIdValue("Q4");
+		setDocumentsResource("Q1|Q2",
+				ItemDocumentBuilder.forItemId(q1).withRevisionId(10).build(),
+				ItemDocumentBuilder.forItemId(q2).withRevisionId(20).build());
+		setDocumentsResource("Q3", ItemDocumentBuilder.forItemId(q3).withRevisionId(30).build());
+		setDocumentsResource("Q4", ItemDocumentBuilder.forItemId(q4).withRevisionId(40).build());
+		setLabelResource("Q1", 10, "en", "one");
+		setLabelResource("Q2", 20, "en", "two");
+		setLabelResource("Q3", 30, "en", "three");
+		setLabelResource("Q4", 40, "en", "four");
+
+		CompletableFuture<TermedStatementDocument> result3;
+		CompletableFuture<TermedStatementDocument> result4;
+		try (WikibaseEditQueue queue = makeQueue()) {
+			queue.setBatchSize(2);
+			queue.setMaxPendingEdits(3);
+			addLabel(queue, q1, Datamodel.makeMonolingualTextValue("one", "en"));
+			addLabel(queue, q2, Datamodel.makeMonolingualTextValue("two", "en"));
+			result3 = addLabel(queue, q3, Datamodel.makeMonolingualTextValue("three", "en"));
+			// the incomplete batch with Q3 is sent while waiting
+			result4 = addLabel(queue, q4, Datamodel.makeMonolingualTextValue("four", "en"));
+			assertEquals("three", result3.get().findLabel("en"));
+		}
+		assertEquals("four", result4.get().findLabel("en"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPendingLimitBelowBatchSize() {
+		try (WikibaseEditQueue queue = makeQueue()) {
+			queue.setMaxPendingEdits(49);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchSizeAbovePendingLimit() {
+		try (WikibaseEditQueue queue = makeQueue()) {
+			queue.setBatchSize(2);
+			queue.setMaxPendingEdits(2);
+			queue.setBatchSize(3);
+		}
+	}
+
+	@Test
+	public void testMissingEntity() throws Exception {
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "wbgetentities");
+		params.put("format", "json");
+		params.put("props", "info|datatype|labels|aliases|descriptions|claims|sitelinks");
+		params.put("ids", "Q6");
+		con.setWebResourceFromPath(params, getClass(),
+				"/wbgetentities-Q6-Q42-P31.json", CompressionType.NONE);
+
+		CompletableFuture<TermedStatementDocument> result;
+		try (WikibaseEditQueue queue = makeQueue()) {
+			result = addLabel(queue, Datamodel.makeWikidataItemIdValue("Q6"),
+					Datamodel.makeMonolingualTextValue("six", "en"));
+		}
+
+		try {
+			result.get();
+			fail("Expected the edit to fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof NoSuchEntityErrorException);
+		}
+	}
+
+	@Test
+	public void testFetchError() throws Exception {
+		CompletableFuture<TermedStatementDocument> result;
+		try (WikibaseEditQueue queue = makeQueue()) {
+			// the request is not mocked
+			result = addLabel(queue, Datamodel.makeWikidataItemIdValue("Q6"),
+					Datamodel.makeMonolingualTextValue("six", "en"));
+		}
+
+		try {
+			result.get();
+			fail("Expected the edit to fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	@Test
+	public void testSettingsAreCopied() {
+		wde.setMaxLag(3);
+		wde.setRemainingEdits(0);
+		TokenBucket rateLimiter = new TokenBucket(1, 1);
+		try (WikibaseEditQueue queue = new WikibaseEditQueue(wde, 1, rateLimiter)) {
+			assertEquals(3, queue.wbEditingAction.getMaxLag());
+			assertEquals(0, queue.wbEditingAction.getRemainingEdits());
+			assertSame(rateLimiter, queue.wbEditingAction.getRateLimiter());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClosed() {
+		WikibaseEditQueue queue = makeQueue();
+		queue.close();
+		addLabel(queue, Q5, Datamodel.makeMonolingualTextValue("human", "en"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBatchSize() {
+		try (WikibaseEditQueue queue = makeQueue()) {
+			queue.setBatchSize(51);
+		}
+	}
+}